@@ -0,0 +1,94 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SwerveConstants;
+
+/**
+ * Compares WPILib's SwerveDriveKinematics and SwerveDriveKinematicsBCR on the DriveTrain.setModuleStates() path
+ * (forward kinematics, discretize, inverse kinematics, desaturate), on the same random module states.
+ * SwerveDriveKinematicsBCRTest checks that the two give the same results.
+ * <p> Run from the desktop with:  ./gradlew jmh
+ * <p> The gc profiler (set in build.gradle) also reports the bytes allocated per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KinematicsBenchmark {
+  private static final int kInputCount = 1024;
+
+  private final SwerveDriveKinematics wpiKinematics = new SwerveDriveKinematics(DriveConstants.kModuleLocations);
+  private final SwerveDriveKinematicsBCR kinematics = new SwerveDriveKinematicsBCR(DriveConstants.kModuleLocations);
+  private final Translation2d centerOfRotation = new Translation2d();
+  private final double[] speeds = new double[4];
+  private final double[] angles = new double[4];
+  private final double[] chassis = new double[3];
+
+  private SwerveModuleState[][] inputs;
+  private double[][] inputSpeeds;
+  private double[][] inputAngles;
+  private int next = 0;
+
+  @Setup
+  public void createInputs() {
+    // Same random module states for both
+    Random random = new Random(1);
+    inputs = new SwerveModuleState[kInputCount][4];
+    inputSpeeds = new double[kInputCount][4];
+    inputAngles = new double[kInputCount][4];
+    for (int n = 0; n < kInputCount; n++) {
+      for (int i = 0; i < 4; i++) {
+        inputSpeeds[n][i] = (random.nextDouble() * 2 - 1) * SwerveConstants.kMaxSpeedMetersPerSecond;
+        inputAngles[n][i] = (random.nextDouble() * 2 - 1) * Math.PI;
+        inputs[n][i] = new SwerveModuleState(inputSpeeds[n][i], new Rotation2d(inputAngles[n][i]));
+      }
+    }
+  }
+
+  @Benchmark
+  public SwerveModuleState[] wpilib() {
+    next = (next + 1) % kInputCount;
+    ChassisSpeeds chassisSpeeds = wpiKinematics.toChassisSpeeds(inputs[next]);
+    chassisSpeeds = ChassisSpeeds.discretize(chassisSpeeds, SwerveConstants.dt);
+    SwerveModuleState[] states = wpiKinematics.toSwerveModuleStates(chassisSpeeds, centerOfRotation);
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, SwerveConstants.kMaxSpeedMetersPerSecond);
+    return states;
+  }
+
+  @Benchmark
+  public void bcr(Blackhole blackhole) {
+    next = (next + 1) % kInputCount;
+    kinematics.toChassisSpeeds(inputSpeeds[next], inputAngles[next], chassis);
+    SwerveDriveKinematicsBCR.discretize(chassis, SwerveConstants.dt);
+    kinematics.toModuleStates(chassis[0], chassis[1], chassis[2], speeds, angles);
+    SwerveDriveKinematicsBCR.desaturate(speeds, SwerveConstants.kMaxSpeedMetersPerSecond);
+    blackhole.consume(speeds);
+    blackhole.consume(angles);
+  }
+}
@@ -0,0 +1,98 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.logtools;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes query results as one binary file per column, for plotting tools
+ * (ex. numpy.fromfile(name, dtype="<f8")).
+ * <p> Each column is written to "column.f64" as little-endian 64-bit floats, one per row.
+ * Missing values are NaN.  "manifest.json" lists the columns, their files, and the row count.
+ * Rows are streamed to the files, so memory use does not depend on the number of rows.
+ */
+class ColumnarExporter implements Closeable {
+	private final File directory;
+	private final String source;
+	private final String[] columns;
+	private final String[] fileNames;
+	private final OutputStream[] outputs;
+	private final byte[] bytes = new byte[8];
+	private long rows = 0;
+
+	/**
+	 * @param directory output directory (created if needed)
+	 * @param source description of the data (written to the manifest)
+	 * @param columns column names.  The first column is usually the time.
+	 */
+	ColumnarExporter(File directory, String source, String[] columns) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create " + directory);
+		}
+		this.directory = directory;
+		this.source = source;
+		this.columns = columns;
+		fileNames = new String[columns.length];
+		outputs = new OutputStream[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			fileNames[i] = columns[i].replaceAll("[^A-Za-z0-9_.-]", "_") + ".f64";
+			outputs[i] = new BufferedOutputStream(new FileOutputStream(new File(directory, fileNames[i])), 65536);
+		}
+	}
+
+	/**
+	 * Writes one row.
+	 * @param values one value per column
+	 */
+	void writeRow(double[] values) throws IOException {
+		for (int i = 0; i < columns.length; i++) {
+			long bits = Double.doubleToRawLongBits(values[i]);
+			for (int b = 0; b < 8; b++) {
+				bytes[b] = (byte) (bits >>> (8 * b));
+			}
+			outputs[i].write(bytes);
+		}
+		rows++;
+	}
+
+	/**
+	 * Closes the column files and writes the manifest.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (OutputStream out : outputs) {
+			out.close();
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(directory, "manifest.json"), StandardCharsets.UTF_8)) {
+			out.println("{");
+			out.println("  \"source\": " + quote(source) + ",");
+			out.println("  \"rows\": " + rows + ",");
+			out.println("  \"dtype\": \"float64\",");
+			out.println("  \"byteOrder\": \"little\",");
+			out.println("  \"columns\": [");
+			for (int i = 0; i < columns.length; i++) {
+				out.println("    {\"name\": " + quote(columns[i]) + ", \"file\": " + quote(fileNames[i]) + "}"
+					+ (i + 1 < columns.length ? "," : ""));
+			}
+			out.println("  ]");
+			out.println("}");
+		}
+	}
+
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
@@ -0,0 +1,201 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.logtools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Sparse index of a FileLog file, saved next to the log as "logname.idx".
+ * <p> The log is split into blocks of about BLOCK_BYTES.  For each block the index records
+ * the offset of its first line, its earliest and latest timestamps, and which
+ * "subsystem,event" keys appear in it.  A query only reads the blocks that can contain
+ * matching lines.  The index is a few bytes per block, so it stays small for large logs.
+ */
+class LogIndex {
+	static final int BLOCK_BYTES = 64 * 1024;
+	private static final int MAGIC = 0x464C4958;		// "FLIX"
+	private static final int VERSION = 1;
+
+	private long sourceLength;
+	private long sourceModified;
+
+	final List<String> keys = new ArrayList<>();			// "subsystem,event"
+	private final HashMap<String, Integer> keyIds = new HashMap<>();
+
+	int blockCount = 0;
+	long[] blockOffset = new long[64];
+	long[] blockMinTime = new long[64];
+	long[] blockMaxTime = new long[64];
+	long[][] blockKeys = new long[64][];					// Bitset of key ids in each block
+	long dataLength;										// Uncompressed length of the log
+
+	/**
+	 * Loads the index for a log file, or builds and saves it if it is missing or out of date.
+	 * @param logFile log file (.csv or .csv.gz)
+	 * @return index
+	 */
+	static LogIndex open(File logFile) throws IOException {
+		File indexFile = indexFileFor(logFile);
+		if (indexFile.exists()) {
+			try {
+				LogIndex index = load(indexFile);
+				if (index.sourceLength == logFile.length() && index.sourceModified == logFile.lastModified()) {
+					return index;
+				}
+			} catch (IOException exception) {
+				// Rebuild a bad index
+			}
+		}
+
+		LogIndex index = build(logFile);
+		index.save(indexFile);
+		return index;
+	}
+
+	static File indexFileFor(File logFile) {
+		return new File(logFile.getPath() + ".idx");
+	}
+
+	/**
+	 * Reads a log file and builds its index.
+	 * @param logFile log file (.csv or .csv.gz)
+	 * @return index
+	 */
+	static LogIndex build(File logFile) throws IOException {
+		LogIndex index = new LogIndex();
+		index.sourceLength = logFile.length();
+		index.sourceModified = logFile.lastModified();
+
+		LogLine line = new LogLine();
+		long[] bits = new long[4];
+		long blockStart = -1, minTime = Long.MAX_VALUE, maxTime = Long.MIN_VALUE;
+
+		try (LogReader reader = new LogReader(logFile)) {
+			while (reader.readLine()) {
+				if (blockStart < 0 || reader.lineOffset - blockStart >= BLOCK_BYTES) {
+					if (blockStart >= 0) index.addBlock(blockStart, minTime, maxTime, bits);
+					blockStart = reader.lineOffset;
+					minTime = Long.MAX_VALUE;
+					maxTime = Long.MIN_VALUE;
+					Arrays.fill(bits, 0);
+				}
+
+				if (!line.parse(reader.line, reader.lineLength)) continue;
+				minTime = Math.min(minTime, line.timeMillis);
+				maxTime = Math.max(maxTime, line.timeMillis);
+
+				int id = index.keyId(line.getKey(), true);
+				if ((id >> 6) >= bits.length) bits = Arrays.copyOf(bits, bits.length * 2);
+				bits[id >> 6] |= 1L << (id & 63);
+			}
+			if (blockStart >= 0) index.addBlock(blockStart, minTime, maxTime, bits);
+			index.dataLength = reader.getOffset();
+		}
+		return index;
+	}
+
+	private void addBlock(long offset, long minTime, long maxTime, long[] bits) {
+		if (blockCount == blockOffset.length) {
+			int capacity = blockCount * 2;
+			blockOffset = Arrays.copyOf(blockOffset, capacity);
+			blockMinTime = Arrays.copyOf(blockMinTime, capacity);
+			blockMaxTime = Arrays.copyOf(blockMaxTime, capacity);
+			blockKeys = Arrays.copyOf(blockKeys, capacity);
+		}
+		int words = bits.length;
+		while (words > 0 && bits[words - 1] == 0) words--;
+		blockOffset[blockCount] = offset;
+		blockMinTime[blockCount] = minTime;
+		blockMaxTime[blockCount] = maxTime;
+		blockKeys[blockCount] = Arrays.copyOf(bits, words);
+		blockCount++;
+	}
+
+	/**
+	 * Gets the id for a key.
+	 * @param key "subsystem,event"
+	 * @param create true = add the key if it is not in the index
+	 * @return id, or -1 if the key is not in the index
+	 */
+	int keyId(String key, boolean create) {
+		Integer id = keyIds.get(key);
+		if (id != null) return id;
+		if (!create) return -1;
+		keys.add(key);
+		keyIds.put(key, keys.size() - 1);
+		return keys.size() - 1;
+	}
+
+	/**
+	 * @return true = block may contain lines for the key in the time range
+	 */
+	boolean blockMatches(int block, int keyId, long fromMillis, long toMillis) {
+		long[] bits = blockKeys[block];
+		int word = keyId >> 6;
+		return word < bits.length && (bits[word] & (1L << (keyId & 63))) != 0
+			&& blockMaxTime[block] >= fromMillis && blockMinTime[block] <= toMillis;
+	}
+
+	/**
+	 * @return offset of the end of a block
+	 */
+	long blockEnd(int block) {
+		return (block + 1 < blockCount) ? blockOffset[block + 1] : dataLength;
+	}
+
+	private void save(File indexFile) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(sourceLength);
+			out.writeLong(sourceModified);
+			out.writeLong(dataLength);
+			out.writeInt(keys.size());
+			for (String key : keys) out.writeUTF(key);
+			out.writeInt(blockCount);
+			for (int b = 0; b < blockCount; b++) {
+				out.writeLong(blockOffset[b]);
+				out.writeLong(blockMinTime[b]);
+				out.writeLong(blockMaxTime[b]);
+				out.writeShort(blockKeys[b].length);
+				for (long word : blockKeys[b]) out.writeLong(word);
+			}
+		}
+	}
+
+	private static LogIndex load(File indexFile) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a log index");
+			LogIndex index = new LogIndex();
+			index.sourceLength = in.readLong();
+			index.sourceModified = in.readLong();
+			index.dataLength = in.readLong();
+			int keyCount = in.readInt();
+			for (int i = 0; i < keyCount; i++) index.keyId(in.readUTF(), true);
+			int blocks = in.readInt();
+			for (int b = 0; b < blocks; b++) {
+				long offset = in.readLong(), minTime = in.readLong(), maxTime = in.readLong();
+				long[] bits = new long[in.readUnsignedShort()];
+				for (int i = 0; i < bits.length; i++) bits[i] = in.readLong();
+				index.addBlock(offset, minTime, maxTime, bits);
+			}
+			return index;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.logtools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One parsed line of a FileLog file:  "yyyy-MM-dd HH:mm:ss.SSS,subsystem,event,name,value,name,value,..."
+ * <p> Fields are kept as positions in the reader's line buffer, so parsing a line does not
+ * allocate.  Strings are only created for the fields that are used.
+ * The object is reused for each line.
+ */
+class LogLine {
+	private byte[] line;
+	private int[] fieldStart = new int[32];
+	private int[] fieldEnd = new int[32];
+	private int fieldCount;
+
+	/** Time of the line, in ms.  The date and time are treated as UTC, so only differences are meaningful. */
+	long timeMillis;
+
+	/**
+	 * Parses a line.
+	 * @param line buffer holding the line
+	 * @param length length of the line
+	 * @return false = not a log record (separator line, blank line, or bad timestamp)
+	 */
+	boolean parse(byte[] line, int length) {
+		this.line = line;
+		fieldCount = 0;
+		int start = 0;
+		for (int i = 0; i <= length; i++) {
+			if (i == length || line[i] == ',') {
+				if (fieldCount == fieldStart.length) {
+					fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+					fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+				}
+				fieldStart[fieldCount] = start;
+				fieldEnd[fieldCount] = i;
+				fieldCount++;
+				start = i + 1;
+			}
+		}
+		// FileLog writes a trailing comma when there are no parameters
+		if (fieldCount > 3 && fieldStart[fieldCount - 1] == fieldEnd[fieldCount - 1]) {
+			fieldCount--;
+		}
+		return fieldCount >= 3 && parseTime();
+	}
+
+	/**
+	 * Parses "yyyy-MM-dd HH:mm:ss.SSS" in field 0.
+	 */
+	private boolean parseTime() {
+		int p = fieldStart[0];
+		if (fieldEnd[0] - p != 23) return false;
+		int year = digits(p, 4), month = digits(p + 5, 2), day = digits(p + 8, 2);
+		int hour = digits(p + 11, 2), minute = digits(p + 14, 2), second = digits(p + 17, 2), ms = digits(p + 20, 3);
+		if ((year | month | day | hour | minute | second | ms) < 0) return false;
+		timeMillis = (((daysFromCivil(year, month, day) * 24 + hour) * 60 + minute) * 60 + second) * 1000 + ms;
+		return true;
+	}
+
+	private int digits(int p, int n) {
+		int value = 0;
+		for (int i = 0; i < n; i++) {
+			int d = line[p + i] - '0';
+			if (d < 0 || d > 9) return -1;
+			value = value * 10 + d;
+		}
+		return value;
+	}
+
+	/** Days since 1970-01-01 for a date in the proleptic Gregorian calendar */
+	private static long daysFromCivil(int year, int month, int day) {
+		year -= (month <= 2) ? 1 : 0;
+		int era = (year >= 0 ? year : year - 399) / 400;
+		int yearOfEra = year - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	/**
+	 * @return number of fields, including the time, subsystem, and event
+	 */
+	int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * @return field i as a String
+	 */
+	String getField(int i) {
+		return new String(line, fieldStart[i], fieldEnd[i] - fieldStart[i], StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * @return "subsystem,event" key for this line
+	 */
+	String getKey() {
+		return new String(line, fieldStart[1], fieldEnd[2] - fieldStart[1], StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Returns true if field i equals a string (ASCII), without creating a String.
+	 */
+	boolean fieldEquals(int i, byte[] value) {
+		int length = fieldEnd[i] - fieldStart[i];
+		if (length != value.length) return false;
+		for (int j = 0; j < length; j++) {
+			if (line[fieldStart[i] + j] != value[j]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the value for a parameter name.
+	 * @param name parameter name, as ASCII bytes
+	 * @return index of the value field, or -1 if the name is not in this line
+	 */
+	int findValue(byte[] name) {
+		for (int i = 3; i + 1 < fieldCount; i += 2) {
+			if (fieldEquals(i, name)) return i + 1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns field i as a number.  "true" and "false" are returned as 1 and 0.
+	 * @return value, or NaN if the field is not a number
+	 */
+	double getNumber(int i) {
+		int length = fieldEnd[i] - fieldStart[i];
+		if (length == 0) return Double.NaN;
+		byte first = line[fieldStart[i]];
+		if (first == 't' && length == 4) return 1;
+		if (first == 'f' && length == 5) return 0;
+		try {
+			return Double.parseDouble(getField(i));
+		} catch (NumberFormatException exception) {
+			return Double.NaN;
+		}
+	}
+}
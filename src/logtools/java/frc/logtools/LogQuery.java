@@ -0,0 +1,97 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.logtools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the lines of a FileLog file for one subsystem and event in a time range,
+ * using a LogIndex to skip blocks that can not match.
+ */
+class LogQuery {
+	/** Receives matching lines.  The line is reused, so copy anything that is needed later. */
+	interface LineHandler {
+		/**
+		 * @param line matching line
+		 * @return false = stop the query
+		 */
+		boolean handle(LogLine line) throws IOException;
+	}
+
+	private final File logFile;
+	private final LogIndex index;
+
+	/**
+	 * @param logFile log file (.csv or .csv.gz)
+	 * @param index index for the log file
+	 */
+	LogQuery(File logFile, LogIndex index) {
+		this.logFile = logFile;
+		this.index = index;
+	}
+
+	/**
+	 * Sends each line for a subsystem and event in a time range to a handler, in file order.
+	 * @param subsystem subsystem or command name
+	 * @param event event name
+	 * @param fromMillis start of the time range (LogLine time, inclusive)
+	 * @param toMillis end of the time range (LogLine time, inclusive)
+	 * @param handler receives the matching lines
+	 */
+	void scan(String subsystem, String event, long fromMillis, long toMillis, LineHandler handler) throws IOException {
+		int keyId = index.keyId(subsystem + "," + event, false);
+		if (keyId < 0) return;
+
+		byte[] subsystemBytes = subsystem.getBytes(StandardCharsets.ISO_8859_1);
+		byte[] eventBytes = event.getBytes(StandardCharsets.ISO_8859_1);
+		LogLine line = new LogLine();
+
+		try (LogReader reader = new LogReader(logFile)) {
+			for (int block = 0; block < index.blockCount; block++) {
+				if (!index.blockMatches(block, keyId, fromMillis, toMillis)) continue;
+
+				long end = index.blockEnd(block);
+				reader.seek(index.blockOffset[block]);
+				while (reader.getOffset() < end && reader.readLine()) {
+					if (!line.parse(reader.line, reader.lineLength)) continue;
+					if (line.timeMillis < fromMillis || line.timeMillis > toMillis) continue;
+					if (!line.fieldEquals(1, subsystemBytes) || !line.fieldEquals(2, eventBytes)) continue;
+					if (!handler.handle(line)) return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the time of the first line for a subsystem and event.
+	 * @param subsystem subsystem or command name
+	 * @param event event name
+	 * @return time of the first matching line, or Long.MIN_VALUE if there is none
+	 */
+	long findFirst(String subsystem, String event) throws IOException {
+		long[] time = {Long.MIN_VALUE};
+		scan(subsystem, event, Long.MIN_VALUE, Long.MAX_VALUE, line -> {
+			time[0] = line.timeMillis;
+			return false;
+		});
+		return time[0];
+	}
+
+	/**
+	 * @return earliest time in the log, or Long.MIN_VALUE if the log has no records
+	 */
+	long getStartTime() {
+		long start = Long.MAX_VALUE;
+		for (int block = 0; block < index.blockCount; block++) {
+			start = Math.min(start, index.blockMinTime[block]);
+		}
+		return (start == Long.MAX_VALUE) ? Long.MIN_VALUE : start;
+	}
+}
@@ -0,0 +1,118 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.logtools;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a FileLog file (.csv or .csv.gz) one line at a time, keeping track of the
+ * byte offset of each line in the uncompressed data.
+ * <p> Uses a fixed size buffer, so memory use does not depend on the size of the file.
+ * Plain files can seek anywhere.  Compressed files can only seek forward (the skipped data
+ * is still decompressed).
+ */
+class LogReader implements Closeable {
+	private final FileInputStream fileIn;
+	private final InputStream in;
+	private final boolean compressed;
+
+	private final byte[] buffer = new byte[65536];
+	private int bufferPos = 0;
+	private int bufferLength = 0;
+	private long bufferOffset = 0;			// Offset of buffer[0] in the uncompressed data
+
+	// Current line, without the line ending
+	byte[] line = new byte[1024];
+	int lineLength = 0;
+	long lineOffset = 0;
+
+	/**
+	 * Opens a log file.  Files ending in ".gz" are decompressed.
+	 * @param file log file
+	 */
+	LogReader(File file) throws IOException {
+		compressed = file.getName().endsWith(".gz");
+		fileIn = new FileInputStream(file);
+		in = compressed ? new GZIPInputStream(fileIn, buffer.length) : fileIn;
+	}
+
+	/**
+	 * @return offset of the next unread byte in the uncompressed data
+	 */
+	long getOffset() {
+		return bufferOffset + bufferPos;
+	}
+
+	/**
+	 * Reads the next line into line[0 .. lineLength-1].
+	 * @return false = end of file
+	 */
+	boolean readLine() throws IOException {
+		lineOffset = getOffset();
+		lineLength = 0;
+		while (true) {
+			if (bufferPos >= bufferLength && !fill()) {
+				return lineLength > 0;
+			}
+			byte b = buffer[bufferPos++];
+			if (b == '\n') return true;
+			if (b == '\r') continue;
+			if (lineLength == line.length) {
+				line = Arrays.copyOf(line, line.length * 2);
+			}
+			line[lineLength++] = b;
+		}
+	}
+
+	/**
+	 * Moves to an offset in the uncompressed data.
+	 * @param offset offset of the start of a line (from lineOffset or a LogIndex block)
+	 */
+	void seek(long offset) throws IOException {
+		if (offset >= bufferOffset && offset <= bufferOffset + bufferLength) {
+			bufferPos = (int) (offset - bufferOffset);
+			return;
+		}
+
+		if (!compressed) {
+			fileIn.getChannel().position(offset);
+		} else {
+			long consumed = bufferOffset + bufferLength;
+			if (offset < consumed) {
+				throw new IOException("Can not seek backwards in a compressed log file");
+			}
+			for (long remaining = offset - consumed; remaining > 0; ) {
+				long skipped = in.skip(remaining);
+				if (skipped <= 0) throw new EOFException("Seek past end of log file");
+				remaining -= skipped;
+			}
+		}
+		bufferOffset = offset;
+		bufferPos = 0;
+		bufferLength = 0;
+	}
+
+	private boolean fill() throws IOException {
+		bufferOffset += bufferLength;
+		bufferPos = 0;
+		bufferLength = Math.max(0, in.read(buffer));
+		return bufferLength > 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,168 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.logtools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Desktop tool for FileLog files (.csv or .csv.gz).  Not deployed to the robot.
+ * <p> Run with:  ./gradlew logTool --args="command logfile ..."
+ * <pre>
+ *   index logfile                         Build (or rebuild) the index for a log file
+ *   keys logfile                          List the subsystem,event pairs in a log file
+ *   query logfile subsystem event [options]
+ *       --columns "name1,name2"           Parameter names to output (default = all names in the first matching line)
+ *       --anchor "subsystem/event"        Times are relative to the first line for this event (default = start of log)
+ *       --start sec  --end sec            Time range, in seconds relative to the anchor (default = whole log)
+ *       --export dir                      Write the columns to dir as .f64 files plus manifest.json, instead of printing CSV
+ * </pre>
+ * Example:  query logfile.csv Drive "Update Variables" --anchor "Auto/Mode Init" --start 0 --end 15 --columns "Odometry X,Odometry Y"
+ */
+public class LogTool {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			usage();
+			return;
+		}
+
+		File logFile = new File(args[1]);
+		switch (args[0]) {
+			case "index":
+				LogIndex.indexFileFor(logFile).delete();
+				LogIndex index = LogIndex.open(logFile);
+				System.out.println("Indexed " + logFile + ": " + index.blockCount + " blocks, " + index.keys.size() + " keys");
+				break;
+			case "keys":
+				for (String key : LogIndex.open(logFile).keys) {
+					System.out.println(key);
+				}
+				break;
+			case "query":
+				if (args.length < 4) {
+					usage();
+					return;
+				}
+				query(logFile, args);
+				break;
+			default:
+				usage();
+		}
+	}
+
+	private static void query(File logFile, String[] args) throws IOException {
+		String subsystem = args[2], event = args[3];
+		String columnList = null, anchor = null, exportDir = null;
+		double startSec = Double.NEGATIVE_INFINITY, endSec = Double.POSITIVE_INFINITY;
+		for (int i = 4; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+				case "--columns": columnList = args[i + 1]; break;
+				case "--anchor": anchor = args[i + 1]; break;
+				case "--start": startSec = Double.parseDouble(args[i + 1]); break;
+				case "--end": endSec = Double.parseDouble(args[i + 1]); break;
+				case "--export": exportDir = args[i + 1]; break;
+				default:
+					usage();
+					return;
+			}
+		}
+
+		LogQuery query = new LogQuery(logFile, LogIndex.open(logFile));
+
+		long anchorMillis = query.getStartTime();
+		if (anchor != null) {
+			int slash = anchor.indexOf('/');
+			anchorMillis = (slash < 0) ? Long.MIN_VALUE : query.findFirst(anchor.substring(0, slash), anchor.substring(slash + 1));
+			if (anchorMillis == Long.MIN_VALUE) {
+				System.err.println("Anchor event not found: " + anchor);
+				return;
+			}
+		}
+		long fromMillis = Double.isInfinite(startSec) ? Long.MIN_VALUE : anchorMillis + Math.round(startSec * 1000);
+		long toMillis = Double.isInfinite(endSec) ? Long.MAX_VALUE : anchorMillis + Math.round(endSec * 1000);
+
+		String[] columns = (columnList != null) ? columnList.split(",") : defaultColumns(query, subsystem, event, fromMillis, toMillis);
+		if (columns.length == 0) {
+			System.err.println("No lines found for " + subsystem + "," + event);
+			return;
+		}
+		byte[][] names = new byte[columns.length][];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = columns[i].trim();
+			names[i] = columns[i].getBytes(StandardCharsets.ISO_8859_1);
+		}
+
+		// Column 0 is the time in seconds from the anchor
+		String[] outputColumns = new String[columns.length + 1];
+		outputColumns[0] = "Time sec";
+		System.arraycopy(columns, 0, outputColumns, 1, columns.length);
+		double[] row = new double[outputColumns.length];
+		final long timeZero = anchorMillis;
+
+		if (exportDir != null) {
+			try (ColumnarExporter exporter = new ColumnarExporter(new File(exportDir),
+					logFile.getName() + " " + subsystem + "," + event, outputColumns)) {
+				query.scan(subsystem, event, fromMillis, toMillis, line -> {
+					fillRow(line, names, timeZero, row);
+					exporter.writeRow(row);
+					return true;
+				});
+			}
+		} else {
+			PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 65536));
+			out.println(String.join(",", outputColumns));
+			query.scan(subsystem, event, fromMillis, toMillis, line -> {
+				fillRow(line, names, timeZero, row);
+				out.print(row[0]);
+				for (int i = 1; i < row.length; i++) {
+					out.print(',');
+					if (!Double.isNaN(row[i])) out.print(row[i]);
+				}
+				out.println();
+				return true;
+			});
+			out.flush();
+		}
+	}
+
+	private static void fillRow(LogLine line, byte[][] names, long timeZero, double[] row) {
+		row[0] = (line.timeMillis - timeZero) / 1000.0;
+		for (int i = 0; i < names.length; i++) {
+			int field = line.findValue(names[i]);
+			row[i + 1] = (field < 0) ? Double.NaN : line.getNumber(field);
+		}
+	}
+
+	/**
+	 * @return parameter names in the first matching line
+	 */
+	private static String[] defaultColumns(LogQuery query, String subsystem, String event, long fromMillis, long toMillis) throws IOException {
+		String[][] columns = {new String[0]};
+		query.scan(subsystem, event, fromMillis, toMillis, line -> {
+			int count = (line.getFieldCount() - 3) / 2;
+			columns[0] = new String[count];
+			for (int i = 0; i < count; i++) {
+				columns[0][i] = line.getField(3 + 2 * i);
+			}
+			return false;
+		});
+		return columns[0];
+	}
+
+	private static void usage() {
+		System.out.println("Usage:");
+		System.out.println("  index logfile");
+		System.out.println("  keys logfile");
+		System.out.println("  query logfile subsystem event [--columns \"a,b\"] [--anchor \"subsystem/event\"] [--start sec] [--end sec] [--export dir]");
+	}
+}
@@ -89,6 +89,69 @@ public final class Constants {
       public static final int DIOIntakePieceSensor = 9;
     }
 
+    public static final class LogConstants {
+      // Log file formats
+      public static final boolean writeCSV = true;            // true = write the text .csv log file
+      public static final boolean writeDataLog = false;       // true = also write a WPILib DataLog .wpilog file (typed entries, opens in AdvantageScope)
+
+      // Log level at startup:  1 = debug, 2 = lab, 3 = competition.  Read from RobotPreferences, so must not be final.
+      public static int logLevel = 2;
+
+      // Asynchronous file log writer
+      public static final boolean asyncWriter = true;         // true = writeLog() only queues the record and a background thread writes the file, false = write and flush on the calling thread
+      public static final int ringCapacity = 4096;            // Number of preallocated record slots in the writer queue (rounded up to a power of 2)
+      public static final int flushBatchChars = 32768;        // Background writer flushes to the file once this many characters are buffered
+      public static final long flushPeriodMs = 250;           // Background writer flushes at least this often (ms) when it has buffered data
+      public static final long writerIdleMs = 5;              // Background writer sleep time (ms) when the queue is empty
+      public static final long clockSetThresholdMs = 1000;    // Write a new Time Sync line when the wall clock moves this far (ms) from the FPGA clock
+
+      // Log file segments and disk usage
+      public static final long segmentMaxBytes = 16L*1024*1024;       // Start a new log file segment when the current segment reaches this size
+      public static final long segmentMaxMinutes = 30;                // Start a new log file segment when the current segment has been open this long
+      public static final boolean compressSegments = true;            // true = gzip closed segments on a low priority thread
+      public static final long logDiskBudgetBytes = 200L*1024*1024;   // Delete the oldest log files when the logs in the log directory use more than this
+
+      // Log rotation scheduler (spreads subsystem logging and dashboard work across cycles)
+      public static final double cycleBudgetMs = 15.0;        // Defer rotation work if it would push the robot cycle past this time (ms from the start of robotPeriodic)
+      public static final int maxDeferCycles = 5;             // Run deferred work anyway after it has waited this many cycles
+      public static final double slotBudgetMs = 2.0;          // Target cost (ms) of the rotation work in one cycle, logged when the rebalance can not meet it
+      public static final double costFilterGain = 0.2;        // Filter gain for measured costs (0-1, larger = faster response)
+      public static final int rebalanceRotations = 50;        // Rebalance the rotation slots every this many rotations (50 rotations = 10 sec)
+    }
+
+    public static final class LoopConstants {
+      // Loop overrun watchdog (sheds dashboard telemetry, then optional logging, then LED updates when the loop runs long)
+      public static final double loopBudgetMs = 20.0;         // Robot loop period (ms)
+      public static final double watchdogFilterGain = 0.1;    // Filter gain for the measured loop time (0-1, larger = faster response)
+      public static final double shedHeadroomMs = 0.0;        // Shed the next level when the filtered headroom (budget - loop time) drops below this (ms)
+      public static final double restoreHeadroomMs = 4.0;     // Restore the last shed level after the headroom has stayed above this (ms)...
+      public static final int restoreCycles = 50;             // ...for this many cycles in a row
+      public static final int shedIntervalCycles = 10;        // Wait at least this many cycles after a change before shedding another level
+    }
+
+    public static final class SignalConstants {
+      // CAN status signal update rates (Hz), set by SignalProfile for each subsystem
+      // Profile at startup:  true = lab rates, false = competition rates.  Read from RobotPreferences, so must not be final.
+      public static boolean labProfile = false;
+      public static final boolean optimizeBusUtilization = true;  // true = turn off the status frames that are not in a subsystem's SignalProfile
+      public static final double odometryHz = 250.0;              // Swerve encoders and gyro (same in both profiles).  Also the odometry thread rate.
+      public static final double competitionControlHz = 50.0;    // Mechanism feedback used for control
+      public static final double labControlHz = 100.0;
+      public static final double competitionDiagnosticHz = 4.0;  // Temperatures, currents, voltages, and faults that are only logged or displayed
+      public static final double labDiagnosticHz = 20.0;
+      // SignalMonitor
+      public static final boolean monitorSignals = true;          // true = record reads, age, and errors for each signal refresh
+      public static final double staleSignalPeriods = 3.0;        // Signal is stale when its age is more than this many update periods
+      public static final double staleSignalMinMs = 50.0;         // ... and more than this, in ms
+    }
+
+    public static final class OutputConstants {
+      // Motor control requests (ControlOutput)
+      public static final boolean deferOutputs = true;     // true = send requests together at the end of the cycle, false = send each request when it is set
+      public static final double keepAliveSeconds = 0.1;   // Resend an unchanged request after this long
+      public static final double controlTimeoutSeconds = 0.2;   // Treat a motor as timed out if its request is not sent by the robot code for this long.  keepAliveSeconds plus one cycle must be less than this.
+    }
+
     public static final class OIConstants {
       //Ports from last year
       public static final int usbXboxController = 0;
@@ -171,12 +234,12 @@ public final class Constants {
       // you will receive the module states when performing inverse kinematics. It is also expected that
       // you pass in the module states in the same order when calling the forward kinematics methods.
       // 0 = FrontLeft, 1 = FrontRight, 2 = BackLeft, 3 = BackRight
-      public static final SwerveDriveKinematics kDriveKinematics =
-            new SwerveDriveKinematics(
+      public static final Translation2d[] kModuleLocations = {
                 new Translation2d(RobotDimensions.DRIVETRAIN_WHEELBASE_METERS / 2, RobotDimensions.DRIVETRAIN_TRACKWIDTH_METERS / 2),
                 new Translation2d(RobotDimensions.DRIVETRAIN_WHEELBASE_METERS / 2, -RobotDimensions.DRIVETRAIN_TRACKWIDTH_METERS / 2),
                 new Translation2d(-RobotDimensions.DRIVETRAIN_WHEELBASE_METERS / 2, RobotDimensions.DRIVETRAIN_TRACKWIDTH_METERS / 2),
-                new Translation2d(-RobotDimensions.DRIVETRAIN_WHEELBASE_METERS / 2, -RobotDimensions.DRIVETRAIN_TRACKWIDTH_METERS / 2));
+                new Translation2d(-RobotDimensions.DRIVETRAIN_WHEELBASE_METERS / 2, -RobotDimensions.DRIVETRAIN_TRACKWIDTH_METERS / 2)};
+      public static final SwerveDriveKinematics kDriveKinematics = new SwerveDriveKinematics(kModuleLocations);
 
       // Update the offset angles in RobotPreferences (in Shuffleboard), not in this code!
       // After updating in RobotPreferences, you will need to re-start the robot code for the changes to take effect.
@@ -195,6 +258,13 @@ public final class Constants {
       public static final double maxRotationRateWithElevatorUp = 0.8;     // rad/sec
 
       public static final double kPJoystickThetaController = 3; // Theta kp value for joystick in rad/sec    
+
+      // Odometry thread.  The swerve modules and gyro are on the CANivore, so their samples are time-synchronized.
+      public static final boolean useOdometryThread = true;   // true = update odometry on a separate thread at SignalConstants.odometryHz, false = once per robot cycle
+      public static final int odometryThreadPriority = 1;     // Real-time priority of the odometry thread on the RoboRIO (1-99)
+
+      // Pose history for matching camera frames to the robot pose when they were captured (one sample per robot cycle)
+      public static final int poseHistorySize = 100;          // 2 seconds at 50 Hz
     }
 
     public static final class ShooterConstants {
@@ -353,6 +423,19 @@ public final class Constants {
         public static final double pitchSetpoint = -18;
         public static final double yawSetpoint = 0;
       }
+
+      // Vision measurements in the pose estimator (see PoseFusion)
+      public static final double closeTargetMeters = 3.0;     // Targets closer than this use the pose estimator's default vision std devs
+      public static final double farTargetMeters = 7.0;       // Targets closer than this use farStdDevs.  Farther targets are not used.
+      public static final double[] farStdDevs = {2, 2, 2};    // Std devs for far targets (x meters, y meters, rotation radians)
+
+      // Unread AprilTag frames processed per robot cycle.  If more frames are waiting (ex. after a slow cycle), the oldest are dropped.
+      public static final int maxFramesPerCycle = 4;
+
+      // Vision thread.  Reads the AprilTag camera and solves the robot pose off the robot loop (see VisionThread).
+      public static final boolean useVisionThread = true;     // true = solve on the vision thread, false = once per robot cycle
+      public static final long visionThreadPeriodMs = 5;      // Time between checks for new frames
+      public static final int maxQueuedMeasurements = 10;     // Solved poses waiting for the robot loop.  If more are waiting, the oldest are dropped.
     }
 
     public static final class WristConstants {
@@ -52,10 +52,22 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    m_robotContainer.robotPeriodicStart();
     CommandScheduler.getInstance().run();
     m_robotContainer.robotPeriodic();
   }
 
+  /**
+   * Runs one robot loop:  the mode init and periodic methods, robotPeriodic, and the SmartDashboard, LiveWindow,
+   * and Shuffleboard updates.  The loop watchdog times the whole loop, not just robotPeriodic.
+   */
+  @Override
+  protected void loopFunc() {
+    m_robotContainer.loopStart();
+    super.loopFunc();
+    m_robotContainer.loopEnd();
+  }
+
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
   public void disabledInit() {
@@ -50,6 +50,10 @@ public class RobotContainer {
   private final FileLog log = new FileLog("F10");
   private final AllianceSelection allianceSelection = new AllianceSelection(log);
   private final Timer matchTimer = new Timer();
+  private final LoopTiming.Probe schedulerTiming = LoopTiming.totalProbe("CommandScheduler");
+  private final LoopTiming.Probe robotPeriodicTiming = LoopTiming.probe("RobotContainer.robotPeriodic");
+  private long schedulerStartNanos;
+  private final LoopWatchdog loopWatchdog = new LoopWatchdog(log);
 
   // Define robot subsystems  
   private final DriveTrain driveTrain = new DriveTrain(allianceSelection, log);
@@ -83,8 +87,12 @@ public class RobotContainer {
     configureShuffleboard();
 
     // driveTrain.setDefaultCommand(new DriveWithJoystick(leftJoystick, rightJoystick, driveTrain, log));
-    driveTrain.setDefaultCommand(new DriveWithJoysticksAdvance(leftJoystick, rightJoystick, allianceSelection, driveTrain, robotState, log));
+    driveTrain.setDefaultCommand(LoopTiming.timed(new DriveWithJoysticksAdvance(leftJoystick, rightJoystick, allianceSelection, driveTrain, robotState, log)));
 
+    // Work to turn off when the robot loop overruns, in the order to turn it off
+    loopWatchdog.addShedLevel("Telemetry", Telemetry::setShed);
+    loopWatchdog.addShedLevel("Logging", log::setLoadShed);
+    loopWatchdog.addShedLevel("LED", led::setUpdatesShed);
   }
 
   /**
@@ -106,75 +114,81 @@ public class RobotContainer {
   private void configureShuffleboard() {
     // display sticky faults
     RobotPreferences.showStickyFaultsOnShuffleboard();
-    SmartDashboard.putData("Clear Sticky Faults", new StickyFaultsClear(log));
+    SmartDashboard.putData("Clear Sticky Faults", LoopTiming.timed(new StickyFaultsClear(log)));
+
+    // File log level (1 = debug, 2 = lab, 3 = competition)
+    SmartDashboard.putData("FileLog Set Level", LoopTiming.timed(new FileLogSetLevel(log)));
+
+    // CAN signal update rates (true = lab profile, false = competition profile).  Only changes when disabled.
+    SmartDashboard.putData("Signal Set Profile", LoopTiming.timed(new SignalProfileSetLab(log)));
 
     // Intake commands
-    SmartDashboard.putData("Intake Set Percent", new IntakeSetPercent(intake, log));
-    SmartDashboard.putData("Intake Stop", new IntakeStop(intake, log));
+    SmartDashboard.putData("Intake Set Percent", LoopTiming.timed(new IntakeSetPercent(intake, log)));
+    SmartDashboard.putData("Intake Stop", LoopTiming.timed(new IntakeStop(intake, log)));
 
     // Shooter commands
-    SmartDashboard.putData("Shooter Set Percent", new ShooterSetPercent(shooter, log));
-    SmartDashboard.putData("Shooter Set Velocity", new ShooterSetVelocity(VelocityType.immediatelyEnd, shooter, log));
-    SmartDashboard.putData("Shooter Calibration", new ShooterCalibrationRamp(shooter, log));
-    SmartDashboard.putData("ShooterFeeder Stop", new ShooterFeederStop(shooter, feeder, log));
+    SmartDashboard.putData("Shooter Set Percent", LoopTiming.timed(new ShooterSetPercent(shooter, log)));
+    SmartDashboard.putData("Shooter Set Velocity", LoopTiming.timed(new ShooterSetVelocity(VelocityType.immediatelyEnd, shooter, log)));
+    SmartDashboard.putData("Shooter Calibration", LoopTiming.timed(new ShooterCalibrationRamp(shooter, log)));
+    SmartDashboard.putData("ShooterFeeder Stop", LoopTiming.timed(new ShooterFeederStop(shooter, feeder, log)));
 
     // Feeder commands
-    SmartDashboard.putData("Feeder Set Percent", new FeederSetPercent(feeder, log));
-    SmartDashboard.putData("Feeder Stop", new FeederSetPercent(0.0, feeder, log));
+    SmartDashboard.putData("Feeder Set Percent", LoopTiming.timed(new FeederSetPercent(feeder, log)));
+    SmartDashboard.putData("Feeder Stop", LoopTiming.timed(new FeederSetPercent(0.0, feeder, log)));
 
     // Wrist commands
-    SmartDashboard.putData("Wrist Set Percent", new WristSetPercentOutput(wrist, log));
-    SmartDashboard.putData("Wrist Set Angle", new WristSetAngle(wrist, log));
-    SmartDashboard.putData("Wrist Calibration", new WristCalibrationRamp(0.01, 0.4, wrist, log));
-    SmartDashboard.putData("Wrist Stop", new WristSetPercentOutput(0.0, wrist, log));
-    SmartDashboard.putData("Wrist Nudge Angle", new WristNudgeAngle(wrist, log));
+    SmartDashboard.putData("Wrist Set Percent", LoopTiming.timed(new WristSetPercentOutput(wrist, log)));
+    SmartDashboard.putData("Wrist Set Angle", LoopTiming.timed(new WristSetAngle(wrist, log)));
+    SmartDashboard.putData("Wrist Calibration", LoopTiming.timed(new WristCalibrationRamp(0.01, 0.4, wrist, log)));
+    SmartDashboard.putData("Wrist Stop", LoopTiming.timed(new WristSetPercentOutput(0.0, wrist, log)));
+    SmartDashboard.putData("Wrist Nudge Angle", LoopTiming.timed(new WristNudgeAngle(wrist, log)));
   
     // Drive base commands
-    SmartDashboard.putData("Drive FOC On", new DriveSetFOC(true, driveTrain, log));
-    SmartDashboard.putData("Drive FOC Off", new DriveSetFOC(false, driveTrain, log));
-    SmartDashboard.putData("Drive Toggle Coast", new DriveToggleCoastMode(driveTrain, log));
-    SmartDashboard.putData("Drive Reset Pose", new DriveResetPose(driveTrain, log));
-    SmartDashboard.putData("Drive To Pose", new DriveToPose(driveTrain, log));
-    SmartDashboard.putData("Drive 6m +X", new DriveToPose(
-      () -> driveTrain.getPose().plus(new Transform2d(6.0, 0.0, new Rotation2d(0.0))), 
+    SmartDashboard.putData("Drive FOC On", LoopTiming.timed(new DriveSetFOC(true, driveTrain, log)));
+    SmartDashboard.putData("Drive FOC Off", LoopTiming.timed(new DriveSetFOC(false, driveTrain, log)));
+    SmartDashboard.putData("Drive Toggle Coast", LoopTiming.timed(new DriveToggleCoastMode(driveTrain, log)));
+    SmartDashboard.putData("Drive Reset Pose", LoopTiming.timed(new DriveResetPose(driveTrain, log)));
+    SmartDashboard.putData("Drive To Pose", LoopTiming.timed(new DriveToPose(driveTrain, log)));
+    SmartDashboard.putData("Drive 6m +X", LoopTiming.timed(new DriveToPose(
+      () -> driveTrain.getState().pose.plus(new Transform2d(6.0, 0.0, new Rotation2d(0.0))), 
       SwerveConstants.kNominalSpeedMetersPerSecond, SwerveConstants.kNominalAccelerationMetersPerSecondSquare, 
       TrajectoryConstants.maxPositionErrorMeters, TrajectoryConstants.maxThetaErrorDegrees, 
-      false, false, driveTrain, log) );
+      false, false, driveTrain, log)) );
 
-    SmartDashboard.putData("Drive Calibration", new DriveCalibration(0.0, 0.5, 5.0, 0.1, driveTrain, log));
-    SmartDashboard.putData("Drive Turn Calibration", new DriveTurnCalibration(0.2, 5.0, 0.2 / 5.0, driveTrain, log));
-    SmartDashboard.putData("Drive Percent Speed", new DrivePercentSpeed(driveTrain, log));
+    SmartDashboard.putData("Drive Calibration", LoopTiming.timed(new DriveCalibration(0.0, 0.5, 5.0, 0.1, driveTrain, log)));
+    SmartDashboard.putData("Drive Turn Calibration", LoopTiming.timed(new DriveTurnCalibration(0.2, 5.0, 0.2 / 5.0, driveTrain, log)));
+    SmartDashboard.putData("Drive Percent Speed", LoopTiming.timed(new DrivePercentSpeed(driveTrain, log)));
 
-    SmartDashboard.putData("Drive Curve Test", new DriveTrajectory(CoordType.kRelative, StopType.kBrake, trajectoryCache.cache[TrajectoryCache.TrajectoryType.test.value].blue, driveTrain, log));
-    SmartDashboard.putData("Drive Straight", new DriveStraight(false, false, false, driveTrain, log));
+    SmartDashboard.putData("Drive Curve Test", LoopTiming.timed(new DriveTrajectory(CoordType.kRelative, StopType.kBrake, trajectoryCache.cache[TrajectoryCache.TrajectoryType.test.value].blue, driveTrain, log)));
+    SmartDashboard.putData("Drive Straight", LoopTiming.timed(new DriveStraight(false, false, false, driveTrain, log)));
 
     // Sequences
-    SmartDashboard.putData("Intake Piece", new IntakePiece(intake, feeder, wrist, shooter, robotState, log));
-    SmartDashboard.putData("Shoot Piece", new ShootPiece(ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, true, shooter, feeder, wrist, robotState, log));
-    SmartDashboard.putData("Stop All", new StopIntakeFeederShooter(intake, shooter, feeder, robotState, log));
+    SmartDashboard.putData("Intake Piece", LoopTiming.timed(new IntakePiece(intake, feeder, wrist, shooter, robotState, log)));
+    SmartDashboard.putData("Shoot Piece", LoopTiming.timed(new ShootPiece(ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, true, shooter, feeder, wrist, robotState, log)));
+    SmartDashboard.putData("Stop All", LoopTiming.timed(new StopIntakeFeederShooter(intake, shooter, feeder, robotState, log)));
 
     // Autos
-    SmartDashboard.putData("Amp Two Piece Shoot", new AmpTwoPieceShoot(intake, shooter, driveTrain, feeder, wrist, robotState, trajectoryCache, allianceSelection, log));
-    SmartDashboard.putData("Center Two Piece Shoot", new CenterTwoPieceShoot(intake, wrist, shooter, driveTrain, feeder, robotState, trajectoryCache, allianceSelection, log));
-    SmartDashboard.putData("Source Three Piece Shoot", new SourceThreePieceShoot(intake, shooter, driveTrain, feeder, wrist, robotState, trajectoryCache, allianceSelection, log));
-    SmartDashboard.putData("Source Two Piece Shoot", new SourceTwoPieceShoot(intake, wrist, shooter, driveTrain, feeder, robotState, trajectoryCache, allianceSelection, log));
-    SmartDashboard.putData("Amp Shoot One Piece", new AmpShootOnePiece(intake, wrist, shooter, driveTrain, feeder, robotState, allianceSelection, log));
-    SmartDashboard.putData("Source Shoot One Piece", new SourceShootOnePiece(intake, wrist, shooter, driveTrain, feeder, robotState, allianceSelection, log));
-
-    SmartDashboard.putData("Amp Source Three Piece Shoot", new AmpSourceThreePieceShoot(intake, shooter, driveTrain, feeder, wrist, robotState, trajectoryCache, allianceSelection, log));
-    SmartDashboard.putData("Source Center Three Piece Shoot", new CenterThreePieceShoot(intake, wrist, shooter, driveTrain, feeder, robotState, trajectoryCache, allianceSelection, log));
-    SmartDashboard.putData("Source Start to near note",  new DriveTrajectory(CoordType.kAbsoluteResetPose, StopType.kCoast, trajectoryCache.cache[TrajectoryCache.TrajectoryType.driveToSourceCloseNote.value].red, driveTrain, log));
-    SmartDashboard.putData("Drive to far note", new DriveTrajectory(CoordType.kAbsoluteResetPose, StopType.kCoast, trajectoryCache.cache[TrajectoryCache.TrajectoryType.driveAmpNoteToFarNote.value].red, driveTrain, log));
+    SmartDashboard.putData("Amp Two Piece Shoot", LoopTiming.timed(new AmpTwoPieceShoot(intake, shooter, driveTrain, feeder, wrist, robotState, trajectoryCache, allianceSelection, log)));
+    SmartDashboard.putData("Center Two Piece Shoot", LoopTiming.timed(new CenterTwoPieceShoot(intake, wrist, shooter, driveTrain, feeder, robotState, trajectoryCache, allianceSelection, log)));
+    SmartDashboard.putData("Source Three Piece Shoot", LoopTiming.timed(new SourceThreePieceShoot(intake, shooter, driveTrain, feeder, wrist, robotState, trajectoryCache, allianceSelection, log)));
+    SmartDashboard.putData("Source Two Piece Shoot", LoopTiming.timed(new SourceTwoPieceShoot(intake, wrist, shooter, driveTrain, feeder, robotState, trajectoryCache, allianceSelection, log)));
+    SmartDashboard.putData("Amp Shoot One Piece", LoopTiming.timed(new AmpShootOnePiece(intake, wrist, shooter, driveTrain, feeder, robotState, allianceSelection, log)));
+    SmartDashboard.putData("Source Shoot One Piece", LoopTiming.timed(new SourceShootOnePiece(intake, wrist, shooter, driveTrain, feeder, robotState, allianceSelection, log)));
+
+    SmartDashboard.putData("Amp Source Three Piece Shoot", LoopTiming.timed(new AmpSourceThreePieceShoot(intake, shooter, driveTrain, feeder, wrist, robotState, trajectoryCache, allianceSelection, log)));
+    SmartDashboard.putData("Source Center Three Piece Shoot", LoopTiming.timed(new CenterThreePieceShoot(intake, wrist, shooter, driveTrain, feeder, robotState, trajectoryCache, allianceSelection, log)));
+    SmartDashboard.putData("Source Start to near note",  LoopTiming.timed(new DriveTrajectory(CoordType.kAbsoluteResetPose, StopType.kCoast, trajectoryCache.cache[TrajectoryCache.TrajectoryType.driveToSourceCloseNote.value].red, driveTrain, log)));
+    SmartDashboard.putData("Drive to far note", LoopTiming.timed(new DriveTrajectory(CoordType.kAbsoluteResetPose, StopType.kCoast, trajectoryCache.cache[TrajectoryCache.TrajectoryType.driveAmpNoteToFarNote.value].red, driveTrain, log)));
 
     // Copanel buttons
-    SmartDashboard.putData("Climb Start", new ClimbStart(wrist, log, led));
-    SmartDashboard.putData("Climb End", new ClimbEnd(wrist, log, led));
-    SmartDashboard.putData("Nudge Angle Down 1 deg", new WristNudgeAngle(1, wrist, log));
-    SmartDashboard.putData("Nudge Angle Up 1 deg", new WristNudgeAngle(-1, wrist, log));
+    SmartDashboard.putData("Climb Start", LoopTiming.timed(new ClimbStart(wrist, log, led)));
+    SmartDashboard.putData("Climb End", LoopTiming.timed(new ClimbEnd(wrist, log, led)));
+    SmartDashboard.putData("Nudge Angle Down 1 deg", LoopTiming.timed(new WristNudgeAngle(1, wrist, log)));
+    SmartDashboard.putData("Nudge Angle Up 1 deg", LoopTiming.timed(new WristNudgeAngle(-1, wrist, log)));
 
     // Vision
-    SmartDashboard.putData("Enable Using Vision for Odometry", new VisionOdometryStateSet(true, driveTrain, log));
-    SmartDashboard.putData("Disable Using Vision for Odometry", new VisionOdometryStateSet(false, driveTrain, log));
+    SmartDashboard.putData("Enable Using Vision for Odometry", LoopTiming.timed(new VisionOdometryStateSet(true, driveTrain, log)));
+    SmartDashboard.putData("Disable Using Vision for Odometry", LoopTiming.timed(new VisionOdometryStateSet(false, driveTrain, log)));
   }
 
   /**
@@ -187,7 +201,7 @@ public class RobotContainer {
     Trigger intakeStopTrigger = new Trigger(()-> DriverStation.isTeleopEnabled() && 
       robotState.getState() == State.INTAKING && feeder.isPiecePresent());
     intakeStopTrigger.onTrue(
-      new StopIntakingSequence(feeder, intake, robotState, log)
+      LoopTiming.timed(new StopIntakingSequence(feeder, intake, robotState, log))
     );
   }
 
@@ -218,64 +232,64 @@ public class RobotContainer {
 
     
     // Prep for amp
-    xbRB.onTrue( new ParallelCommandGroup(
+    xbRB.onTrue( LoopTiming.timed(new ParallelCommandGroup(
         new IntakeStop(intake, log),
         new WristSetAngle(true, wrist, log),
         new ShotModeSet(ShotMode.AMP, robotState, log),
         new RobotStateSetIdle(robotState, feeder, log)
-    ) );
+    )) );
 
     // Move wrist down and then intake a piece
-    xbRT.onTrue(new IntakePiece(intake, feeder, wrist, shooter, robotState, log));
+    xbRT.onTrue(LoopTiming.timed(new IntakePiece(intake, feeder, wrist, shooter, robotState, log)));
 
     // Reverse the intake
-    xbLT.onTrue(new IntakeSetPercent(-.3, -.3, intake, log));
+    xbLT.onTrue(LoopTiming.timed(new IntakeSetPercent(-.3, -.3, intake, log)));
 
     // Prep for at-speaker shot
-    xbA.onTrue(new SetShooterWristSpeaker(WristAngle.speakerShotFromSpeaker, 
-      ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, shooter, wrist, intake, feeder, robotState, log));
+    xbA.onTrue(LoopTiming.timed(new SetShooterWristSpeaker(WristAngle.speakerShotFromSpeaker, 
+      ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, shooter, wrist, intake, feeder, robotState, log)));
     
     // Prep for podium speaker shot
-    xbB.onTrue(new SetShooterWristSpeaker(WristAngle.speakerShotFromPodium, 
-      ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, shooter, wrist, intake, feeder, robotState, log));
+    xbB.onTrue(LoopTiming.timed(new SetShooterWristSpeaker(WristAngle.speakerShotFromPodium, 
+      ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, shooter, wrist, intake, feeder, robotState, log)));
     
     // Prep for overhead speaker shot
-    xbY.onTrue(new SetShooterWristSpeaker(WristAngle.overheadShotAngle, 
-    ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, shooter, wrist, intake, feeder, robotState, log));
+    xbY.onTrue(LoopTiming.timed(new SetShooterWristSpeaker(WristAngle.overheadShotAngle, 
+    ShooterConstants.shooterVelocityTop, ShooterConstants.shooterVelocityBottom, shooter, wrist, intake, feeder, robotState, log)));
 
     // Prep for short pass
-    xbPOVDown.onTrue(new SetShooterFarShot(WristAngle.shortPassAngle, 
-      ShooterConstants.shooterVelocityShortPassTop, ShooterConstants.shooterVelocityShortPassBottom, shooter, wrist, intake, feeder, ShotMode.SHORT_PASS, robotState, log));
+    xbPOVDown.onTrue(LoopTiming.timed(new SetShooterFarShot(WristAngle.shortPassAngle, 
+      ShooterConstants.shooterVelocityShortPassTop, ShooterConstants.shooterVelocityShortPassBottom, shooter, wrist, intake, feeder, ShotMode.SHORT_PASS, robotState, log)));
 
     // Prep for long pass
-    xbPOVUp.onTrue(new SetShooterFarShot(WristAngle.longPassAngle, 
-    ShooterConstants.shooterVelocityFarPassTop, ShooterConstants.shooterVelocityFarPassBottom, shooter, wrist, intake, feeder, ShotMode.FAR_PASS, robotState, log));
+    xbPOVUp.onTrue(LoopTiming.timed(new SetShooterFarShot(WristAngle.longPassAngle, 
+    ShooterConstants.shooterVelocityFarPassTop, ShooterConstants.shooterVelocityFarPassBottom, shooter, wrist, intake, feeder, ShotMode.FAR_PASS, robotState, log)));
 
     
     // Store wrist, does not turn on intake
     xbX.onTrue(
-      new ParallelCommandGroup(
+      LoopTiming.timed(new ParallelCommandGroup(
         new WristLowerSafe(WristAngle.lowerLimit, feeder, wrist, log),
         new ShotModeSet(ShotMode.SPEAKER, robotState, log)
-      ));
+      )));
     
     // Prep for pit shot when back button is pressed
-    xbBack.onTrue(new SetShooterWristSpeaker(WristAngle.lowerLimit, 
-      ShooterConstants.shooterVelocityPit, ShooterConstants.shooterVelocityPit, shooter, wrist, intake, feeder, robotState, log));
+    xbBack.onTrue(LoopTiming.timed(new SetShooterWristSpeaker(WristAngle.lowerLimit, 
+      ShooterConstants.shooterVelocityPit, ShooterConstants.shooterVelocityPit, shooter, wrist, intake, feeder, robotState, log)));
     // Shoot in slow speed pit shot when released
-    xbBack.onFalse( new ShootPiece( ShooterConstants.shooterVelocityPit, ShooterConstants.shooterVelocityPit, true,
-      shooter, feeder, wrist, robotState, log) );
+    xbBack.onFalse( LoopTiming.timed(new ShootPiece( ShooterConstants.shooterVelocityPit, ShooterConstants.shooterVelocityPit, true,
+      shooter, feeder, wrist, robotState, log)) );
 
  
 
     // Stop all motors
-    xbStart.onTrue(new ParallelCommandGroup(
+    xbStart.onTrue(LoopTiming.timed(new ParallelCommandGroup(
         new IntakeStop(intake, log),
         new ShooterFeederStop(shooter, feeder, log),
         new RobotStateSetIdle(robotState, feeder, log)      
-    ) );
+    )) );
     
-    xbRJoystickTrigger.whileTrue(new WristXboxControl(xboxController, wrist, intake, feeder, log));     
+    xbRJoystickTrigger.whileTrue(LoopTiming.timed(new WristXboxControl(xboxController, wrist, intake, feeder, log)));     
   }
 
   /**
@@ -292,17 +306,17 @@ public class RobotContainer {
 
     // Auto Drive to Amp
     left[1].whileTrue(
-      new DriveToAmp(allianceSelection, intake, feeder, wrist, driveTrain, robotState, log)
+      LoopTiming.timed(new DriveToAmp(allianceSelection, intake, feeder, wrist, driveTrain, robotState, log))
     );
 
     // Shoot the note
     left[2].onTrue(
-      new ShootFullSequence(allianceSelection, driveTrain, shooter, feeder, wrist, robotState, log)
+      LoopTiming.timed(new ShootFullSequence(allianceSelection, driveTrain, shooter, feeder, wrist, robotState, log))
     );
 
     // Right button 1:  Aim lock on speaker or midfield pass depending on location of robot on button press
     right[1].whileTrue(
-      either(
+      LoopTiming.timed(either(
         // Aim lock on speaker
         parallel(
           new SetAimLock(driveTrain, true, log),
@@ -317,23 +331,23 @@ public class RobotContainer {
         ShooterConstants.shooterVelocityFarPassTop, ShooterConstants.shooterVelocityFarPassBottom, 
         shooter, wrist, intake, feeder, ShotMode.VISION_MID_PASS, robotState, log)
         ),
-        () -> driveTrain.getPose().getX() < FieldConstants.xThresholdMidPass
-      )
+        () -> driveTrain.getState().pose.getX() < FieldConstants.xThresholdMidPass
+      ))
       
     );
     right[1].onFalse(
-      new SetAimLock(driveTrain, false, log)
+      LoopTiming.timed(new SetAimLock(driveTrain, false, log))
     );
 
     // Right button 2:  Aim lock on far pass target
-    right[2].whileTrue(new ParallelCommandGroup(
+    right[2].whileTrue(LoopTiming.timed(new ParallelCommandGroup(
       new SetAimLock(driveTrain, true, log),
       new SetShooterFarShot(WristAngle.longPassAngle, 
         ShooterConstants.shooterVelocityFarPassTop, ShooterConstants.shooterVelocityFarPassBottom, 
         shooter, wrist, intake, feeder, ShotMode.VISION_FAR_PASS, robotState, log)
-    ));
+    )));
     right[2].onFalse(
-      new SetAimLock(driveTrain, false, log)
+      LoopTiming.timed(new SetAimLock(driveTrain, false, log))
     );
   }
 
@@ -357,16 +371,16 @@ public class RobotContainer {
     }
 
     // top row UP then DOWN, from LEFT to RIGHT
-    coP[1].onTrue(new ClimbStart(wrist, log, led));
-    coP[3].onTrue(new ClimbEnd(wrist, log, led));
+    coP[1].onTrue(LoopTiming.timed(new ClimbStart(wrist, log, led)));
+    coP[3].onTrue(LoopTiming.timed(new ClimbEnd(wrist, log, led)));
     // Nudge angle up or down
-    coP[5].onTrue(new WristNudgeAngle(-1, wrist, log)); // Nudge up
-    coP[6].onTrue(new WristNudgeAngle(1, wrist, log)); // Nudge down
+    coP[5].onTrue(LoopTiming.timed(new WristNudgeAngle(-1, wrist, log))); // Nudge up
+    coP[6].onTrue(LoopTiming.timed(new WristNudgeAngle(1, wrist, log))); // Nudge down
 
-    coP[9].onTrue(new WristNudgeAmpAngle(1, wrist, log)); //Nudge down
-    coP[10].onTrue(new WristNudgeAmpAngle(-1 ,wrist, log)); //Nudge up
+    coP[9].onTrue(LoopTiming.timed(new WristNudgeAmpAngle(1, wrist, log))); //Nudge down
+    coP[10].onTrue(LoopTiming.timed(new WristNudgeAmpAngle(-1 ,wrist, log))); //Nudge up
 
-    coP[11].onTrue(new DriveResetPose(0, false, driveTrain, log));
+    coP[11].onTrue(LoopTiming.timed(new DriveResetPose(0, false, driveTrain, log)));
   }
 
 
@@ -376,7 +390,7 @@ public class RobotContainer {
    * @return the command to run in autonomous
    */
   public Command getAutonomousCommand() {
-    return autoSelection.getAutoCommand(intake, wrist, shooter, feeder, driveTrain, robotState, log);
+    return LoopTiming.timed(autoSelection.getAutoCommand(intake, wrist, shooter, feeder, driveTrain, robotState, log));
   }
 
 
@@ -391,17 +405,52 @@ public class RobotContainer {
 
     // compressor.disable();
 
+    log.writeLog(true, "LoopTiming", "Probe Overhead", "ns", LoopTiming.measureProbeOverhead());
+
     // Set initial robot position on field
     // This takes place a while after the drivetrain is created, so after any CanBus delays.
     driveTrain.resetPose(new Pose2d(0.0, 0.0, Rotation2d.fromDegrees(0)));  
   }
 
+  /**
+   * robotPeriodicStart is run every 20msec, before the CommandScheduler runs
+   */
+  public void robotPeriodicStart(){
+    log.startLogCycle();
+    schedulerStartNanos = schedulerTiming.start();
+  }
+
   /**
    * robotPeriodic is run every 20msec
    */
   public void robotPeriodic(){
+    schedulerTiming.stop(schedulerStartNanos);
+    long timingStart = robotPeriodicTiming.start();
+
     log.advanceLogRotation();
     allianceSelection.periodic();
+    LoopTiming.periodic();
+    SignalMonitor.periodic(log);
+
+    // Send the motor requests from this cycle (after the subsystems, commands, and mode methods have run)
+    ControlOutput.flushAll();
+
+    robotPeriodicTiming.stop(timingStart);
+  }
+
+  /**
+   * loopStart is run at the start of every robot loop (every 20msec), before the mode periodic method
+   */
+  public void loopStart() {
+    loopWatchdog.startCycle();
+  }
+
+  /**
+   * loopEnd is run at the end of every robot loop, after robotPeriodic and the SmartDashboard, LiveWindow,
+   * and Shuffleboard updates
+   */
+  public void loopEnd() {
+    loopWatchdog.endCycle();
   }
 
   /**
@@ -409,6 +458,10 @@ public class RobotContainer {
    */
   public void disabledInit() {
     log.writeLogEcho(true, "Disabled", "Robot disabled");   // Don't log the word "Init" here -- it affects the Excel macro
+    LoopTiming.logSummary(log, "Disabled");
+    SignalMonitor.logSummary(log, "Disabled");
+    ControlOutput.logSummary(log, "Disabled");
+    ControlOutput.invalidateAll();
 
     driveTrain.stopMotors();                // SAFETY:  Turn off any closed loop control that may be running, so the robot does not move when re-enabled.
     driveTrain.enableFastLogging(false);    // Turn off fast logging, in case it was left on from auto mode
@@ -444,6 +497,10 @@ public class RobotContainer {
    */
   public void autonomousInit() {
     log.writeLogEcho(true, "Auto", "Mode Init");
+    LoopTiming.logSummary(log, "Auto");
+    SignalMonitor.logSummary(log, "Auto");
+    ControlOutput.logSummary(log, "Auto");
+    ControlOutput.invalidateAll();
 
     driveTrain.setDriveModeCoast(false);
     driveTrain.setVisionForOdometryState(false);
@@ -464,6 +521,10 @@ public class RobotContainer {
    */
   public void teleopInit() {
     log.writeLogEcho(true, "Teleop", "Mode Init");
+    LoopTiming.logSummary(log, "Teleop");
+    SignalMonitor.logSummary(log, "Teleop");
+    ControlOutput.logSummary(log, "Teleop");
+    ControlOutput.invalidateAll();
 
     driveTrain.setDriveModeCoast(false);
     driveTrain.enableFastLogging(false);    // Turn off fast logging, in case it was left on from auto mode
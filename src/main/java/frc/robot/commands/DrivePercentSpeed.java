@@ -79,7 +79,7 @@ public class DrivePercentSpeed extends Command {
     timer.start();
     SignalLogger.start();
 
-    poseStart = driveTrain.getPose();
+    poseStart = driveTrain.getState().pose;
     curDistance = 0.0;
 
     driveTrain.setDriveModeCoast(false);
@@ -100,7 +100,7 @@ public class DrivePercentSpeed extends Command {
   @Override
   public void execute() {
     //log.writeLog(false, "DrivePercentSpeed", "execute");
-    curDistance = driveTrain.getPose().relativeTo(poseStart).getTranslation().getNorm();
+    curDistance = driveTrain.getState().pose.relativeTo(poseStart).getTranslation().getNorm();
     SmartDashboard.putNumber("DrivePercentSpeed curDistance", curDistance);
     
     driveTrain.setWheelFacings(angleFacing);
@@ -161,17 +161,18 @@ public class DriveResetPose extends Command {
       curAngle = SmartDashboard.getNumber("DriveResetPose Angle", 0);
     }
 
+    Pose2d robotPose = driveTrain.getState().pose;
     if(onlyAngle){
-      curX = driveTrain.getPose().getX();
-      curY = driveTrain.getPose().getY();
+      curX = robotPose.getX();
+      curY = robotPose.getY();
     }
     
     log.writeLog(true, "DriveResetPose", "Init", "X", curX, "Y", curY, "Angle", curAngle);
 
     if( !tolerance ||
-        Math.abs(curX - driveTrain.getPose().getX()) > 0.5 || 
-        Math.abs(curY - driveTrain.getPose().getY()) > 0.5 || 
-        Math.abs(MathBCR.normalizeAngle(curAngle - driveTrain.getPose().getRotation().getDegrees())) > 15.0 ) {
+        Math.abs(curX - robotPose.getX()) > 0.5 || 
+        Math.abs(curY - robotPose.getY()) > 0.5 || 
+        Math.abs(MathBCR.normalizeAngle(curAngle - robotPose.getRotation().getDegrees())) > 15.0 ) {
       driveTrain.resetPose(new Pose2d(curX, curY, Rotation2d.fromDegrees(curAngle)));
     }
   }
@@ -128,7 +128,7 @@ public class DriveStraight extends Command {
 
     // Calculate target angle
     if (fieldRelative) {
-      angleTarget = angleInput - driveTrain.getGyroRotation();
+      angleTarget = angleInput - driveTrain.getState().gyroRotation;
     } else {
       angleTarget = angleInput;
     }
@@ -144,7 +144,7 @@ public class DriveStraight extends Command {
     log.writeLog(false, "DriveStraight", "init", "Target", target, "Profile total time", tProfile.totalTime());
     
     profileStartTime = System.currentTimeMillis(); // save starting time of profile
-    startLocation = driveTrain.getPose().getTranslation();
+    startLocation = driveTrain.getState().pose.getTranslation();
     
     driveTrain.setDriveModeCoast(false);
     driveTrain.enableFastLogging(true);
@@ -156,7 +156,7 @@ public class DriveStraight extends Command {
     // Update data for this iteration
     long currProfileTime = System.currentTimeMillis();
     double timeSinceStart = (double)(currProfileTime - profileStartTime) * 0.001;
-    currDist = driveTrain.getPose().getTranslation().getDistance(startLocation);
+    currDist = driveTrain.getState().pose.getTranslation().getDistance(startLocation);
 
     // Get next state from trapezoid profile
     tStateNext = tProfile.calculate(timeSinceStart + 0.010);
@@ -173,7 +173,7 @@ public class DriveStraight extends Command {
     driveTrain.setModuleStates(desiredStates, isOpenLoop); 
     
     // Read current module states for logging
-    SwerveModuleState[] currentStates = driveTrain.getModuleStates();
+    SwerveModuleState[] currentStates = driveTrain.getState().moduleStates;
     double linearVel = (Math.abs(currentStates[0].speedMetersPerSecond) + Math.abs(currentStates[1].speedMetersPerSecond) +
         Math.abs(currentStates[2].speedMetersPerSecond) + Math.abs(currentStates[3].speedMetersPerSecond))/4.0;
 
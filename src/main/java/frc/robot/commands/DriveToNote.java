@@ -105,11 +105,16 @@ public class DriveToNote extends Command {
 
       toleranceCount = 0;
       PhotonTrackedTarget bestTarget = latestResult.getBestTarget();
-      
+
+      // The target yaw is from when the frame was captured.  Correct it for how much the robot has turned
+      // since then (camera yaw is + to the right, robot angle is + to the left).
+      double turnSinceFrame = MathBCR.angleMinus(driveTrain.getState().pose.getRotation().getDegrees(),
+          driveTrain.getHeadingAt(latestResult.getTimestampSeconds()));
+      double targetYaw = bestTarget.getYaw() + turnSinceFrame;
 
       fwdVelocity = -fwdRateController.calculate(bestTarget.getPitch());
-      leftVelocity = leftRateController.calculate(bestTarget.getYaw());
-      turnRate = turnRateController.calculate(bestTarget.getYaw());
+      leftVelocity = leftRateController.calculate(targetYaw);
+      turnRate = turnRateController.calculate(targetYaw);
 
       fwdVelocity = MathUtil.clamp(fwdVelocity, -SwerveConstants.kMaxSpeedMetersPerSecond, SwerveConstants.kMaxSpeedMetersPerSecond);
       leftVelocity = MathUtil.clamp(leftVelocity, -SwerveConstants.kMaxSpeedMetersPerSecond, SwerveConstants.kMaxSpeedMetersPerSecond);
@@ -117,7 +122,9 @@ public class DriveToNote extends Command {
 
       if(log.isMyLogRotation(logRotationKey)) {
         System.out.println(bestTarget.getYaw());
-        log.writeLog(false, "DriveToNote", "Joystick", "Fwd", fwdVelocity, "Left", leftVelocity, "Turn", turnRate);
+        log.writeLog(false, "DriveToNote", "Joystick", "Fwd", fwdVelocity, "Left", leftVelocity, "Turn", turnRate,
+          "Target Yaw", bestTarget.getYaw(), "Turn Since Frame", turnSinceFrame,
+          "Compensated Yaw", targetYaw);
       }
       
       // double fwdRateChange = (fwdPercent - lastFwdPercent) / (curTime - lastTime);
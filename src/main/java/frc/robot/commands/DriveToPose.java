@@ -25,6 +25,7 @@ import frc.robot.Constants.CoordType;
 import frc.robot.Constants.SwerveConstants;
 import frc.robot.Constants.TrajectoryConstants;
 import frc.robot.subsystems.DriveTrain;
+import frc.robot.utilities.DriveState;
 import frc.robot.utilities.FileLog;
 import frc.robot.utilities.HolonomicDriveControllerBCR;
 import frc.robot.utilities.MathBCR;
@@ -256,7 +257,8 @@ public class DriveToPose extends Command {
     controller.setEnabled(true);
 
     // Get the initial pose
-    initialPose = driveTrain.getPose();
+    DriveState state = driveTrain.getState();
+    initialPose = state.pose;
     initialTranslation = initialPose.getTranslation();
     curRobotTranslation = initialTranslation;
 
@@ -293,10 +295,10 @@ public class DriveToPose extends Command {
         }
         break;
       case angleAbsolute:  // absolute angle, keep robot position
-        goalPose = new Pose2d(driveTrain.getPose().getTranslation(), rotation);
+        goalPose = new Pose2d(initialPose.getTranslation(), rotation);
         break;
       case angleRelative:  // relative angle, keep robot position
-        goalPose = driveTrain.getPose().plus(new Transform2d(new Translation2d(), rotation));
+        goalPose = initialPose.plus(new Transform2d(new Translation2d(), rotation));
         break;
   }
 
@@ -306,7 +308,7 @@ public class DriveToPose extends Command {
     double goalDistance = trapezoidPath.getNorm();
     
     // Get the initial velocity in the direction of travel
-    ChassisSpeeds robotSpeed = driveTrain.getRobotSpeeds();
+    ChassisSpeeds robotSpeed = state.fieldSpeeds;
     double initialVelocity = robotSpeed.vxMetersPerSecond*goalDirection.getX() + robotSpeed.vyMetersPerSecond*goalDirection.getY();
 
     // Create the profile.  The profile is linear distance (along goalDirection) relative to the initial pose
@@ -332,8 +334,9 @@ public class DriveToPose extends Command {
     double curTime = timer.get();
 
     // Current robot location, translation is relative to starting position, rotation is absolute field rotation
-    curRobotTranslation = driveTrain.getPose().getTranslation().minus(initialTranslation);
-    Pose2d robotPose = new Pose2d(curRobotTranslation, Rotation2d.fromDegrees(driveTrain.getGyroRotation()));
+    DriveState state = driveTrain.getState();
+    curRobotTranslation = state.pose.getTranslation().minus(initialTranslation);
+    Pose2d robotPose = new Pose2d(curRobotTranslation, Rotation2d.fromDegrees(state.gyroRotation));
 
     // Calculate current desired pose and velocity from the Trapezoid profile, relative to starting position
     TrapezoidProfileBCR.State desiredState = profile.calculate(curTime);
@@ -350,7 +353,7 @@ public class DriveToPose extends Command {
 
     driveTrain.setModuleStates(targetModuleStates, openLoopSwerve);
 
-    ChassisSpeeds robotSpeeds = driveTrain.getRobotSpeeds();
+    ChassisSpeeds robotSpeeds = state.fieldSpeeds;
     log.writeLog(false, "DriveToPose", "Execute", 
         "Time", timer.get(), 
         "Trap X", desiredPose.getTranslation().getX(),
@@ -359,8 +362,8 @@ public class DriveToPose extends Command {
         "Trap Vel", desiredState.velocity,
         "Trap Vel w/kA", desiredVelocityMetersPerSecond,
         "Robot XVel", robotSpeeds.vxMetersPerSecond,
-        "Robot Pos Err", driveTrain.getPose().getTranslation().minus(goalPose.getTranslation()).getNorm(),
-        "Robot Th Err", MathBCR.angleMinus(driveTrain.getGyroRotation(), goalPose.getRotation().getDegrees()),
+        "Robot Pos Err", state.pose.getTranslation().minus(goalPose.getTranslation()).getNorm(),
+        "Robot Th Err", MathBCR.angleMinus(state.gyroRotation, goalPose.getRotation().getDegrees()),
         "Trap VelAng", desiredPose.getRotation().getDegrees(),
         "Target rot", desiredRotation.getDegrees(), 
         "Robot X", curRobotTranslation.getX(),
@@ -368,7 +371,7 @@ public class DriveToPose extends Command {
         "Robot Vel", Math.hypot(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond),
         "Robot VelAng", Math.toDegrees(Math.atan2(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond)),
         "Robot rot", robotPose.getRotation().getDegrees(),
-        "Pitch", driveTrain.getGyroPitch()
+        "Pitch", state.gyroPitch
     );
   }
 
@@ -393,8 +396,9 @@ public class DriveToPose extends Command {
       log.writeLog(false, "DriveToPose", "timeout"); 
     }
 
-    var gyro = MathBCR.angleMinus(driveTrain.getGyroRotation(), goalPose.getRotation().getDegrees());
-    var posError = driveTrain.getPose().getTranslation().minus(goalPose.getTranslation()).getNorm();
+    DriveState state = driveTrain.getState();
+    var gyro = MathBCR.angleMinus(state.gyroRotation, goalPose.getRotation().getDegrees());
+    var posError = state.pose.getTranslation().minus(goalPose.getTranslation()).getNorm();
     
     var finished = timeout ||         // if we 3 seconds after the profile completed, then end even if we are not within tolerance 
       ( timer.hasElapsed(profile.totalTime())  && 
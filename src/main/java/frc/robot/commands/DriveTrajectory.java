@@ -48,13 +48,13 @@ public class DriveTrajectory extends SequentialCommandGroup {
         SwerveControllerLogCommand swerveControllerLogCommand;
         if (trajectoryType == CoordType.kRelative) {
             // For relative trajectories, first command needs to be to save the initial robot Pose
-            addCommands(new InstantCommand(() -> initialPose = driveTrain.getPose()));
+            addCommands(new InstantCommand(() -> initialPose = driveTrain.getState().pose));
 
             swerveControllerLogCommand =
                 new SwerveControllerLogCommand(
                     trajectoryFacing.trajectory,
                     // For relative trajectories, get the current pose relative to the initial robot Pose
-                    () -> driveTrain.getPose().relativeTo(initialPose),  
+                    () -> driveTrain.getState().pose.relativeTo(initialPose),  
                     Constants.DriveConstants.kDriveKinematics,
                     new PIDController(Constants.TrajectoryConstants.kPXController, 0, 0),
                     new PIDController(Constants.TrajectoryConstants.kPYController, 0, 0),
@@ -75,7 +75,7 @@ public class DriveTrajectory extends SequentialCommandGroup {
             swerveControllerLogCommand =
                 new SwerveControllerLogCommand(
                     trajectoryFacing.trajectory,
-                    driveTrain::getPose,
+                    () -> driveTrain.getState().pose,
                     Constants.DriveConstants.kDriveKinematics,
                     new PIDController(Constants.TrajectoryConstants.kPXController, 0, 0),
                     new PIDController(Constants.TrajectoryConstants.kPYController, 0, 0),
@@ -131,13 +131,13 @@ public class DriveTrajectory extends SequentialCommandGroup {
         SwerveControllerLogCommand swerveControllerLogCommand;
         if (trajectoryType == CoordType.kRelative) {
             // For relative trajectories, first command needs to be to save the initial robot Pose
-            addCommands(new InstantCommand(() -> initialPose = driveTrain.getPose()));
+            addCommands(new InstantCommand(() -> initialPose = driveTrain.getState().pose));
 
             swerveControllerLogCommand =
                 new SwerveControllerLogCommand(
                     () -> ((alliance.getAlliance() == Alliance.Red) ? trajectoryFacings.red : trajectoryFacings.blue).trajectory,
                     // For relative trajectories, get the current pose relative to the initial robot Pose
-                    () -> driveTrain.getPose().relativeTo(initialPose),  
+                    () -> driveTrain.getState().pose.relativeTo(initialPose),  
                     Constants.DriveConstants.kDriveKinematics,
                     new PIDController(Constants.TrajectoryConstants.kPXController, 0, 0),
                     new PIDController(Constants.TrajectoryConstants.kPYController, 0, 0),
@@ -158,7 +158,7 @@ public class DriveTrajectory extends SequentialCommandGroup {
             swerveControllerLogCommand =
                 new SwerveControllerLogCommand(
                     () -> ((alliance.getAlliance() == Alliance.Red) ? trajectoryFacings.red : trajectoryFacings.blue).trajectory,
-                    driveTrain::getPose,
+                    () -> driveTrain.getState().pose,
                     Constants.DriveConstants.kDriveKinematics,
                     new PIDController(Constants.TrajectoryConstants.kPXController, 0, 0),
                     new PIDController(Constants.TrajectoryConstants.kPYController, 0, 0),
@@ -7,7 +7,6 @@ package frc.robot.commands;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.wpilibj.Joystick;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.Constants.OIConstants;
@@ -16,7 +15,9 @@ import frc.robot.Constants.TrajectoryConstants;
 import frc.robot.subsystems.DriveTrain;
 import frc.robot.utilities.AllianceSelection;
 import frc.robot.utilities.BCRRobotState;
+import frc.robot.utilities.DriveState;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.Telemetry;
 import frc.robot.utilities.BCRRobotState.ShotMode;
 
 import java.lang.Math;
@@ -38,6 +39,17 @@ public class DriveWithJoysticksAdvance extends Command {
   private boolean firstCorrecting;
   private boolean aimLock = false;
 
+  // Dashboard values (publishers are created once, not on each cycle)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashLeftY = telemetry.number("Left Joystick Y");
+  private final Telemetry.DoubleValue dashLeftX = telemetry.number("Left Joystick X");
+  private final Telemetry.DoubleValue dashRightX = telemetry.number("Right Joystick X");
+  private final Telemetry.DoubleValue dashGoalAngle = telemetry.number("Goal Angle");
+  private final Telemetry.DoubleValue dashGoalPosition = telemetry.number("Goal Position");
+  private final Telemetry.DoubleValue dashGetPosition = telemetry.number("Get Position");
+  private final Telemetry.DoubleValue dashAngleError = telemetry.number("Angle Error");
+  private final Telemetry.BooleanValue dashInAngleDeadband = telemetry.bool("In Angle Deadband");
+
 
     /**
    * @param leftJoystick left joystick.  X and Y axis control robot movement, relative to front of robot
@@ -67,7 +79,7 @@ public class DriveWithJoysticksAdvance extends Command {
   public void initialize() {
     driveTrain.setDriveModeCoast(false);
 
-    goalAngle = driveTrain.getPose().getRotation().getRadians();
+    goalAngle = driveTrain.getState().pose.getRotation().getRadians();
 
     firstInDeadband = true;
     firstCorrecting = true;
@@ -81,14 +93,19 @@ public class DriveWithJoysticksAdvance extends Command {
   public void execute() {
 
     aimLock = driveTrain.isAimLockEnabled();
+    DriveState state = driveTrain.getState();
+    double poseX = state.pose.getX();
+    double poseY = state.pose.getY();
+    double poseAngle = state.pose.getRotation().getRadians();
 
     fwdVelocity = -leftJoystick.getY();
     leftVelocity = -leftJoystick.getX();
     turnRate = -rightJoystick.getX();
 
-    SmartDashboard.putNumber("Left Joystick Y", fwdVelocity);
-    SmartDashboard.putNumber("Left Joystick X", leftVelocity);
-    SmartDashboard.putNumber("Right Joystick X", turnRate);
+    telemetry.startSnapshot();
+    dashLeftY.set(fwdVelocity);
+    dashLeftX.set(leftVelocity);
+    dashRightX.set(turnRate);
 
     // Apply deadbands
 
@@ -113,23 +130,22 @@ public class DriveWithJoysticksAdvance extends Command {
         if(firstCorrecting){
           firstCorrecting = false;
           driveTrain.enableFastLogging(false);
-          goalAngle = driveTrain.getPose().getRotation().getRadians();
-          goalAngle = MathUtil.angleModulus(goalAngle);
+          goalAngle = MathUtil.angleModulus(poseAngle);
           turnRateController.reset(goalAngle);      // sets the current setpoint for the controller
         }
         if (aimLock) {
           if (robotState.getShotMode() == ShotMode.FAR_PASS  || robotState.getShotMode() == ShotMode.VISION_FAR_PASS) {
             // Aim towards far pass target
-            goalAngle = Math.atan((driveTrain.getPose().getY() - allianceSelection.getFarPassYPos())/(driveTrain.getPose().getX() - allianceSelection.getFarPassXPos()));
+            goalAngle = Math.atan((poseY - allianceSelection.getFarPassYPos())/(poseX - allianceSelection.getFarPassXPos()));
           } else if (robotState.getShotMode() == ShotMode.VISION_MID_PASS) {
             // Aim towards mid pass target
-            goalAngle = Math.atan((driveTrain.getPose().getY() - allianceSelection.getMidPassYPos())/(driveTrain.getPose().getX() - allianceSelection.getMidPassXPos()));
+            goalAngle = Math.atan((poseY - allianceSelection.getMidPassYPos())/(poseX - allianceSelection.getMidPassXPos()));
           } else {
             // Aim towards speaker
-            goalAngle = Math.atan((driveTrain.getPose().getY() - allianceSelection.getSpeakerYPos())/driveTrain.getPose().getX());
+            goalAngle = Math.atan((poseY - allianceSelection.getSpeakerYPos())/poseX);
           }
           goalAngle = MathUtil.angleModulus(goalAngle);
-          SmartDashboard.putNumber("Goal Angle", goalAngle);
+          dashGoalAngle.set(goalAngle);
           turnRateController.reset(goalAngle);
         }
       // When the right button on the right joystick is pressed then the robot turns pi radians(180 degrees)
@@ -144,12 +160,12 @@ public class DriveWithJoysticksAdvance extends Command {
       // goalAngle = rightJoystick.getRawButtonPressed(1) ? 0 : goalAngle;
 
       // Calculates using the profiledPIDController what the next speed should be
-      SmartDashboard.putNumber("Goal Position", goalAngle);
-      SmartDashboard.putNumber("Get Position", driveTrain.getPose().getRotation().getRadians());
-      SmartDashboard.putNumber("Angle Error", goalAngle - driveTrain.getPose().getRotation().getRadians());
-      SmartDashboard.putBoolean("In Angle Deadband", Math.abs(goalAngle - driveTrain.getPose().getRotation().getRadians()) < Math.PI/180);
-      if(Math.abs(goalAngle - driveTrain.getPose().getRotation().getRadians()) > Math.PI/180){
-        nextTurnRate = turnRateController.calculate(driveTrain.getPose().getRotation().getRadians(), goalAngle);
+      dashGoalPosition.set(goalAngle);
+      dashGetPosition.set(poseAngle);
+      dashAngleError.set(goalAngle - poseAngle);
+      dashInAngleDeadband.set(Math.abs(goalAngle - poseAngle) < Math.PI/180);
+      if(Math.abs(goalAngle - poseAngle) > Math.PI/180){
+        nextTurnRate = turnRateController.calculate(poseAngle, goalAngle);
       }
       else{
         nextTurnRate = 0;
@@ -182,7 +198,7 @@ public class DriveWithJoysticksAdvance extends Command {
       firstInDeadband = true;
       firstCorrecting = true;
     }
-    
+    telemetry.endSnapshot();
   }
 
   // Called once the command ends or is interrupted.
@@ -0,0 +1,85 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.utilities.FileLog;
+
+public class FileLogSetLevel extends Command {
+  private int level;
+  private String subsystemName;
+  private final FileLog log;
+  private boolean fromShuffleboard;
+
+  /**
+   * Changes the file log level of detail.
+   * @param level between 1-3, where 1 is the most detailed (debug), 2 = lab, and 3 is the least detailed (competition).
+   * @param subsystemName name of the subsystem or command to change, or "" to change the overall log level.
+   * For a subsystem, level 0 removes the subsystem's log level so that it uses the overall log level.
+   * @param log
+   */
+  public FileLogSetLevel(int level, String subsystemName, FileLog log) {
+    this.level = level;
+    this.subsystemName = subsystemName;
+    this.log = log;
+    this.fromShuffleboard = false;
+  }
+
+  /**
+   * Changes the file log level of detail, using the "FileLog Level" and "FileLog Level Subsystem"
+   * values from Shuffleboard.
+   * @param log
+   */
+  public FileLogSetLevel(FileLog log) {
+    this.level = log.getLogLevel();
+    this.subsystemName = "";
+    this.log = log;
+    this.fromShuffleboard = true;
+
+    if(SmartDashboard.getNumber("FileLog Level", -9999) == -9999) {
+      SmartDashboard.putNumber("FileLog Level", log.getLogLevel());
+    }
+    if(SmartDashboard.getString("FileLog Level Subsystem", null) == null) {
+      SmartDashboard.putString("FileLog Level Subsystem", "");
+    }
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    if (fromShuffleboard) {
+      level = (int) SmartDashboard.getNumber("FileLog Level", log.getLogLevel());
+      subsystemName = SmartDashboard.getString("FileLog Level Subsystem", "").trim();
+    }
+
+    if (subsystemName.isEmpty()) {
+      log.setLogLevel(level);
+    } else {
+      log.setLogLevel(subsystemName, level);
+    }
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return true;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return true;
+  }
+}
@@ -4,6 +4,7 @@
 
 package frc.robot.commands.Sequences;
 
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj2.command.ConditionalCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
@@ -56,8 +57,9 @@ public class ShootPiecePassWithVision extends SequentialCommandGroup {
       new ParallelCommandGroup(
         new RobotStateSet(BCRRobotState.State.SHOOTING, robotState, log),
         new ShooterSetVelocity(() -> {
-          double x = driveTrain.getPose().getX() - (robotState.getShotMode() == ShotMode.VISION_FAR_PASS ? allianceSelection.getFarPassXPos() : allianceSelection.getMidPassXPos());
-          double y = driveTrain.getPose().getY() - (robotState.getShotMode() == ShotMode.VISION_FAR_PASS ? allianceSelection.getFarPassYPos() : allianceSelection.getMidPassYPos());
+          Pose2d robotPose = driveTrain.getState().pose;
+          double x = robotPose.getX() - (robotState.getShotMode() == ShotMode.VISION_FAR_PASS ? allianceSelection.getFarPassXPos() : allianceSelection.getMidPassXPos());
+          double y = robotPose.getY() - (robotState.getShotMode() == ShotMode.VISION_FAR_PASS ? allianceSelection.getFarPassYPos() : allianceSelection.getMidPassYPos());
           // distance from center of robot to shooter
           double dist = Math.sqrt(x*x+y*y);
 
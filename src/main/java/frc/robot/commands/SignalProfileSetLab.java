@@ -0,0 +1,62 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.utilities.FileLog;
+import frc.robot.utilities.SignalProfile;
+
+public class SignalProfileSetLab extends Command {
+  private final FileLog log;
+
+  /**
+   * Switches the CAN signal update rates between the lab profile and the competition profile,
+   * using the "Signal Lab Profile" value from Shuffleboard (true = lab, false = competition).
+   * <p> This makes blocking CAN calls for every device, so it only changes the profile when the robot is disabled.
+   * @param log
+   */
+  public SignalProfileSetLab(FileLog log) {
+    this.log = log;
+
+    if (!SmartDashboard.containsKey("Signal Lab Profile")) {
+      SmartDashboard.putBoolean("Signal Lab Profile", SignalProfile.isLabProfile());
+    }
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    boolean lab = SmartDashboard.getBoolean("Signal Lab Profile", SignalProfile.isLabProfile());
+
+    if (DriverStation.isEnabled()) {
+      log.writeLogEcho(true, "SignalProfileSetLab", "Not changed, robot is enabled", "Lab", lab);
+      return;
+    }
+    SignalProfile.setLabProfile(lab, log);
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return true;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return true;
+  }
+}
@@ -362,20 +362,22 @@ public class SwerveControllerLogCommand extends Command {
 
     m_outputModuleStates.accept(targetModuleStates);
 
-    ChassisSpeeds robotSpeeds = m_driveTrain.getRobotSpeeds();
-    m_log.writeLog(false, "DriveTrajectory", "Execute", 
-        "Time", m_timer.get(), 
-        "Traj X", desiredState.poseMeters.getTranslation().getX(),
-        "Traj Y", desiredState.poseMeters.getTranslation().getY(),
-        "Traj Vel", desiredState.velocityMetersPerSecond,
-        "Traj VelAng", desiredState.poseMeters.getRotation().getDegrees(),
-        "Target rot", desiredRotation.getDegrees(), 
-        "Robot X", robotPose.getTranslation().getX(),
-        "Robot Y", robotPose.getTranslation().getY(),
-        "Robot Vel", Math.hypot(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond),
-        "Robot VelAng", Math.toDegrees(Math.atan2(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond)),
-        "Robot rot", robotPose.getRotation().getDegrees()
-    );
+    if (m_log.isLogEnabled(FileLog.kLevelLab, "DriveTrajectory")) {
+      ChassisSpeeds robotSpeeds = m_driveTrain.getState().fieldSpeeds;
+      m_log.record(false, "DriveTrajectory", "Execute")
+          .d("Time", m_timer.get())
+          .d("Traj X", desiredState.poseMeters.getTranslation().getX())
+          .d("Traj Y", desiredState.poseMeters.getTranslation().getY())
+          .d("Traj Vel", desiredState.velocityMetersPerSecond)
+          .d("Traj VelAng", desiredState.poseMeters.getRotation().getDegrees())
+          .d("Target rot", desiredRotation.getDegrees())
+          .d("Robot X", robotPose.getTranslation().getX())
+          .d("Robot Y", robotPose.getTranslation().getY())
+          .d("Robot Vel", Math.hypot(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond))
+          .d("Robot VelAng", Math.toDegrees(Math.atan2(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond)))
+          .d("Robot rot", robotPose.getRotation().getDegrees())
+          .commit();
+    }
 
   }
 
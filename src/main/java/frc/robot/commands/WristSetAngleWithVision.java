@@ -7,6 +7,7 @@
 
 package frc.robot.commands;
 
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -72,7 +73,8 @@ public class WristSetAngleWithVision extends Command {
    * @return Recommended wrist angle, in degrees 
    */
   private double getAngleFromDistance(int n) {
-    return getAngleFromDistance(n, driveTrain.getPose().getX(), driveTrain.getPose().getY());
+    Pose2d robotPose = driveTrain.getState().pose;
+    return getAngleFromDistance(n, robotPose.getX(), robotPose.getY());
   }
 
   /**
@@ -118,7 +120,8 @@ public class WristSetAngleWithVision extends Command {
   @Override
   public void execute() {
     try {
-      angle = getAngleFromDistanceSimplified(driveTrain.getPose().getX(), driveTrain.getPose().getY());
+      Pose2d robotPose = driveTrain.getState().pose;
+      angle = getAngleFromDistanceSimplified(robotPose.getX(), robotPose.getY());
       wrist.setWristAngle(angle + SmartDashboard.getNumber("Wrist Vision Constant Offset", 0));
       wrist.updateWristLog(false);
     } catch (ArithmeticException e) {
@@ -4,27 +4,25 @@
 
 package frc.robot.subsystems;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
 // import com.ctre.phoenix6.configs.Pigeon2Configuration;
 // import com.ctre.phoenix6.configs.Pigeon2Configurator;
 import com.ctre.phoenix6.hardware.Pigeon2;
 
-import edu.wpi.first.math.Matrix;
-import edu.wpi.first.math.Nat;
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.math.numbers.N1;
-import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
@@ -36,28 +34,78 @@ import static frc.robot.Constants.DriveConstants.*;
 import frc.robot.Constants.FieldConstants;
 import frc.robot.Constants.Ports;
 import frc.robot.Constants.SwerveConstants;
+import frc.robot.Constants.VisionConstants;
 import frc.robot.utilities.*;
 
 // Vision imports
-import org.photonvision.EstimatedRobotPose;
 import org.photonvision.targeting.PhotonPipelineResult;
 import org.photonvision.targeting.PhotonTrackedTarget;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 
 public class DriveTrain extends SubsystemBase implements Loggable {
 
   // File logging variables
   private FileLog log;
+  private final Consumer<LogRecordBuilder> logFields = this::addLogFields;   // see FileLog.record()
   private int logRotationKey;         // key for the logging cycle for this subsystem
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("Drive periodic");   // Time spent in periodic()
   private boolean fastLogging = false; // true is enabled to run every cycle; false follows normal logging cycles
 
+  // Dashboard values (publishers are created once, not on each cycle)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashSpeed = telemetry.number("Drive Speed");
+  private final Telemetry.DoubleValue dashXVelocity = telemetry.number("Drive X Velocity");
+  private final Telemetry.DoubleValue dashYVelocity = telemetry.number("Drive Y Velocity");
+  private final Telemetry.BooleanValue dashGyroReading = telemetry.bool("Drive isGyroReading", Telemetry.kRate10Hz);
+  private final Telemetry.BooleanValue dashBrakeMode = telemetry.bool("Drive isBrakeMode", Telemetry.kRate10Hz);
+  private final Telemetry.DoubleValue dashRawGyro = telemetry.number("Drive Raw Gyro");
+  private final Telemetry.DoubleValue dashGyroRotation = telemetry.number("Drive Gyro Rotation");
+  private final Telemetry.DoubleValue dashAngVel = telemetry.number("Drive AngVel");
+  private final Telemetry.DoubleValue dashPitch = telemetry.number("Drive Pitch", 0.1);
+  private final Telemetry.DoubleValue dashOdometryX = telemetry.number("Drive Odometry X");
+  private final Telemetry.DoubleValue dashOdometryY = telemetry.number("Drive Odometry Y");
+  private final Telemetry.DoubleValue dashOdometryTheta = telemetry.number("Drive Odometry Theta");
+  private final Telemetry.PoseValue dashOdometryPose = telemetry.pose("Drive Odometry Pose");
+  private final Telemetry.StatesValue dashModuleStates = telemetry.states("Drive Module States");
+  private final Telemetry.DoubleValue dashOdometryRate = telemetry.number("Drive Odometry Hz", 5.0, Telemetry.kRate1Hz);
+  private final Telemetry.BooleanValue dashVisionOdometry = telemetry.bool("Vision Updating Odometry", Telemetry.kRate10Hz);
+  private final Telemetry.DoubleValue dashVisionFrames = telemetry.number("Vision Frames", 0.5, Telemetry.kRate1Hz);
+  private final Telemetry.DoubleValue dashVisionDropped = telemetry.number("Vision Dropped Frames", 0.5, Telemetry.kRate1Hz);
+  private final Telemetry.DoubleValue dashVisionLatency = telemetry.number("Vision Latency ms", 1.0, Telemetry.kRate10Hz);
+  private final Telemetry.DoubleValue dashVisionX = telemetry.number("Vision X");
+  private final Telemetry.DoubleValue dashVisionY = telemetry.number("Vision Y");
+  private final Telemetry.DoubleValue dashVisionRot = telemetry.number("Vision rot");
+  private final Telemetry.DoubleValue dashVisionTags = telemetry.number("Vision Tags");
+  private final Telemetry.DoubleValue dashVisionAmbiguity = telemetry.number("Vision Ambiguity");
+  private final Telemetry.BooleanValue dashVisionConnected = telemetry.bool("PhotonVision Connected", Telemetry.kRate1Hz);
+  private final Telemetry.DoubleValue dashBusVolt = telemetry.number("Drive Bus Volt", 0.05, Telemetry.kRate10Hz);
+
+  // Module states and robot angle for the "Swerve Drive" widget, sampled once per logging cycle
+  private SwerveModuleState[] dashSwerveStates;
+  private double dashSwerveRobotAngle = 0.0;      // radians
+
   // variables for swerve modules
   private final SwerveModule swerveFrontLeft;
   private final SwerveModule swerveFrontRight;
   private final SwerveModule swerveBackLeft;
   private final SwerveModule swerveBackRight;
+  private final SwerveModule[] swerveModules;     // All of the modules, in kinematics order
+
+  // Kinematics for driving and for the measured speeds, on preallocated arrays so that driving does not allocate each cycle
+  private final SwerveDriveKinematicsBCR kinematics = new SwerveDriveKinematicsBCR(kModuleLocations);
+  private final double[] commandSpeeds = new double[SwerveDriveKinematicsBCR.kNumModules];      // Module speeds to drive, in m/s
+  private final double[] commandAngles = new double[SwerveDriveKinematicsBCR.kNumModules];      // Module angles to drive, in radians
+  private final double[] commandChassis = new double[3];                                        // {vx, vy, omega} to drive
+  private final double[] measuredSpeeds = new double[SwerveDriveKinematicsBCR.kNumModules];     // Module speeds from the encoders, in m/s
+  private final double[] measuredAngles = new double[SwerveDriveKinematicsBCR.kNumModules];     // Module angles from the encoders, in radians
+  private final double[] measuredChassis = new double[3];                                       // {vx, vy, omega} from the encoders
+  private static final Translation2d kRobotCenter = new Translation2d();
     
   // variables for gyro and gyro calibration
   private final Pigeon2 pigeon = new Pigeon2(CANPigeonGyro, Ports.CANivoreBus);
@@ -66,10 +114,12 @@ public class DriveTrain extends SubsystemBase implements Loggable {
   private final StatusSignal<Angle> pigeonYaw = pigeon.getYaw();
   private final StatusSignal<Angle> pigeonPitch = pigeon.getRoll();    // Pigeon is mounted rotated by 90deg, so robot pitch is pigeon roll
   private final StatusSignal<Boolean> pigeonFault = pigeon.getFault_Hardware();
-  private double yawZero = 0.0;
+  private final StatusSignal<AngularVelocity> pigeonAngularVelocity = pigeon.getAngularVelocityZWorld();
+
+  // All swerve module and gyro signals, refreshed together once per cycle by refreshSignals()
+  private final BaseStatusSignal[] statusSignals;
+  private volatile double yawZero = 0.0;      // Also read by the odometry thread
   private double pitchZero = 0.0;
-  private final Matrix<N3, N1> closeMatrix = new Matrix<>(Nat.N3(), Nat.N1(), new double[] {.9,.9,.9});
-  private final Matrix<N3, N1> farMatrix = new Matrix<>(Nat.N3(), Nat.N1(), new double[] {2,2,2});
 
 
   // variables to help calculate angular velocity for turnGyro
@@ -90,10 +140,17 @@ public class DriveTrain extends SubsystemBase implements Loggable {
   // variable for vison-based aiming in DriveWithJoysticksAdvance
   private boolean aimLock = false;
 
-  // Odometry class for tracking robot pose
-  private final SwerveDrivePoseEstimator poseEstimator; 
+  // Odometry class for tracking robot pose.  Updated on the odometry thread (or once per cycle if the thread is not used).
+  private final OdometryThread odometry;
+  // AprilTag pose solver.  Runs on the vision thread (or once per cycle if the thread is not used).
+  private final VisionThread vision;
   private final Field2d field = new Field2d();    // Field to dispaly on Shuffleboard
-  private double speedAvg;        // Average speed of the robot chassis
+
+  // Sensors and pose for this cycle, replaced once per cycle by updateState()
+  private volatile DriveState state;
+  private long stateCycle = 0;
+  private final double[] stateTimestamp = new double[1];     // FPGA time of the odometry update for the snapshot pose
+  private final PoseHistory poseHistory = new PoseHistory(poseHistorySize);    // Pose and velocity from each snapshot, at the FPGA time of its odometry update
 
   //Slew rate limiter
   // private boolean elevatorUpPriorIteration = false;       // Tracking for elevator position from prior iteration
@@ -129,6 +186,22 @@ public class DriveTrain extends SubsystemBase implements Loggable {
     // Put drive mode on shuffleboard
     setDriveModeCoast(false);
 
+    // Collect the module and gyro signals, so they can be read from the CAN bus in one call each cycle
+    swerveModules = new SwerveModule[] {swerveFrontLeft, swerveFrontRight, swerveBackLeft, swerveBackRight};
+    List<BaseStatusSignal> signals = new ArrayList<>();
+    for (SwerveModule module : swerveModules) {
+      signals.addAll(Arrays.asList(module.getStatusSignals()));
+    }
+    signals.addAll(List.of(pigeonYaw, pigeonPitch, pigeonFault, pigeonAngularVelocity));
+    statusSignals = signals.toArray(new BaseStatusSignal[0]);
+
+    // Set the gyro signal update rates and turn off the unused gyro status frames (each SwerveModule sets its own)
+    new SignalProfile("Drive", pigeon)
+      .odometry(pigeonYaw, pigeonAngularVelocity)
+      .diagnostic(pigeonPitch, pigeonFault)
+      .apply(log);
+    refreshSignals();
+
     // configure gyro
     // This Pigeon is mounted normally, so no need to change orientation
     // pigeonConfig.MountPose.MountPoseYaw = 0;
@@ -154,13 +227,69 @@ public class DriveTrain extends SubsystemBase implements Loggable {
 
     // create and initialize odometery
     // Set initial location to 0,0.
-    poseEstimator = new SwerveDrivePoseEstimator(kDriveKinematics, Rotation2d.fromDegrees(getGyroRotation()), 
+    PoseFusion poseEstimator = new PoseFusion(kDriveKinematics, Rotation2d.fromDegrees(getGyroRotation()), 
        getModulePositions(), new Pose2d(0, 0, Rotation2d.fromDegrees(0)) );
+    odometry = new OdometryThread(swerveModules, pigeonYaw, pigeonAngularVelocity,
+      yawRaw -> MathBCR.normalizeAngle(yawRaw - yawZero), poseEstimator, log);
+    if (useOdometryThread) {
+      odometry.start();
+    }
     SmartDashboard.putData("Field", field);
+    updateState();
+
+    // Start vision after the pose history exists, since the vision thread reads it
+    vision = new VisionThread(camera, this::getPoseAt, log);
+    if (VisionConstants.useVisionThread) {
+      vision.start();
+    }
+
+    // Swerve widget is registered once.  SmartDashboard polls these properties every cycle, so they only
+    // read the states sampled in periodic() (no CAN reads).
+    dashSwerveStates = state.moduleStates;
+    SmartDashboard.putData("Swerve Drive", new Sendable() {
+      @Override
+      public void initSendable(SendableBuilder builder) {
+        builder.setSmartDashboardType("SwerveDrive");
+
+        builder.addDoubleProperty("Front Left Angle", () -> dashSwerveStates[0].angle.getRadians(), null);
+        builder.addDoubleProperty("Front Left Velocity", () -> dashSwerveStates[0].speedMetersPerSecond, null);
+
+        builder.addDoubleProperty("Front Right Angle", () -> dashSwerveStates[1].angle.getRadians(), null);
+        builder.addDoubleProperty("Front Right Velocity", () -> dashSwerveStates[1].speedMetersPerSecond, null);
+
+        builder.addDoubleProperty("Back Left Angle", () -> dashSwerveStates[2].angle.getRadians(), null);
+        builder.addDoubleProperty("Back Left Velocity", () -> dashSwerveStates[2].speedMetersPerSecond, null);
+
+        builder.addDoubleProperty("Back Right Angle", () -> dashSwerveStates[3].angle.getRadians(), null);
+        builder.addDoubleProperty("Back Right Velocity", () -> dashSwerveStates[3].speedMetersPerSecond, null);
+
+        builder.addDoubleProperty("Robot Angle", () -> dashSwerveRobotAngle, null);
+      }
+    });
    // SmartDashboard.putData()
   }
   
 
+  // ************ Status signal methods
+
+  /**
+   * Reads all of the swerve module and gyro signals from the CAN bus, in one call.  The gyro and
+   * swerve module getters return the values from the last refresh, so all of the modules are
+   * sampled at the same time.  Called at the start of periodic().
+   */
+  public void refreshSignals() {
+    SignalMonitor.refreshAll(statusSignals);
+  }
+
+  /**
+   * @return time of the gyro sample from the last refresh, in seconds.  This is Phoenix time
+   *   (Utils.getCurrentTimeSeconds()), not FPGA time, so do not compare it with Timer.getFPGATimestamp()
+   *   or PhotonVision timestamps.
+   */
+  public double getSampleTimestamp() {
+    return pigeonYaw.getTimestamp().getTime();
+  }
+
   // ************ Gyro methods
 
   /**
@@ -168,7 +297,7 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @return true = gryo is connected to Rio
    */
   public boolean isGyroReading() {
-    return !pigeonFault.refresh().getValue();
+    return !pigeonFault.getValue();
   }
 
   /**
@@ -177,14 +306,14 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @return raw gyro angle, in degrees.
    */
   public double getGyroRaw() {
-    return pigeonYaw.refresh().getValueAsDouble();
+    return pigeonYaw.getValueAsDouble();
   }
 
   /**
 	 * @return double, gyro pitch from 180 to -180, in degrees (postitive is nose up, negative is nose down)
 	 */
 	public double getGyroPitchRaw() {
-		return pigeonPitch.refresh().getValueAsDouble();
+		return pigeonPitch.getValueAsDouble();
   }
 
   public void resetGyroPitch(){
@@ -232,7 +361,7 @@ public class DriveTrain extends SubsystemBase implements Loggable {
   public double getAngularVelocity () {
     // return angularVelocity;
     //return -pigeon.getRate();     // TODO check if this is accurate!  If so, then delete the commented-out code to calc angularVelocity in periodic, constructor, etc
-    return pigeon.getAngularVelocityZWorld().refresh().getValueAsDouble(); //getRate was deprecated, negative removed as getRate returns cw while this returns ccw
+    return pigeonAngularVelocity.getValueAsDouble(); //getRate was deprecated, negative removed as getRate returns cw while this returns ccw
   }
 
   /**
@@ -268,27 +397,39 @@ public class DriveTrain extends SubsystemBase implements Loggable {
 
   /**
    * Sets the drive train to coast or brake mode.
-   * <p> <b>Note</b> that this procedure includes multiple blocking calls and will delay robot code by ~250ms if the mode is changed.
-   * However, if setCoast is the same as the current setting, then nothing is sent to the swerve modules and there will not
-   * be a delay.
+   * <p> The motor configurations are applied on the ConfigApplier thread (~250ms for all modules), so this
+   * does not delay robot code.  Use isDriveModeChanging() or the returned future to see when the change is done.
+   * If setCoast is the same as the last requested setting, then nothing is sent to the swerve modules.
    * @param setCoast true = coast mode, false = brake mode
+   * @return completes when all of the swerve modules are changed
    */
-  public void setDriveModeCoast(boolean setCoast) {
-    swerveFrontLeft.setMotorModeCoast(setCoast);
-    swerveFrontRight.setMotorModeCoast(setCoast);
-    swerveBackLeft.setMotorModeCoast(setCoast);
-    swerveBackRight.setMotorModeCoast(setCoast);
+  public CompletableFuture<Void> setDriveModeCoast(boolean setCoast) {
+    CompletableFuture<Void> change = CompletableFuture.allOf(
+      swerveFrontLeft.setMotorModeCoast(setCoast),
+      swerveFrontRight.setMotorModeCoast(setCoast),
+      swerveBackLeft.setMotorModeCoast(setCoast),
+      swerveBackRight.setMotorModeCoast(setCoast));
 
     SmartDashboard.putString("Drive Mode", setCoast ? "Coast" : "Brake");
+    return change;
   }
 
   /**
    * Gets the drive train mode (coast vs brake).
    * @return Returns true if in motors are in coast, or false if in brake.
+   * This is the requested mode, which may still be being applied (see isDriveModeChanging()).
    */
   public boolean isDriveModeCoast(){
     return swerveFrontLeft.isMotorModeCoast() && swerveFrontRight.isMotorModeCoast() &&
-      swerveBackLeft.isMotorModeCoast() && swerveBackLeft.isMotorModeCoast();
+      swerveBackLeft.isMotorModeCoast() && swerveBackRight.isMotorModeCoast();
+  }
+
+  /**
+   * @return true = a coast/brake mode change has not been applied to all of the swerve modules yet
+   */
+  public boolean isDriveModeChanging() {
+    return swerveFrontLeft.isMotorModeChanging() || swerveFrontRight.isMotorModeChanging() ||
+      swerveBackLeft.isMotorModeChanging() || swerveBackRight.isMotorModeChanging();
   }
 
   /**
@@ -357,29 +498,35 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @param isOpenLoop true = fixed drive percent output to approximate velocity, false = closed loop drive velocity control
    */
   public void setModuleStates(SwerveModuleState[] desiredStates, boolean isOpenLoop) {
+    for (int i = 0; i < SwerveDriveKinematicsBCR.kNumModules; i++) {
+      commandSpeeds[i] = desiredStates[i].speedMetersPerSecond;
+      commandAngles[i] = desiredStates[i].angle.getRadians();
+    }
+    driveCommandStates(isOpenLoop);
+  }
 
+  /**
+   * Drives the module speeds and angles in commandSpeeds and commandAngles, after discretizing and desaturating them.
+   * @param isOpenLoop true = fixed drive percent output to approximate velocity, false = closed loop drive velocity control
+   */
+  private void driveCommandStates(boolean isOpenLoop) {
     // Convert states to chassisspeeds and slew limit velocities (limit acceleration) to avoid tipping the robot.
-    ChassisSpeeds chassisSpeeds = kDriveKinematics.toChassisSpeeds(desiredStates);
-    double xSlewed, omegaLimited, ySlewed;
-    omegaLimited = chassisSpeeds.omegaRadiansPerSecond;   // No limiting for this robot -- it can't tip
-    xSlewed = chassisSpeeds.vxMetersPerSecond;            // No limiting for this robot -- it can't tip
-    ySlewed = chassisSpeeds.vyMetersPerSecond;            // No limiting for this robot -- it can't tip
+    // No limiting for this robot -- it can't tip
+    kinematics.toChassisSpeeds(commandSpeeds, commandAngles, commandChassis);
 
     // Discretize the movement to avoid unintended robot translation while robot is rotating
-    chassisSpeeds = ChassisSpeeds.discretize(xSlewed, ySlewed, omegaLimited, SwerveConstants.dt);
+    SwerveDriveKinematicsBCR.discretize(commandChassis, SwerveConstants.dt);
 
     // convert back to swerve module states
-    desiredStates = kDriveKinematics.toSwerveModuleStates(chassisSpeeds, new Translation2d());
+    kinematics.toModuleStates(commandChassis[0], commandChassis[1], commandChassis[2], commandSpeeds, commandAngles);
     
     // Desaturate wheel speeds to a little below max speed.  It takes a while to accelerate to
     // max speed, so reducing the max will help movement accuracy.
-    SwerveDriveKinematics.desaturateWheelSpeeds(
-        desiredStates, SwerveConstants.kMaxSpeedMetersPerSecond);
+    SwerveDriveKinematicsBCR.desaturate(commandSpeeds, SwerveConstants.kMaxSpeedMetersPerSecond);
 
-    swerveFrontLeft.setDesiredState(desiredStates[0], isOpenLoop);
-    swerveFrontRight.setDesiredState(desiredStates[1], isOpenLoop);
-    swerveBackLeft.setDesiredState(desiredStates[2], isOpenLoop);
-    swerveBackRight.setDesiredState(desiredStates[3], isOpenLoop);
+    for (int i = 0; i < SwerveDriveKinematicsBCR.kNumModules; i++) {
+      swerveModules[i].setDesiredState(commandSpeeds[i], Math.toDegrees(commandAngles[i]), isOpenLoop);
+    }
   }
 
   /**
@@ -402,7 +549,19 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @return ChassisSpeeds object representing the chassis speeds.
    */
   public ChassisSpeeds getChassisSpeeds() {
-    return kDriveKinematics.toChassisSpeeds(getModuleStates());
+    updateMeasuredChassis();
+    return new ChassisSpeeds(measuredChassis[0], measuredChassis[1], measuredChassis[2]);
+  }
+
+  /**
+   * Calculates the robot-relative chassis speeds from the module encoders into measuredChassis.
+   */
+  private void updateMeasuredChassis() {
+    for (int i = 0; i < SwerveDriveKinematicsBCR.kNumModules; i++) {
+      measuredSpeeds[i] = swerveModules[i].getDriveEncoderVelocity();
+      measuredAngles[i] = Math.toRadians(swerveModules[i].getTurningEncoderDegrees());
+    }
+    kinematics.toChassisSpeeds(measuredSpeeds, measuredAngles, measuredChassis);
   }
 
   /**
@@ -427,7 +586,7 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @param isOpenLoop true = fixed drive percent output to approximate velocity, false = closed loop drive velocity control 
    */
   public void drive(double xSpeed, double ySpeed, double rot, boolean fieldRelative, boolean isOpenLoop) {
-    drive(xSpeed, ySpeed, rot, new Translation2d(), fieldRelative, isOpenLoop);
+    drive(xSpeed, ySpeed, rot, kRobotCenter, fieldRelative, isOpenLoop);
   }
 
   /**
@@ -445,17 +604,21 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    */
    public void drive(double xSpeed, double ySpeed, double rot, Translation2d centerOfRotationMeters, boolean fieldRelative, boolean isOpenLoop) {
     
-    ChassisSpeeds chassisSpeed;
-    chassisSpeed = fieldRelative 
-      ? ChassisSpeeds.fromFieldRelativeSpeeds(xSpeed, ySpeed, rot, Rotation2d.fromDegrees(getGyroRotation()))
-      : new ChassisSpeeds(xSpeed, ySpeed, rot);
+    double vx = xSpeed;
+    double vy = ySpeed;
+    if (fieldRelative) {
+      // Same as ChassisSpeeds.fromFieldRelativeSpeeds():  rotate the field velocity by -(robot facing)
+      double robotAngle = Math.toRadians(getGyroRotation());
+      double cos = Math.cos(robotAngle);
+      double sin = Math.sin(robotAngle);
+      vx = xSpeed * cos + ySpeed * sin;
+      vy = -xSpeed * sin + ySpeed * cos;
+    }
 
-    SwerveModuleState[] swerveModuleStates =
-        kDriveKinematics.toSwerveModuleStates(
-            chassisSpeed,
-            centerOfRotationMeters);
+    kinematics.toModuleStates(vx, vy, rot, centerOfRotationMeters.getX(), centerOfRotationMeters.getY(),
+        commandSpeeds, commandAngles);
 
-    setModuleStates(swerveModuleStates, isOpenLoop);
+    driveCommandStates(isOpenLoop);
   }
 
   // ************ Odometry methods
@@ -466,7 +629,7 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @return The robot's pose
    */
   public Pose2d getPose() {
-    return poseEstimator.getEstimatedPosition();
+    return odometry.getPose();
   }
 
   /**
@@ -482,8 +645,11 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    */
   public void resetPose(Pose2d pose) {
     zeroGyroRotation(pose.getRotation().getDegrees());
-    poseEstimator.resetPosition( Rotation2d.fromDegrees(getGyroRotation()),
-    getModulePositions(), pose );
+    Rotation2d gyroAngle = Rotation2d.fromDegrees(getGyroRotation());
+    SwerveModulePosition[] modulePositions = getModulePositions();
+    odometry.resetPosition(gyroAngle, modulePositions, pose);     // Also records the reset for PoseReplay
+    poseHistory.clear();      // Poses before the reset are in the old frame
+    updateState();      // Commands later in this cycle see the new pose
   }
   
   /**
@@ -494,7 +660,80 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @return ChassisSpeeds object representing the chassis speeds.
    */
   public ChassisSpeeds getRobotSpeeds() {
-    return ChassisSpeeds.fromRobotRelativeSpeeds(getChassisSpeeds(), Rotation2d.fromDegrees(getGyroRotation()));
+    updateMeasuredChassis();
+    return measuredFieldSpeeds(getGyroRotation());
+  }
+
+  /**
+   * Rotates measuredChassis into the field frame of reference (same as ChassisSpeeds.fromRobotRelativeSpeeds()).
+   * @param robotAngleDegrees robot facing on the field, in degrees
+   * @return field-relative chassis speeds
+   */
+  private ChassisSpeeds measuredFieldSpeeds(double robotAngleDegrees) {
+    double robotAngle = Math.toRadians(robotAngleDegrees);
+    double cos = Math.cos(robotAngle);
+    double sin = Math.sin(robotAngle);
+    return new ChassisSpeeds(measuredChassis[0] * cos - measuredChassis[1] * sin,
+        measuredChassis[0] * sin + measuredChassis[1] * cos, measuredChassis[2]);
+  }
+
+  /**
+   * Returns the drive sensors and pose for this robot cycle.  Commands should use this instead of
+   * getPose(), getRobotSpeeds(), getGyroRotation(), etc., so that every command sees the same values and
+   * the sensors are only read once per cycle.  The snapshot is taken in periodic() (before the commands run),
+   * and again after resetPose().
+   * @return snapshot of the drive train for this cycle
+   */
+  public DriveState getState() {
+    return state;
+  }
+
+  /**
+   * Takes a new snapshot of the drive sensors and pose, from the signals read by refreshSignals()
+   * and the current pose estimate.
+   */
+  private void updateState() {
+    updateMeasuredChassis();
+    double gyroRotation = getGyroRotation();
+    Pose2d pose = odometry.getPose(stateTimestamp);
+    state = new DriveState(++stateCycle, stateTimestamp[0], pose,
+        new ChassisSpeeds(measuredChassis[0], measuredChassis[1], measuredChassis[2]), measuredFieldSpeeds(gyroRotation),
+        getGyroRaw(), gyroRotation, getAngularVelocity(), getGyroPitch(), isGyroReading(),
+        getModuleStates(), getModulePositions());
+    poseHistory.add(state.timestampSeconds, state.pose, state.fieldSpeeds);
+  }
+
+  /**
+   * Returns where the robot was at a time in the last PoseHistory (DriveConstants.poseHistorySize cycles),
+   * interpolated between robot cycles.  Use this to match a camera frame with the robot pose when the frame was captured.
+   * @param timestampSeconds FPGA time, in seconds (ex. PhotonPipelineResult.getTimestampSeconds())
+   * @return estimated robot pose at that time (the current pose if there is no history)
+   */
+  public Pose2d getPoseAt(double timestampSeconds) {
+    Pose2d pose = poseHistory.getPoseAt(timestampSeconds);
+    return (pose == null) ? getPose() : pose;
+  }
+
+  /**
+   * Returns the robot velocity at a time in the last PoseHistory (DriveConstants.poseHistorySize cycles),
+   * interpolated between robot cycles.
+   * @param timestampSeconds FPGA time, in seconds
+   * @return robot velocity <b>in the field frame of reference</b> at that time (the current velocity if there is no history)
+   */
+  public ChassisSpeeds getVelocityAt(double timestampSeconds) {
+    ChassisSpeeds speeds = poseHistory.getVelocityAt(timestampSeconds);
+    return (speeds == null) ? state.fieldSpeeds : speeds;
+  }
+
+  /**
+   * Returns the robot angle at a time in the last PoseHistory (DriveConstants.poseHistorySize cycles),
+   * interpolated between robot cycles.  Does not allocate.
+   * @param timestampSeconds FPGA time, in seconds
+   * @return robot angle on the field at that time, in degrees (the current angle if there is no history)
+   */
+  public double getHeadingAt(double timestampSeconds) {
+    double heading = poseHistory.getHeadingDegreesAt(timestampSeconds);
+    return Double.isNaN(heading) ? state.pose.getRotation().getDegrees() : heading;
   }
 
 
@@ -523,8 +762,12 @@ public class DriveTrain extends SubsystemBase implements Loggable {
 
   @Override
   public void periodic() {
+    long timingStart = periodicTiming.start();
     
     // This method will be called once per scheduler run
+
+    // Read the swerve and gyro sensors for this cycle
+    refreshSignals();
     
     // save current angle and time for calculating angVel
     // currAng = getGyroRaw();
@@ -535,55 +778,60 @@ public class DriveTrain extends SubsystemBase implements Loggable {
 
     // update 
     updateOdometry();
+
+    // Snapshot the sensors and pose for the commands and logging in this cycle
+    updateState();
+    DriveState state = this.state;
+
+    // Place robot on field object
+    Pose2d currPose = state.pose;
+    if (camera.getAlliance() == Alliance.Red) {
+      double x = FieldConstants.length - currPose.getX();
+      double y = FieldConstants.width - currPose.getY();
+      Rotation2d rot = currPose.getRotation().rotateBy(Rotation2d.fromDegrees(180));
+
+      field.setRobotPose(new Pose2d(x, y, rot));
+    } else field.setRobotPose(currPose);
     
-    if(fastLogging || log.isMyLogRotation(logRotationKey)) {
+    if (log.isMyLogRotation(logRotationKey, fastLogging)) {
+      long logStartMicros = RobotController.getFPGATime();
       updateDriveLog(false);
 
-      if(!isGyroReading()) {
+      if(!state.gyroReading) {
         RobotPreferences.recordStickyFaults("Gyro", log);
       }
 
-      ChassisSpeeds robotSpeeds = getRobotSpeeds();
+      ChassisSpeeds robotSpeeds = state.fieldSpeeds;
 
+      telemetry.startSnapshot();
       // SmartDashboard.putNumber("Drive Average Dist in Meters", Units.inchesToMeters(getAverageDistance()));
-      SmartDashboard.putNumber("Drive Speed", speedAvg);
-      SmartDashboard.putNumber("Drive X Velocity", robotSpeeds.vxMetersPerSecond);
-      SmartDashboard.putNumber("Drive Y Velocity", robotSpeeds.vyMetersPerSecond);
-      SmartDashboard.putBoolean("Drive isGyroReading", isGyroReading());
-      SmartDashboard.putBoolean("Drive isBrakeMode", !isDriveModeCoast());
-      SmartDashboard.putNumber("Drive Raw Gyro", getGyroRaw());
-      SmartDashboard.putNumber("Drive Gyro Rotation", getGyroRotation());
-      SmartDashboard.putNumber("Drive AngVel", getAngularVelocity());
-      SmartDashboard.putNumber("Drive Pitch", getGyroPitch());
+      dashSpeed.set(state.speedMetersPerSecond);
+      dashXVelocity.set(robotSpeeds.vxMetersPerSecond);
+      dashYVelocity.set(robotSpeeds.vyMetersPerSecond);
+      dashGyroReading.set(state.gyroReading);
+      dashBrakeMode.set(!isDriveModeCoast());
+      dashRawGyro.set(state.gyroRaw);
+      dashGyroRotation.set(state.gyroRotation);
+      dashAngVel.set(state.angularVelocity);
+      dashPitch.set(state.gyroPitch);
       
       // position from poseEstimator (helpful for autos)
-      Pose2d pose = poseEstimator.getEstimatedPosition();
-      SmartDashboard.putNumber("Drive Odometry X", pose.getTranslation().getX());
-      SmartDashboard.putNumber("Drive Odometry Y", pose.getTranslation().getY());
-      SmartDashboard.putNumber("Drive Odometry Theta", pose.getRotation().getDegrees());
-
-      SmartDashboard.putData("Swerve Drive", new Sendable() {
-        @Override
-        public void initSendable(SendableBuilder builder) {
-          builder.setSmartDashboardType("SwerveDrive");
-
-          builder.addDoubleProperty("Front Left Angle", () -> swerveFrontLeft.getTurningEncoderDegrees()*(Math.PI/180), null);
-          builder.addDoubleProperty("Front Left Velocity", () -> swerveFrontLeft.getDriveEncoderVelocity(), null);
-
-          builder.addDoubleProperty("Front Right Angle", () -> swerveFrontRight.getTurningEncoderDegrees()*(Math.PI/180), null);
-          builder.addDoubleProperty("Front Right Velocity", () -> swerveFrontRight.getDriveEncoderVelocity(), null);
-
-          builder.addDoubleProperty("Back Left Angle", () -> swerveBackLeft.getTurningEncoderDegrees()*(Math.PI/180), null);
-          builder.addDoubleProperty("Back Left Velocity", () -> swerveBackLeft.getDriveEncoderVelocity(), null);
-
-          builder.addDoubleProperty("Back Right Angle", () -> swerveBackRight.getTurningEncoderDegrees()*(Math.PI/180), null);
-          builder.addDoubleProperty("Back Right Velocity", () -> swerveBackRight.getDriveEncoderVelocity(), null);
-
-          builder.addDoubleProperty("Robot Angle", () -> getGyroRotation()*(Math.PI/180), null);
-        }
-      });
+      Pose2d pose = state.pose;
+      dashOdometryX.set(pose.getTranslation().getX());
+      dashOdometryY.set(pose.getTranslation().getY());
+      dashOdometryTheta.set(pose.getRotation().getDegrees());
+      dashOdometryPose.set(pose);
+      if (odometry.isRunning()) dashOdometryRate.set(odometry.getSampleRateHz());
+
+      // Sample the module states once for the struct topic and the "Swerve Drive" widget
+      dashSwerveStates = state.moduleStates;
+      dashSwerveRobotAngle = Math.toRadians(state.gyroRotation);
+      dashModuleStates.set(dashSwerveStates);
       // using vision to update odometry
-      SmartDashboard.putBoolean("Vision Updating Odometry", useVisionForOdometry);
+      dashVisionOdometry.set(useVisionForOdometry);
+      dashVisionFrames.set(camera.getFramesProcessed());
+      dashVisionDropped.set(camera.getFramesDropped());
+      dashVisionLatency.set(camera.getLatencyMs());
 
       // Values from each swerve module
       swerveFrontLeft.updateShuffleboard();
@@ -592,12 +840,16 @@ public class DriveTrain extends SubsystemBase implements Loggable {
       swerveBackRight.updateShuffleboard();
 
       // Values for bugfixing
-      SmartDashboard.putNumber("Drive Bus Volt", swerveFrontLeft.getDriveBusVoltage());
+      dashBusVolt.set(swerveFrontLeft.getDriveBusVoltage());
+      telemetry.endSnapshot();
+
+      log.reportLogCost(logRotationKey, logStartMicros);
     }
 
     // save current angVel values as previous values for next calculation
     // prevAng = currAng;
     // prevTime = currTime; 
+    periodicTiming.stop(timingStart);
   }
 
   /**
@@ -605,69 +857,84 @@ public class DriveTrain extends SubsystemBase implements Loggable {
    * @param logWhenDisabled true will log when disabled, false will discard the string
    */
   public void updateDriveLog(boolean logWhenDisabled) {
-    Pose2d pose = poseEstimator.getEstimatedPosition();
-    ChassisSpeeds robotSpeeds = getRobotSpeeds();
-    log.writeLog(logWhenDisabled, "Drive", "Update Variables", 
-      "Gyro Angle", getGyroRotation(), "RawGyro", getGyroRaw(), 
-      "Gyro Velocity", getAngularVelocity(), "Pitch", getGyroPitch(), 
-      "Odometry X", pose.getTranslation().getX(), "Odometry Y", pose.getTranslation().getY(), 
-      "Odometry Theta", pose.getRotation().getDegrees(),
-      "Drive Speed", speedAvg,
-      "Drive X Velocity", robotSpeeds.vxMetersPerSecond, 
-      "Drive Y Velocity", robotSpeeds.vyMetersPerSecond,
-      "Bus voltage", swerveFrontLeft.getDriveBusVoltage(),
-      swerveFrontLeft.getLogString(),
-      swerveFrontRight.getLogString(),
-      swerveBackLeft.getLogString(),
-      swerveBackRight.getLogString()
-      );
+    log.record(FileLog.kLevelCompetition, logWhenDisabled, "Drive", "Update Variables", logFields);
   }
 
-  public void updateOdometry() {
-
-    poseEstimator.update(Rotation2d.fromDegrees(getGyroRotation()), getModulePositions());
-
+  /**
+   * Adds the drive variables to a filelog message.  Only called when the message will be written.
+   * Swerve module details are only added in lab or debug mode.
+   * @param record filelog message
+   */
+  private void addLogFields(LogRecordBuilder record) {
+    DriveState state = this.state;
+    ChassisSpeeds robotSpeeds = state.fieldSpeeds;
+    record.d("Gyro Angle", state.gyroRotation).d("RawGyro", state.gyroRaw)
+      .d("Gyro Velocity", state.angularVelocity).d("Pitch", state.gyroPitch)
+      .pose("Odometry", state.pose)
+      .d("Drive Speed", state.speedMetersPerSecond)
+      .d("Drive X Velocity", robotSpeeds.vxMetersPerSecond)
+      .d("Drive Y Velocity", robotSpeeds.vyMetersPerSecond)
+      .d("Bus voltage", swerveFrontLeft.getDriveBusVoltage());
+    if (odometry.isRunning()) {
+      record.d("Odometry Hz", odometry.getSampleRateHz()).d("Odometry Max Gap ms", odometry.getMaxGapMs())
+        .i("Odometry Failed Waits", odometry.getFailedWaits());
+    }
     if (camera.hasInit()) {
-      PhotonPipelineResult latestResult = camera.getLatestResult();
-      if (latestResult != null) {
-        PhotonPipelineResult camResult = latestResult;
-        Optional<EstimatedRobotPose> result = camera.getEstimatedGlobalPose(poseEstimator.getEstimatedPosition(), camResult);
-        if (result.isPresent()) {
-          EstimatedRobotPose camPose = result.get();
-          SmartDashboard.putNumber("Vision X", camPose.estimatedPose.toPose2d().getX());
-          SmartDashboard.putNumber("Vision Y", camPose.estimatedPose.toPose2d().getY());
-          SmartDashboard.putNumber("Vision rot", camPose.estimatedPose.toPose2d().getRotation().getDegrees());
-
-          // Only run camera updates for pose estimator if useVisionForOdometry is true
-          if (camResult.hasTargets() && useVisionForOdometry) {
-            PhotonTrackedTarget bestTarget = camResult.getBestTarget();
-            if (bestTarget.getBestCameraToTarget().getX() < 3) {
-              poseEstimator.addVisionMeasurement(camPose.estimatedPose.toPose2d(), camPose.timestampSeconds);
-
-              // poseEstimator.addVisionMeasurement(camPose.estimatedPose.toPose2d(), camPose.timestampSeconds, closeMatrix);
-              //field.getObject("Vision").setPose(camPose.estimatedPose.toPose2d());
-            }
-            else if (bestTarget.getBestCameraToTarget().getX() < 7) {
-                poseEstimator.addVisionMeasurement(camPose.estimatedPose.toPose2d(), camPose.timestampSeconds, farMatrix);
-            }
-          }
-        }
-      }
+      record.i("Vision Frames", camera.getFramesProcessed()).i("Vision Dropped", camera.getFramesDropped())
+        .d("Vision Latency ms", camera.getLatencyMs()).d("Vision Max Latency ms", camera.getMaxLatencyMs())
+        .i("Vision Queue Dropped", vision.getMeasurementsDropped())
+        .d("Vision Solve ms", vision.getSolveMs()).d("Vision Max Solve ms", vision.getMaxSolveMs());
+    }
+    if (log.isLogEnabled(FileLog.kLevelLab, "Drive")) {
+      swerveFrontLeft.addLogFields(record);
+      swerveFrontRight.addLogFields(record);
+      swerveBackLeft.addLogFields(record);
+      swerveBackRight.addLogFields(record);
+      record.states("Module States", state.moduleStates);
     }
+  }
 
-    // Update robot average speed
-    ChassisSpeeds robotSpeeds = getRobotSpeeds();
-    speedAvg = Math.hypot(robotSpeeds.vyMetersPerSecond, robotSpeeds.vxMetersPerSecond);
+  /**
+   * Updates the pose from the gyro and swerve modules (if the odometry thread is not running) and from vision.
+   * Called once per robot cycle.
+   */
+  public void updateOdometry() {
+    // The odometry inputs are logged for PoseReplay by OdometryThread, in the order they are applied
+    if (!odometry.isRunning()) {
+      odometry.update(Timer.getFPGATimestamp(), Rotation2d.fromDegrees(getGyroRotation()), getModulePositions());
+    }
 
-    // Place robot on field object
-    if (camera.getAlliance() == Alliance.Red) {
-      Pose2d currPose = poseEstimator.getEstimatedPosition();
-      double x = FieldConstants.length - currPose.getX();
-      double y = FieldConstants.width - currPose.getY();
-      Rotation2d rot = currPose.getRotation().rotateBy(Rotation2d.fromDegrees(180));
+    // Add the AprilTag poses solved since the last cycle (oldest first), each at its own capture time
+    if (!vision.isRunning()) {
+      vision.processFrames();
+    }
+    boolean logVision = log.isMyLogRotation(logRotationKey, fastLogging);
+    VisionThread.Measurement lastMeasurement = null;
+    for (VisionThread.Measurement measurement = vision.poll(); measurement != null; measurement = vision.poll()) {
+      lastMeasurement = measurement;
+
+      // Logged here instead of when the frame is solved, since the log rotation is only for the robot loop
+      if (logVision) {
+        log.writeLog(false, "PhotonCameraWrapper", "getEstimatedGlobalPose", "IsConnected", camera.isConnected(),
+          "TagPresent", true, "X", measurement.pose.getX(), "Y", measurement.pose.getY());
+      }
 
-      field.setRobotPose(new Pose2d(x, y, rot));
-    } else field.setRobotPose(poseEstimator.getEstimatedPosition());
+      // Only run camera updates for pose estimator if useVisionForOdometry is true
+      if (useVisionForOdometry) {
+        odometry.addVisionMeasurement(measurement.pose, measurement.timestampSeconds, measurement.targetDistanceMeters);
+        //field.getObject("Vision").setPose(measurement.pose);
+      }
+    }
+    if (lastMeasurement != null) {
+      telemetry.startSnapshot();
+      dashVisionX.set(lastMeasurement.pose.getX());
+      dashVisionY.set(lastMeasurement.pose.getY());
+      dashVisionRot.set(lastMeasurement.pose.getRotation().getDegrees());
+      dashVisionTags.set(lastMeasurement.tagCount);
+      dashVisionAmbiguity.set(lastMeasurement.ambiguity);
+      telemetry.endSnapshot();
+    }
+    if (dashVisionConnected.isDue()) dashVisionConnected.set(camera.isConnected());
   }  
 
   public void cameraInit() {
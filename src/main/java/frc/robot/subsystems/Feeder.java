@@ -4,6 +4,8 @@
 
 package frc.robot.subsystems;
 
+import java.util.function.Consumer;
+
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.configs.TalonFXConfigurator;
@@ -19,20 +21,33 @@ import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Temperature;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 import frc.robot.Constants.*;
+import frc.robot.utilities.ControlOutput;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LogRecordBuilder;
 import frc.robot.utilities.Loggable;
+import frc.robot.utilities.LoopTiming;
+import frc.robot.utilities.SignalMonitor;
+import frc.robot.utilities.SignalProfile;
 import frc.robot.utilities.StringUtil;
+import frc.robot.utilities.Telemetry;
 
 public class Feeder extends SubsystemBase implements Loggable{
   private final FileLog log;
+  private final Consumer<LogRecordBuilder> logFields = this::addLogFields;   // see FileLog.record()
   private boolean fastLogging = false;
   private int logRotationKey;
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("Feeder periodic");   // Time spent in periodic()
   private final String subsystemName;
 
+  // Dashboard values (publishers are created once in the constructor)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashVoltage, dashRPM, dashTemp;
+  private final Telemetry.BooleanValue dashHasPiece = telemetry.bool("Feeder has piece", Telemetry.kRate10Hz);
+
   // Create Kraken for feeder motor
   private final TalonFX feeder = new TalonFX(Ports.CANFeeder);
   private final TalonFXConfigurator feederConfigurator;
@@ -50,6 +65,7 @@ public class Feeder extends SubsystemBase implements Loggable{
   // Motor controls
   private VoltageOut motorVoltageControl = new VoltageOut(0.0);
   private VelocityVoltage motorVelocityControl = new VelocityVoltage(0.0).withSlot(0);
+  private final ControlOutput feederOutput = new ControlOutput("Feeder", feeder);
 
   private boolean velocityControlOn = false;
   private double setpointRPM;
@@ -64,6 +80,10 @@ public class Feeder extends SubsystemBase implements Loggable{
     logRotationKey = log.allocateLogRotation();
     subsystemName = "Feeder";
 
+    dashVoltage = telemetry.number(StringUtil.buildString(subsystemName, " Voltage"));
+    dashRPM = telemetry.number(StringUtil.buildString(subsystemName, " RPM"));
+    dashTemp = telemetry.number(StringUtil.buildString(subsystemName, " Temp C"), 0.5, Telemetry.kRate1Hz);
+
     // Configure feeder
     feederConfigurator = feeder.getConfigurator();
     feederSupplyVoltage = feeder.getSupplyVoltage();
@@ -92,6 +112,12 @@ public class Feeder extends SubsystemBase implements Loggable{
 		// This is a blocking call and will wait up to 50ms-70ms for each config to apply.  (initial test = 62ms delay)
     feederConfigurator.apply(feederConfig);
 
+    // Set the signal update rates and turn off the unused status frames
+    new SignalProfile(subsystemName, feeder)
+      .control(feederEncoderPosition, feederEncoderVelocity, feederDutyCycle, feederVoltage)
+      .diagnostic(feederSupplyVoltage, feederTemp, feederStatorCurrent)
+      .apply(log);
+
     // Stop Feeder Motor
     stopFeeder();
   }
@@ -111,7 +137,7 @@ public class Feeder extends SubsystemBase implements Loggable{
    */
   public void setFeederPercentOutput(double percent) {
     // Percent output control does not exist; multiply compensationVoltage by percent
-    feeder.setControl(motorVoltageControl.withOutput(percent * FeederConstants.compensationVoltage));
+    feederOutput.setVoltage(motorVoltageControl, percent * FeederConstants.compensationVoltage);
     velocityControlOn = false;
     setpointPercent = percent;
     setpointRPM = 0.0;
@@ -143,7 +169,7 @@ public class Feeder extends SubsystemBase implements Loggable{
     velocityControlOn = true;
     setpointRPM = rpm;
     setpointPercent = 0.0;
-    feeder.setControl(motorVelocityControl.withVelocity(rpm/60.0/FeederConstants.feederGearRatio));
+    feederOutput.setVelocity(motorVelocityControl, rpm/60.0/FeederConstants.feederGearRatio);
   }
 
   /**
@@ -160,7 +186,7 @@ public class Feeder extends SubsystemBase implements Loggable{
    * @return position of feeder in wheel rotations
    */
   public double getFeederPosition() {
-    feederEncoderPosition.refresh();
+    SignalMonitor.refresh(feederEncoderPosition);
     return feederEncoderPosition.getValueAsDouble() * FeederConstants.feederGearRatio;
   }
 
@@ -168,7 +194,7 @@ public class Feeder extends SubsystemBase implements Loggable{
    * @return velocity of feeder in wheel rpm
    */
   public double getFeederVelocity() {
-    feederEncoderVelocity.refresh();
+    SignalMonitor.refresh(feederEncoderVelocity);
     return feederEncoderVelocity.getValueAsDouble() * 60.0 * FeederConstants.feederGearRatio;
   }
 
@@ -177,7 +203,7 @@ public class Feeder extends SubsystemBase implements Loggable{
    * @return feeder voltage, in volts
    */
   public double getFeederVoltage() {
-    return feederVoltage.refresh().getValueAsDouble();
+    return SignalMonitor.refresh(feederVoltage).getValueAsDouble();
   }
 
   // ***  Piece sensor
@@ -193,15 +219,22 @@ public class Feeder extends SubsystemBase implements Loggable{
 
   @Override
   public void periodic() {
+    long timingStart = periodicTiming.start();
     // Log
-    if (fastLogging || log.isMyLogRotation(logRotationKey)) {
+    if (log.isMyLogRotation(logRotationKey, fastLogging)) {
+      long logStartMicros = RobotController.getFPGATime();
       updateLog(false);
 
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Voltage"), getFeederVoltage());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " RPM"), getFeederVelocity());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Temp C"), feederTemp.refresh().getValueAsDouble());
-      SmartDashboard.putBoolean("Feeder has piece", isPiecePresent());
+      telemetry.startSnapshot();
+      dashVoltage.set(getFeederVoltage());
+      dashRPM.set(getFeederVelocity());
+      if (dashTemp.isDue()) dashTemp.set(SignalMonitor.refresh(feederTemp).getValueAsDouble());
+      dashHasPiece.set(isPiecePresent());
+      telemetry.endSnapshot();
+
+      log.reportLogCost(logRotationKey, logStartMicros);
     }
+    periodicTiming.stop(timingStart);
   }
 
   /**
@@ -209,20 +242,23 @@ public class Feeder extends SubsystemBase implements Loggable{
    * @param logWhenDisabled true = log when disabled, false = discard the string
    */
   public void updateLog(boolean logWhenDisabled) {
-    log.writeLog(
-      logWhenDisabled,
-      subsystemName,
-      "Update Variables",
-      "Bus Volt", feederSupplyVoltage.refresh().getValueAsDouble(),
-      "Out Percent", feederDutyCycle.refresh().getValueAsDouble(),
-      "Volt", feederVoltage.refresh().getValueAsDouble(),
-      "Amps", feederStatorCurrent.refresh().getValueAsDouble(),
-      "Temp", feederTemp.refresh().getValueAsDouble(),
-      "Meas RPM", getFeederVelocity(),
-      "Velocity Control", velocityControlOn,
-      "Set RPM", setpointRPM,
-      "Piece in Feeder", isPiecePresent()
-    );
+    log.record(FileLog.kLevelLab, logWhenDisabled, subsystemName, "Update Variables", logFields);
+  }
+
+  /**
+   * Adds the subsystem variables to a filelog message.  Only called when the message will be written.
+   * @param record filelog message
+   */
+  private void addLogFields(LogRecordBuilder record) {
+    record.d("Bus Volt", SignalMonitor.refresh(feederSupplyVoltage).getValueAsDouble())
+      .d("Out Percent", SignalMonitor.refresh(feederDutyCycle).getValueAsDouble())
+      .d("Volt", SignalMonitor.refresh(feederVoltage).getValueAsDouble())
+      .d("Amps", SignalMonitor.refresh(feederStatorCurrent).getValueAsDouble())
+      .d("Temp", SignalMonitor.refresh(feederTemp).getValueAsDouble())
+      .d("Meas RPM", getFeederVelocity())
+      .b("Velocity Control", velocityControlOn)
+      .d("Set RPM", setpointRPM)
+      .b("Piece in Feeder", isPiecePresent());
   }
 
   @Override
@@ -7,6 +7,8 @@
 
 package frc.robot.subsystems;
 
+import java.util.function.Consumer;
+
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.FeedbackSensorSourceValue;
 import com.ctre.phoenix6.signals.InvertedValue;
@@ -22,30 +24,47 @@ import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Temperature;
 import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.IntakeConstants;
 import frc.robot.Constants.Ports;
+import frc.robot.utilities.ControlOutput;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LogRecordBuilder;
 import frc.robot.utilities.Loggable;
+import frc.robot.utilities.LoopTiming;
+import frc.robot.utilities.SignalMonitor;
+import frc.robot.utilities.SignalProfile;
+import frc.robot.utilities.Telemetry;
 import static frc.robot.utilities.StringUtil.*;
 
 
 public class Intake extends SubsystemBase implements Loggable {
 
   private final FileLog log;
+  private final Consumer<LogRecordBuilder> logFields = this::addLogFields;   // see FileLog.record()
   private final int logRotationKey;
   private Timer currentTimer = new Timer();
   private boolean fastLogging = false; // true is enabled to run every cycle; false follows normal logging cycles
   private String subsystemName;    // subsystem name for use in file logging and Shuffleboard
+  private final LoopTiming.Probe periodicTiming;
+
+  // Dashboard values (publishers are created once in the constructor)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashVoltage, dashVelocity, dashTemp;
+  private final Telemetry.DoubleValue dashCenteringVoltage = telemetry.number("Centering Voltage");
+  private final Telemetry.DoubleValue dashCenteringVelocity = telemetry.number("Centering Velocity RPM");
+  private final Telemetry.DoubleValue dashCenteringTemp = telemetry.number("Centering Temperature C", 0.5, Telemetry.kRate1Hz);
+  private final Telemetry.BooleanValue dashPiecePresent;
 
   // Create Falcon for centering motor
   private final TalonFX centeringMotor = new TalonFX(Constants.Ports.CANCenteringMotor);
   private final TalonFXConfigurator centeringConfigurator = centeringMotor.getConfigurator();
 	private TalonFXConfiguration centeringConfig;
 	private VoltageOut centeringVoltageControl = new VoltageOut(0.0);
+  private final ControlOutput centeringOutput = new ControlOutput("Centering", centeringMotor);
 
   // Create Falcon variables for centering motor
 	private final StatusSignal<Temperature> centeringTemp;				// Motor temperature, in degC
@@ -60,6 +79,7 @@ public class Intake extends SubsystemBase implements Loggable {
   private final TalonFXConfigurator intakeConfigurator = intakeMotor.getConfigurator();
 	private TalonFXConfiguration intakeConfig;
 	private VoltageOut intakeVoltageControl = new VoltageOut(0.0);
+  private final ControlOutput intakeOutput = new ControlOutput("Intake", intakeMotor);
 
   // Create Falcon variables for intake motor
   private final StatusSignal<Voltage> intakeSupplyVoltage;				// Incoming bus voltage to motor controller, in volts
@@ -81,6 +101,11 @@ public class Intake extends SubsystemBase implements Loggable {
   public Intake(String subsystemName, FileLog log) {
     this.log = log; // save reference to the fileLog
     this.subsystemName = subsystemName;
+    periodicTiming = LoopTiming.probe(buildString(subsystemName, " periodic"));
+    dashVoltage = telemetry.number(buildString(subsystemName, " Voltage"));
+    dashVelocity = telemetry.number(buildString(subsystemName, " Velocity RPM"));
+    dashTemp = telemetry.number(buildString(subsystemName, " Temperature C"), 0.5, Telemetry.kRate1Hz);
+    dashPiecePresent = telemetry.bool(buildString(subsystemName, " Is Piece Present"), Telemetry.kRate10Hz);
     logRotationKey = log.allocateLogRotation();
     currentTimer.reset();
     currentTimer.start();
@@ -136,6 +161,13 @@ public class Intake extends SubsystemBase implements Loggable {
     // set centering motor configuration
     centeringConfigurator.apply(centeringConfig);
 
+    // Set the signal update rates and turn off the unused status frames.
+    // Intake current is in the control tier, since periodic() uses it to shut off the intake on a jam.
+    new SignalProfile(subsystemName, intakeMotor, centeringMotor)
+      .control(intakeEncoderPosition, intakeEncoderVelocity, intakeDutyCycle, intakeVoltage, intakeStatorCurrent,
+        centeringEncoderPosition, centeringEncoderVelocity, centeringDutyCycle, centeringVoltage)
+      .diagnostic(intakeSupplyVoltage, intakeTemp, centeringTemp, centeringStatorCurrent)
+      .apply(log);
 
     stopIntakeMotor();
     stopCenteringMotor();
@@ -153,7 +185,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @param percent percent -1.0 to 1.0 (+ = intake, - = outtake)
    */
   public void setIntakePercentOutput(double percent){
-    intakeMotor.setControl(intakeVoltageControl.withOutput(percent*IntakeConstants.compensationVoltage));
+    intakeOutput.setVoltage(intakeVoltageControl, percent*IntakeConstants.compensationVoltage);
   }
 
   /**
@@ -161,7 +193,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @param percent percent -1.0 to 1.0 (+ = intake, - = outtake)
    */
   public void setCenteringMotorPercentOutput(double percent){
-    centeringMotor.setControl(centeringVoltageControl.withOutput(percent*IntakeConstants.compensationVoltage));
+    centeringOutput.setVoltage(centeringVoltageControl, percent*IntakeConstants.compensationVoltage);
   }
 
   /**
@@ -183,7 +215,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @return position of motor in revolutions
    */
   public double getIntakePosition(){
-    intakeEncoderPosition.refresh();
+    SignalMonitor.refresh(intakeEncoderPosition);
     return intakeEncoderPosition.getValueAsDouble();
   }
 
@@ -192,7 +224,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @return position of the motor in revolutions
    */
   public double getCenteringMotorPosition(){
-    centeringEncoderPosition.refresh();
+    SignalMonitor.refresh(centeringEncoderPosition);
     return centeringEncoderPosition.getValueAsDouble();
   }
     
@@ -201,7 +233,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @return velocity of motor in RPM
    */
   public double getIntakeVelocity(){
-    intakeEncoderVelocity.refresh();
+    SignalMonitor.refresh(intakeEncoderVelocity);
     return intakeEncoderVelocity.getValueAsDouble() * 60.0;
   }
 
@@ -210,7 +242,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @return velocity of centering motor in RPM
    */
   public double getCenteringMotorVelocity(){
-    centeringEncoderVelocity.refresh();
+    SignalMonitor.refresh(centeringEncoderVelocity);
     return centeringEncoderVelocity.getValueAsDouble() * 60.0;
   }
 
@@ -219,7 +251,7 @@ public class Intake extends SubsystemBase implements Loggable {
    * @return Intake motor current, in amps
    */
   public double getIntakeAmps() {
-    intakeStatorCurrent.refresh();
+    SignalMonitor.refresh(intakeStatorCurrent);
     return intakeStatorCurrent.getValueAsDouble();
   }
 
@@ -233,20 +265,27 @@ public class Intake extends SubsystemBase implements Loggable {
 
   @Override
   public void periodic(){
-    if(fastLogging || log.isMyLogRotation(logRotationKey)) {
+    long timingStart = periodicTiming.start();
+    long logStartMicros = RobotController.getFPGATime();
+    if (log.isMyLogRotation(logRotationKey, fastLogging)) {
       updateLog(false);
+      log.reportLogCost(logRotationKey, logStartMicros);
     }
 
     if(log.isMyLogRotation(logRotationKey)) {
-        SmartDashboard.putNumber(buildString(subsystemName, " Voltage"), intakeVoltage.refresh().getValueAsDouble());
+        logStartMicros = RobotController.getFPGATime();
+        telemetry.startSnapshot();
+        dashVoltage.set(SignalMonitor.refresh(intakeVoltage).getValueAsDouble());
         // SmartDashboard.putNumber(buildString(subsystemName, " Position Rev"), getIntakePosition());
-        SmartDashboard.putNumber(buildString(subsystemName, " Velocity RPM"), getIntakeVelocity());
-        SmartDashboard.putNumber(buildString(subsystemName, " Temperature C"), intakeTemp.refresh().getValueAsDouble());
-        SmartDashboard.putNumber("Centering Voltage", centeringVoltage.refresh().getValueAsDouble());
+        dashVelocity.set(getIntakeVelocity());
+        if (dashTemp.isDue()) dashTemp.set(SignalMonitor.refresh(intakeTemp).getValueAsDouble());
+        dashCenteringVoltage.set(SignalMonitor.refresh(centeringVoltage).getValueAsDouble());
         // SmartDashboard.putNumber("Centering Position Rev", getCenteringMotorPosition());
-        SmartDashboard.putNumber("Centering Velocity RPM", getCenteringMotorVelocity());
-        SmartDashboard.putNumber("Centering Temperature C", centeringTemp.refresh().getValueAsDouble());
-        SmartDashboard.putBoolean(buildString(subsystemName, " Is Piece Present"), isPiecePresent());
+        dashCenteringVelocity.set(getCenteringMotorVelocity());
+        if (dashCenteringTemp.isDue()) dashCenteringTemp.set(SignalMonitor.refresh(centeringTemp).getValueAsDouble());
+        dashPiecePresent.set(isPiecePresent());
+        telemetry.endSnapshot();
+        log.reportLogCost(logRotationKey, logStartMicros);
     }
 
     // Reset safety time if current is below the threshhold
@@ -263,6 +302,7 @@ public class Intake extends SubsystemBase implements Loggable {
       currentTimer.reset();
       log.writeLog(false, subsystemName, "Intake shutoff");
     }
+    periodicTiming.stop(timingStart);
   }
 
   @Override
@@ -275,19 +315,25 @@ public class Intake extends SubsystemBase implements Loggable {
    * @param logWhenDisabled true = log when disabled, false = discard the string
    */
 	public void updateLog(boolean logWhenDisabled) {
-        log.writeLog(logWhenDisabled, subsystemName, "Update Variables",  
-      "Bus Volt", intakeSupplyVoltage.refresh().getValueAsDouble(),
-      "Intake Percent", intakeDutyCycle.refresh().getValueAsDouble(),
-      "Centering Percent", centeringDutyCycle.refresh().getValueAsDouble(),
-      "Intake Amps", getIntakeAmps(),
-      "Centering Amps", centeringStatorCurrent.refresh().getValueAsDouble(),
-      "Intake Temperature", intakeTemp.refresh().getValueAsDouble(),
-      "Centering Temperature", centeringTemp.refresh().getValueAsDouble(),
-      "Intake Position", getIntakePosition(),
-      "Centering Position", getCenteringMotorPosition(),
-      "Intake RPM", getIntakeVelocity(),
-      "Centering RPM", getCenteringMotorVelocity()
-    );
+    log.record(FileLog.kLevelLab, logWhenDisabled, subsystemName, "Update Variables", logFields);
+  }
+
+  /**
+   * Adds the subsystem variables to a filelog message.  Only called when the message will be written.
+   * @param record filelog message
+   */
+  private void addLogFields(LogRecordBuilder record) {
+    record.d("Bus Volt", SignalMonitor.refresh(intakeSupplyVoltage).getValueAsDouble())
+      .d("Intake Percent", SignalMonitor.refresh(intakeDutyCycle).getValueAsDouble())
+      .d("Centering Percent", SignalMonitor.refresh(centeringDutyCycle).getValueAsDouble())
+      .d("Intake Amps", getIntakeAmps())
+      .d("Centering Amps", SignalMonitor.refresh(centeringStatorCurrent).getValueAsDouble())
+      .d("Intake Temperature", SignalMonitor.refresh(intakeTemp).getValueAsDouble())
+      .d("Centering Temperature", SignalMonitor.refresh(centeringTemp).getValueAsDouble())
+      .d("Intake Position", getIntakePosition())
+      .d("Centering Position", getCenteringMotorPosition())
+      .d("Intake RPM", getIntakeVelocity())
+      .d("Centering RPM", getCenteringMotorVelocity());
   }
 
   
@@ -20,12 +20,14 @@ import frc.robot.Constants.LEDConstants.*;
 import frc.robot.utilities.BCRRobotState;
 import frc.robot.utilities.FileLog;
 import frc.robot.utilities.LEDSegment;
+import frc.robot.utilities.LoopTiming;
 import frc.robot.utilities.RobotPreferences;
 
 
 public class LED extends SubsystemBase {
   private final FileLog log;
   private final int logRotationKey;
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("LED periodic");   // Time spent in periodic()
   private final CANdle candle;
   private String subsystemName;
   private BCRRobotState robotState;
@@ -38,6 +40,7 @@ public class LED extends SubsystemBase {
   private Wrist wrist;
   private boolean isRainbow;
   private boolean hasPiece;
+  private boolean updatesShed = false;   // true = LED updates are paused because the robot loop is overrunning
 
   // private Color[] accuracyDisplayPattern = {Color.kRed, Color.kRed};
   private HashMap<LEDSegmentRange, LEDSegment> segments;
@@ -354,10 +357,20 @@ public class LED extends SubsystemBase {
     }
   }
 
+  /**
+   * Pauses (or restarts) the periodic LED updates, when the robot loop is overrunning.
+   * The LEDs keep showing their last pattern while paused.
+   * @param shed true = pause the LED updates, false = restart them
+   */
+  public void setUpdatesShed(boolean shed) {
+    updatesShed = shed;
+  }
+
   @Override
   public void periodic() {
+    long timingStart = periodicTiming.start();
 
-    if(log.isMyLogRotation(logRotationKey)) {
+    if(!updatesShed && log.isMyLogRotation(logRotationKey)) {
       // Updates certain segments based on RobotState
       updateStateLEDs(LEDSegmentRange.StripLeft);
       updateStateLEDs(LEDSegmentRange.StripRight);
@@ -426,5 +439,6 @@ public class LED extends SubsystemBase {
         clearHasPiece();
       }
     }
+    periodicTiming.stop(timingStart);
   }
 }
\ No newline at end of file
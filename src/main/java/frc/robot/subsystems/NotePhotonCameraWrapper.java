@@ -3,6 +3,7 @@ package frc.robot.subsystems;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.VisionConstants.PhotonVisionConstants;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LoopTiming;
 
 import java.util.List;
 
@@ -16,6 +17,7 @@ public class NotePhotonCameraWrapper extends SubsystemBase {
   private boolean hasInit = false;
   private int logRotationKey;
   private boolean fastLogging = false;
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("NotePhotonCamera periodic");   // Time spent in periodic()
 
   public NotePhotonCameraWrapper(FileLog log, int logRotationKey) {
     this.log = log;
@@ -47,9 +49,13 @@ public class NotePhotonCameraWrapper extends SubsystemBase {
   }
 
   public void periodic() {
+    long timingStart = periodicTiming.start();
+
     // if (fastLogging || log.isMyLogRotation(logRotationKey)) {
     //   log.writeLog(false, "NotePhotonCameraWrapper", "Periodic", "");
     // }
+
+    periodicTiming.stop(timingStart);
   }
 
   /**
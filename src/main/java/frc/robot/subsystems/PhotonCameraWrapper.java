@@ -5,13 +5,16 @@ import edu.wpi.first.apriltag.AprilTagFields;
 import edu.wpi.first.apriltag.AprilTagFieldLayout.OriginPosition;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.VisionConstants.PhotonVisionConstants;
 import frc.robot.utilities.AllianceSelection;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LoopTiming;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,11 +31,23 @@ public class PhotonCameraWrapper extends SubsystemBase {
   public PhotonPoseEstimator photonPoseEstimator;
   private AprilTagFieldLayout aprilTagFieldLayout;
   private FileLog log;
-  private boolean hasInit = false;
+  private volatile boolean hasInit = false;
   private Alliance currAlliance = Alliance.Blue;
   private AllianceSelection allianceSelection;
   private int logRotationKey;
   private boolean fastLogging = false;
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("PhotonCamera periodic");   // Time spent in periodic()
+
+  // Unread frames from the last getUnreadResults(), reused on each call
+  private static final Comparator<PhotonPipelineResult> byTimestamp = Comparator.comparingDouble(PhotonPipelineResult::getTimestampSeconds);
+  private final List<PhotonPipelineResult> unreadResults = new ArrayList<>();
+
+  // Frame statistics, since the robot code started
+  // (written by the thread that reads the frames, see VisionThread)
+  private volatile int framesProcessed = 0;         // Frames returned by getUnreadResults()
+  private volatile int framesDropped = 0;           // Unread frames discarded because more than maxFrames were waiting
+  private volatile double lastLatencySeconds = 0;   // Time from frame capture to getUnreadResults(), for the newest frame
+  private volatile double maxLatencySeconds = 0;
 
   public PhotonCameraWrapper(AllianceSelection allianceSelection, FileLog log, int logRotationKey) {
     this.log = log;
@@ -48,7 +63,11 @@ public class PhotonCameraWrapper extends SubsystemBase {
     this.fastLogging = enabled;
   }
 
-  public void init() {
+  /**
+   * Creates the camera and pose estimator, with the AprilTag layout for the current alliance.
+   * Synchronized with reading and solving frames, which may be on the vision thread.
+   */
+  public synchronized void init() {
     log.writeLog(true, "PhotonCameraWrapper", "Init", "Starting");
 
     currAlliance = allianceSelection.getAlliance();
@@ -95,54 +114,96 @@ public class PhotonCameraWrapper extends SubsystemBase {
     return hasInit;
   }
 
+  /**
+   * @return true = the camera has been created and is connected to the coprocessor
+   */
+  public boolean isConnected() {
+    return hasInit && photonCamera.isConnected();
+  }
+
   public Alliance getAlliance() {
     return allianceSelection.getAlliance();
   }
 
   public void periodic() {
+    long timingStart = periodicTiming.start();
+
     if (allianceSelection.getAlliance() != currAlliance) {
       init();
       log.writeLogEcho(true, "PhotonCameraWrapper", "UpdateAlliance", "Alliance changed", currAlliance);
     }
 
-    if (fastLogging || log.isMyLogRotation(logRotationKey)) {
+    if (log.isMyLogRotation(logRotationKey, fastLogging)) {
       // log.writeLog(false, "PhotonCameraWrapper", "Periodic", "");
     }
+
+    periodicTiming.stop(timingStart);
+  }
+
+  /**
+   * Returns the frames received since the last call, oldest first.  If more than maxFrames are waiting,
+   * only the newest maxFrames are returned and the rest are counted as dropped.
+   * The returned list is reused on the next call, so do not keep it, and only call from one thread.
+   * @param maxFrames maximum number of frames to return
+   * @return unread pipeline results, in timestamp order (empty if none)
+   */
+  public synchronized List<PhotonPipelineResult> getUnreadResults(int maxFrames) {
+    unreadResults.clear();
+    unreadResults.addAll(photonCamera.getAllUnreadResults());
+    if (unreadResults.isEmpty()) return unreadResults;
+
+    unreadResults.sort(byTimestamp);
+    int dropped = unreadResults.size() - maxFrames;
+    if (dropped > 0) {
+      unreadResults.subList(0, dropped).clear();
+      framesDropped += dropped;
+    }
+    framesProcessed += unreadResults.size();
+
+    lastLatencySeconds = Timer.getFPGATimestamp() - unreadResults.get(unreadResults.size() - 1).getTimestampSeconds();
+    maxLatencySeconds = Math.max(maxLatencySeconds, lastLatencySeconds);
+    return unreadResults;
   }
 
   /**
-     * Returns the best target in this pipeline result. If there are no new targets, this method will
-     * return null. The best target is determined by the target sort mode in the PhotonVision UI.
-     *
-     * @return The best target of the pipeline result.
-     */
-  PhotonPipelineResult getLatestResult() {
-    List<PhotonPipelineResult> results = photonCamera.getAllUnreadResults();
-    return results.isEmpty() ? null : results.get(results.size()-1);
+   * @return number of frames returned by getUnreadResults()
+   */
+  public int getFramesProcessed() {
+    return framesProcessed;
   }
 
   /**
+   * @return number of unread frames dropped because too many were waiting
+   */
+  public int getFramesDropped() {
+    return framesDropped;
+  }
+
+  /**
+   * @return time from capture to processing of the newest frame in the last getUnreadResults() call, in ms
+   */
+  public double getLatencyMs() {
+    return lastLatencySeconds * 1000.0;
+  }
+
+  /**
+   * @return longest time from capture to processing of a frame, in ms
+   */
+  public double getMaxLatencyMs() {
+    return maxLatencySeconds * 1000.0;
+  }
+
+  /**
+  * Solves the robot pose for one frame.  May be called from the vision thread, so it does not log
+  * (DriveTrain.updateOdometry() logs the solved poses on the robot loop).
   * @param estimatedRobotPose The current best guess at robot pose
   * @return A pair of the fused camera observations to a single Pose2d on the
   *         field, and the time
   *         of the observation. Assumes a planar field and the robot is always
   *         firmly on the ground
   */
-  public Optional<EstimatedRobotPose> getEstimatedGlobalPose(Pose2d prevEstimatedRobotPose, PhotonPipelineResult latestResult) {
+  public synchronized Optional<EstimatedRobotPose> getEstimatedGlobalPose(Pose2d prevEstimatedRobotPose, PhotonPipelineResult latestResult) {
     photonPoseEstimator.setReferencePose(prevEstimatedRobotPose);
-    var newPoseOptional = photonPoseEstimator.update(latestResult);
-    if (newPoseOptional.isPresent()) {
-      EstimatedRobotPose newPose = newPoseOptional.get();
-      if(fastLogging || log.isMyLogRotation(logRotationKey)) {
-        log.writeLog(false, "PhotonCameraWrapper", "getEstimatedGlobalPose", "IsConnected", photonCamera.isConnected(), "TagPresent", true, "X",newPose.estimatedPose.getX(),"Y",newPose.estimatedPose.getY());
-        SmartDashboard.putBoolean("PhotonVision Connected", photonCamera.isConnected());
-      }
-    } else {
-      if(fastLogging || log.isMyLogRotation(logRotationKey)) {
-        log.writeLog(false, "PhotonCameraWrapper", "getEstimatedGlobalPose", "IsConnected", photonCamera.isConnected(), "TagPresent", false, "X", 0, "Y", 0);
-        SmartDashboard.putBoolean("PhotonVision Connected", photonCamera.isConnected());
-      }
-    }
-    return newPoseOptional;
+    return photonPoseEstimator.update(latestResult);
   }
 }
\ No newline at end of file
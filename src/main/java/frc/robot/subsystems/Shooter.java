@@ -4,6 +4,8 @@
 
 package frc.robot.subsystems;
 
+import java.util.function.Consumer;
+
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.configs.TalonFXConfigurator;
@@ -18,21 +20,33 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Temperature;
 import edu.wpi.first.units.measure.Voltage;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 import frc.robot.Constants.*;
+import frc.robot.utilities.ControlOutput;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LogRecordBuilder;
 import frc.robot.utilities.Loggable;
+import frc.robot.utilities.LoopTiming;
+import frc.robot.utilities.SignalMonitor;
+import frc.robot.utilities.SignalProfile;
 import frc.robot.utilities.StringUtil;
+import frc.robot.utilities.Telemetry;
 
 
 public class Shooter extends SubsystemBase implements Loggable {
   private final FileLog log;
+  private final Consumer<LogRecordBuilder> logFields = this::addLogFields;   // see FileLog.record()
   private boolean fastLogging = false;
   private int logRotationKey;
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("Shooter periodic");   // Time spent in periodic()
   private final String subsystemName;
 
+  // Dashboard values (publishers are created once in the constructor)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashTopVoltage, dashBottomVoltage, dashTopRPM, dashBottomRPM, dashTopTemp, dashBottomTemp;
+
   // Create Kraken for top shooter motor
   private final TalonFX shooterTop = new TalonFX(Ports.CANShooterTop);
 	private final TalonFXConfigurator shooterTopConfigurator;
@@ -63,6 +77,8 @@ public class Shooter extends SubsystemBase implements Loggable {
   // Motor controls
   private VoltageOut motorVoltageControl = new VoltageOut(0.0);
   private VelocityVoltage motorVelocityControl = new VelocityVoltage(0.0).withSlot(0);
+  private final ControlOutput shooterTopOutput = new ControlOutput("Shooter top", shooterTop);
+  private final ControlOutput shooterBottomOutput = new ControlOutput("Shooter bottom", shooterBottom);
 
   private boolean velocityControlOn = false;
   private double setpointRPMTop;
@@ -77,6 +93,13 @@ public class Shooter extends SubsystemBase implements Loggable {
     logRotationKey = log.allocateLogRotation();
     subsystemName = "Shooter";
 
+    dashTopVoltage = telemetry.number(StringUtil.buildString(subsystemName, " Top Voltage"));
+    dashBottomVoltage = telemetry.number(StringUtil.buildString(subsystemName, " Bottom Voltage"));
+    dashTopRPM = telemetry.number(StringUtil.buildString(subsystemName, " Top RPM"));
+    dashBottomRPM = telemetry.number(StringUtil.buildString(subsystemName, " Bottom RPM"));
+    dashTopTemp = telemetry.number(StringUtil.buildString(subsystemName, " Top Temp C"), 0.5, Telemetry.kRate1Hz);
+    dashBottomTemp = telemetry.number(StringUtil.buildString(subsystemName, " Bottom Temp C"), 0.5, Telemetry.kRate1Hz);
+
     // Configure top shooter motor
     shooterTopConfigurator = shooterTop.getConfigurator();
     shooterTopSupplyVoltage = shooterTop.getSupplyVoltage();
@@ -134,6 +157,13 @@ public class Shooter extends SubsystemBase implements Loggable {
     shooterTopConfigurator.apply(shooterTopConfig);
     shooterBottomConfigurator.apply(shooterBottomConfig);
 
+    // Set the signal update rates and turn off the unused status frames
+    new SignalProfile(subsystemName, shooterTop, shooterBottom)
+      .control(shooterTopEncoderPosition, shooterTopEncoderVelocity, shooterTopDutyCycle, shooterTopVoltage,
+        shooterBottomEncoderPosition, shooterBottomEncoderVelocity, shooterBottomDutyCycle, shooterBottomVoltage)
+      .diagnostic(shooterTopSupplyVoltage, shooterTopTemp, shooterTopStatorCurrent, shooterBottomTemp, shooterBottomStatorCurrent)
+      .apply(log);
+
     // Stop shooter motors
     stopMotors();
   }
@@ -162,8 +192,8 @@ public class Shooter extends SubsystemBase implements Loggable {
    */
   public void setShooterPercentOutput(double shooterTopPercent, double shooterBottomPercent) {
     // Percent output control does not exist; multiply compensationVoltage by percent
-    shooterTop.setControl(motorVoltageControl.withOutput(shooterTopPercent * ShooterConstants.compensationVoltage));
-    shooterBottom.setControl(motorVoltageControl.withOutput(shooterBottomPercent * ShooterConstants.compensationVoltage));
+    shooterTopOutput.setVoltage(motorVoltageControl, shooterTopPercent * ShooterConstants.compensationVoltage);
+    shooterBottomOutput.setVoltage(motorVoltageControl, shooterBottomPercent * ShooterConstants.compensationVoltage);
     velocityControlOn = false;
     setpointRPMTop = 0.0;
     setpointRPMBottom = 0.0;
@@ -195,8 +225,8 @@ public class Shooter extends SubsystemBase implements Loggable {
     velocityControlOn = true;
     setpointRPMTop = rpmTop;
     setpointRPMBottom = rpmBottom;
-    shooterTop.setControl(motorVelocityControl.withVelocity(rpmTop/60.0/ShooterConstants.shooterGearRatio));
-    shooterBottom.setControl(motorVelocityControl.withVelocity(rpmBottom/60.0/ShooterConstants.shooterGearRatio));
+    shooterTopOutput.setVelocity(motorVelocityControl, rpmTop/60.0/ShooterConstants.shooterGearRatio);
+    shooterBottomOutput.setVelocity(motorVelocityControl, rpmBottom/60.0/ShooterConstants.shooterGearRatio);
   }
 
   /**
@@ -242,7 +272,7 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @return position of shooter in wheel rotations
    */
   public double getTopShooterPosition() {
-    shooterTopEncoderPosition.refresh();
+    SignalMonitor.refresh(shooterTopEncoderPosition);
     return shooterTopEncoderPosition.getValueAsDouble() * ShooterConstants.shooterGearRatio;
   }
 
@@ -251,7 +281,7 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @return position of shooter in wheel rotations
    */
   public double getBottomShooterPosition() {
-    shooterBottomEncoderPosition.refresh();
+    SignalMonitor.refresh(shooterBottomEncoderPosition);
     return shooterBottomEncoderPosition.getValueAsDouble() * ShooterConstants.shooterGearRatio;
   }
 
@@ -259,7 +289,7 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @return velocity of top shooter in wheel rpm
    */
   public double getTopShooterVelocity() {
-    shooterTopEncoderVelocity.refresh();
+    SignalMonitor.refresh(shooterTopEncoderVelocity);
     return shooterTopEncoderVelocity.getValueAsDouble() * 60.0 * ShooterConstants.shooterGearRatio;
   }
 
@@ -267,7 +297,7 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @return velocity of bottom shooter in wheel rpm
    */
   public double getBottomShooterVelocity() {
-    shooterBottomEncoderVelocity.refresh();
+    SignalMonitor.refresh(shooterBottomEncoderVelocity);
     return shooterBottomEncoderVelocity.getValueAsDouble() * 60.0 * ShooterConstants.shooterGearRatio;
   }
 
@@ -277,7 +307,7 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @return top shooter voltage, in volts
    */
   public double getTopShooterVoltage() {
-    return shooterTopVoltage.refresh().getValueAsDouble();
+    return SignalMonitor.refresh(shooterTopVoltage).getValueAsDouble();
   }
 
   /**
@@ -285,7 +315,7 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @return bottom shooter voltage, in volts
    */
   public double getBottomShooterVoltage() {
-    return shooterBottomVoltage.refresh().getValueAsDouble();
+    return SignalMonitor.refresh(shooterBottomVoltage).getValueAsDouble();
   }
 
  
@@ -293,19 +323,25 @@ public class Shooter extends SubsystemBase implements Loggable {
   
   @Override
   public void periodic() {
+    long timingStart = periodicTiming.start();
     // Log
-    if (fastLogging || log.isMyLogRotation(logRotationKey)) {
+    if (log.isMyLogRotation(logRotationKey, fastLogging)) {
+      long logStartMicros = RobotController.getFPGATime();
       updateLog(false);
 
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Top Voltage"), getTopShooterVoltage());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Bottom Voltage"), getBottomShooterVoltage());
+      telemetry.startSnapshot();
+      dashTopVoltage.set(getTopShooterVoltage());
+      dashBottomVoltage.set(getBottomShooterVoltage());
      // SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Position Rev"), getShooterPosition());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Top RPM"), getTopShooterVelocity());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Bottom RPM"), getBottomShooterVelocity());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Top Temp C"), shooterTopTemp.refresh().getValueAsDouble());
-      SmartDashboard.putNumber(StringUtil.buildString(subsystemName, " Bottom Temp C"), shooterBottomTemp.refresh().getValueAsDouble());
-      
+      dashTopRPM.set(getTopShooterVelocity());
+      dashBottomRPM.set(getBottomShooterVelocity());
+      if (dashTopTemp.isDue()) dashTopTemp.set(SignalMonitor.refresh(shooterTopTemp).getValueAsDouble());
+      if (dashBottomTemp.isDue()) dashBottomTemp.set(SignalMonitor.refresh(shooterBottomTemp).getValueAsDouble());
+      telemetry.endSnapshot();
+
+      log.reportLogCost(logRotationKey, logStartMicros);
     }
+    periodicTiming.stop(timingStart);
   }
 
   /**
@@ -313,25 +349,28 @@ public class Shooter extends SubsystemBase implements Loggable {
    * @param logWhenDisabled true = log when disabled, false = discard the string
    */
   public void updateLog(boolean logWhenDisabled) {
-    log.writeLog(
-      logWhenDisabled,
-      subsystemName,
-      "Update Variables",
-      "Bus Volt", shooterTopSupplyVoltage.refresh().getValueAsDouble(),
-      "Out Percent Top", shooterTopDutyCycle.refresh().getValueAsDouble(),
-      "Out Percent Bottom", shooterBottomDutyCycle.refresh().getValueAsDouble(),
-      "Volt Top", getTopShooterVoltage(),
-      "Volt Bottom", getBottomShooterVoltage(),
-      "Amps Top", shooterTopStatorCurrent.refresh().getValueAsDouble(),
-      "Amps Bottom", shooterBottomStatorCurrent.refresh().getValueAsDouble(),
-      "Temp Top", shooterTopTemp.refresh().getValueAsDouble(),
-      "Temp Bottom", shooterBottomTemp.refresh().getValueAsDouble(), 
-      "Meas RPM Top", getTopShooterVelocity(),
-      "Meas RPM Bottom", getBottomShooterVelocity(),
-      "Velocity Control", velocityControlOn,
-      "Set RPM Top", setpointRPMTop,
-      "Set RPM Bottom", setpointRPMBottom
-    );
+    log.record(FileLog.kLevelLab, logWhenDisabled, subsystemName, "Update Variables", logFields);
+  }
+
+  /**
+   * Adds the subsystem variables to a filelog message.  Only called when the message will be written.
+   * @param record filelog message
+   */
+  private void addLogFields(LogRecordBuilder record) {
+    record.d("Bus Volt", SignalMonitor.refresh(shooterTopSupplyVoltage).getValueAsDouble())
+      .d("Out Percent Top", SignalMonitor.refresh(shooterTopDutyCycle).getValueAsDouble())
+      .d("Out Percent Bottom", SignalMonitor.refresh(shooterBottomDutyCycle).getValueAsDouble())
+      .d("Volt Top", getTopShooterVoltage())
+      .d("Volt Bottom", getBottomShooterVoltage())
+      .d("Amps Top", SignalMonitor.refresh(shooterTopStatorCurrent).getValueAsDouble())
+      .d("Amps Bottom", SignalMonitor.refresh(shooterBottomStatorCurrent).getValueAsDouble())
+      .d("Temp Top", SignalMonitor.refresh(shooterTopTemp).getValueAsDouble())
+      .d("Temp Bottom", SignalMonitor.refresh(shooterBottomTemp).getValueAsDouble())
+      .d("Meas RPM Top", getTopShooterVelocity())
+      .d("Meas RPM Bottom", getBottomShooterVelocity())
+      .b("Velocity Control", velocityControlOn)
+      .d("Set RPM Top", setpointRPMTop)
+      .d("Set RPM Bottom", setpointRPMBottom);
   }
 
   @Override
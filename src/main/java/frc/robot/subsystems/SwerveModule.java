@@ -4,6 +4,10 @@
 
 package frc.robot.subsystems;
 
+import java.util.concurrent.CompletableFuture;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.configs.CANcoderConfigurator;
@@ -25,13 +29,18 @@ import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.Current;
 import edu.wpi.first.units.measure.Temperature;
 import edu.wpi.first.units.measure.Voltage;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import frc.robot.Constants.Ports;
 import frc.robot.Constants.SwerveConstants;
+import frc.robot.utilities.ConfigApplier;
+import frc.robot.utilities.ControlOutput;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LogRecordBuilder;
 import frc.robot.utilities.MathBCR;
 import frc.robot.utilities.MathSwerveModuleState;
+import frc.robot.utilities.SignalMonitor;
+import frc.robot.utilities.SignalProfile;
+import frc.robot.utilities.Telemetry;
 import frc.robot.utilities.Wait;
 
 import static frc.robot.utilities.StringUtil.*;
@@ -40,6 +49,11 @@ import static edu.wpi.first.units.Units.MetersPerSecond;
 public class SwerveModule {
       
   private final String swName;    // Name for this swerve module
+
+  // Dashboard values (publishers are created once in the constructor)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashFXAngle, dashCCAngle, dashFXAngleDPS, dashDistance, dashDriveTemp;
+  private final String[] logNames;  // Filelog field names for this swerve module, built once in the constructor
   private final FileLog log;
   private final double turningOffsetDegrees;
 
@@ -49,6 +63,7 @@ public class SwerveModule {
 	private TalonFXConfiguration driveMotorConfig;
 	private VoltageOut driveVoltageControl = new VoltageOut(0.0).withEnableFOC(true);
   private VelocityVoltage driveVelocityControl = new VelocityVoltage(0.0).withEnableFOC(true);
+  private final ControlOutput driveOutput;    // Sends the drive requests at the end of the cycle
 
 	// Drive motor signals and sensors
 	private final StatusSignal<Voltage> driveMotorSupplyVoltage;				// Incoming bus voltage to motor controller, in volts
@@ -64,6 +79,8 @@ public class SwerveModule {
 	private TalonFXConfiguration turningMotorConfig;
 	private VoltageOut turningVoltageControl = new VoltageOut(0.0);
   private PositionVoltage turningPositionControl = new PositionVoltage(0.0);
+  private final ControlOutput turningOutput;  // Sends the turning requests at the end of the cycle
+  private final MathSwerveModuleState.ModuleTarget desiredTarget = new MathSwerveModuleState.ModuleTarget();   // Optimized target from setDesiredState()
 
 	// Turning motor signals and sensors
 	private final StatusSignal<Temperature> turningMotorTemp;				// Motor temperature, in degC
@@ -73,7 +90,8 @@ public class SwerveModule {
 	private final StatusSignal<AngularVelocity> turningEncoderVelocity;			// Encoder Velocity, in pinion rotations/second
 
   // Variables to track motor information
-  private boolean isInCoastMode;                // Current Neutral Mode setting for the drive and turning motors:  true = coast mode, false = brake mode
+  private boolean isInCoastMode;                // Requested Neutral Mode setting for the drive and turning motors:  true = coast mode, false = brake mode
+  private CompletableFuture<StatusCode> neutralModeChange = CompletableFuture.completedFuture(StatusCode.OK);   // Last neutral mode change sent to ConfigApplier
 
   // CANCoder objects
   private final CANcoder turningCanCoder;
@@ -84,10 +102,15 @@ public class SwerveModule {
 	private final StatusSignal<Angle> turningCanCoderPosition;			// CanCoder position, in CANCoder rotations
 	private final StatusSignal<AngularVelocity> turningCanCoderVelocity;			// Encoder Velocity, in CANCoder rotations/second
 
-  // Variables for encoder zeroing
-  private double driveEncoderZero = 0;      // Reference raw encoder reading for drive motor encoder.  Calibration sets this to zero.
-  private double cancoderZero = 0;          // Reference raw encoder reading for CanCoder.  Calibration sets this to the absolute position from RobotPreferences.
-  private double turningEncoderZero = 0;    // Reference raw encoder reading for turning motor encoder.  Calibration sets this to match the CanCoder.
+  // All of the signals above.  DriveTrain refreshes these (with the other modules and the gyro) once per
+  // cycle, and the getters below return the refreshed values.
+  private final BaseStatusSignal[] statusSignals;
+  private final SignalProfile signalProfile;      // Update rate for each of the signals above
+
+  // Variables for encoder zeroing (the drive and turning zeros are also read by the odometry thread)
+  private volatile double driveEncoderZero = 0;      // Reference raw encoder reading for drive motor encoder.  Calibration sets this to zero.
+  private double cancoderZero = 0;                   // Reference raw encoder reading for CanCoder.  Calibration sets this to the absolute position from RobotPreferences.
+  private volatile double turningEncoderZero = 0;    // Reference raw encoder reading for turning motor encoder.  Calibration sets this to match the CanCoder.
 
   // Controller for drive motor speed
   private final SimpleMotorFeedforward driveFeedforward;
@@ -114,7 +137,19 @@ public class SwerveModule {
     double kVm, FileLog log) {
     // Save the module name and logfile
     this.swName = swName;
+    dashFXAngle = telemetry.number(buildString("Swerve FXangle ", swName));
+    dashCCAngle = telemetry.number(buildString("Swerve CCangle ", swName));
+    dashFXAngleDPS = telemetry.number(buildString("Swerve FXangle dps", swName));
+    dashDistance = telemetry.number(buildString("Swerve distance", swName));
+    dashDriveTemp = telemetry.number(buildString("Swerve drive temp ", swName), 0.5, Telemetry.kRate1Hz);
     this.log = log;
+    logNames = new String[] {
+      buildString(swName, " CCangle deg"), buildString(swName, " CCangle DPS"),
+      buildString(swName, " FXangle deg"), buildString(swName, " FXangle DPS"),
+      buildString(swName, " turn output"), buildString(swName, " drive meters"),
+      buildString(swName, " drive mps"), buildString(swName, " drive output"),
+      buildString(swName, " drive temp"), buildString(swName, " turn temp")
+    };
     this.turningOffsetDegrees = turningOffsetDegrees;
 
     // Create feed forward model for drive motor
@@ -123,6 +158,7 @@ public class SwerveModule {
     // Create motor, encoder, signal, and sensor objects
     driveMotor = new TalonFX(driveMotorAddress, Ports.CANivoreBus);
     driveMotorConfigurator = driveMotor.getConfigurator();
+    driveOutput = new ControlOutput(buildString(swName, " drive"), driveMotor);
     driveMotorSupplyVoltage = driveMotor.getSupplyVoltage();
 	  driveMotorTemp = driveMotor.getDeviceTemp();
 	  driveDutyCycle = driveMotor.getDutyCycle();
@@ -132,6 +168,7 @@ public class SwerveModule {
 
     turningMotor = new TalonFX(turningMotorAddress, Ports.CANivoreBus);
     turningMotorConfigurator = turningMotor.getConfigurator();
+    turningOutput = new ControlOutput(buildString(swName, " turn"), turningMotor);
 	  turningMotorTemp = turningMotor.getDeviceTemp();
 	  turningDutyCycle = turningMotor.getDutyCycle();
 	  turningStatorCurrent = turningMotor.getStatorCurrent();
@@ -142,6 +179,16 @@ public class SwerveModule {
     turningCanCoderConfigurator = turningCanCoder.getConfigurator();
     turningCanCoderPosition = turningCanCoder.getPosition();
     turningCanCoderVelocity = turningCanCoder.getVelocity();
+    statusSignals = new BaseStatusSignal[] {
+      driveMotorSupplyVoltage, driveMotorTemp, driveDutyCycle, driveStatorCurrent, driveEncoderPostion, driveEncoderVelocity,
+      turningMotorTemp, turningDutyCycle, turningStatorCurrent, turningEncoderPosition, turningEncoderVelocity,
+      turningCanCoderPosition, turningCanCoderVelocity
+    };
+    signalProfile = new SignalProfile(buildString("SwerveModule ", swName), driveMotor, turningMotor, turningCanCoder)
+      .odometry(driveEncoderPostion, driveEncoderVelocity, turningEncoderPosition, turningEncoderVelocity)
+      .control(turningCanCoderPosition, turningCanCoderVelocity)
+      .diagnostic(driveMotorSupplyVoltage, driveMotorTemp, driveDutyCycle, driveStatorCurrent,
+        turningMotorTemp, turningDutyCycle, turningStatorCurrent);
 
     // **** Setup drive motor configuration
 
@@ -241,6 +288,9 @@ public class SwerveModule {
 		// This is a blocking call and will wait up to 50ms-70ms for the config to apply.
     turningCanCoderConfigurator.apply(turningCanCoderConfig);
 
+    // Set the signal update rates and turn off the unused status frames
+    signalProfile.apply(log);
+
     // NOTE!!! When the Cancoder or TalonFX encoder settings are changed above, then the next call to 
     // getCanCoderDegrees() getTurningEncoderDegrees() may contain an old value, not the value based on 
     // the updated configuration settings above!!!!  The CANBus runs asynchronously from this code, so 
@@ -255,38 +305,49 @@ public class SwerveModule {
     // log.writeLogEcho(true, "SwerveModule", swName+" pre-CAN", "Cancoder", getCanCoderDegrees(), "FX", getTurningEncoderDegrees());
     calibrateCanCoderDegrees(turningOffsetDegrees);
     // log.writeLogEcho(true, "SwerveModule", swName+" post-CAN", "Cancoder", getCanCoderDegrees(), "FX", getTurningEncoderDegrees());
+    SignalMonitor.refresh(turningCanCoderPosition);   // Not called from periodic code, so read the CanCoder now
     calibrateTurningEncoderDegrees(getCanCoderDegrees());
     // log.writeLogEcho(true, "SwerveModule", swName+" post-FX", "Cancoder", getCanCoderDegrees(), "FX", getTurningEncoderDegrees());
   }
 
   /**
    * Sets the swerve module to coast or brake mode.
-   * <p> <b>Note</b> that this procedure includes multiple blocking calls and will delay robot code by ~60ms if the mode is changed.
-   * However, if setCoast is the same as the current setting, then nothing is sent to the swerve modules and there will not
-   * be a delay.
+   * <p> The motor configuration is applied on the ConfigApplier thread (~60ms), so this does not delay robot code.
+   * The returned future completes when both motors are changed.  If setCoast is the same as the last requested
+   * setting, then nothing is sent to the swerve module.
    * @param setCoast true = coast mode, false = brake mode
+   * @return completes with the status of the change (OK if nothing was sent)
    */
-  public void setMotorModeCoast(boolean setCoast) {
-    // Do nothing if swerve module is already in the requested mode.
-    if (setCoast == isInCoastMode) return;
-
-    if (setCoast) {
-      driveMotor.setNeutralMode(NeutralModeValue.Coast);
-      turningMotor.setNeutralMode(NeutralModeValue.Coast);
-    } else {
-      driveMotor.setNeutralMode(NeutralModeValue.Brake);
-      turningMotor.setNeutralMode(NeutralModeValue.Brake);
-    }
+  public CompletableFuture<StatusCode> setMotorModeCoast(boolean setCoast) {
+    // Do nothing if swerve module is already in (or changing to) the requested mode.
+    if (setCoast == isInCoastMode) return neutralModeChange;
+
+    NeutralModeValue mode = setCoast ? NeutralModeValue.Coast : NeutralModeValue.Brake;
+    // One key for both motors, so a quick brake-coast-brake only applies the last mode
+    neutralModeChange = ConfigApplier.apply(buildString(swName, " neutral mode"), () -> {
+      StatusCode driveStatus = driveMotor.setNeutralMode(mode);
+      StatusCode turningStatus = turningMotor.setNeutralMode(mode);
+      return driveStatus.isOK() ? turningStatus : driveStatus;
+    }, log);
     isInCoastMode = setCoast;
+    return neutralModeChange;
   }
    
   /**
-   * @return Returns true when the drive mode is in coast, returns false if in break mode
+   * @return Returns true when the drive mode is in coast, returns false if in break mode.
+   * This is the requested mode, which may still be being applied (see isMotorModeChanging()).
    */
   public boolean isMotorModeCoast() {
     return isInCoastMode;
   }
 
+  /**
+   * @return true = a coast/brake mode change has not been applied to the motors yet
+   */
+  public boolean isMotorModeChanging() {
+    return !neutralModeChange.isDone();
+  }
+
   /**
    * Sets the drive motor to FOC or trapezoidal commuatation mode
    * <p> <b>Note</b> This takes effect for the <b>next</b> request sent to the motor.
@@ -295,6 +356,7 @@ public class SwerveModule {
   public void setDriveMotorFOC(boolean setFOC) {
     driveVelocityControl = driveVelocityControl.withEnableFOC(setFOC);
     driveVoltageControl = driveVoltageControl.withEnableFOC(setFOC);
+    driveOutput.invalidate();       // The request values have not changed, so make sure the next request is sent
   }
 
 
@@ -320,6 +382,30 @@ public class SwerveModule {
         getDriveEncoderMeters(), Rotation2d.fromDegrees(getTurningEncoderDegrees()));
   }
 
+  /**
+   * Returns the position of the module from raw encoder readings.  Used by the odometry thread,
+   * which reads its own copies of the encoder signals.
+   * @param driveRotations drive encoder position, in pinion rotations
+   * @param turningRotations turning TalonFX encoder position, in pinion rotations
+   * @return The position of the module.
+   */
+  public SwerveModulePosition getPosition(double driveRotations, double turningRotations) {
+    return new SwerveModulePosition(
+        (driveRotations - driveEncoderZero) * SwerveConstants.kDriveEncoderMetersPerTick,
+        Rotation2d.fromDegrees((turningRotations - turningEncoderZero) * SwerveConstants.kTurningEncoderDegreesPerTick));
+  }
+
+  /**
+   * Returns new copies of the odometry signals, for a thread to wait on without changing the signals
+   * used by the rest of this class.
+   * @return {drive position, drive velocity, turning position, turning velocity}, in pinion rotations and rotations per second
+   */
+  public StatusSignal<?>[] getOdometrySignals() {
+    return new StatusSignal<?>[] {
+      driveEncoderPostion.clone(), driveEncoderVelocity.clone(), turningEncoderPosition.clone(), turningEncoderVelocity.clone()
+    };
+  }
+
   /**
    * Turns off the drive and turning motors.
    */
@@ -333,7 +419,7 @@ public class SwerveModule {
    * @param percentOutput Percent output to motor, -1 to +1
    */
   public void setDriveMotorPercentOutput(double percentOutput){
-    driveMotor.setControl(driveVoltageControl.withOutput(percentOutput*SwerveConstants.voltageCompSaturation));
+    driveOutput.setVoltage(driveVoltageControl, percentOutput*SwerveConstants.voltageCompSaturation);
   }
 
   /**
@@ -341,7 +427,7 @@ public class SwerveModule {
    * @param voltage voltage output to motor, nominally -12V to +12V
    */
   public void setDriveMotorVoltageOutput(double voltage){
-    driveMotor.setControl(driveVoltageControl.withOutput(voltage));
+    driveOutput.setVoltage(driveVoltageControl, voltage);
   }
   
   /**
@@ -349,7 +435,7 @@ public class SwerveModule {
    * @param percentOutput Percent output to motor, -1 to +1
    */
   public void setTurnMotorPercentOutput(double percentOutput){
-    turningMotor.setControl(turningVoltageControl.withOutput(percentOutput*SwerveConstants.voltageCompSaturation));
+    turningOutput.setVoltage(turningVoltageControl, percentOutput*SwerveConstants.voltageCompSaturation);
   }
   
   /**
@@ -359,7 +445,7 @@ public class SwerveModule {
    */
   public void setWheelFacing(double angle){
     angle = MathBCR.normalizeAngle(angle);
-    turningMotor.setControl(turningPositionControl.withPosition(calculateTurningEncoderTargetRaw(angle)));
+    turningOutput.setPosition(turningPositionControl, calculateTurningEncoderTargetRaw(angle));
   }
 
   /**
@@ -369,27 +455,59 @@ public class SwerveModule {
    * @param isOpenLoop true = fixed drive percent output to approximate velocity, false = closed loop drive velocity control
    */
   public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop) {
+    setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getDegrees(), isOpenLoop);
+  }
+
+  /**
+   * Sets the desired state for the module, using closed loop controls on the Talons.  Same as
+   * setDesiredState(SwerveModuleState, boolean), for callers that keep the states in arrays of doubles.
+   * @param speedMetersPerSecond Desired drive speed, in meters per second
+   * @param angleDegrees Desired wheel facing, in degrees
+   * @param isOpenLoop true = fixed drive percent output to approximate velocity, false = closed loop drive velocity control
+   */
+  public void setDesiredState(double speedMetersPerSecond, double angleDegrees, boolean isOpenLoop) {
+    // Read the drive velocity and wheel facing once, from this cycle's sample (DriveTrain.refreshSignals())
+    double currentVelocity = getDriveEncoderVelocity();
+    double currentAngle = getTurningEncoderDegrees();
+
     // Optimize the reference state to avoid spinning further than 90 degrees
     // Custom optimize command, since default WPILib optimize assumes continuous controller which CTRE is not
-    desiredState =
-        MathSwerveModuleState.optimize(desiredState, Rotation2d.fromDegrees(getTurningEncoderDegrees()));
+    // Uses doubles and a reused target, so the command path does not allocate
+    MathSwerveModuleState.optimize(speedMetersPerSecond, angleDegrees, currentAngle, desiredTarget);
+    double driveFeedforwardVolts = driveFeedforward.calculateWithVelocities(currentVelocity, desiredTarget.speedMetersPerSecond);
 
     // Set drive motor velocity or percent output
     if(isOpenLoop){
-      setDriveMotorVoltageOutput(driveFeedforward.calculateWithVelocities(getState().speedMetersPerSecond, desiredState.speedMetersPerSecond));
+      setDriveMotorVoltageOutput(driveFeedforwardVolts);
     }
     else {
-      driveMotor.setControl(driveVelocityControl
-        .withVelocity(calculateDriveEncoderVelocityRaw(desiredState.speedMetersPerSecond))
-        .withFeedForward(driveFeedforward.calculateWithVelocities(getState().speedMetersPerSecond, desiredState.speedMetersPerSecond)));
+      driveOutput.setVelocity(driveVelocityControl,
+        calculateDriveEncoderVelocityRaw(desiredTarget.speedMetersPerSecond), driveFeedforwardVolts);
     }
 
     // Set turning motor target angle
     // TODO Determine the right way to implement code to eliminate wheel jitter when sitting idle.  Make it selectable by a boolean parameter to setDesiredState?
     // Prevent rotating module if speed is less then 1%. Prevents Jittering.
-    // double angle = (Math.abs(desiredState.speedMetersPerSecond) <= (SwerveConstants.kMaxSpeedMetersPerSecond * 0.01)) 
-    //   ? getTurningEncoderDegrees() : desiredState.angle.getDegrees(); 
-    turningMotor.setControl(turningPositionControl.withPosition(calculateTurningEncoderTargetRaw(desiredState.angle.getDegrees())));
+    // double angle = (Math.abs(desiredTarget.speedMetersPerSecond) <= (SwerveConstants.kMaxSpeedMetersPerSecond * 0.01)) 
+    //   ? currentAngle : desiredTarget.angleDegrees; 
+    turningOutput.setPosition(turningPositionControl, calculateTurningEncoderTargetRaw(desiredTarget.angleDegrees));
+  }
+
+  // ********** Status signal methods
+
+  /**
+   * @return all of the status signals for this module, to refresh with BaseStatusSignal.refreshAll()
+   */
+  public BaseStatusSignal[] getStatusSignals() {
+    return statusSignals;
+  }
+
+  /**
+   * @return time of the drive encoder sample from the last refresh, in seconds.  This is Phoenix time
+   *   (Utils.getCurrentTimeSeconds()), not FPGA time.
+   */
+  public double getSampleTimestamp() {
+    return driveEncoderPostion.getTimestamp().getTime();
   }
 
   // ********** Encoder methods
@@ -400,7 +518,6 @@ public class SwerveModule {
    * @return drive encoder position, in pinion rotations
    */
   public double getDriveEncoderRotations() {
-    driveEncoderPostion.refresh();
     return driveEncoderPostion.getValueAsDouble();
   }
 
@@ -408,6 +525,7 @@ public class SwerveModule {
 	 * Set the drive encoder position to zero in software.
 	 */
   public void zeroDriveEncoder() {
+    SignalMonitor.refresh(driveEncoderPostion);      // Not called from periodic code, so read the encoder now
     driveEncoderZero = getDriveEncoderRotations();
     log.writeLogEcho(true, buildString("SwerveModule ", swName), "ZeroDriveEncoder", "driveEncoderZero", driveEncoderZero, "raw encoder", getDriveEncoderRotations(), "encoder meters", getDriveEncoderMeters());
   }
@@ -423,7 +541,6 @@ public class SwerveModule {
    * @return drive wheel velocity, in meters per second (+ = forward)
    */
   public double getDriveEncoderVelocity() {
-    driveEncoderVelocity.refresh();
     return driveEncoderVelocity.getValueAsDouble() * SwerveConstants.kDriveEncoderMetersPerTick;
   }
 
@@ -442,7 +559,6 @@ public class SwerveModule {
    * @return turning TalonFx encoder position, in pinion rotations
    */
   public double getTurningEncoderRaw() {
-    turningEncoderPosition.refresh();
     return turningEncoderPosition.getValueAsDouble();
   }
   
@@ -451,6 +567,7 @@ public class SwerveModule {
    * @param currentAngleDegrees current angle, in degrees.
    */
   public void calibrateTurningEncoderDegrees(double currentAngleDegrees) {
+    SignalMonitor.refresh(turningEncoderPosition);   // Not called from periodic code, so read the encoder now
     turningEncoderZero = getTurningEncoderRaw() - (currentAngleDegrees / SwerveConstants.kTurningEncoderDegreesPerTick);
     log.writeLogEcho(true, buildString("SwerveModule ", swName), "calibrateTurningEncoder", "turningEncoderZero", turningEncoderZero, "raw encoder", getTurningEncoderRaw(), "set degrees", currentAngleDegrees, "encoder degrees", getTurningEncoderDegrees());
   }
@@ -478,7 +595,6 @@ public class SwerveModule {
    * + = counterclockwise, - = clockwise
    */
   public double getTurningEncoderVelocityDPS() {
-    turningEncoderVelocity.refresh();
     return turningEncoderVelocity.getValueAsDouble() * SwerveConstants.kTurningEncoderDegreesPerTick;
   }
 
@@ -492,9 +608,10 @@ public class SwerveModule {
     // System.out.println(swName + " " + turningOffsetDegrees);
     // turningCanCoder.configMagnetOffset(offsetDegrees, 100);
     cancoderZero = -offsetDegrees;
+    SignalMonitor.refresh(turningCanCoderPosition);   // Not called from periodic code, so read the CanCoder now
     log.writeLogEcho(true, buildString("SwerveModule ", swName), "calibrateCanCoder", 
       "cancoderZero", cancoderZero, 
-      "raw encoder", turningCanCoderPosition.refresh().getValueAsDouble()*360.0, 
+      "raw encoder", turningCanCoderPosition.getValueAsDouble()*360.0, 
       "encoder degrees", getCanCoderDegrees());
   }
 
@@ -504,7 +621,6 @@ public class SwerveModule {
    * + = counterclockwise, - = clockwise
    */
   public double getCanCoderDegrees() {
-    turningCanCoderPosition.refresh();
     return MathBCR.normalizeAngle(turningCanCoderPosition.getValueAsDouble()*360.0 - cancoderZero);
   }
 
@@ -513,7 +629,6 @@ public class SwerveModule {
    * + = counterclockwise, - = clockwise
    */
   public double getCanCoderVelocityDPS() {
-    turningCanCoderVelocity.refresh();
     return turningCanCoderVelocity.getValueAsDouble()*360.0;
   }
 
@@ -521,37 +636,30 @@ public class SwerveModule {
   // ********** Information methods
 
   public double getDriveBusVoltage() {
-    driveMotorSupplyVoltage.refresh();
     return driveMotorSupplyVoltage.getValueAsDouble();
   }
 
   public double getDriveOutputPercent() {
-    driveDutyCycle.refresh();
     return driveDutyCycle.getValueAsDouble();
   }
 
   public double getDriveStatorCurrent() {
-    driveStatorCurrent.refresh();
     return driveStatorCurrent.getValueAsDouble();
   }
 
   public double getDriveTemp() {
-    driveMotorTemp.refresh();
     return driveMotorTemp.getValueAsDouble();
   }
 
   public double getTurningOutputPercent() {
-    turningDutyCycle.refresh();
     return turningDutyCycle.getValueAsDouble();
   }
 
   public double getTurningStatorCurrent() {
-    turningStatorCurrent.refresh();
     return turningStatorCurrent.getValueAsDouble();
   }
 
   public double getTurningTemp() {
-    turningMotorTemp.refresh();
     return turningMotorTemp.getValueAsDouble();
   }
 
@@ -559,30 +667,29 @@ public class SwerveModule {
    * Updates relevant variables on Shuffleboard
    */
   public void updateShuffleboard() {
-    SmartDashboard.putNumber(buildString("Swerve FXangle ", swName), MathBCR.normalizeAngle(getTurningEncoderDegrees()));
-    SmartDashboard.putNumber(buildString("Swerve CCangle ", swName), getCanCoderDegrees());
-    SmartDashboard.putNumber(buildString("Swerve FXangle dps", swName), getTurningEncoderVelocityDPS());
-    SmartDashboard.putNumber(buildString("Swerve distance", swName), getDriveEncoderMeters());
-    SmartDashboard.putNumber(buildString("Swerve drive temp ", swName), getDriveTemp());
-  }
-
-  /**
-   * Returns information about the swerve module to include in the filelog
-   * Format of the return string is comma-delimited name-value pairs, 
-   * *without* the final comma.  Ex.  "name1,value1,name2,value2"
-   */
-  public String getLogString() {
-    return buildString(
-      swName, " CCangle deg,", getCanCoderDegrees(), ",",
-      swName, " CCangle DPS,", getCanCoderVelocityDPS(), ",",
-      swName, " FXangle deg,", MathBCR.normalizeAngle(getTurningEncoderDegrees()), ",",
-      swName, " FXangle DPS,", getTurningEncoderVelocityDPS(), ",",
-      swName, " turn output,", getTurningOutputPercent(), ",",
-      swName, " drive meters,", getDriveEncoderMeters(), ",",
-      swName, " drive mps,", getDriveEncoderVelocity(), ",",
-      swName, " drive output,", getDriveOutputPercent(), ",",
-      swName, " drive temp,", getDriveTemp(), ",",
-      swName, " turn temp,", getTurningTemp()
-    );
+    telemetry.startSnapshot();
+    dashFXAngle.set(MathBCR.normalizeAngle(getTurningEncoderDegrees()));
+    dashCCAngle.set(getCanCoderDegrees());
+    dashFXAngleDPS.set(getTurningEncoderVelocityDPS());
+    dashDistance.set(getDriveEncoderMeters());
+    if (dashDriveTemp.isDue()) dashDriveTemp.set(getDriveTemp());
+    telemetry.endSnapshot();
+  }
+
+  /**
+   * Adds information about the swerve module to a filelog message
+   * @param record filelog message to add the swerve module fields to
+   */
+  public void addLogFields(LogRecordBuilder record) {
+    record.d(logNames[0], getCanCoderDegrees())
+      .d(logNames[1], getCanCoderVelocityDPS())
+      .d(logNames[2], MathBCR.normalizeAngle(getTurningEncoderDegrees()))
+      .d(logNames[3], getTurningEncoderVelocityDPS())
+      .d(logNames[4], getTurningOutputPercent())
+      .d(logNames[5], getDriveEncoderMeters())
+      .d(logNames[6], getDriveEncoderVelocity())
+      .d(logNames[7], getDriveOutputPercent())
+      .d(logNames[8], getDriveTemp())
+      .d(logNames[9], getTurningTemp());
   }
 }
@@ -7,6 +7,8 @@
 
 package frc.robot.subsystems;
 
+import java.util.function.Consumer;
+
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.*;
 import com.ctre.phoenix6.controls.Follower;
@@ -26,6 +28,7 @@ import edu.wpi.first.units.measure.Voltage;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
@@ -33,19 +36,42 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.Ports;
 import frc.robot.Constants.WristConstants.WristAngle;
 import frc.robot.Constants.WristConstants.WristRegion;
+import frc.robot.utilities.ConfigApplier;
+import frc.robot.utilities.ControlOutput;
 import frc.robot.utilities.FileLog;
+import frc.robot.utilities.LogRecordBuilder;
 import frc.robot.utilities.Loggable;
+import frc.robot.utilities.LoopTiming;
 import frc.robot.utilities.MathBCR;
 import frc.robot.utilities.RobotPreferences;
+import frc.robot.utilities.SignalMonitor;
+import frc.robot.utilities.SignalProfile;
+import frc.robot.utilities.Telemetry;
 import frc.robot.utilities.Wait;
 
 import static frc.robot.Constants.WristConstants.*;
 
 public class Wrist extends SubsystemBase implements Loggable{
   private final FileLog log;
+  private final Consumer<LogRecordBuilder> logFields = this::addLogFields;   // see FileLog.record()
   private int logRotationKey;         // key for the logging cycle for this subsystem
+  private final LoopTiming.Probe periodicTiming = LoopTiming.probe("Wrist periodic");   // Time spent in periodic()
   private boolean fastLogging = false;
   private final String subsystemName;
+
+  // Dashboard values (publishers are created once, not on each cycle)
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.BooleanValue dashRevConnected = telemetry.bool("Wrist Rev connected", Telemetry.kRate1Hz);
+  private final Telemetry.BooleanValue dashCalibrated = telemetry.bool("Wrist calibrated", Telemetry.kRate1Hz);
+  private final Telemetry.BooleanValue dashLowerLimit = telemetry.bool("Wrist lower limit", Telemetry.kRate10Hz);
+  private final Telemetry.DoubleValue dashRevAngle = telemetry.number("Wrist Rev angle");
+  private final Telemetry.DoubleValue dashRevRaw = telemetry.number("Wrist Rev raw");
+  private final Telemetry.DoubleValue dashAngle = telemetry.number("Wrist angle");
+  private final Telemetry.DoubleValue dashTargetAngle = telemetry.number("Wrist target angle", 0.0);
+  private final Telemetry.DoubleValue dashEnc1Raw = telemetry.number("Wrist enc1 raw");
+  private final Telemetry.DoubleValue dashEnc2Raw = telemetry.number("Wrist enc2 raw");
+  private final Telemetry.DoubleValue dashOutput1 = telemetry.number("Wrist output1");
+  private final Telemetry.DoubleValue dashOutput2 = telemetry.number("Wrist output2");
   private final Timer bootTimer = new Timer();
   
   private final TalonFX wristMotor1 = new TalonFX(Ports.CANWrist1);
@@ -57,6 +83,7 @@ public class Wrist extends SubsystemBase implements Loggable{
 	private VoltageOut wristVoltageControl = new VoltageOut(0.0).withEnableFOC(false);
   private PositionVoltage wristPositionControl = new PositionVoltage(0.0).withEnableFOC(false);
   private MotionMagicVoltage wristMMVoltageControl = new MotionMagicVoltage(0.0).withEnableFOC(false);
+  private final ControlOutput wrist1Output = new ControlOutput("Wrist1", wristMotor1);   // Motor 2 follows motor 1
   
 
 	// Variables for motor signals and sensors
@@ -157,6 +184,14 @@ public class Wrist extends SubsystemBase implements Loggable{
 
     //Make wrist motor 2 follow motor 1 
     wristMotor2.setControl(new Follower(wristMotor1.getDeviceID(), true));     // OpposeMasterDirection=true because motors are flipped relative to each other
+
+    // Set the signal update rates and turn off the unused status frames.
+    // Motor 2 follows the duty cycle, motor voltage, and torque current frames from motor 1, so those stay at the control rate.
+    new SignalProfile(subsystemName, wristMotor1, wristMotor2)
+      .control(wrist1EncoderPostion, wrist1EncoderVelocity, wrist1EncoderAcceleration, wrist1ControlMode,
+        wrist1DutyCycle, wrist1MotorVotage, wristMotor1.getTorqueCurrent(), wrist2EncoderPostion)
+      .diagnostic(wrist1Temp, wrist1StatorCurrent, wrist2Temp, wrist2DutyCycle, wrist2StatorCurrent)
+      .apply(log);
     
     // NOTE!!! When the TalonFX encoder settings are changed above, then the next call to 
     // getTurningEncoderDegrees() may contain an old value, not the value based on 
@@ -204,7 +239,7 @@ public class Wrist extends SubsystemBase implements Loggable{
       percentOutput = MathUtil.clamp(percentOutput, -maxUncalibratedPercentOutput, maxUncalibratedPercentOutput);
     }
 
-    wristMotor1.setControl(wristVoltageControl.withOutput(percentOutput*voltageCompSaturation));
+    wrist1Output.setVoltage(wristVoltageControl, percentOutput*voltageCompSaturation);
   }
 
  	/**
@@ -212,7 +247,7 @@ public class Wrist extends SubsystemBase implements Loggable{
 	 * @return between -1.0 (down) and 1.0 (up)
 	 */
 	public double getWristMotorPercentOutput() {
-		wrist1DutyCycle.refresh();			// Verified that this is not a blocking call.
+		SignalMonitor.refresh(wrist1DutyCycle);			// Verified that this is not a blocking call.
 		return wrist1DutyCycle.getValueAsDouble();
 	}
 
@@ -222,10 +257,11 @@ public class Wrist extends SubsystemBase implements Loggable{
    * @return true = position control, false = direct percent output control
    */
   public boolean isWristMotorPositionControl() {
-    return (wrist1ControlMode.refresh().getValue() == ControlModeValue.PositionVoltage) || 
-           (wrist1ControlMode.refresh().getValue() == ControlModeValue.MotionMagicVoltage) ||
-           (wrist1ControlMode.refresh().getValue() == ControlModeValue.PositionVoltageFOC) || 
-           (wrist1ControlMode.refresh().getValue() == ControlModeValue.MotionMagicVoltageFOC);
+    ControlModeValue controlMode = SignalMonitor.refresh(wrist1ControlMode).getValue();    // Read once, not once per comparison
+    return (controlMode == ControlModeValue.PositionVoltage) || 
+           (controlMode == ControlModeValue.MotionMagicVoltage) ||
+           (controlMode == ControlModeValue.PositionVoltageFOC) || 
+           (controlMode == ControlModeValue.MotionMagicVoltageFOC);
   }
 
   /**
@@ -245,8 +281,8 @@ public class Wrist extends SubsystemBase implements Loggable{
       // wristMotor1.setControl(wristPositionControl.withPosition(wristDegreesToEncoderRotations(safeAngle))
       //                       .withFeedForward(kG * Math.cos(safeAngle*Math.PI/180.0) ));
       // Phoenix6 MotionMagicVoltage control:  Position is in rotor rotations, FeedFoward is in Volts
-      wristMotor1.setControl(wristMMVoltageControl.withPosition(wristDegreesToEncoderRotations(safeAngle))
-                            .withFeedForward(kG * Math.cos(safeAngle*Math.PI/180.0) ));
+      wrist1Output.setMotionMagic(wristMMVoltageControl, wristDegreesToEncoderRotations(safeAngle),
+                                  kG * Math.cos(safeAngle*Math.PI/180.0));
 
       log.writeLog(false, subsystemName, "Set angle", "Desired angle", angle, "Set angle", safeAngle);
 
@@ -320,7 +356,7 @@ public class Wrist extends SubsystemBase implements Loggable{
    * @return raw encoder reading, in pinion rotations, adjusted direction (positive is towards stowed, negative is towards lower hard stop)
    */
   public double getWristEncoderRotationsRaw() {
-    wrist1EncoderPostion.refresh();          // Verified that this is not a blocking call.
+    SignalMonitor.refresh(wrist1EncoderPostion);          // Verified that this is not a blocking call.
     return wrist1EncoderPostion.getValueAsDouble();
   }
 
@@ -329,7 +365,7 @@ public class Wrist extends SubsystemBase implements Loggable{
    * @return raw encoder reading (2nd wrist motor), in pinion rotations, adjusted direction (positive is towards stowed, negative is towards lower hard stop)
    */
   public double getWristEncoder2RotationsRaw() {
-    wrist2EncoderPostion.refresh();          // Verified that this is not a blocking call.
+    SignalMonitor.refresh(wrist2EncoderPostion);          // Verified that this is not a blocking call.
     return wrist2EncoderPostion.getValueAsDouble();
   }
 
@@ -542,22 +578,33 @@ public class Wrist extends SubsystemBase implements Loggable{
    * @param logWhenDisabled true will log when disabled, false will discard the string
    */
   public void updateWristLog(boolean logWhenDisabled) {
-    log.writeLog(logWhenDisabled, subsystemName, "Update Variables",
-      "Temp1", wrist1Temp.refresh().getValueAsDouble(), "Percent Output1", getWristMotorPercentOutput(),
-      "Amps1", wrist1StatorCurrent.refresh().getValueAsDouble(),
-      "Temp2", wrist2Temp.refresh().getValueAsDouble(), "Percent Output2", wrist2DutyCycle.refresh().getValueAsDouble(),
-      "Amps2", wrist2StatorCurrent.refresh().getValueAsDouble(),
-      "Volts1", wrist1MotorVotage.refresh().getValueAsDouble(),
-      "Enc Pos Raw", getWristEncoderRotationsRaw(),
-      "Enc Vel Raw", wrist1EncoderVelocity.refresh().getValueAsDouble(),
-      "Enc Accel Raw", wrist1EncoderAcceleration.refresh().getValueAsDouble(),
-      "WristCalZero", wristCalZero,
-      "Wrist Degrees", getWristEncoderDegrees(),
-      "Wrist2 Degrees", getWristEncoder2Degrees(),
-      "Wrist Angle", getWristAngle(), "Wrist Target", getCurrentWristTarget(),
-      "Rev Connected", isRevEncoderConnected(), "Rev Degrees", getRevEncoderDegrees(),
-      "Lower Limit 1", isWristAtLowerLimit1(), "Lower Limit 2", isWristAtLowerLimit2()
-    );
+    log.record(FileLog.kLevelLab, logWhenDisabled, subsystemName, "Update Variables", logFields);
+  }
+
+  /**
+   * Adds the subsystem variables to a filelog message.  Only called when the message will be written.
+   * @param record filelog message
+   */
+  private void addLogFields(LogRecordBuilder record) {
+    record.d("Temp1", SignalMonitor.refresh(wrist1Temp).getValueAsDouble())
+      .d("Percent Output1", getWristMotorPercentOutput())
+      .d("Amps1", SignalMonitor.refresh(wrist1StatorCurrent).getValueAsDouble())
+      .d("Temp2", SignalMonitor.refresh(wrist2Temp).getValueAsDouble())
+      .d("Percent Output2", SignalMonitor.refresh(wrist2DutyCycle).getValueAsDouble())
+      .d("Amps2", SignalMonitor.refresh(wrist2StatorCurrent).getValueAsDouble())
+      .d("Volts1", SignalMonitor.refresh(wrist1MotorVotage).getValueAsDouble())
+      .d("Enc Pos Raw", getWristEncoderRotationsRaw())
+      .d("Enc Vel Raw", SignalMonitor.refresh(wrist1EncoderVelocity).getValueAsDouble())
+      .d("Enc Accel Raw", SignalMonitor.refresh(wrist1EncoderAcceleration).getValueAsDouble())
+      .d("WristCalZero", wristCalZero)
+      .d("Wrist Degrees", getWristEncoderDegrees())
+      .d("Wrist2 Degrees", getWristEncoder2Degrees())
+      .d("Wrist Angle", getWristAngle())
+      .d("Wrist Target", getCurrentWristTarget())
+      .b("Rev Connected", isRevEncoderConnected())
+      .d("Rev Degrees", getRevEncoderDegrees())
+      .b("Lower Limit 1", isWristAtLowerLimit1())
+      .b("Lower Limit 2", isWristAtLowerLimit2());
   }
 
   /**
@@ -571,24 +618,29 @@ public class Wrist extends SubsystemBase implements Loggable{
   
   @Override
   public void periodic() {
+    long timingStart = periodicTiming.start();
+    long logStartMicros = RobotController.getFPGATime();
     if (log.isMyLogRotation(logRotationKey)) {
-      SmartDashboard.putBoolean("Wrist Rev connected", isRevEncoderConnected());
-      SmartDashboard.putBoolean("Wrist calibrated", wristCalibrated);
+      telemetry.startSnapshot();
+      dashRevConnected.set(isRevEncoderConnected());
+      dashCalibrated.set(wristCalibrated);
       // SmartDashboard.putBoolean("Wrist LL1", isWristAtLowerLimit1());
       // SmartDashboard.putBoolean("Wrist LL2", isWristAtLowerLimit2());
-      SmartDashboard.putBoolean("Wrist lower limit", isWristAtLowerLimit());
-      SmartDashboard.putNumber("Wrist Rev angle", getRevEncoderDegrees());
-      SmartDashboard.putNumber("Wrist Rev raw", revEncoder.get()*360.0);
-      SmartDashboard.putNumber("Wrist angle", getWristEncoderDegrees());
-      SmartDashboard.putNumber("Wrist target angle", getCurrentWristTarget());
-      SmartDashboard.putNumber("Wrist enc1 raw", getWristEncoderRotationsRaw());
-      SmartDashboard.putNumber("Wrist enc2 raw", wrist2EncoderPostion.refresh().getValueAsDouble());
-      SmartDashboard.putNumber("Wrist output1", getWristMotorPercentOutput());
-      SmartDashboard.putNumber("Wrist output2", wrist2DutyCycle.refresh().getValueAsDouble());
+      dashLowerLimit.set(isWristAtLowerLimit());
+      dashRevAngle.set(getRevEncoderDegrees());
+      dashRevRaw.set(revEncoder.get()*360.0);
+      dashAngle.set(getWristEncoderDegrees());
+      dashTargetAngle.set(getCurrentWristTarget());
+      dashEnc1Raw.set(getWristEncoderRotationsRaw());
+      dashEnc2Raw.set(SignalMonitor.refresh(wrist2EncoderPostion).getValueAsDouble());
+      dashOutput1.set(getWristMotorPercentOutput());
+      dashOutput2.set(SignalMonitor.refresh(wrist2DutyCycle).getValueAsDouble());
+      telemetry.endSnapshot();
     }
         
-    if (fastLogging || log.isMyLogRotation(logRotationKey)) {
+    if (log.isMyLogRotation(logRotationKey, fastLogging)) {
       updateWristLog(false);
+      log.reportLogCost(logRotationKey, logStartMicros);    // Includes the dashboard values above
     }
 
     // Rev Through-Bore Encoder takes a while to boot up.
@@ -624,9 +676,15 @@ public class Wrist extends SubsystemBase implements Loggable{
       wristMotor1Config.SoftwareLimitSwitch.ForwardSoftLimitEnable = true;
       wristMotor1Config.SoftwareLimitSwitch.ReverseSoftLimitEnable = true;
 
-      // Apply configuration to the wrist motor. 1 and 2 
-      // This is a blocking call and will wait up to 50ms-70ms for the config to apply.  (initial test = 62ms delay)
-      wristMotor1Configurator.apply(wristMotor1Config);
+      // Apply only the soft limits to the wrist motor. 1 and 2 
+      // The apply takes 50ms-70ms (initial test = 62ms delay), so it runs on the ConfigApplier thread.
+      // Use a copy of the soft limit configs, since the thread applies them later.
+      SoftwareLimitSwitchConfigs softLimits = new SoftwareLimitSwitchConfigs()
+        .withForwardSoftLimitThreshold(wristMotor1Config.SoftwareLimitSwitch.ForwardSoftLimitThreshold)
+        .withReverseSoftLimitThreshold(wristMotor1Config.SoftwareLimitSwitch.ReverseSoftLimitThreshold)
+        .withForwardSoftLimitEnable(true)
+        .withReverseSoftLimitEnable(true);
+      ConfigApplier.apply("Wrist soft limits", () -> wristMotor1Configurator.apply(softLimits), log);
     }
 
     // If driver station is no longer disabled and wrist is not calibrated, then 
@@ -667,6 +725,7 @@ public class Wrist extends SubsystemBase implements Loggable{
 
    
     
+    periodicTiming.stop(timingStart);
   }
  
 }
\ No newline at end of file
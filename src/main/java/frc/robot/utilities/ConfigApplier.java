@@ -0,0 +1,160 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix6.StatusCode;
+
+/**
+ * Applies CTRE device configuration changes on a background thread, so the robot loop never waits
+ * for a configurator apply() (50-70 ms each).
+ * <p> Each change has a key for the device and the part of the configuration it changes (ex. "FL drive neutral mode").
+ * If a change with the same key is already waiting, the new change replaces it (only the last requested
+ * configuration is applied) and both callers get the same future.  Changes with different keys are applied in order.
+ * <pre>
+ *   CompletableFuture&lt;StatusCode&gt; done = ConfigApplier.apply("Wrist soft limits",
+ *     () -> wristMotor1Configurator.apply(softLimits), log);
+ *   ...
+ *   if (done.isDone()) ...
+ * </pre>
+ * The action runs on the background thread, so it must only use configuration objects that the
+ * caller does not change afterwards (create a new config object for each change).
+ */
+public class ConfigApplier {
+  private static final Map<String, Request> pending = new LinkedHashMap<>();    // Changes that have not started, by key.  Also the lock.
+  private static Thread worker = null;
+  private static volatile String applying = null;     // Key of the change being applied, or null if idle
+  private static volatile int applied = 0;            // Number of changes applied
+  private static volatile int failed = 0;             // Number of changes that returned an error
+  private static volatile int coalesced = 0;          // Number of changes that replaced a waiting change
+
+  /** A waiting configuration change */
+  private static class Request {
+    final String key;
+    final CompletableFuture<StatusCode> future = new CompletableFuture<>();
+    Supplier<StatusCode> action;
+    FileLog log;
+    long queuedNanos;
+
+    Request(String key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * Queues a configuration change for the background thread.
+   * @param key device and part of the configuration that is changed.  A waiting change with the same key is replaced.
+   * @param action applies the change (ex. a configurator apply() call) and returns the status
+   * @param log FileLog, for errors
+   * @return completes with the status of the change, after it is applied
+   */
+  public static CompletableFuture<StatusCode> apply(String key, Supplier<StatusCode> action, FileLog log) {
+    synchronized (pending) {
+      Request request = pending.get(key);
+      if (request == null) {
+        request = new Request(key);
+        request.queuedNanos = System.nanoTime();
+        pending.put(key, request);
+      } else {
+        coalesced++;
+      }
+      request.action = action;
+      request.log = log;
+
+      if (worker == null) {
+        worker = new Thread(ConfigApplier::run, "ConfigApplier");
+        worker.setDaemon(true);
+        worker.start();
+      }
+      pending.notifyAll();
+      return request.future;
+    }
+  }
+
+  private static void run() {
+    while (true) {
+      Request request;
+      synchronized (pending) {
+        while (pending.isEmpty()) {
+          try {
+            pending.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        Iterator<Request> iterator = pending.values().iterator();
+        request = iterator.next();
+        iterator.remove();
+        applying = request.key;
+      }
+
+      long startNanos = System.nanoTime();
+      StatusCode status;
+      try {
+        status = request.action.get();
+      } catch (RuntimeException e) {
+        request.log.writeLogEcho(true, "ConfigApplier", "Exception", "Key", request.key, "Exception", e.toString());
+        status = StatusCode.GeneralError;
+      }
+      long endNanos = System.nanoTime();
+
+      applied++;
+      if (!status.isOK()) {
+        failed++;
+        request.log.writeLogEcho(true, "ConfigApplier", "Apply Failed", "Key", request.key, "Status", status);
+      } else if (request.log.isLogEnabled(FileLog.kLevelLab, "ConfigApplier")) {
+        request.log.record(true, "ConfigApplier", "Applied").s("Key", request.key)
+          .d("Wait ms", (startNanos - request.queuedNanos) / 1e6).d("Apply ms", (endNanos - startNanos) / 1e6).commit();
+      }
+
+      applying = null;
+      request.future.complete(status);
+    }
+  }
+
+  /**
+   * @return true = no changes are waiting or being applied
+   */
+  public static boolean isIdle() {
+    synchronized (pending) {
+      return pending.isEmpty() && applying == null;
+    }
+  }
+
+  /**
+   * @return number of changes that are waiting (not including the one being applied)
+   */
+  public static int getPendingCount() {
+    synchronized (pending) {
+      return pending.size();
+    }
+  }
+
+  /**
+   * @return number of changes applied
+   */
+  public static int getAppliedCount() {
+    return applied;
+  }
+
+  /**
+   * @return number of changes that returned an error
+   */
+  public static int getFailedCount() {
+    return failed;
+  }
+
+  /**
+   * @return number of changes that replaced a waiting change with the same key
+   */
+  public static int getCoalescedCount() {
+    return coalesced;
+  }
+}
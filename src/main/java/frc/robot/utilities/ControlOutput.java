@@ -0,0 +1,235 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.controls.ControlRequest;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
+import com.ctre.phoenix6.controls.PositionVoltage;
+import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import frc.robot.Constants.OutputConstants;
+
+/**
+ * Output stage for one TalonFX.  Subsystems and commands set the request for the motor during the cycle,
+ * and flushAll() sends the requests for all motors at the end of the cycle.  A request is not sent if it is
+ * the same as the last request sent to the motor (same request object and values), unless
+ * OutputConstants.keepAliveSeconds has passed since it was sent.  If a motor is set more than once in a cycle,
+ * only the last request is sent.
+ * <pre>
+ *   private final ControlOutput feederOutput = new ControlOutput("Feeder", feeder);
+ *   ...
+ *   feederOutput.setVoltage(motorVoltageControl, percent * FeederConstants.compensationVoltage);
+ * </pre>
+ * <p> Skipping a request does not stop the motor:  Phoenix keeps sending the last control frame to the
+ * motor at the request's UpdateFreqHz (100 Hz by default), so the motor's control timeout and the robot
+ * enable/disable are handled the same as before.  Only use requests with UpdateFreqHz > 0 (not one-shot frames).
+ * An unchanged request is still sent again by the robot code within OutputConstants.keepAliveSeconds plus one
+ * cycle, which must be less than OutputConstants.controlTimeoutSeconds (checked by ControlOutputTest).
+ * The last sent requests are cleared with invalidateAll() on each mode transition, so the first request in a new
+ * mode is always sent.  If the motor is controlled without this class (such as a Follower request), or the request's
+ * settings are changed (such as EnableFOC), call invalidate() so that the next request is sent.
+ * <p> Only call from the robot loop thread.
+ */
+public class ControlOutput {
+  private static final long kPublishPeriodNanos = 1_000_000_000L;
+
+  private static final List<ControlOutput> outputs = new ArrayList<>();
+  private static final Telemetry telemetry = new Telemetry();
+  private static final Telemetry.DoubleValue dashSent = telemetry.number("Outputs sent per sec", 1.0, Telemetry.kRate1Hz);
+  private static final Telemetry.DoubleValue dashSuppressed = telemetry.number("Outputs suppressed per sec", 1.0, Telemetry.kRate1Hz);
+  private static int windowSent = 0;            // Requests sent since the last dashboard update
+  private static int windowSuppressed = 0;      // Requests not sent since the last dashboard update
+  private static long nextPublishNanos = 0;
+  private static String mode = "Startup";       // Robot mode that the current counters are for
+
+  private final String name;
+  private final TalonFX motor;
+
+  // Request set this cycle and not sent yet (null = none)
+  private ControlRequest pendingRequest = null;
+  private double pendingValue, pendingFeedForward;
+
+  // Last request sent to the motor (null = none, or invalidated)
+  private ControlRequest sentRequest = null;
+  private double sentValue, sentFeedForward;
+  private long sentNanos;
+
+  // Counters since the last mode transition
+  private int sent = 0;           // Requests sent to the motor
+  private int suppressed = 0;     // Requests not sent, because they were the same as the last sent request
+  private int coalesced = 0;      // Requests replaced by a later request in the same cycle
+  private int failed = 0;         // Requests that returned an error
+
+  /**
+   * @param name name of the motor, for the log
+   * @param motor motor to control
+   */
+  public ControlOutput(String name, TalonFX motor) {
+    this.name = name;
+    this.motor = motor;
+    outputs.add(this);
+  }
+
+  /**
+   * Sets voltage control.
+   * @param request request object to use
+   * @param volts output voltage
+   */
+  public void setVoltage(VoltageOut request, double volts) {
+    set(request, volts, 0.0);
+  }
+
+  /**
+   * Sets velocity control, keeping the request's feed forward.
+   * @param request request object to use
+   * @param velocity velocity, in rotations per second
+   */
+  public void setVelocity(VelocityVoltage request, double velocity) {
+    set(request, velocity, request.FeedForward);
+  }
+
+  /**
+   * Sets velocity control.
+   * @param request request object to use
+   * @param velocity velocity, in rotations per second
+   * @param feedForward feed forward, in volts
+   */
+  public void setVelocity(VelocityVoltage request, double velocity, double feedForward) {
+    set(request, velocity, feedForward);
+  }
+
+  /**
+   * Sets position control, keeping the request's feed forward.
+   * @param request request object to use
+   * @param position position, in rotations
+   */
+  public void setPosition(PositionVoltage request, double position) {
+    set(request, position, request.FeedForward);
+  }
+
+  /**
+   * Sets Motion Magic position control.
+   * @param request request object to use
+   * @param position position, in rotations
+   * @param feedForward feed forward, in volts
+   */
+  public void setMotionMagic(MotionMagicVoltage request, double position, double feedForward) {
+    set(request, position, feedForward);
+  }
+
+  private void set(ControlRequest request, double value, double feedForward) {
+    if (pendingRequest != null) coalesced++;
+    pendingRequest = request;
+    pendingValue = value;
+    pendingFeedForward = feedForward;
+
+    if (!OutputConstants.deferOutputs) flush(System.nanoTime());
+  }
+
+  /**
+   * Forgets the last request sent to the motor, so the next request is always sent.
+   */
+  public void invalidate() {
+    sentRequest = null;
+  }
+
+  /**
+   * Sends the pending request, unless it is the same as the last request sent and the keep-alive time has not passed.
+   * @param nowNanos current time, from System.nanoTime()
+   */
+  void flush(long nowNanos) {
+    if (pendingRequest == null) return;
+
+    if (pendingRequest == sentRequest && pendingValue == sentValue && pendingFeedForward == sentFeedForward &&
+        nowNanos - sentNanos < (long) (OutputConstants.keepAliveSeconds * 1e9)) {
+      suppressed++;
+      windowSuppressed++;
+    } else {
+      StatusCode status = send(pendingRequest, pendingValue, pendingFeedForward);
+      sent++;
+      windowSent++;
+      if (status.isOK()) {
+        sentRequest = pendingRequest;
+        sentValue = pendingValue;
+        sentFeedForward = pendingFeedForward;
+        sentNanos = nowNanos;
+      } else {
+        // Send again next time
+        failed++;
+        sentRequest = null;
+      }
+    }
+    pendingRequest = null;
+  }
+
+  /**
+   * Sends a request to the motor.  Package-private so that tests can record the requests instead.
+   */
+  StatusCode send(ControlRequest request, double value, double feedForward) {
+    if (request instanceof VoltageOut voltageOut) {
+      return motor.setControl(voltageOut.withOutput(value));
+    } else if (request instanceof VelocityVoltage velocityVoltage) {
+      return motor.setControl(velocityVoltage.withVelocity(value).withFeedForward(feedForward));
+    } else if (request instanceof PositionVoltage positionVoltage) {
+      return motor.setControl(positionVoltage.withPosition(value).withFeedForward(feedForward));
+    } else if (request instanceof MotionMagicVoltage motionMagicVoltage) {
+      return motor.setControl(motionMagicVoltage.withPosition(value).withFeedForward(feedForward));
+    }
+    return motor.setControl(request);
+  }
+
+  /**
+   * Sends the requests that were set this cycle, and publishes the sent and suppressed counts to the
+   * dashboard once per second.  Call once at the end of each robot cycle.  Does not allocate.
+   */
+  public static void flushAll() {
+    long now = System.nanoTime();
+    for (int i = 0; i < outputs.size(); i++) {
+      outputs.get(i).flush(now);
+    }
+
+    if (now - nextPublishNanos < 0) return;
+    nextPublishNanos = now + kPublishPeriodNanos;
+    telemetry.startSnapshot();
+    dashSent.set(windowSent);
+    dashSuppressed.set(windowSuppressed);
+    telemetry.endSnapshot();
+    windowSent = 0;
+    windowSuppressed = 0;
+  }
+
+  /**
+   * Forgets the last request sent to every motor, so the next request to each motor is always sent.
+   * Call on each mode transition.
+   */
+  public static void invalidateAll() {
+    for (ControlOutput output : outputs) {
+      output.invalidate();
+    }
+  }
+
+  /**
+   * Writes the counters for each motor in the mode that just ended to the log, then clears them.
+   * Call on each mode transition.
+   * @param log FileLog
+   * @param newMode mode that is starting
+   */
+  public static void logSummary(FileLog log, String newMode) {
+    for (ControlOutput output : outputs) {
+      if (output.sent + output.suppressed == 0) continue;
+      log.record(true, "ControlOutput", output.name).s("Mode", mode)
+        .i("Sent", output.sent).i("Suppressed", output.suppressed)
+        .i("Coalesced", output.coalesced).i("Failed", output.failed).commit();
+      output.sent = output.suppressed = output.coalesced = output.failed = 0;
+    }
+    mode = newMode;
+  }
+}
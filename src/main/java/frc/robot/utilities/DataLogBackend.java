@@ -0,0 +1,200 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+import java.io.File;
+import java.util.HashMap;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogBackgroundWriter;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.util.datalog.StructArrayLogEntry;
+import edu.wpi.first.util.datalog.StructLogEntry;
+
+/**
+ * Writes FileLog messages to a WPILib DataLog (.wpilog) file.
+ * <p> Each name/value pair in a message is written to a typed entry called
+ * "subsystem/event/name", so periodic values show up as plots in AdvantageScope.
+ * Messages without any values are written to the string entry "subsystem/Events".
+ * Entries are registered with the DataLog the first time they are used and then looked up by name.
+ * <p> Not thread safe.  FileLog calls this from only one thread at a time.
+ */
+class DataLogBackend {
+	private final DataLogBackgroundWriter dataLog;
+	private final HashMap<String, SubsystemEntries> subsystems = new HashMap<>();
+
+	/** Entries for one subsystem or command */
+	private class SubsystemEntries {
+		final String name;
+		final StringLogEntry events;
+		final HashMap<String, HashMap<String, Object>> fieldsByEvent = new HashMap<>();
+
+		SubsystemEntries(String name) {
+			this.name = name;
+			events = new StringLogEntry(dataLog, name + "/Events");
+		}
+	}
+
+	/**
+	 * Creates the DataLog file.
+	 * @param fileName full path and name of the .wpilog file
+	 */
+	DataLogBackend(String fileName) {
+		File file = new File(fileName);
+		String dir = (file.getParent() == null) ? "" : file.getParent();
+		dataLog = new DataLogBackgroundWriter(dir, file.getName());
+	}
+
+	/**
+	 * Writes one message to the DataLog.
+	 * @param record message to write
+	 */
+	void write(LogRecord record) {
+		SubsystemEntries subsystem = subsystems.get(record.subsystemOrCommand);
+		if (subsystem == null) {
+			subsystem = new SubsystemEntries(record.subsystemOrCommand);
+			subsystems.put(record.subsystemOrCommand, subsystem);
+		}
+
+		if (record.paramCount == 0) {
+			subsystem.events.append(record.event, record.timeMicros);
+			return;
+		}
+
+		HashMap<String, Object> fields = subsystem.fieldsByEvent.get(record.event);
+		if (fields == null) {
+			fields = new HashMap<>();
+			subsystem.fieldsByEvent.put(record.event, fields);
+		}
+
+		// Params are name, value, name, value, ...
+		int i = 0;
+		for (; i + 1 < record.paramCount; i += 2) {
+			if (record.types[i] != LogRecord.kObject || !(record.objects[i] instanceof String)) break;
+			writeField(subsystem, record.event, fields, (String) record.objects[i], record, i + 1);
+		}
+		// Anything left over is not a name/value pair, so record it as text
+		for (; i < record.paramCount; i++) {
+			writeField(subsystem, record.event, fields, "Value", record, i);
+		}
+	}
+
+	/**
+	 * Writes one value to the entry for its name, registering the entry if needed.
+	 * The first value written for a name sets the type of the entry.  Later values with a
+	 * different type are written as text to "name (text)".
+	 */
+	private void writeField(SubsystemEntries subsystem, String event, HashMap<String, Object> fields, String name, LogRecord record, int i) {
+		long timestamp = record.timeMicros;
+		Object entry = fields.get(name);
+		Object value = record.objects[i];
+
+		switch (record.types[i]) {
+			case LogRecord.kDouble:
+				if (entry == null) entry = register(fields, name, new DoubleLogEntry(dataLog, entryName(subsystem, event, name)));
+				if (entry instanceof DoubleLogEntry) {
+					((DoubleLogEntry) entry).append(Double.longBitsToDouble(record.values[i]), timestamp);
+					return;
+				}
+				break;
+			case LogRecord.kBoolean:
+				if (entry == null) entry = register(fields, name, new BooleanLogEntry(dataLog, entryName(subsystem, event, name)));
+				if (entry instanceof BooleanLogEntry) {
+					((BooleanLogEntry) entry).append(record.values[i] != 0, timestamp);
+					return;
+				}
+				break;
+			case LogRecord.kLong:
+				if (entry == null) entry = register(fields, name, new IntegerLogEntry(dataLog, entryName(subsystem, event, name)));
+				if (entry instanceof IntegerLogEntry) {
+					((IntegerLogEntry) entry).append(record.values[i], timestamp);
+					return;
+				}
+				break;
+			default:
+				if (value instanceof Double || value instanceof Float) {
+					if (entry == null) entry = register(fields, name, new DoubleLogEntry(dataLog, entryName(subsystem, event, name)));
+					if (entry instanceof DoubleLogEntry) {
+						((DoubleLogEntry) entry).append(((Number) value).doubleValue(), timestamp);
+						return;
+					}
+				} else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+					if (entry == null) entry = register(fields, name, new IntegerLogEntry(dataLog, entryName(subsystem, event, name)));
+					if (entry instanceof IntegerLogEntry) {
+						((IntegerLogEntry) entry).append(((Number) value).longValue(), timestamp);
+						return;
+					}
+				} else if (value instanceof Boolean) {
+					if (entry == null) entry = register(fields, name, new BooleanLogEntry(dataLog, entryName(subsystem, event, name)));
+					if (entry instanceof BooleanLogEntry) {
+						((BooleanLogEntry) entry).append((Boolean) value, timestamp);
+						return;
+					}
+				} else if (value instanceof Pose2d) {
+					if (entry == null) entry = register(fields, name, StructLogEntry.create(dataLog, entryName(subsystem, event, name), Pose2d.struct));
+					if (entry instanceof StructLogEntry) {
+						@SuppressWarnings("unchecked")
+						StructLogEntry<Pose2d> poseEntry = (StructLogEntry<Pose2d>) entry;
+						poseEntry.append((Pose2d) value, timestamp);
+						return;
+					}
+				} else if (value instanceof SwerveModuleState[]) {
+					if (entry == null) entry = register(fields, name, StructArrayLogEntry.create(dataLog, entryName(subsystem, event, name), SwerveModuleState.struct));
+					if (entry instanceof StructArrayLogEntry) {
+						@SuppressWarnings("unchecked")
+						StructArrayLogEntry<SwerveModuleState> statesEntry = (StructArrayLogEntry<SwerveModuleState>) entry;
+						statesEntry.append((SwerveModuleState[]) value, timestamp);
+						return;
+					}
+				} else {
+					if (entry == null) entry = register(fields, name, new StringLogEntry(dataLog, entryName(subsystem, event, name)));
+					if (entry instanceof StringLogEntry) {
+						((StringLogEntry) entry).append(String.valueOf(value), timestamp);
+						return;
+					}
+				}
+		}
+
+		// Type does not match the registered entry
+		String textName = name + " (text)";
+		Object textEntry = fields.get(textName);
+		if (textEntry == null) textEntry = register(fields, textName, new StringLogEntry(dataLog, entryName(subsystem, event, textName)));
+		StringBuilder sb = new StringBuilder();
+		record.appendParam(sb, i);
+		((StringLogEntry) textEntry).append(sb.toString(), timestamp);
+	}
+
+	private static Object register(HashMap<String, Object> fields, String name, Object entry) {
+		fields.put(name, entry);
+		return entry;
+	}
+
+	private static String entryName(SubsystemEntries subsystem, String event, String name) {
+		return subsystem.name + "/" + event + "/" + name;
+	}
+
+	/**
+	 * Changes the name of the DataLog file (used when the clock is set by the FMS).
+	 * @param fileName full path and name of the .wpilog file
+	 */
+	void setFilename(String fileName) {
+		dataLog.setFilename(new File(fileName).getName());
+	}
+
+	/**
+	 * Closes the DataLog file.
+	 */
+	void close() {
+		dataLog.close();
+	}
+}
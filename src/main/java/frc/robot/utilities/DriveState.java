@@ -0,0 +1,81 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Snapshot of the drive train sensors and pose for one robot cycle.  DriveTrain.periodic() creates a new
+ * DriveState after reading the sensors and updating odometry, before the commands run, so every command
+ * in the cycle sees the same values and the sensors are read once per cycle no matter how many commands
+ * use them.
+ * <pre>
+ *   DriveState state = driveTrain.getState();
+ *   double angle = state.pose.getRotation().getRadians();
+ * </pre>
+ * A DriveState is never changed after it is created, so it can be kept (ex. as a command's starting state)
+ * and read from any thread.  Do not change the contents of the module arrays.
+ */
+public class DriveState {
+  /** Robot cycle that the snapshot is from.  Increases by 1 for each new snapshot. */
+  public final long cycle;
+
+  /** FPGA time of the odometry update (or reset) that pose is from, in seconds (same time base as Timer.getFPGATimestamp()) */
+  public final double timestampSeconds;
+
+  /** Estimated robot pose on the field */
+  public final Pose2d pose;
+
+  /** Speed of the robot <b>in the robot frame of reference</b> (same as DriveTrain.getChassisSpeeds()) */
+  public final ChassisSpeeds chassisSpeeds;
+
+  /** Speed of the robot <b>in the field frame of reference</b> (same as DriveTrain.getRobotSpeeds()) */
+  public final ChassisSpeeds fieldSpeeds;
+
+  /** Translational speed of the robot, in meters per second */
+  public final double speedMetersPerSecond;
+
+  /** Raw gyro angle (can be greater than 360), in degrees */
+  public final double gyroRaw;
+
+  /** Gyro angle from -180 to +180, in degrees (+ = left, - = right) */
+  public final double gyroRotation;
+
+  /** Gyro angular velocity, in degrees per second (+ = turning left) */
+  public final double angularVelocity;
+
+  /** Gyro pitch, in degrees (+ = nose up) */
+  public final double gyroPitch;
+
+  /** true = gyro is connected and has no hardware fault */
+  public final boolean gyroReading;
+
+  /** Module states (0 = FrontLeft, 1 = FrontRight, 2 = BackLeft, 3 = BackRight) */
+  public final SwerveModuleState[] moduleStates;
+
+  /** Module positions (0 = FrontLeft, 1 = FrontRight, 2 = BackLeft, 3 = BackRight) */
+  public final SwerveModulePosition[] modulePositions;
+
+  public DriveState(long cycle, double timestampSeconds, Pose2d pose, ChassisSpeeds chassisSpeeds, ChassisSpeeds fieldSpeeds,
+      double gyroRaw, double gyroRotation, double angularVelocity, double gyroPitch, boolean gyroReading,
+      SwerveModuleState[] moduleStates, SwerveModulePosition[] modulePositions) {
+    this.cycle = cycle;
+    this.timestampSeconds = timestampSeconds;
+    this.pose = pose;
+    this.chassisSpeeds = chassisSpeeds;
+    this.fieldSpeeds = fieldSpeeds;
+    this.speedMetersPerSecond = Math.hypot(chassisSpeeds.vxMetersPerSecond, chassisSpeeds.vyMetersPerSecond);
+    this.gyroRaw = gyroRaw;
+    this.gyroRotation = gyroRotation;
+    this.angularVelocity = angularVelocity;
+    this.gyroPitch = gyroPitch;
+    this.gyroReading = gyroReading;
+    this.moduleStates = moduleStates;
+    this.modulePositions = modulePositions;
+  }
+}
@@ -7,35 +7,81 @@
 
 package frc.robot.utilities;
 
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.LogConstants;
 
 import static frc.robot.utilities.StringUtil.*;
 
 /**
  * Class used to write information to file for logging.
- *
+ * <p> When LogConstants.asyncWriter is true, writeLog() only copies the message into a
+ * preallocated queue and a background thread formats, batches, and flushes the file.
+ * Otherwise each message is written and flushed on the calling thread.
+ * <p> Messages are written to a CSV file and/or a WPILib DataLog (.wpilog) file,
+ * selected by LogConstants.writeCSV and LogConstants.writeDataLog.
+ * <p> Messages can be given a log level (kLevelDebug, kLevelLab, or kLevelCompetition).  A message
+ * is only written if its level is at or above the current log level for its subsystem.  Messages
+ * without a level are always written.
+ * <p> Messages are timestamped with the FPGA clock, which never jumps.  The FPGA time is converted
+ * to wall clock time when the message is formatted, using the most recent "FileLog,Time Sync" line.
+ * A new Time Sync line is written whenever the wall clock is set (such as by the FMS at the start of a match).
+ * <p> The log file is split into segments by size and age (see LogConstants).  Closed segments are
+ * compressed in the background, and the oldest log files are deleted when the logs use too much disk.
  */
 public class FileLog {
 	
     private FileWriter fileWriter;
-	private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-	private static final SimpleDateFormat fileDateFormat = new SimpleDateFormat("yyyy-MM-dd.HH-mm-ss");
+	private final SimpleDateFormat fileDateFormat = new SimpleDateFormat("yyyy-MM-dd.HH-mm-ss");
+	private final LogTimeFormat timeFormat = new LogTimeFormat();
 	private String fileNameBase, fileNameFull;
 	private long startTime;
-	private int logLevel = 3; // Level of detail. Value between 1-3, where 1 is the most detailed and 3 is the least detailed.
+
+	// Log file segments.  Segments after the first are named ".ver.date.time.N.csv".
+	private LogFileCompactor compactor;
+	private int segmentNumber = 0;
+	private long segmentChars;				// Characters written to the current segment
+	private long segmentStartNanos;			// System.nanoTime() when the current segment was opened
+
+	// Mapping from FPGA time to wall clock time.  Only used by the thread that formats messages.
+	private long syncWallMillis;			// Wall clock time at syncMicros, in ms
+	private long syncMicros;				// FPGA time, in us
+
+	// Log levels.  Value between 1-3, where 1 is the most detailed and 3 is the least detailed.
+	public static final int kLevelDebug = 1;			// Full debugging logs
+	public static final int kLevelLab = 2;				// Normal lab mode
+	public static final int kLevelCompetition = 3;		// Competition mode, minimal logging
+	private volatile int logLevel = clampLogLevel(LogConstants.logLevel);		// Level of detail for subsystems without their own log level
+	private volatile boolean loadShed = false;		// true = fast logging and debug/lab messages are off because the robot loop is overrunning
+	private final ConcurrentHashMap<String, Integer> subsystemLogLevels = new ConcurrentHashMap<>();
     
     // File logging rotation cycles, to spread out logging times between subsystems	
 	private final int NUM_ROTATIONS = 10;
-	private int rotationLastAllocated = NUM_ROTATIONS-1;
-	private int rotationCurrent = 0;			// Values = 0 .. NUM_ROTATIONS-1
+	private final LogRotationScheduler rotationScheduler = new LogRotationScheduler(NUM_ROTATIONS);
+
+	// Background writer (only used when LogConstants.asyncWriter is true)
+	private LogRingBuffer ringBuffer;
+	private Thread writerThread;
+	private volatile boolean writerRunning = false;
+	private final StringBuilder lineBuffer = new StringBuilder(LogConstants.flushBatchChars + 4096);
+	private char[] writeBuffer = new char[LogConstants.flushBatchChars + 4096];
+	private final LogRecord syncRecord = new LogRecord();		// Record used when writing on the calling thread
+	private long lastDroppedLogged = 0;
+	private DataLogBackend dataLogBackend;				// null if not writing a DataLog file
+	private final ThreadLocal<LogRecordBuilder> recordBuilders = ThreadLocal.withInitial(() -> new LogRecordBuilder(this));
     
 	/**
 	 * Creates a new log file called "/home/lvuser/logfile.ver.date.time.csv"
@@ -77,50 +123,282 @@ public class FileLog {
 	private void createLog(String filenameBase, String version) {
 		this.fileNameBase = buildString(filenameBase, ".", version, ".");
         startTime = System.currentTimeMillis();
-		fileNameFull = buildString(fileNameBase, (fileDateFormat.format(startTime)), ".csv");
+		fileNameFull = segmentFileName();
+
+		if (LogConstants.writeCSV) {
+			openSegment("Open", "");
+			compactor = new LogFileCompactor(filenameBase, fileNameFull);
+		}
+
+		if (LogConstants.writeDataLog) {
+			dataLogBackend = new DataLogBackend(buildString(fileNameBase, (fileDateFormat.format(startTime)), ".wpilog"));
+		}
+
+		syncClock(System.currentTimeMillis(), RobotController.getFPGATime(), "Open");
+		writeBatch();
+
+		if (LogConstants.asyncWriter) {
+			startWriter();
+		}
+    }
+
+	/**
+	 * Starts the background thread that writes queued records to the file
+	 */
+	private void startWriter() {
+		ringBuffer = new LogRingBuffer(LogConstants.ringCapacity);
+		writerRunning = true;
+		writerThread = new Thread(this::writerLoop, "FileLog Writer");
+		writerThread.setDaemon(true);
+		writerThread.setPriority(Thread.MIN_PRIORITY);
+		writerThread.start();
+	}
+
+	/**
+	 * Background writer thread.  Formats queued records into a batch and writes the batch
+	 * to the file when it is large enough or old enough.  Runs until close() is called
+	 * and the queue is empty.
+	 */
+	private void writerLoop() {
+		long lastFlushTime = System.currentTimeMillis();
+
+		while (writerRunning || ringBuffer.getQueueDepth() > 0) {
+			checkClockSet();
+
+			boolean idle = true;
+			LogRecord record;
+			while ((record = ringBuffer.peek()) != null) {
+				idle = false;
+				outputRecord(record);
+				record.clear();
+				ringBuffer.release(record);
+
+				if (lineBuffer.length() >= LogConstants.flushBatchChars) {
+					writeBatch();
+					lastFlushTime = System.currentTimeMillis();
+				}
+			}
+
+			// Record when the writer has fallen behind and dropped messages
+			long dropped = ringBuffer.getDroppedRecords();
+			if (dropped != lastDroppedLogged) {
+				lastDroppedLogged = dropped;
+				syncRecord.set(RobotController.getFPGATime(), "FileLog", "Writer Behind", 
+					new Object[] {"Dropped Records", dropped, "Max Queue Depth", ringBuffer.getMaxQueueDepth(), "Queue Capacity", ringBuffer.getCapacity()});
+				outputRecord(syncRecord);
+				syncRecord.clear();
+			}
+
+			long now = System.currentTimeMillis();
+			if (lineBuffer.length() > 0 && (now - lastFlushTime >= LogConstants.flushPeriodMs || !writerRunning)) {
+				writeBatch();
+				lastFlushTime = now;
+			}
 
+			if (idle && writerRunning) {
+				LockSupport.parkNanos(LogConstants.writerIdleMs * 1000000L);
+			}
+		}
+		writeBatch();
+	}
+
+	/**
+	 * Sends one record to the CSV line buffer and/or the DataLog.
+	 * Called only from the background writer, or while synchronized when not using the background writer.
+	 * @param record record to write
+	 */
+	private void outputRecord(LogRecord record) {
+		if (LogConstants.writeCSV) {
+			appendRecord(lineBuffer, record);
+		}
+		if (dataLogBackend != null) {
+			dataLogBackend.write(record);
+		}
+	}
+
+	/**
+	 * Writes and flushes the lines buffered by the background writer
+	 */
+	private synchronized void writeBatch() {
+		int length = lineBuffer.length();
+		if (length == 0) return;
+
+		if (length > writeBuffer.length) {
+			writeBuffer = new char[length];
+		}
+		lineBuffer.getChars(0, length, writeBuffer, 0);
+		lineBuffer.setLength(0);
+
+		if (fileWriter == null) return;
+		try {
+			fileWriter.write(writeBuffer, 0, length);
+			fileWriter.flush();
+		} catch (IOException exception) {
+		}
+
+		segmentChars += length;
+		if (segmentChars >= LogConstants.segmentMaxBytes || 
+				System.nanoTime() - segmentStartNanos >= LogConstants.segmentMaxMinutes * 60 * 1000000000L) {
+			startNextSegment();
+		}
+	}
+
+	/**
+	 * Closes the current log file segment, queues it for compression, and opens the next segment.
+	 */
+	private synchronized void startNextSegment() {
+		String previousFileName = fileNameFull;
+		try {
+			fileWriter.close();
+		} catch (IOException exception) {
+		}
+		fileWriter = null;
+
+		segmentNumber++;
+		fileNameFull = segmentFileName();
+		compactor.setActiveFile(fileNameFull);
+		openSegment("Segment", previousFileName);
+		compactor.segmentClosed(previousFileName);
+	}
+
+	/**
+	 * @return full name of the current log file segment, based on startTime and segmentNumber
+	 */
+	private String segmentFileName() {
+		if (segmentNumber == 0) {
+			return buildString(fileNameBase, fileDateFormat.format(startTime), ".csv");
+		}
+		return buildString(fileNameBase, fileDateFormat.format(startTime), ".", segmentNumber, ".csv");
+	}
+
+	/**
+	 * Opens fileNameFull and writes the header lines, including the current Time Sync
+	 * so that each segment can be read on its own.
+	 * @param reason reason for opening the file ("Open", "Rename", or "Segment")
+	 * @param previousFileName name of the previous segment or file, or "" if none
+	 */
+	private void openSegment(String reason, String previousFileName) {
 		try {
 			fileWriter = new FileWriter(fileNameFull, true);
 			fileWriter.write("----------------------------\n");
-			fileWriter.write(buildString(dateFormat.format(System.currentTimeMillis()), ",FileLog,Open,", fileNameFull, "\n"));
+			if (previousFileName.isEmpty()) {
+				fileWriter.write(buildString(timeFormat.format(System.currentTimeMillis()), ",FileLog,", reason, ",", fileNameFull, "\n"));
+			} else {
+				fileWriter.write(buildString(timeFormat.format(System.currentTimeMillis()), ",FileLog,", reason, ",", fileNameFull,
+					",Previous,", previousFileName, "\n"));
+			}
+			if (syncMicros != 0) {
+				fileWriter.write(buildString(timeFormat.format(syncWallMillis), ",FileLog,Time Sync,Reason,", reason, 
+					",FPGA us,", syncMicros, ",Wall ms,", syncWallMillis, ",Wall,", timeFormat.format(syncWallMillis), "\n"));
+			}
 			fileWriter.flush();
 		} catch (IOException exception) {
 			System.out.println("Could not open log file: " + exception);
-        }	
-    }
+			fileWriter = null;
+		}
+		segmentChars = 0;
+		segmentStartNanos = System.nanoTime();
+	}
+
+	/**
+	 * Formats one record as a line of the log file: "time,subsystem,event,param1,param2,...\n"
+	 * @param sb buffer to append the line to
+	 * @param record record to format
+	 */
+	private void appendRecord(StringBuilder sb, LogRecord record) {
+		timeFormat.append(sb, syncWallMillis + Math.floorDiv(record.timeMicros - syncMicros, 1000));
+		sb.append(',')
+			.append(record.subsystemOrCommand).append(',')
+			.append(record.event).append(',');
+		for (int i = 0; i < record.paramCount; i++) {
+			if (i > 0) sb.append(',');
+
+			// Structs are written as one name/value pair per number
+			Object value = (i + 1 < record.paramCount) ? record.objects[i + 1] : null;
+			if (record.types[i] == LogRecord.kObject && value instanceof Pose2d) {
+				Pose2d pose = (Pose2d) value;
+				String name = String.valueOf(record.objects[i]);
+				sb.append(name).append(" X,").append(pose.getX()).append(',')
+					.append(name).append(" Y,").append(pose.getY()).append(',')
+					.append(name).append(" Theta,").append(pose.getRotation().getDegrees());
+				i++;
+			} else if (record.types[i] == LogRecord.kObject && value instanceof SwerveModuleState[]) {
+				SwerveModuleState[] states = (SwerveModuleState[]) value;
+				String name = String.valueOf(record.objects[i]);
+				for (int j = 0; j < states.length; j++) {
+					if (j > 0) sb.append(',');
+					sb.append(name).append(' ').append(j).append(" speed,").append(states[j].speedMetersPerSecond).append(',')
+						.append(name).append(' ').append(j).append(" angle,").append(states[j].angle.getDegrees());
+				}
+				i++;
+			} else {
+				record.appendParam(sb, i);
+			}
+		}
+		sb.append('\n');
+	}
     
+	/**
+	 * Checks if the wall clock has been set (such as by the FMS at the start of a match).
+	 * If so, writes a new Time Sync line, and renames the log file if the clock moved by more than 24 hours.
+	 * Called by the thread that formats messages:  the background writer, or advanceLogRotation()
+	 * when the background writer is not used.
+	 */
+	private void checkClockSet() {
+		long nowMicros = RobotController.getFPGATime();
+		long wallMillis = System.currentTimeMillis();
+		long expectedWallMillis = syncWallMillis + (nowMicros - syncMicros) / 1000;
+		if (Math.abs(wallMillis - expectedWallMillis) < LogConstants.clockSetThresholdMs) return;
+
+		syncClock(wallMillis, nowMicros, "Clock Set");
+		if (wallMillis - startTime > 1000L*3600*24) {
+			writeBatch();
+			updateFilenameDateTime();
+		}
+	}
+
+	/**
+	 * Updates the mapping from FPGA time to wall clock time, and records the mapping in the log.
+	 * @param wallMillis wall clock time, in ms since 1970
+	 * @param nowMicros FPGA time at wallMillis, in us
+	 * @param reason reason for the update
+	 */
+	private void syncClock(long wallMillis, long nowMicros, String reason) {
+		syncWallMillis = wallMillis;
+		syncMicros = nowMicros;
+		syncRecord.set(nowMicros, "FileLog", "Time Sync", 
+			new Object[] {"Reason", reason, "FPGA us", nowMicros, "Wall ms", wallMillis, "Wall", timeFormat.format(wallMillis)});
+		outputRecord(syncRecord);
+		syncRecord.clear();
+	}
+
     /**
 	 * Renames the log file name using the current date and time
 	 */
-	public void updateFilenameDateTime() {
+	public synchronized void updateFilenameDateTime() {
 		String fileNameNew;
-		File oldFile, newFile;
+
+		// Update startTime and generate the new file name
+		startTime = System.currentTimeMillis();
+		fileNameNew = segmentFileName();
+
+		if (dataLogBackend != null) {
+			dataLogBackend.setFilename(buildString(fileNameBase, (fileDateFormat.format(startTime)), ".wpilog"));
+		}
 
 		// Close the current log file
+		if (fileWriter == null) return;
 		try {
 			fileWriter.close();
 		} catch (IOException exception) {
 		}
 
-		// Update startTime and generate the new file name
-		startTime = System.currentTimeMillis();
-		fileNameNew = buildString(fileNameBase, (fileDateFormat.format(startTime)), ".csv");
-
 		// Rename the file
-		oldFile = new File(fileNameFull);
-		newFile = new File(fileNameNew);
-		oldFile.renameTo(newFile);
+		compactor.renameActiveFile(fileNameFull, fileNameNew);
 
 		// Update member variables and open the new file
 		fileNameFull = fileNameNew;
-		try {
-			fileWriter = new FileWriter(fileNameFull, true);
-			fileWriter.write("----------------------------\n");
-			fileWriter.write(buildString((dateFormat.format(System.currentTimeMillis())), ",FileLog,Rename,", fileNameFull, "\n"));
-            fileWriter.flush();                
-		} catch (IOException exception) {
-			System.out.println("Could not open log file: " + exception);
-		}
+		openSegment("Rename", "");
 	}   
 
     /**
@@ -131,21 +409,110 @@ public class FileLog {
 	 * @param paramArray... List of descriptions and values (variable number of parameters)
 	 */
 	public void writeLog(boolean logWhenDisabled, String subsystemOrCommand, String event, Object... paramArray) {
-        // If system clock has reset by more than 24 hours (like when the clock is set
-        // at the start of a match), then fix the filename.
-		if (System.currentTimeMillis() - startTime > 1000*3600*24) {
-			updateFilenameDateTime();
+		if(!logWhenDisabled && !DriverStation.isEnabled()) return;
+
+		if (ringBuffer != null) {
+			// Queue the message for the background writer.  If the queue is full, the message is dropped.
+			LogRecord record = ringBuffer.claim();
+			if (record != null) {
+				record.set(RobotController.getFPGATime(), subsystemOrCommand, event, paramArray);
+				ringBuffer.publish(record);
+			}
+		} else {
+			writeLogNow(subsystemOrCommand, event, paramArray);
+		}
+	}
+
+	/**
+	 * Starts a message to the log file that is built from primitive values, without boxing.
+	 * Add fields to the returned builder, then call commit() to write the message.  The message will be timestamped.
+	 * <pre>
+	 *   log.record(false, "Drive", "Update Variables").d("Gyro Angle", angle).b("Vel Ctl", velocityControlOn).commit();
+	 * </pre>
+	 * @param logWhenDisabled true will log when disabled, false will discard the message
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 * @return builder for this message (reused by this thread for the next message)
+	 */
+	public LogRecordBuilder record(boolean logWhenDisabled, String subsystemOrCommand, String event) {
+		return recordBuilders.get().start(logWhenDisabled || DriverStation.isEnabled(), 
+			RobotController.getFPGATime(), subsystemOrCommand, event);
+	}
+
+	/**
+	 * Writes a message to the log file if level is at or above the current log level for the subsystem.
+	 * The params are only read from paramSupplier if the message will be written.
+	 * @param level log level of this message (kLevelDebug, kLevelLab, or kLevelCompetition)
+	 * @param logWhenDisabled true will log when disabled, false will discard the message
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 * @param paramSupplier Returns the list of descriptions and values
+	 */
+	public void writeLog(int level, boolean logWhenDisabled, String subsystemOrCommand, String event, Supplier<Object[]> paramSupplier) {
+		if (!isLogEnabled(level, subsystemOrCommand)) return;
+		if (!logWhenDisabled && !DriverStation.isEnabled()) return;
+		writeLog(logWhenDisabled, subsystemOrCommand, event, paramSupplier.get());
+	}
+
+	/**
+	 * Writes a message built from primitive values if level is at or above the current log level
+	 * for the subsystem.  addFields is only called if the message will be written, so values that
+	 * are only needed for the log (such as motor signals) are not read otherwise.
+	 * <p> A lambda or method reference that uses the caller's fields (such as this::addLogFields) is a new
+	 * object each time the expression runs, so logging each cycle would allocate.  Create addFields once
+	 * and keep it in a field of the caller:
+	 * <pre>
+	 *   private final Consumer&lt;LogRecordBuilder&gt; logFields = this::addLogFields;
+	 *   ...
+	 *   log.record(FileLog.kLevelLab, logWhenDisabled, subsystemName, "Update Variables", logFields);
+	 * </pre>
+	 * @param level log level of this message (kLevelDebug, kLevelLab, or kLevelCompetition)
+	 * @param logWhenDisabled true will log when disabled, false will discard the message
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 * @param addFields Adds the fields to the message (do not call commit())
+	 */
+	public void record(int level, boolean logWhenDisabled, String subsystemOrCommand, String event, Consumer<LogRecordBuilder> addFields) {
+		if (!isLogEnabled(level, subsystemOrCommand)) return;
+
+		LogRecordBuilder builder = record(logWhenDisabled, subsystemOrCommand, event);
+		if (builder.isActive()) {
+			addFields.accept(builder);
+			builder.commit();
 		}
+	}
 
-		// Write the message to the file.
-		if(logWhenDisabled || DriverStation.isEnabled()) {
-            try {
-			fileWriter.write(buildStringWithCommas((dateFormat.format(System.currentTimeMillis())), subsystemOrCommand, event, buildStringWithCommas((Object [])paramArray).concat("\n")));
-            fileWriter.flush();
-		    } catch (IOException exception) {
-            }
+	/**
+	 * Writes a message from LogRecordBuilder.commit(), or queues it for the background writer.
+	 * @param record completed message (copied, so the caller may reuse it)
+	 */
+	void commitRecord(LogRecord record) {
+		if (ringBuffer != null) {
+			LogRecord slot = ringBuffer.claim();
+			if (slot != null) {
+				slot.copyFrom(record);
+				ringBuffer.publish(slot);
+			}
+		} else {
+			synchronized (this) {
+				outputRecord(record);
+				writeBatch();
+			}
 		}
 	}
+
+	/**
+	 * Writes and flushes a message to the log file on the calling thread.
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 * @param paramArray List of descriptions and values
+	 */
+	private synchronized void writeLogNow(String subsystemOrCommand, String event, Object[] paramArray) {
+		syncRecord.set(RobotController.getFPGATime(), subsystemOrCommand, event, paramArray);
+		outputRecord(syncRecord);
+		syncRecord.clear();
+		writeBatch();
+	}
 	
     /**
 	 * Writes a message to the log file. The message will be timestamped. Does not echo the message to the screen.
@@ -160,15 +527,40 @@ public class FileLog {
 	}
 	
     /**
-	 * Changes level of detail for fileLog
+	 * Changes level of detail for fileLog, for all subsystems that do not have their own log level
 	 * Level 1 = full debugging logs.  Huge file log, so use sparingly.
 	 * Level 2 = normal lab mode.  Moderate logging details.
 	 * Level 3 = competition mode.  Minimal logging.
 	 * @param level between 1-3, where 1 is the most detailed and 3 is the least detailed.
 	 */
 	public void setLogLevel(int level) {
-		logLevel = level;
-		writeLogEcho(true, "FileLog", "setLogLevel", "Level", level);
+		logLevel = clampLogLevel(level);
+		writeLogEcho(true, "FileLog", "setLogLevel", "Level", logLevel);
+	}
+
+	/**
+	 * @param level log level
+	 * @return level limited to kLevelDebug to kLevelCompetition
+	 */
+	static int clampLogLevel(int level) {
+		return Math.max(kLevelDebug, Math.min(kLevelCompetition, level));
+	}
+
+	/**
+	 * Changes level of detail for one subsystem or command.
+	 * @param subsystemOrCommand The name of the subsystem or command, as used in writeLog()
+	 * @param level between 1-3, where 1 is the most detailed and 3 is the least detailed.
+	 * 0 = remove the subsystem's log level, so that it uses the overall log level.
+	 */
+	public void setLogLevel(String subsystemOrCommand, int level) {
+		if (level <= 0) {
+			subsystemLogLevels.remove(subsystemOrCommand);
+			writeLogEcho(true, "FileLog", "setLogLevel", "Subsystem", subsystemOrCommand, "Level", "default");
+		} else {
+			level = Math.min(kLevelCompetition, level);
+			subsystemLogLevels.put(subsystemOrCommand, level);
+			writeLogEcho(true, "FileLog", "setLogLevel", "Subsystem", subsystemOrCommand, "Level", level);
+		}
 	}
 
 	/**
@@ -181,58 +573,189 @@ public class FileLog {
 		return logLevel;
 	}
 
+	/**
+	 * Returns what level of detail the fileLog should be at for one subsystem or command
+	 * @param subsystemOrCommand The name of the subsystem or command, as used in writeLog()
+	 * @return between 1-3, where 1 is the most detailed and 3 is the least detailed.
+	 */
+	public int getLogLevel(String subsystemOrCommand) {
+		if (subsystemLogLevels.isEmpty()) return logLevel;
+
+		Integer level = subsystemLogLevels.get(subsystemOrCommand);
+		return (level == null) ? logLevel : level;
+	}
+
+	/**
+	 * Returns true if a message at the given level will be written for a subsystem or command
+	 * @param level log level of the message (kLevelDebug, kLevelLab, or kLevelCompetition)
+	 * @param subsystemOrCommand The name of the subsystem or command, as used in writeLog()
+	 * @return true = message will be written, false = message will be discarded
+	 */
+	public boolean isLogEnabled(int level, String subsystemOrCommand) {
+		if (loadShed && level < kLevelCompetition) return false;
+		return level >= getLogLevel(subsystemOrCommand);
+	}
+
+	/**
+	 * Turns off (or back on) the optional logging when the robot loop is overrunning.  While shed,
+	 * fast logging is ignored in isMyLogRotation(key, fastLogging) and only competition level
+	 * messages are enabled in isLogEnabled().  Rotation logging and messages without a level still run.
+	 * @param shed true = shed optional logging, false = restore it
+	 */
+	public void setLoadShed(boolean shed) {
+		loadShed = shed;
+	}
+
+	/**
+	 * @return true = optional logging is shed (see setLoadShed())
+	 */
+	public boolean isLoadShed() {
+		return loadShed;
+	}
+
+	/**
+	 * Marks the start of a robot cycle.  Call at the start of robotPeriodic(), before the
+	 * CommandScheduler runs, so that isMyLogRotation() can tell how much time is left in the cycle.
+	 */
+	public void startLogCycle() {
+		rotationScheduler.startCycle();
+	}
 
 	/** 
-	 * Advances the log rotation counter by one place, and resets if above threshhold for the current log level
+	 * Advances the log rotation counter by one place, and resets if above threshhold.
+	 * The rotation length does not depend on the log level, since the rotation also paces
+	 * non-logging work (LEDs, alliance selection).  Log levels filter messages in writeLog() instead.
+	 * Call at the end of robotPeriodic().
 	 */
 	public void advanceLogRotation() {
-		rotationCurrent++;
-		if (rotationCurrent >= NUM_ROTATIONS) rotationCurrent = 0;
-		// if (logLevel == 3) {
-		// 	if (rotation >= 25) rotation = 0;
-		// } else {
-		// 	if (rotation >= 10) rotation = 0;
-		// } TODO add back in when we implement log levels
+		// Always log the rebalance if the rotation is over budget
+		if (rotationScheduler.advance() && 
+				(rotationScheduler.getMaxSlotCostMs() > LogConstants.slotBudgetMs || isLogEnabled(kLevelLab, "FileLog"))) {
+			writeLog(false, "FileLog", "Rotation Rebalance", "Max Slot ms", rotationScheduler.getMaxSlotCostMs(),
+				"Slot Budget ms", LogConstants.slotBudgetMs, "Deferred", rotationScheduler.getDeferredCount(),
+				"Forced", rotationScheduler.getForcedCount());
+		}
+
+		// The background writer checks the clock itself
+		if (ringBuffer == null) {
+			synchronized (this) {
+				checkClockSet();
+				writeBatch();
+			}
+		}
 	}
 
 	/**
 	 * Gets the index of the file log rotation
-	 * @return int between 0 and 1 (log levels 1 or 2) or between 0 and 24 (log level 3)
+	 * @return int between 0 and NUM_ROTATIONS-1
 	 */
 	public int getLogRotation() {
-		return rotationCurrent;
+		return rotationScheduler.getRotation();
 	}
 
 	/**
 	 * Allocates a rotation index to a subsystem.  Use the returned value (logRotationKey) with
 	 * isMyLogRotation(logRotationKey) to see if this is the current rotation for a given
-	 * subsystem.
+	 * subsystem.  The subsystem's slot in the rotation is moved around to balance the logging
+	 * cost of each cycle, using the costs from reportLogCost().
 	 * @return allocated index for this subsystem
 	 */
 	public int allocateLogRotation() {
-		rotationLastAllocated++;
-		rotationLastAllocated %= NUM_ROTATIONS;
-		return rotationLastAllocated;
+		return rotationScheduler.allocate();
 	}
 
 	/**
-	 * Returns true if the scheduler is currently at rotationKey
+	 * Returns true if the scheduler is currently at rotationKey.  Returns false if the robot cycle
+	 * is close to its time budget, in which case the work is run in a later cycle with spare time.
+	 * Returns the same answer if called more than once in the same cycle.
 	 * @param logRotationKey Key from allocateLogRotation() to check
 	 * @return true = rotationKey is the current rotation, false = rotationKey is not the
 	 * current rotation
 	 */
 	public boolean isMyLogRotation(int logRotationKey) {
-		return (logRotationKey==rotationCurrent);
+		return rotationScheduler.isMyRotation(logRotationKey);
+	}
+
+	/**
+	 * Returns true if fast logging is on for the subsystem (and logging is not shed), or if the
+	 * scheduler is currently at rotationKey (see isMyLogRotation(logRotationKey)).
+	 * @param logRotationKey Key from allocateLogRotation() to check
+	 * @param fastLogging true = the subsystem has fast logging turned on
+	 * @return true = log this cycle
+	 */
+	public boolean isMyLogRotation(int logRotationKey, boolean fastLogging) {
+		return (fastLogging && !loadShed) || rotationScheduler.isMyRotation(logRotationKey);
+	}
+
+	/**
+	 * Reports how long a subsystem's periodic logging and dashboard work took, so that the
+	 * rotation can be balanced.  Call at the end of the work.
+	 * @param logRotationKey Key from allocateLogRotation()
+	 * @param startMicros FPGA time when the work started, from RobotController.getFPGATime()
+	 */
+	public void reportLogCost(int logRotationKey, long startMicros) {
+		rotationScheduler.reportCost(logRotationKey, startMicros);
+	}
+
+	/**
+	 * Returns the number of messages that were dropped because the background writer
+	 * could not keep up.  Always 0 when the background writer is not used.
+	 * @return number of dropped messages since the log was opened
+	 */
+	public long getDroppedRecords() {
+		return (ringBuffer == null) ? 0 : ringBuffer.getDroppedRecords();
+	}
+
+	/**
+	 * Returns the number of messages waiting for the background writer.
+	 * Always 0 when the background writer is not used.
+	 * @return number of queued messages
+	 */
+	public long getQueueDepth() {
+		return (ringBuffer == null) ? 0 : ringBuffer.getQueueDepth();
+	}
+
+	/**
+	 * Returns the largest number of messages that have waited for the background writer.
+	 * Always 0 when the background writer is not used.
+	 * @return largest queue depth since the log was opened
+	 */
+	public long getMaxQueueDepth() {
+		return (ringBuffer == null) ? 0 : ringBuffer.getMaxQueueDepth();
 	}
 
 	/**
 	 * Closes the log file.  All writes after closing the log file will be ignored.
+	 * If the background writer is running, then queued messages are written first.
 	 */
 	public void close() {
-		try {
-			fileWriter.close();
+		if (writerThread != null) {
+			writerRunning = false;
+			LockSupport.unpark(writerThread);
+			try {
+				writerThread.join(1000);
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+			writerThread = null;
+		}
+
+		synchronized (this) {
+			if (dataLogBackend != null) {
+				dataLogBackend.close();
+				dataLogBackend = null;
+			}
+
+			if (compactor != null) {
+				compactor.close();
+			}
+
+			if (fileWriter == null) return;
+			try {
+				fileWriter.close();
+			} catch (IOException exception) {
+			}
 			fileWriter = null;
-		} catch (IOException exception) {
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+import frc.robot.Constants.LogConstants;
+
+/**
+ * Compresses closed FileLog segments and deletes the oldest log files when the
+ * log directory is over its disk budget.
+ * <p> Runs on a low priority background thread, so compression never delays the robot loop
+ * or the FileLog writer.  On startup it also compresses any .csv logs left from earlier runs.
+ * <p> Only files in the log directory that start with the log file base name and end with
+ * ".csv" or ".csv.gz" are touched.  The active log file is never compressed or deleted.
+ */
+class LogFileCompactor {
+	private final File directory;
+	private final String namePrefix;
+	private final LinkedBlockingQueue<File> closedFiles = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private volatile boolean running = true;
+	private File activeFile;				// Guarded by this
+
+	/**
+	 * Starts the compactor thread.
+	 * @param fileNameBase path and start of the log file names (ex. "/home/lvuser/logfile")
+	 * @param activeFileName full path and name of the active log file
+	 */
+	LogFileCompactor(String fileNameBase, String activeFileName) {
+		File base = new File(fileNameBase).getAbsoluteFile();
+		directory = base.getParentFile();
+		namePrefix = base.getName() + ".";
+		activeFile = new File(activeFileName).getAbsoluteFile();
+
+		thread = new Thread(this::run, "FileLog Compactor");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Queues a closed log segment to be compressed.
+	 * @param fileName full path and name of the closed segment
+	 */
+	void segmentClosed(String fileName) {
+		closedFiles.add(new File(fileName).getAbsoluteFile());
+	}
+
+	/**
+	 * Sets the active log file, which is never compressed or deleted.
+	 * @param fileName full path and name of the active log file
+	 */
+	synchronized void setActiveFile(String fileName) {
+		activeFile = new File(fileName).getAbsoluteFile();
+	}
+
+	/**
+	 * Renames the active log file.  Synchronized with the retention check,
+	 * so the file can not be deleted while it is being renamed.
+	 * @param oldFileName full path and name of the active log file
+	 * @param newFileName new full path and name for the active log file
+	 */
+	synchronized void renameActiveFile(String oldFileName, String newFileName) {
+		new File(oldFileName).renameTo(new File(newFileName));
+		activeFile = new File(newFileName).getAbsoluteFile();
+	}
+
+	/**
+	 * Stops the compactor thread.  A partly compressed file is finished on the next startup.
+	 */
+	void close() {
+		running = false;
+		thread.interrupt();
+	}
+
+	private void run() {
+		// Finish up after earlier runs:  remove partial output and compress any old logs
+		for (File file : listLogFiles()) {
+			String name = file.getName();
+			if (name.endsWith(".gz.tmp")) {
+				file.delete();
+			} else if (name.endsWith(".csv") && !isActive(file)) {
+				closedFiles.add(file);
+			}
+		}
+		enforceDiskBudget();
+
+		while (running) {
+			File file;
+			try {
+				file = closedFiles.take();
+			} catch (InterruptedException exception) {
+				break;
+			}
+
+			if (LogConstants.compressSegments) {
+				compress(file);
+			}
+			enforceDiskBudget();
+		}
+	}
+
+	/**
+	 * Compresses a file to "name.gz" and deletes the original.  The compressed data is
+	 * written to "name.gz.tmp" first, so a partly written file is never mistaken for a log.
+	 * The .gz file keeps the original's modified time, so enforceDiskBudget() still deletes the oldest logs first.
+	 */
+	private void compress(File file) {
+		if (!file.exists() || isActive(file)) return;
+
+		File tmpFile = new File(file.getPath() + ".gz.tmp");
+		File gzFile = new File(file.getPath() + ".gz");
+		byte[] buffer = new byte[16384];
+		try (InputStream in = new FileInputStream(file);
+				OutputStream out = new GZIPOutputStream(new FileOutputStream(tmpFile), buffer.length)) {
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+		} catch (IOException exception) {
+			System.out.println("Could not compress log file " + file + ": " + exception);
+			tmpFile.delete();
+			return;
+		}
+
+		if (tmpFile.renameTo(gzFile)) {
+			gzFile.setLastModified(file.lastModified());
+			file.delete();
+		} else {
+			tmpFile.delete();
+		}
+	}
+
+	/**
+	 * Deletes the oldest log files until the log files use less than LogConstants.logDiskBudgetBytes.
+	 */
+	private synchronized void enforceDiskBudget() {
+		File[] files = listLogFiles();
+		long total = 0;
+		for (File file : files) {
+			total += file.length();
+		}
+		if (total <= LogConstants.logDiskBudgetBytes) return;
+
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (File file : files) {
+			if (total <= LogConstants.logDiskBudgetBytes) break;
+			if (isActive(file) || file.getName().endsWith(".tmp")) continue;
+
+			long length = file.length();
+			if (file.delete()) {
+				total -= length;
+				System.out.println("FileLog deleted old log file to stay under disk budget: " + file);
+			}
+		}
+	}
+
+	private synchronized boolean isActive(File file) {
+		return file.getAbsoluteFile().equals(activeFile);
+	}
+
+	/**
+	 * @return log files (.csv, .csv.gz, and leftover .gz.tmp) in the log directory
+	 */
+	private File[] listLogFiles() {
+		File[] files = (directory == null) ? null : directory.listFiles((dir, name) ->
+			name.startsWith(namePrefix) && (name.endsWith(".csv") || name.endsWith(".csv.gz") || name.endsWith(".gz.tmp")));
+		return (files == null) ? new File[0] : files;
+	}
+}
@@ -0,0 +1,150 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+/**
+ * One log message waiting to be written by FileLog.  Records are preallocated
+ * and reused, so filling a record only copies references and primitive values.
+ * <p> Each param is either an Object (names, strings, and values from writeLog(Object...))
+ * or a primitive value from LogRecordBuilder, which is stored as raw bits so that it is never boxed.
+ */
+class LogRecord {
+	// Param types
+	static final byte kObject = 0;
+	static final byte kDouble = 1;
+	static final byte kBoolean = 2;
+	static final byte kLong = 3;
+
+	volatile long sequence;			// Ring buffer sequence number, owned by LogRingBuffer
+	long position;					// Ring position this record was claimed at
+
+	long timeMicros;				// Time the message was logged (FPGA time, in microseconds)
+	String subsystemOrCommand;
+	String event;
+	byte[] types = new byte[32];
+	Object[] objects = new Object[32];		// Param value when the type is kObject
+	long[] values = new long[32];			// Param value bits when the type is a primitive
+	int paramCount;
+
+	/**
+	 * Starts a new log message in this record, with no params.
+	 * @param timeMicros FPGA time the message was logged, in microseconds
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 */
+	void start(long timeMicros, String subsystemOrCommand, String event) {
+		this.timeMicros = timeMicros;
+		this.subsystemOrCommand = subsystemOrCommand;
+		this.event = event;
+		paramCount = 0;
+	}
+
+	/**
+	 * Copies a log message into this record.
+	 * @param timeMicros FPGA time the message was logged, in microseconds
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 * @param paramArray List of descriptions and values
+	 */
+	void set(long timeMicros, String subsystemOrCommand, String event, Object[] paramArray) {
+		start(timeMicros, subsystemOrCommand, event);
+		ensureCapacity(paramArray.length);
+		System.arraycopy(paramArray, 0, objects, 0, paramArray.length);
+		for (int i = 0; i < paramArray.length; i++) {
+			types[i] = kObject;
+		}
+		paramCount = paramArray.length;
+	}
+
+	/**
+	 * Copies another record into this record.
+	 * @param other record to copy
+	 */
+	void copyFrom(LogRecord other) {
+		start(other.timeMicros, other.subsystemOrCommand, other.event);
+		ensureCapacity(other.paramCount);
+		System.arraycopy(other.types, 0, types, 0, other.paramCount);
+		System.arraycopy(other.objects, 0, objects, 0, other.paramCount);
+		System.arraycopy(other.values, 0, values, 0, other.paramCount);
+		paramCount = other.paramCount;
+	}
+
+	void addObject(Object value) {
+		ensureCapacity(paramCount + 1);
+		types[paramCount] = kObject;
+		objects[paramCount] = value;
+		paramCount++;
+	}
+
+	void addDouble(double value) {
+		addPrimitive(kDouble, Double.doubleToRawLongBits(value));
+	}
+
+	void addBoolean(boolean value) {
+		addPrimitive(kBoolean, value ? 1 : 0);
+	}
+
+	void addLong(long value) {
+		addPrimitive(kLong, value);
+	}
+
+	private void addPrimitive(byte type, long bits) {
+		ensureCapacity(paramCount + 1);
+		types[paramCount] = type;
+		objects[paramCount] = null;
+		values[paramCount] = bits;
+		paramCount++;
+	}
+
+	/**
+	 * Appends param i to a line of text, in the same format as StringBuilder.append(Object)
+	 * @param sb buffer to append to
+	 * @param i param index
+	 */
+	void appendParam(StringBuilder sb, int i) {
+		switch (types[i]) {
+			case kDouble:
+				sb.append(Double.longBitsToDouble(values[i]));
+				break;
+			case kBoolean:
+				sb.append(values[i] != 0);
+				break;
+			case kLong:
+				sb.append(values[i]);
+				break;
+			default:
+				sb.append(objects[i]);
+		}
+	}
+
+	/**
+	 * Grows the param arrays if needed.  The arrays only grow until they fit the
+	 * largest message, so steady-state logging does not allocate.
+	 * @param size number of params needed
+	 */
+	private void ensureCapacity(int size) {
+		if (size <= types.length) return;
+
+		int newSize = Math.max(size, types.length * 2);
+		types = java.util.Arrays.copyOf(types, newSize);
+		objects = java.util.Arrays.copyOf(objects, newSize);
+		values = java.util.Arrays.copyOf(values, newSize);
+	}
+
+	/**
+	 * Drops the references held by this record so that they can be garbage collected
+	 */
+	void clear() {
+		subsystemOrCommand = null;
+		event = null;
+		for (int i = 0; i < paramCount; i++) {
+			objects[i] = null;
+		}
+		paramCount = 0;
+	}
+}
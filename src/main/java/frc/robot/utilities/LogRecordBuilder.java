@@ -0,0 +1,145 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Builds one log message from primitive values without boxing or creating strings.
+ * Get a builder from FileLog.record(), add fields, then call commit().  For example:
+ * <pre>
+ *   log.record(false, "Drive", "Update Variables").d("Gyro Angle", angle).b("Vel Ctl", velocityControlOn).commit();
+ * </pre>
+ * Each thread reuses its own builder, so do not keep a reference to a builder after commit().
+ */
+public class LogRecordBuilder {
+	private final FileLog log;
+	private final LogRecord record = new LogRecord();
+	private boolean active = false;		// false = message will not be written, so fields are ignored
+
+	LogRecordBuilder(FileLog log) {
+		this.log = log;
+	}
+
+	/**
+	 * Starts a new message.  Called by FileLog.record().
+	 * @param active true = message will be written on commit(), false = discard the message
+	 * @param timeMicros FPGA time the message was logged, in microseconds
+	 * @param subsystemOrCommand The name of the subsystem or command generating the message.
+	 * @param event A description of the event (ex. start, data, event).
+	 * @return this builder
+	 */
+	LogRecordBuilder start(boolean active, long timeMicros, String subsystemOrCommand, String event) {
+		this.active = active;
+		if (active) {
+			record.start(timeMicros, subsystemOrCommand, event);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns true if this message will be written on commit().  Use this to skip
+	 * reading values that are only needed for the log.
+	 * @return true = message will be written, false = message will be discarded
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Adds a double field
+	 * @param name description of the value
+	 * @param value value to log
+	 * @return this builder
+	 */
+	public LogRecordBuilder d(String name, double value) {
+		if (active) {
+			record.addObject(name);
+			record.addDouble(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a boolean field
+	 * @param name description of the value
+	 * @param value value to log
+	 * @return this builder
+	 */
+	public LogRecordBuilder b(String name, boolean value) {
+		if (active) {
+			record.addObject(name);
+			record.addBoolean(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds an integer field
+	 * @param name description of the value
+	 * @param value value to log
+	 * @return this builder
+	 */
+	public LogRecordBuilder i(String name, long value) {
+		if (active) {
+			record.addObject(name);
+			record.addLong(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a field that is logged using its toString() (strings, enums, etc).
+	 * The object must not be changed after it is logged.
+	 * @param name description of the value
+	 * @param value value to log
+	 * @return this builder
+	 */
+	public LogRecordBuilder s(String name, Object value) {
+		if (active) {
+			record.addObject(name);
+			record.addObject(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a robot pose.  The CSV log gets the fields "name X", "name Y", and "name Theta" (degrees).
+	 * The DataLog gets a Pose2d struct entry.
+	 * @param name description of the pose
+	 * @param pose pose to log
+	 * @return this builder
+	 */
+	public LogRecordBuilder pose(String name, Pose2d pose) {
+		return s(name, pose);
+	}
+
+	/**
+	 * Adds the states of the swerve modules.  The CSV log gets the fields "name # speed" and
+	 * "name # angle" (degrees) for each module.  The DataLog gets a SwerveModuleState[] struct entry.
+	 * The array must not be changed after it is logged.
+	 * @param name description of the states
+	 * @param states module states to log
+	 * @return this builder
+	 */
+	public LogRecordBuilder states(String name, SwerveModuleState[] states) {
+		return s(name, states);
+	}
+
+	/**
+	 * Writes the message to the log (or queues it for the background writer).
+	 */
+	public void commit() {
+		if (active) {
+			active = false;
+			log.commitRecord(record);
+			record.clear();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size, lock-free queue of preallocated LogRecords.
+ * Any thread may claim and publish records.  Only one thread (the FileLog writer)
+ * may read and release them.  Each slot carries a sequence number that tells
+ * producers when the slot is free and tells the consumer when it is filled, so
+ * neither side takes a lock and nothing is allocated after construction.
+ * When the queue is full, new records are dropped and counted instead of blocking.
+ */
+class LogRingBuffer {
+	private final LogRecord[] slots;
+	private final int mask;
+
+	private final AtomicLong tail = new AtomicLong(0);		// Next position a producer will claim
+	private volatile long head = 0;							// Next position the consumer will read
+	private final AtomicLong droppedRecords = new AtomicLong(0);
+	private volatile long maxQueueDepth = 0;
+
+	/**
+	 * Creates the queue and all of its records.
+	 * @param capacity minimum number of records, rounded up to a power of 2
+	 */
+	LogRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		slots = new LogRecord[size];
+		mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			slots[i] = new LogRecord();
+			slots[i].sequence = i;
+		}
+	}
+
+	/**
+	 * Claims the next free record.  The caller must fill the record and then call publish().
+	 * @return the claimed record, or null if the queue is full (the record is counted as dropped)
+	 */
+	LogRecord claim() {
+		while (true) {
+			long pos = tail.get();
+			LogRecord slot = slots[(int)(pos & mask)];
+			long diff = slot.sequence - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					slot.position = pos;
+					return slot;
+				}
+			} else if (diff < 0) {
+				// Consumer has not released this slot yet, so the queue is full
+				droppedRecords.incrementAndGet();
+				return null;
+			}
+			// Otherwise another producer claimed this position first, so try again
+		}
+	}
+
+	/**
+	 * Makes a filled record visible to the consumer.
+	 * @param record record returned by claim()
+	 */
+	void publish(LogRecord record) {
+		record.sequence = record.position + 1;
+	}
+
+	/**
+	 * Consumer only.  Returns the oldest published record without removing it.
+	 * @return oldest record, or null if no record is ready
+	 */
+	LogRecord peek() {
+		long pos = head;
+		LogRecord slot = slots[(int)(pos & mask)];
+		if (slot.sequence != pos + 1) return null;
+
+		long depth = tail.get() - pos;
+		if (depth > maxQueueDepth) maxQueueDepth = depth;
+		return slot;
+	}
+
+	/**
+	 * Consumer only.  Returns the record from peek() to the producers.
+	 * @param record record returned by peek()
+	 */
+	void release(LogRecord record) {
+		long pos = head;
+		record.sequence = pos + slots.length;
+		head = pos + 1;
+	}
+
+	/**
+	 * @return number of records waiting to be written
+	 */
+	long getQueueDepth() {
+		return Math.max(tail.get() - head, 0);
+	}
+
+	/**
+	 * @return largest queue depth seen by the consumer
+	 */
+	long getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * @return number of records dropped because the queue was full
+	 */
+	long getDroppedRecords() {
+		return droppedRecords.get();
+	}
+
+	/**
+	 * @return number of records that the queue can hold
+	 */
+	int getCapacity() {
+		return slots.length;
+	}
+}
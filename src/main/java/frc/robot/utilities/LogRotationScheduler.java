@@ -0,0 +1,226 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+import java.util.Arrays;
+
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.LogConstants;
+
+/**
+ * Decides which subsystems do their periodic logging and dashboard work in each robot cycle.
+ * <p> Each subsystem (key) is assigned one slot in a rotation of numRotations cycles, so it runs
+ * once per rotation.  The scheduler measures the cost of each key's work and periodically
+ * reassigns slots (largest cost first, into the least loaded slot) so that the cost of each
+ * cycle is balanced.
+ * <p> If a key's slot comes up when the robot cycle is already close to its time budget, the
+ * work is deferred to the next cycle that has time for it.  Work is never deferred for more than
+ * LogConstants.maxDeferCycles cycles.
+ * <p> Not thread safe.  Only call from the main robot thread.
+ */
+class LogRotationScheduler {
+	private final int numRotations;
+	private int rotationCurrent = 0;			// Values = 0 .. numRotations-1
+	private long cycleCount = 0;
+	private long cycleStartMicros = 0;			// FPGA time at the start of this cycle, 0 = startCycle() has not been called
+	private int rotationsSinceRebalance = 0;
+
+	// Per-key state, indexed by key
+	private int numKeys = 0;
+	private int[] slot = new int[0];				// Assigned slot for each key
+	private double[] costMicros = new double[0];	// Filtered cost of one run of each key, in us
+	private long[] cycleCostMicros = new long[0];	// Cost reported in this cycle, in us (-1 = none)
+	private long[] decidedCycle = new long[0];		// Cycle when isMyRotation() last decided for each key
+	private boolean[] decision = new boolean[0];	// Last decision from isMyRotation()
+	private boolean[] pending = new boolean[0];		// true = key was deferred and still needs to run
+	private int[] deferredCycles = new int[0];		// Number of cycles that the key has been deferred
+
+	// Scratch arrays for rebalance()
+	private int[] order = new int[0];
+	private final double[] slotCost;
+	private final int[] slotKeys;
+
+	// Statistics
+	private long deferredCount = 0;
+	private long forcedCount = 0;
+	private double maxSlotCostMicros = 0;
+
+	/**
+	 * @param numRotations number of cycles in one rotation
+	 */
+	LogRotationScheduler(int numRotations) {
+		this.numRotations = numRotations;
+		slotCost = new double[numRotations];
+		slotKeys = new int[numRotations];
+	}
+
+	/**
+	 * Allocates a new key.  Keys are initially assigned round-robin to the slots.
+	 * @return new key
+	 */
+	int allocate() {
+		int key = numKeys++;
+		if (key >= slot.length) {
+			int capacity = Math.max(16, slot.length * 2);
+			slot = Arrays.copyOf(slot, capacity);
+			costMicros = Arrays.copyOf(costMicros, capacity);
+			cycleCostMicros = Arrays.copyOf(cycleCostMicros, capacity);
+			decidedCycle = Arrays.copyOf(decidedCycle, capacity);
+			decision = Arrays.copyOf(decision, capacity);
+			pending = Arrays.copyOf(pending, capacity);
+			deferredCycles = Arrays.copyOf(deferredCycles, capacity);
+			order = new int[capacity];
+		}
+		slot[key] = key % numRotations;
+		cycleCostMicros[key] = -1;
+		decidedCycle[key] = -1;
+		return key;
+	}
+
+	/**
+	 * Marks the start of a robot cycle.  Used to tell how much of the cycle's time budget is left.
+	 */
+	void startCycle() {
+		cycleStartMicros = RobotController.getFPGATime();
+	}
+
+	/**
+	 * Ends the current robot cycle.  Updates the cost of each key that ran, advances
+	 * to the next slot, and rebalances the slots every LogConstants.rebalanceRotations rotations.
+	 * @return true = slots were rebalanced
+	 */
+	boolean advance() {
+		for (int key = 0; key < numKeys; key++) {
+			long cost = cycleCostMicros[key];
+			if (cost >= 0) {
+				costMicros[key] = (costMicros[key] == 0) ? cost :
+					costMicros[key] + LogConstants.costFilterGain * (cost - costMicros[key]);
+				cycleCostMicros[key] = -1;
+			}
+		}
+
+		cycleCount++;
+		rotationCurrent++;
+		if (rotationCurrent < numRotations) return false;
+
+		// Only rebalance between rotations, so every key still runs once per rotation
+		rotationCurrent = 0;
+		if (++rotationsSinceRebalance < LogConstants.rebalanceRotations) return false;
+		rotationsSinceRebalance = 0;
+		rebalance();
+		return true;
+	}
+
+	/**
+	 * Assigns keys to slots, largest cost first, each into the slot with the least total cost
+	 * (or fewest keys, if the costs are equal).
+	 */
+	private void rebalance() {
+		// Insertion sort of keys by cost, largest first.  Only a few dozen keys, so this is fast enough.
+		for (int i = 0; i < numKeys; i++) {
+			int key = i;
+			int j = i - 1;
+			while (j >= 0 && costMicros[order[j]] < costMicros[key]) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = key;
+		}
+
+		Arrays.fill(slotCost, 0);
+		Arrays.fill(slotKeys, 0);
+		for (int i = 0; i < numKeys; i++) {
+			int key = order[i];
+			int best = 0;
+			for (int s = 1; s < numRotations; s++) {
+				if (slotCost[s] < slotCost[best] || (slotCost[s] == slotCost[best] && slotKeys[s] < slotKeys[best])) {
+					best = s;
+				}
+			}
+			slot[key] = best;
+			slotCost[best] += costMicros[key];
+			slotKeys[best]++;
+		}
+
+		maxSlotCostMicros = 0;
+		for (int s = 0; s < numRotations; s++) {
+			maxSlotCostMicros = Math.max(maxSlotCostMicros, slotCost[s]);
+		}
+	}
+
+	/**
+	 * Returns true if the key should do its work in this cycle.  Calling this more than once
+	 * in the same cycle for the same key returns the same answer.
+	 * @param key key from allocate()
+	 * @return true = do the work now
+	 */
+	boolean isMyRotation(int key) {
+		if (decidedCycle[key] == cycleCount) return decision[key];
+		decidedCycle[key] = cycleCount;
+
+		boolean run = pending[key] || slot[key] == rotationCurrent;
+		if (run && cycleStartMicros != 0) {
+			long elapsedMicros = RobotController.getFPGATime() - cycleStartMicros;
+			if (elapsedMicros + costMicros[key] > LogConstants.cycleBudgetMs * 1000) {
+				if (deferredCycles[key] < LogConstants.maxDeferCycles) {
+					if (!pending[key]) deferredCount++;
+					pending[key] = true;
+					deferredCycles[key]++;
+					run = false;
+				} else {
+					forcedCount++;
+				}
+			}
+		}
+
+		if (run) {
+			pending[key] = false;
+			deferredCycles[key] = 0;
+		}
+		decision[key] = run;
+		return run;
+	}
+
+	/**
+	 * Records the cost of work done by a key in this cycle.  May be called more than once per cycle.
+	 * @param key key from allocate()
+	 * @param startMicros FPGA time when the work started, in us (from RobotController.getFPGATime())
+	 */
+	void reportCost(int key, long startMicros) {
+		long cost = Math.max(0, RobotController.getFPGATime() - startMicros);
+		cycleCostMicros[key] = (cycleCostMicros[key] < 0) ? cost : cycleCostMicros[key] + cost;
+	}
+
+	/**
+	 * @return index of the current slot, between 0 and numRotations-1
+	 */
+	int getRotation() {
+		return rotationCurrent;
+	}
+
+	/**
+	 * @return number of times that work was deferred because the cycle was over budget
+	 */
+	long getDeferredCount() {
+		return deferredCount;
+	}
+
+	/**
+	 * @return number of times that deferred work was run over budget because it had waited too long
+	 */
+	long getForcedCount() {
+		return forcedCount;
+	}
+
+	/**
+	 * @return largest total cost of any slot at the last rebalance, in ms
+	 */
+	double getMaxSlotCostMs() {
+		return maxSlotCostMicros / 1000.0;
+	}
+}
@@ -0,0 +1,55 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018-2019 FIRST. All Rights Reserved.                        */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.utilities;
+
+import java.text.SimpleDateFormat;
+
+/**
+ * Formats log timestamps as "yyyy-MM-dd HH:mm:ss.SSS".
+ * The "yyyy-MM-dd HH:mm:ss." part is only formatted when the second changes, so most
+ * timestamps only append the cached prefix and three digits.
+ * <p> Not thread safe.  Each thread that formats timestamps needs its own LogTimeFormat.
+ */
+class LogTimeFormat {
+	private final SimpleDateFormat secondFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.");
+	private long cachedSecond = Long.MIN_VALUE;
+	private final char[] prefix = new char[64];
+	private int prefixLength = 0;
+
+	/**
+	 * Appends a timestamp to a buffer
+	 * @param sb buffer to append to
+	 * @param wallMillis wall clock time, in ms since 1970 (same as System.currentTimeMillis())
+	 */
+	void append(StringBuilder sb, long wallMillis) {
+		long second = Math.floorDiv(wallMillis, 1000);
+		if (second != cachedSecond) {
+			String s = secondFormat.format(second * 1000);
+			prefixLength = Math.min(s.length(), prefix.length);
+			s.getChars(0, prefixLength, prefix, 0);
+			cachedSecond = second;
+		}
+		sb.append(prefix, 0, prefixLength);
+
+		int ms = (int) Math.floorMod(wallMillis, 1000);
+		sb.append((char) ('0' + ms / 100))
+			.append((char) ('0' + (ms / 10) % 10))
+			.append((char) ('0' + ms % 10));
+	}
+
+	/**
+	 * Formats a timestamp
+	 * @param wallMillis wall clock time, in ms since 1970 (same as System.currentTimeMillis())
+	 * @return timestamp string
+	 */
+	String format(long wallMillis) {
+		StringBuilder sb = new StringBuilder(32);
+		append(sb, wallMillis);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,325 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.WrapperCommand;
+
+/**
+ * Measures how long each part of the robot loop takes (subsystem periodic() methods, command
+ * execute()/end(), and RobotContainer.robotPeriodic()), so that loop overruns can be traced
+ * to the code that caused them.
+ * <p> Each timed section has a Probe with a preallocated histogram, so recording a time does not
+ * allocate.  Usage in a subsystem:
+ * <pre>
+ *   private final LoopTiming.Probe periodicTiming = LoopTiming.probe("Shooter periodic");
+ *   ...
+ *   public void periodic() {
+ *     long timingStart = periodicTiming.start();
+ *     ...
+ *     periodicTiming.stop(timingStart);
+ *   }
+ * </pre>
+ * Commands are timed by wrapping them with timed() where they are bound to a trigger or button.
+ * <p> p50/p99/max are published to the dashboard once per second, and written to the log
+ * (and cleared) on each mode transition by logSummary().
+ */
+public class LoopTiming {
+  // Histogram buckets:  kSubBuckets buckets per power of 2 of nanoseconds (about 9% resolution)
+  private static final int kSubBucketBits = 3;
+  private static final int kSubBuckets = 1 << kSubBucketBits;
+  private static final int kBuckets = 64 * kSubBuckets;
+  private static final long kPublishPeriodNanos = 1_000_000_000L;
+
+  private static final List<Probe> probes = new ArrayList<>();
+  private static final Map<String, Probe[]> commandProbes = new HashMap<>();   // {execute, end} for each command name
+  private static final Telemetry telemetry = new Telemetry();
+  private static long nextPublishNanos = 0;
+  private static String mode = "Startup";       // Robot mode that the current timings are for
+  private static int cycle = 0;                 // Robot cycle counter, from startCycle()
+
+  /** Timing for one section of code */
+  public static class Probe {
+    private final String name;
+    private final int[] counts = new int[kBuckets];
+    private int count = 0;
+    private long sumNanos = 0;
+    private long maxNanos = 0;
+    private long lastNanos = 0;           // Time recorded in lastCycle
+    private int lastCycle = -1;
+    private final boolean total;          // true = contains other probes (not reported by getTopProbe())
+    private final Telemetry.DoubleValue dashP50, dashP99, dashMax;    // null = not published
+
+    private Probe(String name, boolean total, boolean publish) {
+      this.name = name;
+      this.total = total;
+      if (publish) {
+        dashP50 = telemetry.number(StringUtil.buildString("Timing ", name, " p50 us"), 1.0);
+        dashP99 = telemetry.number(StringUtil.buildString("Timing ", name, " p99 us"), 1.0);
+        dashMax = telemetry.number(StringUtil.buildString("Timing ", name, " max us"), 1.0);
+      } else {
+        dashP50 = dashP99 = dashMax = null;
+      }
+    }
+
+    /**
+     * @return start time to pass to stop()
+     */
+    public long start() {
+      return System.nanoTime();
+    }
+
+    /**
+     * Records the time since start().
+     * @param startNanos value returned by start()
+     */
+    public void stop(long startNanos) {
+      record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a time.
+     * @param nanos elapsed time, in nanoseconds
+     */
+    public void record(long nanos) {
+      if (nanos < 0) nanos = 0;
+      counts[bucket(nanos)]++;
+      count++;
+      sumNanos += nanos;
+      if (nanos > maxNanos) maxNanos = nanos;
+
+      // Sum times within a cycle (a command can run more than once in a cycle)
+      if (lastCycle != cycle) {
+        lastCycle = cycle;
+        lastNanos = 0;
+      }
+      lastNanos += nanos;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return number of times recorded since the last reset
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * @param fraction 0.5 = median, 0.99 = 99th percentile
+     * @return time at or below which the fraction of the recorded times fall, in microseconds (upper edge of the bucket)
+     */
+    public double getPercentileMicros(double fraction) {
+      if (count == 0) return 0;
+      long target = (long) Math.ceil(fraction * count);
+      long total = 0;
+      for (int i = 0; i < kBuckets; i++) {
+        total += counts[i];
+        if (total >= target) {
+          return Math.min(bucketUpperNanos(i), maxNanos) / 1000.0;
+        }
+      }
+      return maxNanos / 1000.0;
+    }
+
+    public double getMaxMicros() {
+      return maxNanos / 1000.0;
+    }
+
+    /**
+     * @return time recorded in the current cycle, in microseconds (0 if the probe has not run this cycle)
+     */
+    public double getCycleMicros() {
+      return (lastCycle == cycle) ? lastNanos / 1000.0 : 0;
+    }
+
+    public double getMeanMicros() {
+      return (count == 0) ? 0 : sumNanos / (count * 1000.0);
+    }
+
+    public void reset() {
+      Arrays.fill(counts, 0);
+      count = 0;
+      sumNanos = 0;
+      maxNanos = 0;
+    }
+  }
+
+  /**
+   * Creates a probe.  Create probes once (in a constructor or field), not in periodic code.
+   * @param name name for the dashboard and log
+   * @return new probe
+   */
+  public static Probe probe(String name) {
+    Probe probe = new Probe(name, false, true);
+    probes.add(probe);
+    return probe;
+  }
+
+  /**
+   * Creates a probe for a section that contains other probes (such as the whole CommandScheduler
+   * run), so that it is not reported as the largest cost by getTopProbe().
+   * @param name name for the dashboard and log
+   * @return new probe
+   */
+  public static Probe totalProbe(String name) {
+    Probe probe = new Probe(name, true, true);
+    probes.add(probe);
+    return probe;
+  }
+
+  /**
+   * Starts a new robot cycle for getCycleMicros() and getTopProbe().  Call at the start of each robot cycle.
+   */
+  public static void startCycle() {
+    cycle++;
+  }
+
+  /**
+   * @return probe (other than total probes) with the largest time in the current cycle, or null if none have run
+   */
+  public static Probe getTopProbe() {
+    Probe top = null;
+    for (Probe probe : probes) {
+      if (probe.total || probe.lastCycle != cycle) continue;
+      if (top == null || probe.lastNanos > top.lastNanos) top = probe;
+    }
+    return top;
+  }
+
+  /**
+   * Wraps a command so that its execute() and end() calls are timed.  The start mark is taken
+   * immediately before each call, so the times do not include isFinished() or the CommandScheduler.
+   * Commands with the same name share probes.
+   * @param command command to time (null returns null)
+   * @return command that runs the given command and times it
+   */
+  public static Command timed(Command command) {
+    return (command == null) ? null : new TimedCommand(command);
+  }
+
+  /**
+   * @return {execute, end} probes for a command name
+   */
+  private static Probe[] commandProbes(String name) {
+    Probe[] commandProbe = commandProbes.get(name);
+    if (commandProbe == null) {
+      commandProbe = new Probe[] {probe(name + " execute"), probe(name + " end")};
+      commandProbes.put(name, commandProbe);
+    }
+    return commandProbe;
+  }
+
+  /** Command wrapper for timed() */
+  private static class TimedCommand extends WrapperCommand {
+    private Probe executeTiming, endTiming;      // Created the first time the command runs
+
+    private TimedCommand(Command command) {
+      super(command);
+    }
+
+    @Override
+    public void initialize() {
+      if (executeTiming == null) {
+        Probe[] commandProbe = commandProbes(getName());
+        executeTiming = commandProbe[0];
+        endTiming = commandProbe[1];
+      }
+      m_command.initialize();
+    }
+
+    @Override
+    public void execute() {
+      long timingStart = executeTiming.start();
+      m_command.execute();
+      executeTiming.stop(timingStart);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      long timingStart = endTiming.start();
+      m_command.end(interrupted);
+      endTiming.stop(timingStart);
+    }
+  }
+
+  /**
+   * Publishes p50/p99/max for each probe to the dashboard, once per second.
+   * Call once per robot cycle.
+   */
+  public static void periodic() {
+    long now = System.nanoTime();
+    if (now - nextPublishNanos < 0) return;
+    nextPublishNanos = now + kPublishPeriodNanos;
+
+    telemetry.startSnapshot();
+    for (Probe probe : probes) {
+      if (probe.count == 0) continue;
+      probe.dashP50.set(probe.getPercentileMicros(0.5));
+      probe.dashP99.set(probe.getPercentileMicros(0.99));
+      probe.dashMax.set(probe.getMaxMicros());
+    }
+    telemetry.endSnapshot();
+  }
+
+  /**
+   * Writes the timing for each probe that ran in the mode that just ended to the log, then clears
+   * all of the histograms.  Call on each mode transition.
+   * @param log FileLog
+   * @param newMode mode that is starting
+   */
+  public static void logSummary(FileLog log, String newMode) {
+    for (Probe probe : probes) {
+      if (probe.count == 0) continue;
+      log.record(true, "LoopTiming", probe.name).s("Mode", mode).i("Count", probe.count)
+        .d("p50 us", probe.getPercentileMicros(0.5)).d("p99 us", probe.getPercentileMicros(0.99))
+        .d("Max us", probe.getMaxMicros()).d("Mean us", probe.getMeanMicros()).commit();
+      probe.reset();
+    }
+    mode = newMode;
+  }
+
+  /**
+   * Measures the cost of one start()/stop() pair.
+   * @return time per probe, in nanoseconds
+   */
+  public static double measureProbeOverhead() {
+    Probe probe = new Probe("Overhead", false, false);
+    final int loops = 20000;
+    long start = System.nanoTime();
+    for (int i = 0; i < loops; i++) {
+      probe.stop(probe.start());
+    }
+    return (System.nanoTime() - start) / (double) loops;
+  }
+
+  /**
+   * @return histogram bucket for a time
+   */
+  private static int bucket(long nanos) {
+    if (nanos < kSubBuckets) return (int) nanos;
+    int octave = 63 - Long.numberOfLeadingZeros(nanos);       // nanos >= 2^octave
+    int subBucket = (int) (nanos >>> (octave - kSubBucketBits)) & (kSubBuckets - 1);
+    return (octave - kSubBucketBits + 1) * kSubBuckets + subBucket;
+  }
+
+  /**
+   * @return largest time in a histogram bucket, in nanoseconds
+   */
+  private static long bucketUpperNanos(int bucket) {
+    if (bucket < kSubBuckets) return bucket;
+    int shift = bucket / kSubBuckets - 1;
+    long subBucket = bucket % kSubBuckets;
+    return ((kSubBuckets + subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import frc.robot.Constants.LoopConstants;
+
+/**
+ * Watches the robot loop time and turns off non-critical work when the loop runs past its budget.
+ * The loop time is measured from the start to the end of Robot.loopFunc(), so it includes the mode init and
+ * periodic methods, robotPeriodic (the CommandScheduler), and the SmartDashboard, LiveWindow, and Shuffleboard
+ * updates that IterativeRobotBase runs after robotPeriodic.  It does not include the time waiting for the next loop.
+ * <p> Shed levels are added in priority order with addShedLevel() (the first level added is shed first).
+ * When the filtered headroom (loop budget minus loop time) drops below LoopConstants.shedHeadroomMs,
+ * the next level is shed.  When the headroom stays above LoopConstants.restoreHeadroomMs for
+ * LoopConstants.restoreCycles cycles, the last shed level is restored.
+ * <p> Each shed and restore is logged, with the LoopTiming probe that took the most time in that cycle.
+ */
+public class LoopWatchdog {
+  private final FileLog log;
+  private final List<String> levelNames = new ArrayList<>();
+  private final List<Consumer<Boolean>> levelActions = new ArrayList<>();
+  private final LoopTiming.Probe cycleTiming = LoopTiming.totalProbe("Robot cycle");
+
+  private long cycleStartNanos;
+  private double filteredCycleMs = 0;       // Filtered time from startCycle() to endCycle()
+  private int shedLevels = 0;               // Number of levels that are currently shed
+  private int cyclesSinceChange = 0;
+  private int recoveredCycles = 0;          // Cycles in a row with headroom above restoreHeadroomMs
+
+  // Dashboard values
+  private final Telemetry telemetry = new Telemetry();
+  private final Telemetry.DoubleValue dashHeadroom = telemetry.number("Loop Headroom ms", 0.25, Telemetry.kRate10Hz);
+  private final Telemetry.DoubleValue dashShedLevels = telemetry.number("Loop Shed Levels", 0);
+
+  /**
+   * @param log FileLog
+   */
+  public LoopWatchdog(FileLog log) {
+    this.log = log;
+  }
+
+  /**
+   * Adds the next level of work to shed.
+   * @param name name of the work, for the log
+   * @param shed called with true to shed the work, false to restore it
+   */
+  public void addShedLevel(String name, Consumer<Boolean> shed) {
+    levelNames.add(name);
+    levelActions.add(shed);
+  }
+
+  /**
+   * Call at the start of each robot loop, before the mode periodic method (at the start of Robot.loopFunc()).
+   */
+  public void startCycle() {
+    LoopTiming.startCycle();
+    cycleStartNanos = cycleTiming.start();
+  }
+
+  /**
+   * Call at the end of each robot loop, after the dashboard updates (at the end of Robot.loopFunc()).
+   * Sheds or restores a level if needed.
+   */
+  public void endCycle() {
+    long cycleNanos = System.nanoTime() - cycleStartNanos;
+    cycleTiming.record(cycleNanos);
+    double cycleMs = cycleNanos / 1.0e6;
+    filteredCycleMs += LoopConstants.watchdogFilterGain * (cycleMs - filteredCycleMs);
+    double headroomMs = LoopConstants.loopBudgetMs - filteredCycleMs;
+    cyclesSinceChange++;
+
+    if (headroomMs < LoopConstants.shedHeadroomMs) {
+      recoveredCycles = 0;
+      if (shedLevels < levelActions.size() && cyclesSinceChange >= LoopConstants.shedIntervalCycles) {
+        changeLevel(true, headroomMs, cycleMs);
+      }
+    } else if (headroomMs > LoopConstants.restoreHeadroomMs && shedLevels > 0) {
+      if (++recoveredCycles >= LoopConstants.restoreCycles) {
+        recoveredCycles = 0;
+        changeLevel(false, headroomMs, cycleMs);
+      }
+    } else {
+      recoveredCycles = 0;
+    }
+
+    // Set after changing levels, so the values are still published in the cycle that restores telemetry
+    dashHeadroom.set(headroomMs);
+    dashShedLevels.set(shedLevels);
+  }
+
+  /**
+   * Sheds the next level or restores the last shed level, and logs the change.
+   * @param shed true = shed the next level, false = restore the last shed level
+   */
+  private void changeLevel(boolean shed, double headroomMs, double cycleMs) {
+    int level = shed ? shedLevels : shedLevels - 1;
+    levelActions.get(level).accept(shed);
+    shedLevels = shed ? shedLevels + 1 : shedLevels - 1;
+    cyclesSinceChange = 0;
+
+    LoopTiming.Probe top = LoopTiming.getTopProbe();
+    log.record(true, "LoopWatchdog", shed ? "Shed" : "Restore").s("Level", levelNames.get(level))
+      .i("Shed Levels", shedLevels).d("Headroom ms", headroomMs).d("Cycle ms", cycleMs)
+      .s("Top Cost", (top == null) ? "" : top.getName()).d("Top Cost ms", (top == null) ? 0 : top.getCycleMicros() / 1000.0)
+      .commit();
+  }
+
+  /**
+   * @return number of levels that are currently shed
+   */
+  public int getShedLevels() {
+    return shedLevels;
+  }
+}
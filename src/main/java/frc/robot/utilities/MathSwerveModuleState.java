@@ -5,6 +5,14 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 
 public class MathSwerveModuleState {
 
+  /**
+   * Target speed and angle for a swerve module, for optimize() without allocating a new state each cycle.
+   */
+  public static class ModuleTarget {
+    public double speedMetersPerSecond;
+    public double angleDegrees;
+  }
+
   /**
    * Minimize the change in heading the desired swerve module state would require by potentially
    * reversing the direction the wheel spins. Customized from WPILib's version to include placing
@@ -16,14 +24,29 @@ public class MathSwerveModuleState {
    * @param currentAngle The current module angle.
    */
   public static SwerveModuleState optimize(SwerveModuleState desiredState, Rotation2d currentAngle) {
-    double targetAngle = placeInAppropriate180Scope(currentAngle.getDegrees(), desiredState.angle.getDegrees());
-    double targetSpeed = desiredState.speedMetersPerSecond;
-    double delta = targetAngle - currentAngle.getDegrees();
+    ModuleTarget target = new ModuleTarget();
+    optimize(desiredState.speedMetersPerSecond, desiredState.angle.getDegrees(), currentAngle.getDegrees(), target);
+    return new SwerveModuleState(target.speedMetersPerSecond, Rotation2d.fromDegrees(target.angleDegrees));
+  }
+
+  /**
+   * Same as optimize(SwerveModuleState, Rotation2d), using doubles.  Does not allocate.
+   *
+   * @param desiredSpeed The desired speed, in meters per second.
+   * @param desiredAngleDegrees The desired angle, in degrees.
+   * @param currentAngleDegrees The current module angle, in degrees.  Angle can be any value (not limited to +/-180 deg).
+   * @param target Set to the optimized speed and angle.
+   */
+  public static void optimize(double desiredSpeed, double desiredAngleDegrees, double currentAngleDegrees, ModuleTarget target) {
+    double targetAngle = placeInAppropriate180Scope(currentAngleDegrees, desiredAngleDegrees);
+    double targetSpeed = desiredSpeed;
+    double delta = targetAngle - currentAngleDegrees;
     if (Math.abs(delta) > 90){
         targetSpeed = -targetSpeed;
         targetAngle = delta > 90 ? (targetAngle -= 180) : (targetAngle += 180);
     }        
-    return new SwerveModuleState(targetSpeed, Rotation2d.fromDegrees(targetAngle));
+    target.speedMetersPerSecond = targetSpeed;
+    target.angleDegrees = targetAngle;
   }
 
   /**
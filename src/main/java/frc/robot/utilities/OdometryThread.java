@@ -0,0 +1,278 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.function.DoubleUnaryOperator;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SignalConstants;
+import frc.robot.subsystems.SwerveModule;
+
+/**
+ * Updates the robot pose from the swerve modules and gyro on a separate thread, each time the CANivore
+ * sends a new set of time-synchronized samples (SignalConstants.odometryHz), instead of once per robot cycle.
+ * <p> The thread waits on its own copies (clones) of the odometry signals, so it does not change the
+ * signals that the robot loop refreshes.  Drive and steer positions and the gyro yaw are latency
+ * compensated to the time the samples are read.
+ * <p> The pose estimator is only used while holding a lock (by the thread, and by the robot loop for
+ * vision measurements and resets).  Each update publishes an immutable Pose2d together with the FPGA time of the
+ * update, so getPose() never blocks and the pose is never paired with the time of a different update.
+ * A sample that was read before a reset is discarded, so an angle using the old gyro zero is never applied
+ * to the new pose.
+ * <p> Odometry updates, vision measurements, and resets are logged for PoseReplay (at the debug log level)
+ * while holding the lock, so they are in the log in the order they were applied to the pose estimator.
+ * <p> If the thread is not started, call update() once per robot cycle instead.
+ */
+public class OdometryThread {
+  private final PoseFusion fusion;
+  private final Object fusionLock = new Object();
+  private volatile TimedPose pose;              // Pose after the last update, vision measurement, or reset
+  private volatile long resetCount = 0;         // Number of resets.  Only changed while holding fusionLock.
+
+  private final SwerveModule[] modules;
+  private final DoubleUnaryOperator gyroRawToDegrees;   // Converts raw gyro yaw to the robot angle used for odometry
+  private final FileLog log;
+
+  // Signals for the thread:  {drive position, drive velocity, turning position, turning velocity} for each module, then yaw and yaw rate
+  private final StatusSignal<?>[] signals;
+  private final SwerveModulePosition[] modulePositions;
+  private final Thread thread;
+  private volatile boolean running = false;
+
+  // Statistics, written only by the thread
+  private volatile double sampleRateHz = 0;     // Updates per second, over the last second
+  private volatile double maxGapMs = 0;         // Longest time between updates, over the last second
+  private volatile int failedWaits = 0;         // Number of waits that timed out or failed
+
+  /** Pose and the FPGA time of the odometry update (or reset) that it is from, published together */
+  private static class TimedPose {
+    final Pose2d pose;
+    final double timestampSeconds;
+
+    TimedPose(Pose2d pose, double timestampSeconds) {
+      this.pose = pose;
+      this.timestampSeconds = timestampSeconds;
+    }
+  }
+
+  /**
+   * @param modules swerve modules, in the order used by the kinematics
+   * @param yaw gyro yaw signal
+   * @param yawRate gyro yaw rate signal
+   * @param gyroRawToDegrees converts a raw gyro yaw (degrees) to the robot angle for odometry (degrees)
+   * @param fusion pose estimator
+   * @param log FileLog
+   */
+  public OdometryThread(SwerveModule[] modules, StatusSignal<Angle> yaw, StatusSignal<AngularVelocity> yawRate,
+      DoubleUnaryOperator gyroRawToDegrees, PoseFusion fusion, FileLog log) {
+    this.modules = modules;
+    this.gyroRawToDegrees = gyroRawToDegrees;
+    this.fusion = fusion;
+    this.log = log;
+    pose = new TimedPose(fusion.getEstimatedPosition(), Timer.getFPGATimestamp());
+
+    signals = new StatusSignal<?>[modules.length * 4 + 2];
+    for (int i = 0; i < modules.length; i++) {
+      System.arraycopy(modules[i].getOdometrySignals(), 0, signals, i * 4, 4);
+    }
+    signals[modules.length * 4] = yaw.clone();
+    signals[modules.length * 4 + 1] = yawRate.clone();
+    modulePositions = new SwerveModulePosition[modules.length];
+
+    thread = new Thread(this::run, "OdometryThread");
+    thread.setDaemon(true);
+  }
+
+  /**
+   * Starts the odometry thread.  After this, do not call update().
+   */
+  public void start() {
+    if (running) return;
+    running = true;
+    thread.start();
+    log.writeLogEcho(true, "Drive", "Odometry Thread Start", "Rate Hz", SignalConstants.odometryHz);
+  }
+
+  /**
+   * @return true = the odometry thread is updating the pose
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void run() {
+    if (RobotBase.isReal()) {
+      Threads.setCurrentThreadPriority(true, DriveConstants.odometryThreadPriority);
+    }
+
+    final double timeoutSeconds = 2.0 / SignalConstants.odometryHz;
+    int yawIndex = modules.length * 4;
+    int samples = 0;
+    double windowStart = Timer.getFPGATimestamp();
+    double lastUpdate = windowStart;
+    double windowMaxGap = 0;
+
+    while (running) {
+      // Wait for the next synchronized set of samples from the CANivore
+      StatusCode status = BaseStatusSignal.waitForAll(timeoutSeconds, signals);
+      if (!status.isOK()) {
+        failedWaits++;
+        if (status.isError()) {
+          // The signals are not available (such as during a CAN bus reset), so don't spin
+          Timer.delay(timeoutSeconds);
+        }
+        continue;
+      }
+
+      // Read before converting the samples, so a reset after this (and the gyro re-zero before it) is detected below
+      long resetsBefore = resetCount;
+      for (int i = 0; i < modules.length; i++) {
+        double driveRotations = BaseStatusSignal.getLatencyCompensatedValueAsDouble(signals[i * 4], signals[i * 4 + 1]);
+        double turningRotations = BaseStatusSignal.getLatencyCompensatedValueAsDouble(signals[i * 4 + 2], signals[i * 4 + 3]);
+        modulePositions[i] = modules[i].getPosition(driveRotations, turningRotations);
+      }
+      double yawRaw = BaseStatusSignal.getLatencyCompensatedValueAsDouble(signals[yawIndex], signals[yawIndex + 1]);
+      Rotation2d gyroAngle = Rotation2d.fromDegrees(gyroRawToDegrees.applyAsDouble(yawRaw));
+      double timestamp = Timer.getFPGATimestamp();
+
+      boolean updated;
+      synchronized (fusionLock) {
+        // Skip the sample if the pose was reset since it was read, since the gyro angle may use the old gyro zero
+        updated = (resetCount == resetsBefore);
+        if (updated) {
+          pose = new TimedPose(fusion.updateOdometry(timestamp, gyroAngle, modulePositions), timestamp);
+          logOdometryInput("Odometry Input", timestamp, gyroAngle, modulePositions, pose.pose);
+        }
+      }
+      if (!updated) continue;
+
+      samples++;
+      windowMaxGap = Math.max(windowMaxGap, timestamp - lastUpdate);
+      lastUpdate = timestamp;
+      if (timestamp - windowStart >= 1.0) {
+        sampleRateHz = samples / (timestamp - windowStart);
+        maxGapMs = windowMaxGap * 1000.0;
+        samples = 0;
+        windowMaxGap = 0;
+        windowStart = timestamp;
+      }
+    }
+  }
+
+  /**
+   * Updates the pose from the gyro and module positions.  Only call this (once per robot cycle) if the thread is not running.
+   * @param timestampSeconds FPGA time of the readings, in seconds
+   * @param gyroAngle gyro angle
+   * @param modulePositions module positions
+   */
+  public void update(double timestampSeconds, Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
+    synchronized (fusionLock) {
+      pose = new TimedPose(fusion.updateOdometry(timestampSeconds, gyroAngle, modulePositions), timestampSeconds);
+      logOdometryInput("Odometry Input", timestampSeconds, gyroAngle, modulePositions, pose.pose);
+    }
+  }
+
+  /**
+   * Adds a vision measurement, if the target is close enough (see PoseFusion.addVisionMeasurement).
+   * @param visionPose robot pose from vision
+   * @param timestampSeconds FPGA time of the camera frame, in seconds
+   * @param targetDistanceMeters distance from the camera to the best target, in meters
+   * @return kVisionClose, kVisionFar, or kVisionRejected
+   */
+  public int addVisionMeasurement(Pose2d visionPose, double timestampSeconds, double targetDistanceMeters) {
+    synchronized (fusionLock) {
+      if (log.isLogEnabled(FileLog.kLevelDebug, "Drive")) {
+        LogRecordBuilder record = log.record(true, "Drive", "Vision Input");
+        PoseFusion.addVisionInputFields(record, visionPose, timestampSeconds, targetDistanceMeters);
+        record.commit();
+      }
+      int used = fusion.addVisionMeasurement(visionPose, timestampSeconds, targetDistanceMeters);
+      // The estimate is still for the time of the last odometry update
+      pose = new TimedPose(fusion.getEstimatedPosition(), pose.timestampSeconds);
+      return used;
+    }
+  }
+
+  /**
+   * Resets the pose.  Change the gyro zero used by gyroRawToDegrees before calling this.  A sample that
+   * the thread read before this call (which may have been converted with the old gyro zero) is discarded
+   * instead of being applied after the reset, so the caller does not need to pause the thread.
+   * @param gyroAngle current gyro angle
+   * @param modulePositions current module positions
+   * @param newPose new pose of the robot on the field
+   */
+  public void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d newPose) {
+    synchronized (fusionLock) {
+      fusion.resetPosition(gyroAngle, modulePositions, newPose);
+      pose = new TimedPose(fusion.getEstimatedPosition(), Timer.getFPGATimestamp());
+      resetCount++;
+      logOdometryInput("Odometry Reset", pose.timestampSeconds, gyroAngle, modulePositions, newPose);
+    }
+  }
+
+  /**
+   * Logs an odometry update or reset for PoseReplay, if the Drive log level is debug.  Call while holding fusionLock.
+   */
+  private void logOdometryInput(String event, double timestampSeconds, Rotation2d gyroAngle,
+      SwerveModulePosition[] modulePositions, Pose2d pose) {
+    if (log.isLogEnabled(FileLog.kLevelDebug, "Drive")) {
+      LogRecordBuilder record = log.record(true, "Drive", event);
+      PoseFusion.addOdometryInputFields(record, timestampSeconds, gyroAngle, modulePositions, pose);
+      record.commit();
+    }
+  }
+
+  /**
+   * Returns the pose after the last update.  Does not block.
+   * @return estimated pose of the robot on the field
+   */
+  public Pose2d getPose() {
+    return pose.pose;
+  }
+
+  /**
+   * Returns the pose after the last update, with the time of that update.  Does not block.
+   * @param timestampSeconds array to receive the FPGA time of the update (or reset) that the pose is from, in seconds (element 0)
+   * @return estimated pose of the robot on the field
+   */
+  public Pose2d getPose(double[] timestampSeconds) {
+    TimedPose pose = this.pose;
+    timestampSeconds[0] = pose.timestampSeconds;
+    return pose.pose;
+  }
+
+  /**
+   * @return odometry updates per second, over the last second (0 if the thread is not running)
+   */
+  public double getSampleRateHz() {
+    return sampleRateHz;
+  }
+
+  /**
+   * @return longest time between odometry updates over the last second, in ms
+   */
+  public double getMaxGapMs() {
+    return maxGapMs;
+  }
+
+  /**
+   * @return number of times the thread timed out waiting for new samples
+   */
+  public int getFailedWaits() {
+    return failedWaits;
+  }
+}
@@ -0,0 +1,145 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * Combines the gyro, swerve module positions, and vision measurements into the robot pose.
+ * <p> This is the pose estimator code used by DriveTrain.  It only depends on its inputs (no hardware
+ * or clock reads), so PoseReplay can run the same code on inputs recorded in a log file.
+ * <p> Inputs are logged by OdometryThread at the debug log level with addOdometryInputFields() and
+ * addVisionInputFields(), using the names below, in the order they are applied.
+ */
+public class PoseFusion {
+  // Results from addVisionMeasurement()
+  public static final int kVisionRejected = 0;      // Target too far away, measurement not used
+  public static final int kVisionClose = 1;         // Used with the default vision std devs
+  public static final int kVisionFar = 2;           // Used with the far std devs
+
+  // Log names for the inputs.  Module order is the same as DriveTrain.getModulePositions().
+  public static final String kTime = "Time sec";
+  public static final String kGyro = "Gyro rad";
+  public static final String[] kModuleDistance = {"FL Dist m", "FR Dist m", "BL Dist m", "BR Dist m"};
+  public static final String[] kModuleAngle = {"FL Angle rad", "FR Angle rad", "BL Angle rad", "BR Angle rad"};
+  public static final String kPoseX = "Pose X m", kPoseY = "Pose Y m", kPoseRotation = "Pose Rot rad";
+  public static final String kVisionX = "Vision X m", kVisionY = "Vision Y m", kVisionRotation = "Vision Rot rad";
+  public static final String kTargetDistance = "Target Dist m";
+
+  private final SwerveDrivePoseEstimator poseEstimator;
+
+  // Vision gating.  Can be changed (such as in PoseReplay) to try other values.
+  private double closeTargetMeters = VisionConstants.closeTargetMeters;
+  private double farTargetMeters = VisionConstants.farTargetMeters;
+  private Matrix<N3, N1> farMatrix = new Matrix<>(Nat.N3(), Nat.N1(), VisionConstants.farStdDevs);
+  // private final Matrix<N3, N1> closeMatrix = new Matrix<>(Nat.N3(), Nat.N1(), new double[] {.9,.9,.9});
+
+  /**
+   * @param kinematics swerve drive kinematics
+   * @param gyroAngle current gyro angle
+   * @param modulePositions current module positions
+   * @param initialPose starting pose of the robot on the field
+   */
+  public PoseFusion(SwerveDriveKinematics kinematics, Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d initialPose) {
+    poseEstimator = new SwerveDrivePoseEstimator(kinematics, gyroAngle, modulePositions, initialPose);
+  }
+
+  /**
+   * Changes the vision gating.
+   * @param closeTargetMeters targets closer than this use the default vision std devs
+   * @param farTargetMeters targets closer than this (but not close) use farStdDevs.  Farther targets are not used.
+   * @param farStdDevs std devs for far targets (x meters, y meters, rotation radians)
+   */
+  public void setVisionGating(double closeTargetMeters, double farTargetMeters, double[] farStdDevs) {
+    this.closeTargetMeters = closeTargetMeters;
+    this.farTargetMeters = farTargetMeters;
+    farMatrix = new Matrix<>(Nat.N3(), Nat.N1(), farStdDevs);
+  }
+
+  /**
+   * Updates the pose from the gyro and module positions.  Call once per robot cycle.
+   * @param timestampSeconds FPGA time of the readings, in seconds
+   * @param gyroAngle gyro angle
+   * @param modulePositions module positions
+   * @return estimated pose
+   */
+  public Pose2d updateOdometry(double timestampSeconds, Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
+    return poseEstimator.updateWithTime(timestampSeconds, gyroAngle, modulePositions);
+  }
+
+  /**
+   * Adds a vision measurement, if the target is close enough.
+   * @param visionPose robot pose from vision
+   * @param timestampSeconds FPGA time of the camera frame, in seconds
+   * @param targetDistanceMeters distance from the camera to the best target, in meters
+   * @return kVisionClose, kVisionFar, or kVisionRejected
+   */
+  public int addVisionMeasurement(Pose2d visionPose, double timestampSeconds, double targetDistanceMeters) {
+    if (targetDistanceMeters < closeTargetMeters) {
+      poseEstimator.addVisionMeasurement(visionPose, timestampSeconds);
+      // poseEstimator.addVisionMeasurement(visionPose, timestampSeconds, closeMatrix);
+      return kVisionClose;
+    } else if (targetDistanceMeters < farTargetMeters) {
+      poseEstimator.addVisionMeasurement(visionPose, timestampSeconds, farMatrix);
+      return kVisionFar;
+    }
+    return kVisionRejected;
+  }
+
+  /**
+   * Resets the pose.
+   * @param gyroAngle current gyro angle
+   * @param modulePositions current module positions
+   * @param pose new pose of the robot on the field
+   */
+  public void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d pose) {
+    poseEstimator.resetPosition(gyroAngle, modulePositions, pose);
+  }
+
+  /**
+   * @return estimated pose of the robot on the field
+   */
+  public Pose2d getEstimatedPosition() {
+    return poseEstimator.getEstimatedPosition();
+  }
+
+  /**
+   * Adds the odometry inputs and resulting pose to a log message, for PoseReplay.
+   * @param record log message
+   * @param timestampSeconds FPGA time of the readings, in seconds
+   * @param gyroAngle gyro angle
+   * @param modulePositions module positions
+   * @param pose pose after this odometry update (or reset)
+   */
+  public static void addOdometryInputFields(LogRecordBuilder record, double timestampSeconds, Rotation2d gyroAngle,
+      SwerveModulePosition[] modulePositions, Pose2d pose) {
+    record.d(kTime, timestampSeconds).d(kGyro, gyroAngle.getRadians());
+    for (int i = 0; i < modulePositions.length; i++) {
+      record.d(kModuleDistance[i], modulePositions[i].distanceMeters).d(kModuleAngle[i], modulePositions[i].angle.getRadians());
+    }
+    record.d(kPoseX, pose.getX()).d(kPoseY, pose.getY()).d(kPoseRotation, pose.getRotation().getRadians());
+  }
+
+  /**
+   * Adds a vision input to a log message, for PoseReplay.
+   * @param record log message
+   * @param visionPose robot pose from vision
+   * @param timestampSeconds FPGA time of the camera frame, in seconds
+   * @param targetDistanceMeters distance from the camera to the best target, in meters
+   */
+  public static void addVisionInputFields(LogRecordBuilder record, Pose2d visionPose, double timestampSeconds, double targetDistanceMeters) {
+    record.d(kTime, timestampSeconds).d(kVisionX, visionPose.getX()).d(kVisionY, visionPose.getY())
+      .d(kVisionRotation, visionPose.getRotation().getRadians()).d(kTargetDistance, targetDistanceMeters);
+  }
+}
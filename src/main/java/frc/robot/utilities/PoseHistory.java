@@ -0,0 +1,202 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Fixed-size history of the robot pose and field-relative velocity, so that a camera frame (or any other
+ * timestamped reading) can be matched with where the robot was when it was captured.
+ * <p> Samples are stored in primitive ring buffers, so add() does not allocate.  Lookups use a binary search
+ * (O(log n)) and interpolate linearly between the two samples around the requested time (the angle is
+ * interpolated the short way around).  Times before the oldest sample return the oldest sample, and times
+ * after the newest sample return the newest sample.
+ * <pre>
+ *   Pose2d poseAtFrame = driveTrain.getPoseAt(result.getTimestampSeconds());
+ * </pre>
+ * Timestamps are FPGA time in seconds (the same time base as Timer.getFPGATimestamp() and PhotonVision results).
+ * Phoenix signal timestamps (StatusSignal.getTimestamp()) are Phoenix time, not FPGA time, so do not add or look up
+ * samples with them.  All methods are synchronized, so the history can be read from other threads.
+ */
+public class PoseHistory {
+  private final int capacity;
+  private final double[] time;
+  private final double[] x, y, theta;           // Pose, in meters and radians
+  private final double[] vx, vy, omega;         // Field-relative velocity, in m/s and rad/s
+  private int start = 0;                        // Index of the oldest sample
+  private int size = 0;                         // Number of samples
+
+  /**
+   * @param capacity number of samples to keep
+   */
+  public PoseHistory(int capacity) {
+    this.capacity = capacity;
+    time = new double[capacity];
+    x = new double[capacity];
+    y = new double[capacity];
+    theta = new double[capacity];
+    vx = new double[capacity];
+    vy = new double[capacity];
+    omega = new double[capacity];
+  }
+
+  /**
+   * Adds a sample.  Samples must be added in time order:  a sample at the same time as the newest
+   * sample replaces it, and an older sample is ignored.  If the history is full, the oldest sample is dropped.
+   * @param timestampSeconds FPGA time of the sample, in seconds
+   * @param pose robot pose on the field
+   * @param fieldSpeeds robot velocity in the field frame of reference
+   */
+  public void add(double timestampSeconds, Pose2d pose, ChassisSpeeds fieldSpeeds) {
+    add(timestampSeconds, pose.getX(), pose.getY(), pose.getRotation().getRadians(),
+        fieldSpeeds.vxMetersPerSecond, fieldSpeeds.vyMetersPerSecond, fieldSpeeds.omegaRadiansPerSecond);
+  }
+
+  /**
+   * Adds a sample.  Samples must be added in time order:  a sample at the same time as the newest
+   * sample replaces it, and an older sample is ignored.  If the history is full, the oldest sample is dropped.
+   * @param timestampSeconds FPGA time of the sample, in seconds
+   * @param xMeters robot x on the field, in meters
+   * @param yMeters robot y on the field, in meters
+   * @param thetaRadians robot angle on the field, in radians
+   * @param vxMetersPerSecond field-relative x velocity, in m/s
+   * @param vyMetersPerSecond field-relative y velocity, in m/s
+   * @param omegaRadiansPerSecond angular velocity, in rad/s
+   */
+  public synchronized void add(double timestampSeconds, double xMeters, double yMeters, double thetaRadians,
+      double vxMetersPerSecond, double vyMetersPerSecond, double omegaRadiansPerSecond) {
+    int i;
+    if (size > 0 && timestampSeconds <= time[index(size - 1)]) {
+      if (timestampSeconds < time[index(size - 1)]) return;
+      i = index(size - 1);
+    } else if (size < capacity) {
+      i = index(size);
+      size++;
+    } else {
+      i = start;
+      start = (start + 1) % capacity;
+    }
+    time[i] = timestampSeconds;
+    x[i] = xMeters;
+    y[i] = yMeters;
+    theta[i] = thetaRadians;
+    vx[i] = vxMetersPerSecond;
+    vy[i] = vyMetersPerSecond;
+    omega[i] = omegaRadiansPerSecond;
+  }
+
+  /**
+   * Removes all samples (ex. when the pose is reset, since the old poses are no longer in the same frame).
+   */
+  public synchronized void clear() {
+    start = 0;
+    size = 0;
+  }
+
+  /**
+   * @return number of samples in the history
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @return time of the oldest sample, in seconds (NaN if empty)
+   */
+  public synchronized double getOldestTimestamp() {
+    return (size == 0) ? Double.NaN : time[start];
+  }
+
+  /**
+   * @return time of the newest sample, in seconds (NaN if empty)
+   */
+  public synchronized double getNewestTimestamp() {
+    return (size == 0) ? Double.NaN : time[index(size - 1)];
+  }
+
+  /**
+   * Returns the interpolated robot pose at a time.
+   * @param timestampSeconds FPGA time, in seconds
+   * @return robot pose on the field at that time, or null if the history is empty
+   */
+  public synchronized Pose2d getPoseAt(double timestampSeconds) {
+    if (size == 0) return null;
+    int n = search(timestampSeconds);
+    int i0 = index(n), i1 = index(Math.min(n + 1, size - 1));
+    double t = fraction(timestampSeconds, i0, i1);
+    return new Pose2d(MathUtil.interpolate(x[i0], x[i1], t), MathUtil.interpolate(y[i0], y[i1], t),
+        new Rotation2d(interpolateAngle(theta[i0], theta[i1], t)));
+  }
+
+  /**
+   * Returns the interpolated robot angle at a time, without allocating.
+   * @param timestampSeconds FPGA time, in seconds
+   * @return robot angle on the field at that time, in degrees (-180 to +180), or NaN if the history is empty
+   */
+  public synchronized double getHeadingDegreesAt(double timestampSeconds) {
+    if (size == 0) return Double.NaN;
+    int n = search(timestampSeconds);
+    int i0 = index(n), i1 = index(Math.min(n + 1, size - 1));
+    return Math.toDegrees(interpolateAngle(theta[i0], theta[i1], fraction(timestampSeconds, i0, i1)));
+  }
+
+  /**
+   * Returns the interpolated robot velocity at a time.
+   * @param timestampSeconds FPGA time, in seconds
+   * @return robot velocity <b>in the field frame of reference</b> at that time, or null if the history is empty
+   */
+  public synchronized ChassisSpeeds getVelocityAt(double timestampSeconds) {
+    if (size == 0) return null;
+    int n = search(timestampSeconds);
+    int i0 = index(n), i1 = index(Math.min(n + 1, size - 1));
+    double t = fraction(timestampSeconds, i0, i1);
+    return new ChassisSpeeds(MathUtil.interpolate(vx[i0], vx[i1], t), MathUtil.interpolate(vy[i0], vy[i1], t),
+        MathUtil.interpolate(omega[i0], omega[i1], t));
+  }
+
+  /**
+   * @param n sample number (0 = oldest)
+   * @return array index of the sample
+   */
+  private int index(int n) {
+    return (start + n) % capacity;
+  }
+
+  /**
+   * Binary search for the newest sample at or before a time.
+   * @return sample number (0 = oldest).  0 if the time is before the oldest sample.
+   */
+  private int search(double timestampSeconds) {
+    int low = 0, high = size - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (time[index(mid)] <= timestampSeconds) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return fraction of the way from sample i0 to sample i1 at the time, from 0 to 1
+   */
+  private double fraction(double timestampSeconds, int i0, int i1) {
+    double dt = time[i1] - time[i0];
+    if (dt <= 0) return 0.0;
+    return MathUtil.clamp((timestampSeconds - time[i0]) / dt, 0.0, 1.0);
+  }
+
+  /**
+   * @return angle interpolated the short way around from a0 to a1, in radians (-pi to pi)
+   */
+  private static double interpolateAngle(double a0, double a1, double t) {
+    return MathUtil.angleModulus(a0 + MathUtil.angleModulus(a1 - a0) * t);
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Re-runs the pose estimator (PoseFusion) on the gyro, module position, and vision inputs
+ * recorded in a FileLog file, as fast as the inputs can be read.
+ * <p> The inputs are only logged when the "Drive" log level is debug (1).  Each "Drive,Odometry Input"
+ * line is one odometry update (one robot cycle, or one sample from OdometryThread), and each "Drive,Vision Input"
+ * line is one vision measurement.  OdometryThread logs the inputs in the order it applies them, so each line is
+ * applied as it is read, in the same order as on the robot.  After each odometry update, the replayed pose is
+ * compared to the pose that was logged by the robot after that update.
+ * <p> Use this to try a change to PoseFusion or to the vision gating without re-running a match.
+ * Run from the desktop with:  ./gradlew replayPose --args="logfile.csv [closeMeters farMeters farStdDev]"
+ * (the command line tool is PoseReplayTool in src/test, so it is not in the robot jar).
+ */
+public class PoseReplay {
+
+  /** Summary of a replay run */
+  public static class Result {
+    public int cycles = 0;
+    public int resets = 0;
+    public int visionMeasurements = 0;
+    public int visionUsed = 0;
+    public double maxErrorMeters = 0;
+    public double maxErrorDegrees = 0;
+    public double rmsErrorMeters = 0;
+    public double finalErrorMeters = 0;
+    public double runSeconds = 0;
+    public double matchSeconds = 0;
+
+    @Override
+    public String toString() {
+      return String.format("Cycles %d (%.1f s of robot time in %.3f s), resets %d, vision %d used of %d%n" +
+          "Pose error vs logged pose:  max %.4f m, RMS %.4f m, final %.4f m, max rotation %.3f deg",
+        cycles, matchSeconds, runSeconds, resets, visionUsed, visionMeasurements,
+        maxErrorMeters, rmsErrorMeters, finalErrorMeters, maxErrorDegrees);
+    }
+  }
+
+  /**
+   * Replays a log file.
+   * @param logFile FileLog .csv or .csv.gz file, with the Drive log level at debug
+   * @param configure called with each new PoseFusion before it is used (ex. to change the vision gating).  May be null.
+   * @return summary of the run
+   */
+  public static Result run(File logFile, Consumer<PoseFusion> configure) throws IOException {
+    Result result = new Result();
+    PoseFusion fusion = null;
+    SwerveModulePosition[] modulePositions = new SwerveModulePosition[PoseFusion.kModuleDistance.length];
+    double sumSquaredError = 0;
+    double firstTime = Double.NaN, lastTime = Double.NaN;
+    long startNanos = System.nanoTime();
+
+    try (BufferedReader reader = open(logFile)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 3 || !fields[1].equals("Drive")) continue;
+
+        switch (fields[2]) {
+          case "Vision Input": {
+            if (fusion == null) break;      // Before the first odometry input
+            Pose2d visionPose = new Pose2d(value(fields, PoseFusion.kVisionX), value(fields, PoseFusion.kVisionY),
+              new Rotation2d(value(fields, PoseFusion.kVisionRotation)));
+            int used = fusion.addVisionMeasurement(visionPose, value(fields, PoseFusion.kTime), value(fields, PoseFusion.kTargetDistance));
+            result.visionMeasurements++;
+            if (used != PoseFusion.kVisionRejected) result.visionUsed++;
+            break;
+          }
+
+          case "Odometry Reset":
+          case "Odometry Input": {
+            double time = value(fields, PoseFusion.kTime);
+            Rotation2d gyroAngle = new Rotation2d(value(fields, PoseFusion.kGyro));
+            for (int i = 0; i < modulePositions.length; i++) {
+              modulePositions[i] = new SwerveModulePosition(value(fields, PoseFusion.kModuleDistance[i]),
+                new Rotation2d(value(fields, PoseFusion.kModuleAngle[i])));
+            }
+            Pose2d loggedPose = new Pose2d(value(fields, PoseFusion.kPoseX), value(fields, PoseFusion.kPoseY),
+              new Rotation2d(value(fields, PoseFusion.kPoseRotation)));
+
+            if (fusion == null) {
+              // Start from the first logged pose
+              fusion = new PoseFusion(DriveConstants.kDriveKinematics, gyroAngle, modulePositions, loggedPose);
+              if (configure != null) configure.accept(fusion);
+            }
+
+            if (fields[2].equals("Odometry Reset")) {
+              fusion.resetPosition(gyroAngle, modulePositions, loggedPose);
+              result.resets++;
+              break;
+            }
+
+            Pose2d pose = fusion.updateOdometry(time, gyroAngle, modulePositions);
+            double error = pose.getTranslation().getDistance(loggedPose.getTranslation());
+            double errorDegrees = Math.abs(pose.getRotation().minus(loggedPose.getRotation()).getDegrees());
+            result.cycles++;
+            result.maxErrorMeters = Math.max(result.maxErrorMeters, error);
+            result.maxErrorDegrees = Math.max(result.maxErrorDegrees, errorDegrees);
+            result.finalErrorMeters = error;
+            sumSquaredError += error * error;
+
+            if (Double.isNaN(firstTime)) firstTime = time;
+            lastTime = time;
+            break;
+          }
+        }
+      }
+    }
+
+    result.runSeconds = (System.nanoTime() - startNanos) / 1e9;
+    result.matchSeconds = Double.isNaN(firstTime) ? 0 : lastTime - firstTime;
+    result.rmsErrorMeters = (result.cycles == 0) ? 0 : Math.sqrt(sumSquaredError / result.cycles);
+    return result;
+  }
+
+  /**
+   * Gets the value after a name in a log line ("time,subsystem,event,name,value,name,value,...").
+   * @return value, or NaN if the name is missing
+   */
+  private static double value(String[] fields, String name) {
+    for (int i = 3; i + 1 < fields.length; i += 2) {
+      if (fields[i].equals(name)) {
+        return Double.parseDouble(fields[i + 1]);
+      }
+    }
+    return Double.NaN;
+  }
+
+  private static BufferedReader open(File logFile) throws IOException {
+    InputStream in = new FileInputStream(logFile);
+    if (logFile.getName().endsWith(".gz")) {
+      in = new GZIPInputStream(in, 65536);
+    }
+    return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536);
+  }
+}
@@ -10,6 +10,8 @@ package frc.robot.utilities;
 import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.LogConstants;
+import frc.robot.Constants.SignalConstants;
 import frc.robot.Constants.WristConstants;
 
 /**
@@ -37,6 +39,9 @@ public class RobotPreferences {
 
         WristConstants.revEncoderOffsetAngleWrist = readDouble("Wrist.offsetAngleWrist", WristConstants.revEncoderOffsetAngleWrist);
 
+        LogConstants.logLevel = FileLog.clampLogLevel((int) readDouble("FileLog.logLevel", LogConstants.logLevel));
+        SignalConstants.labProfile = readBoolean("Signal.labProfile", SignalConstants.labProfile);
+
         problemSubsystem = readString("problemSubsystem", problemSubsystem);
         problemExists = readBoolean("problemExists", problemExists);
     }
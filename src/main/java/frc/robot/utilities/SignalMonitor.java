@@ -0,0 +1,268 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+import frc.robot.Constants.SignalConstants;
+
+/**
+ * Measures how the robot code reads CTRE status signals:  how many times each signal is refreshed
+ * per robot cycle, how old the value is when it is read, and how many reads return an error (such as a timeout).
+ * <p> Refresh signals through this class instead of calling refresh() on the signal:
+ * <pre>
+ *   return SignalMonitor.refresh(feederVoltage).getValueAsDouble();
+ *   ...
+ *   SignalMonitor.refreshAll(statusSignals);
+ * </pre>
+ * SignalProfile.apply() registers each signal with the name of its profile (one subsystem or swerve module)
+ * and its update rate, and the statistics are summarized for each profile.
+ * <p> A signal is stale if its age when it is read is more than SignalConstants.staleSignalPeriods update periods
+ * (and at least SignalConstants.staleSignalMinMs).  periodic() logs a "Stale Signal" event when a signal becomes stale
+ * and a "Signal Fresh" event when it recovers.
+ * <p> Reads per cycle, max age, and errors are published to the dashboard once per second, and written to the
+ * log (and cleared) on each mode transition by logSummary().
+ * Only call from the robot loop thread (the odometry thread reads its own copies of the signals).
+ */
+public class SignalMonitor {
+  private static final long kPublishPeriodNanos = 1_000_000_000L;
+
+  private static final Map<BaseStatusSignal, SignalStats> signals = new IdentityHashMap<>();
+  private static final Map<String, Device> devices = new LinkedHashMap<>();
+  private static final List<SignalStats> staleChanged = new ArrayList<>();   // Signals that became stale or fresh this cycle
+  private static final Telemetry telemetry = new Telemetry();
+  private static final Telemetry.BooleanValue dashStale = telemetry.bool("Signals Stale", Telemetry.kRate1Hz);
+  private static final Telemetry.DoubleValue dashStaleCount = telemetry.number("Signals Stale Count", 0.5, Telemetry.kRate1Hz);
+  private static int staleCount = 0;            // Number of signals that are stale now
+  private static long nextPublishNanos = 0;
+  private static String mode = "Startup";       // Robot mode that the current summary is for
+
+  /** Read statistics over a time period */
+  private static class Totals {
+    int cycles = 0;
+    int reads = 0;
+    int maxReadsPerCycle = 0;
+    int errors = 0;
+    int staleEvents = 0;
+    double sumAgeSeconds = 0;
+    double maxAgeSeconds = 0;
+
+    void addRead(double ageSeconds, boolean error) {
+      reads++;
+      sumAgeSeconds += ageSeconds;
+      if (ageSeconds > maxAgeSeconds) maxAgeSeconds = ageSeconds;
+      if (error) errors++;
+    }
+
+    void endCycle(int cycleReads) {
+      cycles++;
+      if (cycleReads > maxReadsPerCycle) maxReadsPerCycle = cycleReads;
+    }
+
+    double getReadsPerCycle() {
+      return (cycles == 0) ? 0 : reads / (double) cycles;
+    }
+
+    double getMeanAgeMs() {
+      return (reads == 0) ? 0 : sumAgeSeconds * 1000.0 / reads;
+    }
+
+    double getErrorRate() {
+      return (reads == 0) ? 0 : errors / (double) reads;
+    }
+
+    void reset() {
+      cycles = reads = maxReadsPerCycle = errors = staleEvents = 0;
+      sumAgeSeconds = maxAgeSeconds = 0;
+    }
+  }
+
+  /** Statistics for the signals in one SignalProfile */
+  private static class Device {
+    final String name;
+    final Totals window = new Totals();       // Since the last dashboard update
+    final Totals modeTotals = new Totals();   // Since the last mode transition
+    int cycleReads = 0;                       // Reads in the current cycle
+    final Telemetry.DoubleValue dashReadsPerCycle, dashMaxAge, dashErrors;
+
+    Device(String name) {
+      this.name = name;
+      dashReadsPerCycle = telemetry.number(StringUtil.buildString("Signals ", name, " reads per cycle"), 0.1);
+      dashMaxAge = telemetry.number(StringUtil.buildString("Signals ", name, " max age ms"), 1.0);
+      dashErrors = telemetry.number(StringUtil.buildString("Signals ", name, " errors"), 0.5);
+    }
+  }
+
+  /** Statistics for one signal */
+  private static class SignalStats {
+    final BaseStatusSignal signal;
+    final Device device;
+    double staleSeconds;              // Age at which the signal is stale
+    boolean stale = false;
+    double lastAgeSeconds = 0;
+    StatusCode lastStatus = StatusCode.OK;
+
+    SignalStats(BaseStatusSignal signal, Device device, double updateHz) {
+      this.signal = signal;
+      this.device = device;
+      setUpdateRate(updateHz);
+    }
+
+    void setUpdateRate(double updateHz) {
+      double minSeconds = SignalConstants.staleSignalMinMs / 1000.0;
+      staleSeconds = (updateHz > 0) ? Math.max(minSeconds, SignalConstants.staleSignalPeriods / updateHz) : minSeconds;
+    }
+  }
+
+  /**
+   * Registers a signal, or changes its update rate.  Called by SignalProfile.apply().
+   * @param deviceName name of the profile that the signal is in
+   * @param signal signal
+   * @param updateHz update rate of the signal, in Hz
+   */
+  public static void register(String deviceName, BaseStatusSignal signal, double updateHz) {
+    SignalStats stats = signals.get(signal);
+    if (stats == null) {
+      signals.put(signal, new SignalStats(signal, getDevice(deviceName), updateHz));
+    } else {
+      stats.setUpdateRate(updateHz);
+    }
+  }
+
+  private static Device getDevice(String name) {
+    Device device = devices.get(name);
+    if (device == null) {
+      device = new Device(name);
+      devices.put(name, device);
+    }
+    return device;
+  }
+
+  /**
+   * Refreshes one signal from the CAN bus and records the read.
+   * @param signal signal to refresh
+   * @return the signal
+   */
+  public static <T extends StatusSignal<?>> T refresh(T signal) {
+    signal.refresh();
+    if (SignalConstants.monitorSignals) record(signal);
+    return signal;
+  }
+
+  /**
+   * Refreshes a group of signals from the CAN bus in one call and records the reads.
+   * @param signalsToRefresh signals to refresh
+   * @return status of the refresh
+   */
+  public static StatusCode refreshAll(BaseStatusSignal... signalsToRefresh) {
+    StatusCode status = BaseStatusSignal.refreshAll(signalsToRefresh);
+    if (SignalConstants.monitorSignals) {
+      for (BaseStatusSignal signal : signalsToRefresh) {
+        record(signal);
+      }
+    }
+    return status;
+  }
+
+  private static void record(BaseStatusSignal signal) {
+    SignalStats stats = signals.get(signal);
+    if (stats == null) {
+      // Signal is not in a SignalProfile, so the update rate is not known
+      stats = new SignalStats(signal, getDevice("Unregistered"), 0);
+      signals.put(signal, stats);
+    }
+
+    double ageSeconds = signal.getTimestamp().getLatency();
+    StatusCode status = signal.getStatus();
+    stats.lastAgeSeconds = ageSeconds;
+    stats.lastStatus = status;
+
+    Device device = stats.device;
+    device.cycleReads++;
+    device.window.addRead(ageSeconds, !status.isOK());
+    device.modeTotals.addRead(ageSeconds, !status.isOK());
+
+    boolean stale = ageSeconds > stats.staleSeconds;
+    if (stale != stats.stale) {
+      stats.stale = stale;
+      staleCount += stale ? 1 : -1;
+      if (stale) {
+        device.window.staleEvents++;
+        device.modeTotals.staleEvents++;
+      }
+      staleChanged.add(stats);
+    }
+  }
+
+  /**
+   * Ends the robot cycle:  logs stale signal events, and publishes the statistics to the dashboard once per second.
+   * Call once per robot cycle, after the subsystems and commands have run.
+   * @param log FileLog
+   */
+  public static void periodic(FileLog log) {
+    for (SignalStats stats : staleChanged) {
+      log.writeLogEcho(true, "SignalMonitor", stats.stale ? "Stale Signal" : "Signal Fresh",
+        "Device", stats.device.name, "Signal", stats.signal.getName(),
+        "Age ms", stats.lastAgeSeconds * 1000.0, "Limit ms", stats.staleSeconds * 1000.0, "Status", stats.lastStatus);
+    }
+    staleChanged.clear();
+
+    for (Device device : devices.values()) {
+      device.window.endCycle(device.cycleReads);
+      device.modeTotals.endCycle(device.cycleReads);
+      device.cycleReads = 0;
+    }
+
+    long now = System.nanoTime();
+    if (now - nextPublishNanos < 0) return;
+    nextPublishNanos = now + kPublishPeriodNanos;
+
+    telemetry.startSnapshot();
+    dashStale.set(staleCount > 0);
+    dashStaleCount.set(staleCount);
+    for (Device device : devices.values()) {
+      device.dashReadsPerCycle.set(device.window.getReadsPerCycle());
+      device.dashMaxAge.set(device.window.maxAgeSeconds * 1000.0);
+      device.dashErrors.set(device.window.errors);
+      device.window.reset();
+    }
+    telemetry.endSnapshot();
+  }
+
+  /**
+   * Writes the statistics for each profile in the mode that just ended to the log, then clears them.
+   * Call on each mode transition.
+   * @param log FileLog
+   * @param newMode mode that is starting
+   */
+  public static void logSummary(FileLog log, String newMode) {
+    for (Device device : devices.values()) {
+      Totals totals = device.modeTotals;
+      if (totals.reads == 0) continue;
+      log.record(true, "SignalMonitor", device.name).s("Mode", mode).i("Cycles", totals.cycles)
+        .d("Reads per cycle", totals.getReadsPerCycle()).i("Max reads per cycle", totals.maxReadsPerCycle)
+        .d("Mean age ms", totals.getMeanAgeMs()).d("Max age ms", totals.maxAgeSeconds * 1000.0)
+        .i("Errors", totals.errors).d("Error rate", totals.getErrorRate())
+        .i("Stale events", totals.staleEvents).commit();
+      totals.reset();
+    }
+    mode = newMode;
+  }
+
+  /**
+   * @return number of signals that were stale the last time they were read
+   */
+  public static int getStaleCount() {
+    return staleCount;
+  }
+}
@@ -0,0 +1,133 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.hardware.ParentDevice;
+
+import frc.robot.Constants.SignalConstants;
+
+/**
+ * Sets how often the CAN devices in a subsystem send each status signal.
+ * <p> Each signal that the code reads is put in a tier:
+ * <ul>
+ * <li> odometry:  swerve encoders and gyro
+ * <li> control:  mechanism feedback that periodic() or commands use for control
+ * <li> diagnostic:  temperatures, currents, voltages, and faults that are only logged or displayed
+ * </ul>
+ * apply() sets the rate for each tier (from SignalConstants) and then turns off all other status
+ * frames on the devices with optimizeBusUtilization(), so every signal that the code reads must be in the profile.
+ * <pre>
+ *   signalProfile = new SignalProfile("Feeder", feeder)
+ *     .control(feederEncoderVelocity, feederDutyCycle)
+ *     .diagnostic(feederTemp, feederStatorCurrent);
+ *   signalProfile.apply(log);
+ * </pre>
+ * The competition profile uses lower rates for diagnostics to reduce CAN bus load.  setLabProfile()
+ * switches all profiles between competition and lab rates.
+ */
+public class SignalProfile {
+  private static final List<SignalProfile> profiles = new ArrayList<>();    // Profiles that have been applied
+  private static boolean labProfile = SignalConstants.labProfile;
+
+  private final String name;
+  private final ParentDevice[] devices;
+  private final List<BaseStatusSignal> odometrySignals = new ArrayList<>();
+  private final List<BaseStatusSignal> controlSignals = new ArrayList<>();
+  private final List<BaseStatusSignal> diagnosticSignals = new ArrayList<>();
+
+  /**
+   * @param name subsystem name, for the log
+   * @param devices all of the CTRE devices in the subsystem
+   */
+  public SignalProfile(String name, ParentDevice... devices) {
+    this.name = name;
+    this.devices = devices;
+  }
+
+  /**
+   * Adds signals that are used for odometry.
+   * @return this profile
+   */
+  public SignalProfile odometry(BaseStatusSignal... signals) {
+    odometrySignals.addAll(List.of(signals));
+    return this;
+  }
+
+  /**
+   * Adds signals that are used for control.
+   * @return this profile
+   */
+  public SignalProfile control(BaseStatusSignal... signals) {
+    controlSignals.addAll(List.of(signals));
+    return this;
+  }
+
+  /**
+   * Adds signals that are only logged or displayed.
+   * @return this profile
+   */
+  public SignalProfile diagnostic(BaseStatusSignal... signals) {
+    diagnosticSignals.addAll(List.of(signals));
+    return this;
+  }
+
+  /**
+   * Sets the update rate of each signal and turns off the unused status frames.
+   * This makes blocking CAN calls, so only call it at startup or when the robot is disabled.
+   * @param log FileLog
+   * @return OK, or the first error
+   */
+  public StatusCode apply(FileLog log) {
+    if (!profiles.contains(this)) profiles.add(this);
+
+    StatusCode status = setFrequency(name, odometrySignals, SignalConstants.odometryHz);
+    status = firstError(status, setFrequency(name, controlSignals, labProfile ? SignalConstants.labControlHz : SignalConstants.competitionControlHz));
+    status = firstError(status, setFrequency(name, diagnosticSignals, labProfile ? SignalConstants.labDiagnosticHz : SignalConstants.competitionDiagnosticHz));
+    if (SignalConstants.optimizeBusUtilization) {
+      status = firstError(status, ParentDevice.optimizeBusUtilizationForAll(devices));
+    }
+
+    log.writeLog(true, name, "Signal Profile", "Profile", labProfile ? "Lab" : "Competition",
+      "Signals", odometrySignals.size() + controlSignals.size() + diagnosticSignals.size(), "Status", status);
+    return status;
+  }
+
+  private static StatusCode setFrequency(String name, List<BaseStatusSignal> signals, double frequencyHz) {
+    if (signals.isEmpty()) return StatusCode.OK;
+    for (BaseStatusSignal signal : signals) {
+      SignalMonitor.register(name, signal, frequencyHz);
+    }
+    return BaseStatusSignal.setUpdateFrequencyForAll(frequencyHz, signals.toArray(new BaseStatusSignal[0]));
+  }
+
+  private static StatusCode firstError(StatusCode status, StatusCode next) {
+    return status.isOK() ? next : status;
+  }
+
+  /**
+   * Switches all applied profiles between the competition and lab rates.
+   * This makes blocking CAN calls, so only call it when the robot is disabled.
+   * @param lab true = lab rates (faster diagnostics), false = competition rates
+   * @param log FileLog
+   */
+  public static void setLabProfile(boolean lab, FileLog log) {
+    labProfile = lab;
+    for (SignalProfile profile : profiles) {
+      profile.apply(log);
+    }
+  }
+
+  /**
+   * @return true = lab rates, false = competition rates
+   */
+  public static boolean isLabProfile() {
+    return labProfile;
+  }
+}
@@ -0,0 +1,208 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Swerve drive kinematics for a 4 module robot, using doubles and caller-owned arrays instead of
+ * ChassisSpeeds, SwerveModuleState, and EJML matrices, so that the drive code does not allocate each cycle.
+ * Gives the same results as WPILib's SwerveDriveKinematics (to rounding), including keeping the last
+ * module angles when the robot is stopped.
+ * <p> Chassis speeds are {vx, vy, omega} in meters per second and radians per second, in the robot frame.
+ * Module speeds are in meters per second, and module angles are in radians.  Modules are in the
+ * same order as the constructor (0 = FrontLeft, 1 = FrontRight, 2 = BackLeft, 3 = BackRight).
+ * <p> Not thread safe:  use one instance per thread.
+ */
+public class SwerveDriveKinematicsBCR {
+  public static final int kNumModules = 4;
+
+  private final double[] moduleX = new double[kNumModules];     // Module locations relative to the robot center, in meters
+  private final double[] moduleY = new double[kNumModules];
+
+  // Inverse kinematics for the last center of rotation:  module locations relative to the center of rotation
+  private double centerX = 0.0, centerY = 0.0;
+  private final double[] relativeX = new double[kNumModules];
+  private final double[] relativeY = new double[kNumModules];
+
+  // Forward kinematics:  pseudo-inverse of the inverse kinematics matrix (about the robot center), 3 rows x (2 * modules) columns
+  private final double[][] forward = new double[3][2 * kNumModules];
+
+  private final double[] lastAnglesRadians = new double[kNumModules];   // Module angles from the last non-zero chassis speeds
+
+  /**
+   * @param moduleLocations locations of the 4 modules relative to the robot center, in meters (+x = forward, +y = left)
+   */
+  public SwerveDriveKinematicsBCR(Translation2d... moduleLocations) {
+    if (moduleLocations.length != kNumModules) {
+      throw new IllegalArgumentException("SwerveDriveKinematicsBCR requires 4 modules");
+    }
+    for (int i = 0; i < kNumModules; i++) {
+      moduleX[i] = moduleLocations[i].getX();
+      moduleY[i] = moduleLocations[i].getY();
+      relativeX[i] = moduleX[i];
+      relativeY[i] = moduleY[i];
+    }
+
+    // Inverse kinematics matrix A (rows {1, 0, -y} and {0, 1, x} for each module).
+    // Forward kinematics = (A^T A)^-1 A^T, which is the least-squares solution used by WPILib.
+    double sumX = 0, sumY = 0, sumR2 = 0;
+    for (int i = 0; i < kNumModules; i++) {
+      sumX += moduleX[i];
+      sumY += moduleY[i];
+      sumR2 += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+    }
+    double[][] ata = {
+      {kNumModules, 0, -sumY},
+      {0, kNumModules, sumX},
+      {-sumY, sumX, sumR2}
+    };
+    double[][] inverse = invert3x3(ata);
+    for (int r = 0; r < 3; r++) {
+      for (int i = 0; i < kNumModules; i++) {
+        forward[r][2 * i] = inverse[r][0] - inverse[r][2] * moduleY[i];
+        forward[r][2 * i + 1] = inverse[r][1] + inverse[r][2] * moduleX[i];
+      }
+    }
+  }
+
+  /**
+   * Inverse kinematics:  calculates the module speeds and angles for chassis speeds about the robot center.
+   * @param vx robot x velocity, in m/s (+ = forward)
+   * @param vy robot y velocity, in m/s (+ = left)
+   * @param omega robot angular velocity, in rad/s (+ = counterclockwise)
+   * @param speeds set to the module speeds, in m/s
+   * @param anglesRadians set to the module angles, in radians
+   */
+  public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] anglesRadians) {
+    toModuleStates(vx, vy, omega, 0.0, 0.0, speeds, anglesRadians);
+  }
+
+  /**
+   * Inverse kinematics:  calculates the module speeds and angles for chassis speeds about a center of rotation.
+   * If all of the chassis speeds are zero, the modules keep their last angles.
+   * @param vx robot x velocity, in m/s (+ = forward)
+   * @param vy robot y velocity, in m/s (+ = left)
+   * @param omega robot angular velocity, in rad/s (+ = counterclockwise)
+   * @param centerOfRotationX center of rotation relative to the robot center, in meters
+   * @param centerOfRotationY center of rotation relative to the robot center, in meters
+   * @param speeds set to the module speeds, in m/s
+   * @param anglesRadians set to the module angles, in radians
+   */
+  public void toModuleStates(double vx, double vy, double omega, double centerOfRotationX, double centerOfRotationY,
+      double[] speeds, double[] anglesRadians) {
+    if (vx == 0.0 && vy == 0.0 && omega == 0.0) {
+      for (int i = 0; i < kNumModules; i++) {
+        speeds[i] = 0.0;
+        anglesRadians[i] = lastAnglesRadians[i];
+      }
+      return;
+    }
+
+    if (centerOfRotationX != centerX || centerOfRotationY != centerY) {
+      centerX = centerOfRotationX;
+      centerY = centerOfRotationY;
+      for (int i = 0; i < kNumModules; i++) {
+        relativeX[i] = moduleX[i] - centerX;
+        relativeY[i] = moduleY[i] - centerY;
+      }
+    }
+
+    for (int i = 0; i < kNumModules; i++) {
+      double moduleVx = vx - omega * relativeY[i];
+      double moduleVy = vy + omega * relativeX[i];
+      double speed = Math.hypot(moduleVx, moduleVy);
+      speeds[i] = speed;
+      // Same as Rotation2d(x, y):  angle = 0 if the module is not moving
+      anglesRadians[i] = (speed > 1e-6) ? Math.atan2(moduleVy, moduleVx) : 0.0;
+      lastAnglesRadians[i] = anglesRadians[i];
+    }
+  }
+
+  /**
+   * Forward kinematics:  calculates the chassis speeds (about the robot center) from the module speeds and angles.
+   * @param speeds module speeds, in m/s
+   * @param anglesRadians module angles, in radians
+   * @param chassisSpeeds set to {vx, vy, omega}, in m/s and rad/s
+   */
+  public void toChassisSpeeds(double[] speeds, double[] anglesRadians, double[] chassisSpeeds) {
+    double vx = 0, vy = 0, omega = 0;
+    for (int i = 0; i < kNumModules; i++) {
+      double moduleVx = speeds[i] * Math.cos(anglesRadians[i]);
+      double moduleVy = speeds[i] * Math.sin(anglesRadians[i]);
+      vx += forward[0][2 * i] * moduleVx + forward[0][2 * i + 1] * moduleVy;
+      vy += forward[1][2 * i] * moduleVx + forward[1][2 * i + 1] * moduleVy;
+      omega += forward[2][2 * i] * moduleVx + forward[2][2 * i + 1] * moduleVy;
+    }
+    chassisSpeeds[0] = vx;
+    chassisSpeeds[1] = vy;
+    chassisSpeeds[2] = omega;
+  }
+
+  /**
+   * Discretizes chassis speeds in place, the same as ChassisSpeeds.discretize():  finds the speeds that,
+   * driven along an arc for dtSeconds, end at the pose that the input speeds would reach if the robot
+   * translated and rotated at the same time.
+   * @param chassisSpeeds {vx, vy, omega}, in m/s and rad/s.  Set to the discretized speeds.
+   * @param dtSeconds time step, in seconds
+   */
+  public static void discretize(double[] chassisSpeeds, double dtSeconds) {
+    double dx = chassisSpeeds[0] * dtSeconds;
+    double dy = chassisSpeeds[1] * dtSeconds;
+    double dtheta = chassisSpeeds[2] * dtSeconds;
+
+    // Pose2d.log() of the pose (dx, dy, dtheta)
+    double halfDtheta = dtheta / 2.0;
+    double cosMinusOne = Math.cos(dtheta) - 1.0;
+    double halfThetaByTanOfHalfDtheta;
+    if (Math.abs(cosMinusOne) < 1e-9) {
+      halfThetaByTanOfHalfDtheta = 1.0 - 1.0 / 12.0 * dtheta * dtheta;
+    } else {
+      halfThetaByTanOfHalfDtheta = -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+    }
+    double twistX = dx * halfThetaByTanOfHalfDtheta + dy * halfDtheta;
+    double twistY = -dx * halfDtheta + dy * halfThetaByTanOfHalfDtheta;
+
+    chassisSpeeds[0] = twistX / dtSeconds;
+    chassisSpeeds[1] = twistY / dtSeconds;
+    chassisSpeeds[2] = dtheta / dtSeconds;
+  }
+
+  /**
+   * Scales the module speeds in place so that none is faster than maxSpeed, keeping the ratios between the
+   * modules (same as SwerveDriveKinematics.desaturateWheelSpeeds()).
+   * @param speeds module speeds, in m/s
+   * @param maxSpeed maximum module speed, in m/s
+   */
+  public static void desaturate(double[] speeds, double maxSpeed) {
+    double realMaxSpeed = 0.0;
+    for (double speed : speeds) {
+      realMaxSpeed = Math.max(realMaxSpeed, Math.abs(speed));
+    }
+    if (realMaxSpeed > maxSpeed) {
+      for (int i = 0; i < speeds.length; i++) {
+        speeds[i] = speeds[i] / realMaxSpeed * maxSpeed;
+      }
+    }
+  }
+
+  /**
+   * @return inverse of a 3x3 matrix
+   */
+  private static double[][] invert3x3(double[][] m) {
+    double c00 = m[1][1] * m[2][2] - m[1][2] * m[2][1];
+    double c01 = m[1][2] * m[2][0] - m[1][0] * m[2][2];
+    double c02 = m[1][0] * m[2][1] - m[1][1] * m[2][0];
+    double det = m[0][0] * c00 + m[0][1] * c01 + m[0][2] * c02;
+    if (Math.abs(det) < 1e-12) {
+      throw new IllegalArgumentException("SwerveDriveKinematicsBCR:  module locations must not be in a line");
+    }
+    return new double[][] {
+      {c00 / det, (m[0][2] * m[2][1] - m[0][1] * m[2][2]) / det, (m[0][1] * m[1][2] - m[0][2] * m[1][1]) / det},
+      {c01 / det, (m[0][0] * m[2][2] - m[0][2] * m[2][0]) / det, (m[0][2] * m[1][0] - m[0][0] * m[1][2]) / det},
+      {c02 / det, (m[0][1] * m[2][0] - m[0][0] * m[2][1]) / det, (m[0][0] * m[1][1] - m[0][1] * m[1][0]) / det}
+    };
+  }
+}
@@ -0,0 +1,248 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.StructPublisher;
+
+/**
+ * Publishes dashboard values through NetworkTables publishers that are created once,
+ * instead of looking up the key on every SmartDashboard.putNumber() call.
+ * Values are published to the SmartDashboard table, so existing dashboard layouts still work.
+ * <p> Create one Telemetry per subsystem and create each value in the subsystem's constructor:
+ * <pre>
+ *   private final Telemetry telemetry = new Telemetry();
+ *   private final Telemetry.DoubleValue dashVoltage = telemetry.number("Shooter Voltage");
+ *   ...
+ *   telemetry.startSnapshot();
+ *   dashVoltage.set(getVoltage());
+ *   telemetry.endSnapshot();
+ * </pre>
+ * All values set between startSnapshot() and endSnapshot() get the same timestamp, so the dashboard
+ * (and NT logs) see one coherent snapshot of the subsystem.  Values set outside of a snapshot are
+ * stamped with the time of each set.
+ * <p> Slow-moving values (temperatures, bus voltage, flags) can be published only when they change
+ * by more than a deadband, and/or at a slower rate (kRate10Hz, kRate1Hz).  Use isDue() to skip
+ * reading a rate-limited value (such as a CAN refresh) on cycles when it would not be published:
+ * <pre>
+ *   private final Telemetry.DoubleValue dashTemp = telemetry.number("Shooter Temp C", 0.5, Telemetry.kRate1Hz);
+ *   ...
+ *   if (dashTemp.isDue()) dashTemp.set(motorTemp.refresh().getValueAsDouble());
+ * </pre>
+ */
+public class Telemetry {
+  // Publishing rates, as the minimum time between publishes in microseconds
+  public static final long kRateEveryCycle = 0;
+  public static final long kRate10Hz = 100_000;
+  public static final long kRate1Hz = 1_000_000;
+
+  private static volatile boolean shed = false;   // true = nothing is published (the robot loop is overrunning)
+
+  private final NetworkTable table;
+  private long timestamp = 0;         // NT timestamp of the current snapshot, in us (0 = time of each set)
+
+  /**
+   * Creates values in the SmartDashboard table.
+   */
+  public Telemetry() {
+    table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+  }
+
+  /**
+   * Starts a new snapshot.  Values set until endSnapshot() share this timestamp.
+   */
+  public void startSnapshot() {
+    timestamp = NetworkTablesJNI.now();
+  }
+
+  /**
+   * Ends the current snapshot.  Values set after this are stamped with the time of each set.
+   */
+  public void endSnapshot() {
+    timestamp = 0;
+  }
+
+  /**
+   * Stops (or restarts) publishing all dashboard values, when the robot loop is overrunning.
+   * While shed, isDue() returns false and set() does nothing.
+   * @param shed true = stop publishing, false = publish again
+   */
+  public static void setShed(boolean shed) {
+    Telemetry.shed = shed;
+  }
+
+  /**
+   * @return time of the current snapshot, or the current NT time if no snapshot was started, in us
+   */
+  private long now() {
+    return (timestamp != 0) ? timestamp : NetworkTablesJNI.now();
+  }
+
+  /**
+   * Creates a number value
+   * @param key SmartDashboard key
+   * @return value to set each cycle
+   */
+  public DoubleValue number(String key) {
+    return new DoubleValue(table.getDoubleTopic(key).publish(), -1.0, kRateEveryCycle);
+  }
+
+  /**
+   * Creates a number value that is only published when it changes by more than the deadband
+   * @param key SmartDashboard key
+   * @param deadband minimum change to publish (0 = any change)
+   * @return value to set each cycle
+   */
+  public DoubleValue number(String key, double deadband) {
+    return new DoubleValue(table.getDoubleTopic(key).publish(), deadband, kRateEveryCycle);
+  }
+
+  /**
+   * Creates a number value that is published at a slower rate, and only when it changes by more than the deadband
+   * @param key SmartDashboard key
+   * @param deadband minimum change to publish (0 = any change)
+   * @param rate kRate10Hz or kRate1Hz (or minimum time between publishes, in us)
+   * @return value to set each cycle
+   */
+  public DoubleValue number(String key, double deadband, long rate) {
+    return new DoubleValue(table.getDoubleTopic(key).publish(), deadband, rate);
+  }
+
+  /**
+   * Creates a boolean value
+   * @param key SmartDashboard key
+   * @return value to set each cycle
+   */
+  public BooleanValue bool(String key) {
+    return new BooleanValue(table.getBooleanTopic(key).publish(), kRateEveryCycle);
+  }
+
+  /**
+   * Creates a boolean value that is checked at a slower rate (it is only published when it changes)
+   * @param key SmartDashboard key
+   * @param rate kRate10Hz or kRate1Hz (or minimum time between publishes, in us)
+   * @return value to set each cycle
+   */
+  public BooleanValue bool(String key, long rate) {
+    return new BooleanValue(table.getBooleanTopic(key).publish(), rate);
+  }
+
+  /**
+   * Creates a Pose2d value, published as a struct (shows as a pose in AdvantageScope)
+   * @param key SmartDashboard key
+   * @return value to set each cycle
+   */
+  public PoseValue pose(String key) {
+    return new PoseValue(table.getStructTopic(key, Pose2d.struct).publish());
+  }
+
+  /**
+   * Creates a swerve module states value, published as a struct array
+   * @param key SmartDashboard key
+   * @return value to set each cycle
+   */
+  public StatesValue states(String key) {
+    return new StatesValue(table.getStructArrayTopic(key, SwerveModuleState.struct).publish());
+  }
+
+  /** A number on the dashboard */
+  public class DoubleValue {
+    private final DoublePublisher publisher;
+    private final double deadband;      // < 0 = publish every set()
+    private final long rate;            // minimum time between checks, in us
+    private boolean published = false;
+    private double lastValue;
+    private long lastCheck;
+
+    private DoubleValue(DoublePublisher publisher, double deadband, long rate) {
+      this.publisher = publisher;
+      this.deadband = deadband;
+      this.rate = rate;
+    }
+
+    /**
+     * @return true = the next set() will be checked against the deadband (the rate time has passed)
+     */
+    public boolean isDue() {
+      if (shed) return false;
+      return rate == kRateEveryCycle || !published || now() - lastCheck >= rate;
+    }
+
+    public void set(double value) {
+      if (!isDue()) return;
+      lastCheck = now();
+      if (published && Math.abs(value - lastValue) <= deadband) return;
+
+      publisher.set(value, timestamp);
+      lastValue = value;
+      published = true;
+    }
+  }
+
+  /** A boolean on the dashboard */
+  public class BooleanValue {
+    private final BooleanPublisher publisher;
+    private final long rate;            // minimum time between checks, in us
+    private boolean published = false;
+    private boolean lastValue;
+    private long lastCheck;
+
+    private BooleanValue(BooleanPublisher publisher, long rate) {
+      this.publisher = publisher;
+      this.rate = rate;
+    }
+
+    /**
+     * @return true = the next set() will be checked for a change (the rate time has passed)
+     */
+    public boolean isDue() {
+      if (shed) return false;
+      return rate == kRateEveryCycle || !published || now() - lastCheck >= rate;
+    }
+
+    public void set(boolean value) {
+      if (!isDue()) return;
+      lastCheck = now();
+      if (published && value == lastValue) return;
+
+      publisher.set(value, timestamp);
+      lastValue = value;
+      published = true;
+    }
+  }
+
+  /** A Pose2d on the dashboard */
+  public class PoseValue {
+    private final StructPublisher<Pose2d> publisher;
+
+    private PoseValue(StructPublisher<Pose2d> publisher) {
+      this.publisher = publisher;
+    }
+
+    public void set(Pose2d value) {
+      publisher.set(value, timestamp);
+    }
+  }
+
+  /** Swerve module states on the dashboard */
+  public class StatesValue {
+    private final StructArrayPublisher<SwerveModuleState> publisher;
+
+    private StatesValue(StructArrayPublisher<SwerveModuleState> publisher) {
+      this.publisher = publisher;
+    }
+
+    public void set(SwerveModuleState[] value) {
+      publisher.set(value, timestamp);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleFunction;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.subsystems.PhotonCameraWrapper;
+
+/**
+ * Reads AprilTag frames from the PhotonVision camera and solves the robot pose on a separate thread, so
+ * camera stalls and slow pose solves do not delay the robot loop.  Each solved frame is put in a lock-free
+ * queue as a Measurement, and the robot loop adds the waiting measurements to the pose estimator with poll().
+ * <p> The thread checks for new frames every VisionConstants.visionThreadPeriodMs.  Frames are solved in
+ * timestamp order, with the pose at the frame's timestamp as the reference pose.  If more than
+ * VisionConstants.maxQueuedMeasurements are waiting (the robot loop is not draining the queue), the oldest are dropped.
+ * <p> If the thread is not started, call processFrames() once per robot cycle instead.
+ */
+public class VisionThread {
+  private final PhotonCameraWrapper camera;
+  private final DoubleFunction<Pose2d> referencePose;   // Robot pose at a timestamp, for the pose solver
+  private final FileLog log;
+
+  private final Queue<Measurement> measurements = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();     // Number of measurements in the queue
+  private final Thread thread;
+  private volatile boolean running = false;
+
+  // Statistics, written only by the thread that processes frames
+  private volatile int measurementsDropped = 0;   // Measurements discarded because the queue was full
+  private volatile double lastSolveMs = 0;        // Time to solve the last frame
+  private volatile double maxSolveMs = 0;         // Longest time to solve a frame
+
+  /** Robot pose from one AprilTag frame */
+  public static class Measurement {
+    /** Robot pose on the field */
+    public final Pose2d pose;
+    /** FPGA time that the frame was captured, in seconds */
+    public final double timestampSeconds;
+    /** Number of AprilTags in the frame */
+    public final int tagCount;
+    /** Distance from the camera to the best target (forward), in meters.  Used to weight the measurement. */
+    public final double targetDistanceMeters;
+    /** Average distance from the camera to the targets, in meters */
+    public final double averageDistanceMeters;
+    /** Pose ambiguity of the best target (0 = not ambiguous, 1 = very ambiguous, -1 = not known) */
+    public final double ambiguity;
+
+    public Measurement(Pose2d pose, double timestampSeconds, int tagCount, double targetDistanceMeters,
+        double averageDistanceMeters, double ambiguity) {
+      this.pose = pose;
+      this.timestampSeconds = timestampSeconds;
+      this.tagCount = tagCount;
+      this.targetDistanceMeters = targetDistanceMeters;
+      this.averageDistanceMeters = averageDistanceMeters;
+      this.ambiguity = ambiguity;
+    }
+  }
+
+  /**
+   * @param camera AprilTag camera
+   * @param referencePose returns the robot pose at a timestamp (ex. DriveTrain.getPoseAt()).  Called from the thread.
+   * @param log FileLog
+   */
+  public VisionThread(PhotonCameraWrapper camera, DoubleFunction<Pose2d> referencePose, FileLog log) {
+    this.camera = camera;
+    this.referencePose = referencePose;
+    this.log = log;
+
+    thread = new Thread(this::run, "VisionThread");
+    thread.setDaemon(true);
+  }
+
+  /**
+   * Starts the vision thread.  After this, do not call processFrames().
+   */
+  public void start() {
+    if (running) return;
+    running = true;
+    thread.start();
+    log.writeLogEcho(true, "Vision", "Vision Thread Start", "Period ms", VisionConstants.visionThreadPeriodMs);
+  }
+
+  /**
+   * @return true = the vision thread is processing the camera frames
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        processFrames();
+      } catch (RuntimeException e) {
+        // Keep the thread running if one frame fails to solve
+        log.writeLogEcho(true, "Vision", "Vision Thread Exception", "Exception", e.toString());
+      }
+      try {
+        Thread.sleep(VisionConstants.visionThreadPeriodMs);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Solves the robot pose for each unread camera frame and queues the measurements.  Called by the thread,
+   * or once per robot cycle if the thread is not running.
+   */
+  public void processFrames() {
+    if (!camera.hasInit()) return;
+
+    for (PhotonPipelineResult camResult : camera.getUnreadResults(VisionConstants.maxFramesPerCycle)) {
+      if (!camResult.hasTargets()) continue;
+
+      long startNanos = System.nanoTime();
+      double frameTime = camResult.getTimestampSeconds();
+      Optional<EstimatedRobotPose> result = camera.getEstimatedGlobalPose(referencePose.apply(frameTime), camResult);
+      lastSolveMs = (System.nanoTime() - startNanos) / 1e6;
+      maxSolveMs = Math.max(maxSolveMs, lastSolveMs);
+      if (result.isEmpty()) continue;
+
+      EstimatedRobotPose camPose = result.get();
+      double distanceSum = 0;
+      for (PhotonTrackedTarget target : camResult.getTargets()) {
+        distanceSum += target.getBestCameraToTarget().getTranslation().getNorm();
+      }
+      PhotonTrackedTarget bestTarget = camResult.getBestTarget();
+      int tagCount = camResult.getTargets().size();
+      add(new Measurement(camPose.estimatedPose.toPose2d(), camPose.timestampSeconds, tagCount,
+          bestTarget.getBestCameraToTarget().getX(), distanceSum / tagCount, bestTarget.getPoseAmbiguity()));
+    }
+  }
+
+  private void add(Measurement measurement) {
+    measurements.offer(measurement);
+    if (queued.incrementAndGet() > VisionConstants.maxQueuedMeasurements && measurements.poll() != null) {
+      queued.decrementAndGet();
+      measurementsDropped++;
+    }
+  }
+
+  /**
+   * Removes the oldest waiting measurement.  Call from the robot loop until it returns null.
+   * @return oldest measurement, or null if none are waiting
+   */
+  public Measurement poll() {
+    Measurement measurement = measurements.poll();
+    if (measurement != null) queued.decrementAndGet();
+    return measurement;
+  }
+
+  /**
+   * @return number of measurements discarded because the robot loop did not read them in time
+   */
+  public int getMeasurementsDropped() {
+    return measurementsDropped;
+  }
+
+  /**
+   * @return time to solve the robot pose for the last frame, in ms
+   */
+  public double getSolveMs() {
+    return lastSolveMs;
+  }
+
+  /**
+   * @return longest time to solve the robot pose for a frame, in ms
+   */
+  public double getMaxSolveMs() {
+    return maxSolveMs;
+  }
+
+  /**
+   * @return time from capture to processing of the newest frame, in ms
+   */
+  public double getLatencyMs() {
+    return camera.getLatencyMs();
+  }
+}
@@ -0,0 +1,38 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes allocated by the current thread, for tests that check a path does not allocate.
+ * Skips the test if the JVM cannot count allocations.
+ * <pre>
+ *   AllocationCounter counter = new AllocationCounter();
+ *   long before = counter.allocatedBytes();
+ *   ...
+ *   assertEquals(0, counter.allocatedBytes() - before);
+ * </pre>
+ */
+class AllocationCounter {
+  private final com.sun.management.ThreadMXBean threadBean;
+
+  AllocationCounter() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    allocatedBytes();     // The first call can allocate
+  }
+
+  /**
+   * @return bytes allocated by this thread so far
+   */
+  long allocatedBytes() {
+    return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.controls.ControlRequest;
+import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.OutputConstants;
+
+class ControlOutputTest {
+  private static final long kKeepAliveNanos = (long) (OutputConstants.keepAliveSeconds * 1e9);
+  private static final long kCycleNanos = 20_000_000L;
+  private static final long kTimeoutNanos = (long) (OutputConstants.controlTimeoutSeconds * 1e9);
+
+  /** ControlOutput that records the requests instead of sending them to a motor */
+  private static class RecordingOutput extends ControlOutput {
+    final List<ControlRequest> requests = new ArrayList<>();
+    final List<Double> values = new ArrayList<>();
+    final List<Long> sendNanos = new ArrayList<>();
+    StatusCode status = StatusCode.OK;
+    long now;
+
+    RecordingOutput() {
+      super("Test", null);
+    }
+
+    @Override
+    StatusCode send(ControlRequest request, double value, double feedForward) {
+      requests.add(request);
+      values.add(value);
+      sendNanos.add(now);
+      return status;
+    }
+  }
+
+  private final VoltageOut voltageRequest = new VoltageOut(0);
+  private RecordingOutput output;
+  private long now;
+
+  @BeforeAll
+  static void setup() {
+    HAL.initialize(500, 0);
+  }
+
+  @BeforeEach
+  void createOutput() {
+    // These tests flush explicitly, as flushAll() does at the end of each cycle
+    assumeTrue(OutputConstants.deferOutputs);
+    output = new RecordingOutput();
+    now = 1_000_000_000L;
+  }
+
+  /** Sets a voltage and runs one robot cycle */
+  private void cycle(double volts) {
+    output.setVoltage(voltageRequest, volts);
+    output.now = now;
+    output.flush(now);
+    now += kCycleNanos;
+  }
+
+  @Test
+  void unchangedRequestIsSuppressed() {
+    cycle(6.0);
+    cycle(6.0);
+    cycle(6.0);
+    assertEquals(List.of(6.0), output.values);
+
+    cycle(4.0);
+    assertEquals(List.of(6.0, 4.0), output.values);
+  }
+
+  @Test
+  void unchangedRequestIsResentAfterKeepAlive() {
+    cycle(6.0);
+    long firstSent = now - kCycleNanos;
+    while (now - firstSent < kKeepAliveNanos) {
+      cycle(6.0);
+    }
+    assertEquals(1, output.values.size());
+
+    cycle(6.0);
+    assertEquals(List.of(6.0, 6.0), output.values);
+  }
+
+  @Test
+  void keepAliveIsShorterThanControlTimeout() {
+    // An unchanged request is resent at the first flush after the keep-alive, so the longest gap is one cycle more
+    assertTrue(kKeepAliveNanos + kCycleNanos < kTimeoutNanos,
+      "keep-alive " + OutputConstants.keepAliveSeconds + " s + 1 cycle >= timeout " + OutputConstants.controlTimeoutSeconds + " s");
+    // Phoenix repeats the last control frame between sends, at the request's update rate
+    assertTrue(voltageRequest.UpdateFreqHz > 0, "one-shot request");
+    assertTrue(1.0 / voltageRequest.UpdateFreqHz < OutputConstants.controlTimeoutSeconds,
+      "control frame period " + 1.0 / voltageRequest.UpdateFreqHz + " s");
+  }
+
+  @Test
+  void unchangedRequestIsResentBeforeTimeout() {
+    // Hold the same request for 5 seconds
+    long start = now;
+    while (now - start < 5_000_000_000L) {
+      cycle(6.0);
+    }
+    assertTrue(output.sendNanos.size() > 1);
+
+    long lastSend = start;
+    for (long sendNanos : output.sendNanos) {
+      assertTrue(sendNanos - lastSend < kTimeoutNanos, "request not sent for " + (sendNanos - lastSend) / 1e9 + " s");
+      lastSend = sendNanos;
+    }
+    assertTrue(now - lastSend < kTimeoutNanos, "request not sent for " + (now - lastSend) / 1e9 + " s");
+  }
+
+  @Test
+  void invalidateAllForcesSend() {
+    cycle(6.0);
+    ControlOutput.invalidateAll();
+    cycle(6.0);
+    assertEquals(List.of(6.0, 6.0), output.values);
+  }
+
+  @Test
+  void neutralOnDisableReachesMotor() {
+    cycle(6.0);
+
+    // Robot disabled:  the subsystem sets the motor to 0 V
+    ControlOutput.invalidateAll();
+    cycle(0.0);
+    cycle(0.0);
+    assertEquals(List.of(6.0, 0.0), output.values);
+
+    // Enabled again with the same 0 V request:  the first request in the new mode is still sent
+    ControlOutput.invalidateAll();
+    cycle(0.0);
+    assertEquals(List.of(6.0, 0.0, 0.0), output.values);
+  }
+
+  @Test
+  void onlyLastRequestInCycleIsSent() {
+    VelocityVoltage velocityRequest = new VelocityVoltage(0);
+    output.setVoltage(voltageRequest, 3.0);
+    output.setVelocity(velocityRequest, 10.0, 0.5);
+    output.flush(now);
+    assertEquals(1, output.requests.size());
+    assertSame(velocityRequest, output.requests.get(0));
+    assertEquals(10.0, output.values.get(0));
+  }
+
+  @Test
+  void failedRequestIsSentAgain() {
+    output.status = StatusCode.EcuIsNotPresent;
+    cycle(6.0);
+    output.status = StatusCode.OK;
+    cycle(6.0);
+    cycle(6.0);
+    assertEquals(List.of(6.0, 6.0), output.values);
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.ctre.phoenix6.hardware.Pigeon2;
+import com.ctre.phoenix6.sim.Pigeon2SimState;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.Ports;
+import frc.robot.subsystems.DriveTrain;
+
+/**
+ * Fills the DriveTrain pose history from a DriveTrain built with simulated Phoenix devices, and checks that it
+ * is looked up with FPGA timestamps (the time base of PhotonVision results).  The FPGA clock is paused, so each
+ * robot cycle is at a known FPGA time while the Phoenix clock keeps running.
+ */
+class DriveTrainPoseHistoryTest {
+  private static final double kTimeoutSeconds = 2.0;     // Real time to wait for the odometry to see the new gyro angle
+
+  @RegisterExtension
+  static final TestLog log = new TestLog("poseHistoryTest");
+
+  @BeforeEach
+  void pauseTiming() {
+    SimHooks.pauseTiming();
+  }
+
+  @AfterEach
+  void resumeTiming() {
+    SimHooks.resumeTiming();
+  }
+
+  @Test
+  void historyIsLookedUpByFpgaTime() {
+    DriveTrain driveTrain = new DriveTrain(new AllianceSelection(log.get()), log.get());
+    // Another object for the same device shares its simulated state
+    Pigeon2SimState gyroSim = new Pigeon2(Ports.CANPigeonGyro, Ports.CANivoreBus).getSimState();
+
+    // Facing 0 degrees at t0
+    gyroSim.setRawYaw(0.0);
+    driveTrain.refreshSignals();
+    driveTrain.resetPose(new Pose2d());
+    double t0 = Timer.getFPGATimestamp();
+    assertEquals(t0, driveTrain.getState().timestampSeconds, 1e-6);
+
+    // Turned to 90 degrees at t1
+    SimHooks.stepTiming(0.2);
+    double t1 = Timer.getFPGATimestamp();
+    gyroSim.setRawYaw(90.0);
+    long deadline = System.nanoTime() + (long) (kTimeoutSeconds * 1e9);
+    do {
+      Timer.delay(0.005);     // Real time, since Thread.sleep() is not paused
+      driveTrain.periodic();
+    } while (Math.abs(driveTrain.getState().pose.getRotation().getDegrees() - 90.0) > 0.1 && System.nanoTime() < deadline);
+    assertEquals(90.0, driveTrain.getState().pose.getRotation().getDegrees(), 0.1);
+    assertEquals(t1, driveTrain.getState().timestampSeconds, 1e-6);
+
+    // A camera frame captured halfway between the two cycles
+    assertEquals(0.0, driveTrain.getHeadingAt(t0), 0.1);
+    assertEquals(45.0, driveTrain.getHeadingAt((t0 + t1) / 2), 0.1);
+    assertEquals(45.0, driveTrain.getPoseAt((t0 + t1) / 2).getRotation().getDegrees(), 0.1);
+    assertEquals(90.0, driveTrain.getHeadingAt(t1), 0.1);
+  }
+}
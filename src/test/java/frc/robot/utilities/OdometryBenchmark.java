@@ -0,0 +1,166 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.utilities.TrajectoryCache.TrajectoryFacing;
+import frc.robot.utilities.TrajectoryCache.TrajectoryType;
+
+/**
+ * Compares the odometry accuracy and cost of updating the pose estimator (PoseFusion) once per robot
+ * cycle (50 Hz) and on the odometry thread (SignalConstants.odometryHz), on the trajectories used by the autos.
+ * <p> Each trajectory in TrajectoryCache is simulated at 1 kHz:  the robot follows the trajectory exactly while
+ * turning smoothly from the initial to the final facing, and the swerve module positions and gyro angle are
+ * integrated from the robot motion.  The simulated sensors are then sampled at each odometry rate and run
+ * through PoseFusion, and the estimated pose is compared to the trajectory.  The sensors are perfect, so the
+ * error is only from the update rate.
+ * <p> Kept with the tests so it is not built into the robot jar.  Run from the desktop with:
+ *   ./gradlew benchmarkTest
+ */
+public class OdometryBenchmark {
+  private static final int kSimHz = 1000;       // Simulation rate.  Odometry rates are rounded to a divisor of this.
+
+  /** Result for one odometry rate */
+  public static class Result {
+    public final double rateHz;
+    public int trajectories = 0;
+    public int updates = 0;
+    public double maxErrorMeters = 0;         // Largest error at any update, over all trajectories
+    public double sumFinalErrorMeters = 0;
+    public double maxFinalErrorMeters = 0;
+    public double maxErrorDegrees = 0;
+    public long updateNanos = 0;              // Time spent in PoseFusion.updateOdometry()
+
+    public Result(double rateHz) {
+      this.rateHz = rateHz;
+    }
+
+    @Override
+    public String toString() {
+      double usPerUpdate = (updates == 0) ? 0 : updateNanos / 1000.0 / updates;
+      return String.format("%6.0f Hz:  final error mean %.4f m, max %.4f m;  max error %.4f m, %.3f deg;  " +
+          "%.2f us/update (%.2f%% CPU at this rate), %d updates",
+        rateHz, (trajectories == 0) ? 0 : sumFinalErrorMeters / trajectories, maxFinalErrorMeters,
+        maxErrorMeters, maxErrorDegrees, usPerUpdate, usPerUpdate * rateHz / 1e4, updates);
+    }
+  }
+
+  /** Simulated robot motion and sensors for one trajectory, at kSimHz */
+  private static class Simulation {
+    final Pose2d[] truth;
+    final Rotation2d[] gyro;
+    final SwerveModulePosition[][] modules;
+
+    Simulation(TrajectoryFacing facing) {
+      Trajectory trajectory = facing.trajectory;
+      double duration = trajectory.getTotalTimeSeconds();
+      double turn = facing.finalRotation.minus(facing.initialRotation).getRadians();
+      int steps = (int) Math.ceil(duration * kSimHz) + 1;
+      double dt = 1.0 / kSimHz;
+
+      truth = new Pose2d[steps];
+      gyro = new Rotation2d[steps];
+      modules = new SwerveModulePosition[steps][];
+      double[] distance = new double[4];
+      SwerveModuleState[] states = DriveConstants.kDriveKinematics.toSwerveModuleStates(new ChassisSpeeds());
+
+      for (int i = 0; i < steps; i++) {
+        double t = Math.min(i * dt, duration);
+        truth[i] = new Pose2d(trajectory.sample(t).poseMeters.getTranslation(), new Rotation2d(heading(facing, turn, duration, t)));
+        gyro[i] = truth[i].getRotation();
+        modules[i] = new SwerveModulePosition[4];
+        for (int m = 0; m < 4; m++) {
+          modules[i][m] = new SwerveModulePosition(distance[m], states[m].angle);
+        }
+
+        // Move the modules to the next step, using the robot motion at the middle of the step
+        double tMid = Math.min(t + dt / 2, duration);
+        Trajectory.State state = trajectory.sample(tMid);
+        double headingMid = heading(facing, turn, duration, tMid);
+        double omega = (duration <= 0) ? 0 : turn * Math.PI / (2 * duration) * Math.sin(Math.PI * tMid / duration);
+        ChassisSpeeds speeds = ChassisSpeeds.fromFieldRelativeSpeeds(
+          state.velocityMetersPerSecond * state.poseMeters.getRotation().getCos(),
+          state.velocityMetersPerSecond * state.poseMeters.getRotation().getSin(),
+          omega, new Rotation2d(headingMid));
+        SwerveModuleState[] next = DriveConstants.kDriveKinematics.toSwerveModuleStates(speeds);
+        for (int m = 0; m < 4; m++) {
+          distance[m] += next[m].speedMetersPerSecond * dt;
+          // Keep the previous facing when the module is stopped, the same as the real modules
+          if (Math.abs(next[m].speedMetersPerSecond) > 1e-6) states[m] = next[m];
+        }
+      }
+    }
+
+    /**
+     * @return robot facing at time t, turning smoothly from the initial to the final facing, in radians
+     */
+    private static double heading(TrajectoryFacing facing, double turn, double duration, double t) {
+      double fraction = (duration <= 0) ? 1 : (1 - Math.cos(Math.PI * t / duration)) / 2;
+      return facing.initialRotation.getRadians() + turn * fraction;
+    }
+  }
+
+  /**
+   * Runs one simulated trajectory through PoseFusion at one odometry rate.
+   */
+  private static void runOdometry(Simulation sim, Result result) {
+    int stride = Math.max(1, (int) Math.round(kSimHz / result.rateHz));
+    PoseFusion fusion = new PoseFusion(DriveConstants.kDriveKinematics, sim.gyro[0], sim.modules[0], sim.truth[0]);
+    Pose2d pose = sim.truth[0];
+    int last = sim.truth.length - 1;
+
+    for (int i = stride; ; i += stride) {
+      i = Math.min(i, last);
+      long start = System.nanoTime();
+      pose = fusion.updateOdometry(i / (double) kSimHz, sim.gyro[i], sim.modules[i]);
+      result.updateNanos += System.nanoTime() - start;
+      result.updates++;
+
+      result.maxErrorMeters = Math.max(result.maxErrorMeters, pose.getTranslation().getDistance(sim.truth[i].getTranslation()));
+      result.maxErrorDegrees = Math.max(result.maxErrorDegrees, Math.abs(pose.getRotation().minus(sim.truth[i].getRotation()).getDegrees()));
+      if (i == last) break;
+    }
+
+    double finalError = pose.getTranslation().getDistance(sim.truth[last].getTranslation());
+    result.sumFinalErrorMeters += finalError;
+    result.maxFinalErrorMeters = Math.max(result.maxFinalErrorMeters, finalError);
+    result.trajectories++;
+  }
+
+  /**
+   * Runs all of the auto trajectories at each odometry rate.
+   * @param log FileLog for building the trajectories
+   * @param ratesHz odometry rates to compare
+   * @return result for each rate
+   */
+  public static Result[] run(FileLog log, double... ratesHz) {
+    TrajectoryCache cache = new TrajectoryCache(log);
+    Result[] results = new Result[ratesHz.length];
+    for (int r = 0; r < ratesHz.length; r++) {
+      results[r] = new Result(ratesHz[r]);
+    }
+
+    for (TrajectoryType type : TrajectoryType.values()) {
+      TrajectoryCache.TrajectoryFacingPair pair = cache.cache[type.value];
+      if (pair == null) continue;
+      // Colorless trajectories use the same object for red and blue, so only run them once
+      TrajectoryFacing[] facings = (pair.red == pair.blue) ? new TrajectoryFacing[] {pair.red} : new TrajectoryFacing[] {pair.red, pair.blue};
+      for (TrajectoryFacing facing : facings) {
+        if (facing.trajectory == null) continue;
+        Simulation sim = new Simulation(facing);
+        for (Result result : results) {
+          runOdometry(sim, result);
+        }
+      }
+    }
+    return results;
+  }
+}
@@ -0,0 +1,37 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import frc.robot.Constants.SignalConstants;
+
+/**
+ * Runs OdometryBenchmark on the auto trajectories at 50 Hz and at the odometry thread rate, and checks that the
+ * faster rate is at least as accurate and stays within an error bound.  Simulating every trajectory takes a while,
+ * so this is tagged "benchmark" and only runs with:  ./gradlew benchmarkTest
+ */
+@Tag("benchmark")
+class OdometryBenchmarkTest {
+  private static final double kMaxFinalErrorMeters = 0.1;    // Perfect sensors, so any error is from the update rate
+
+  @RegisterExtension
+  static final TestLog log = new TestLog("odometryBenchmark");
+
+  @Test
+  void threadRateIsAtLeastAsAccurate() {
+    OdometryBenchmark.Result[] results = OdometryBenchmark.run(log.get(), 50.0, SignalConstants.odometryHz);
+
+    OdometryBenchmark.Result slow = results[0], fast = results[1];
+    assertTrue(slow.trajectories > 0, "no trajectories");
+    assertTrue(fast.updates > slow.updates, fast + " / " + slow);
+    assertTrue(fast.sumFinalErrorMeters <= slow.sumFinalErrorMeters + 1e-9, fast + " / " + slow);
+    assertTrue(fast.maxFinalErrorMeters < kMaxFinalErrorMeters, fast.toString());
+  }
+}
@@ -0,0 +1,56 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Replays PoseReplayFixture.csv:  41 cycles driving forward, a close vision frame at the logged pose and a
+ * far vision frame (9.5 m) 0.5 m in front of it, 30 cycles strafing left, a pose reset, then 20 cycles
+ * driving forward.  The robot never turns, so the logged poses are exact.  With the default gating the far
+ * frame is rejected and the replay should match the logged poses;  with gating that uses the far frame,
+ * the replayed pose should diverge until the reset.
+ */
+class PoseReplayTest {
+  private static final double kMaxErrorMeters = 1e-6;
+  private static final double kMaxErrorDegrees = 1e-6;
+  private static final double kMinDivergenceMeters = 0.1;     // Far frame is 0.5 m off, and is trusted as much as odometry
+
+  private static File fixture() throws Exception {
+    return new File(PoseReplayTest.class.getResource("PoseReplayFixture.csv").toURI());
+  }
+
+  @Test
+  void replayMatchesLoggedPose() throws Exception {
+    PoseReplay.Result result = PoseReplay.run(fixture(), null);
+
+    assertEquals(91, result.cycles);
+    assertEquals(1, result.resets);
+    assertEquals(2, result.visionMeasurements);
+    assertEquals(1, result.visionUsed);
+    assertEquals(1.8, result.matchSeconds, 1e-9);
+    assertTrue(result.maxErrorMeters < kMaxErrorMeters, "max error " + result.maxErrorMeters);
+    assertTrue(result.maxErrorDegrees < kMaxErrorDegrees, "max rotation error " + result.maxErrorDegrees);
+    assertTrue(result.rmsErrorMeters <= result.maxErrorMeters);
+  }
+
+  @Test
+  void farFrameDivergesWhenGatingAllowsIt() throws Exception {
+    // Use both frames by moving the far limit past the far frame
+    PoseReplay.Result result = PoseReplay.run(fixture(),
+      fusion -> fusion.setVisionGating(3.0, 10.0, new double[] {0.1, 0.1, 0.1}));
+
+    assertEquals(2, result.visionUsed);
+    assertTrue(result.maxErrorMeters > kMinDivergenceMeters, "max error " + result.maxErrorMeters);
+    assertTrue(result.maxErrorMeters < 0.5, "max error " + result.maxErrorMeters);
+    // The reset puts the replay back on the logged pose
+    assertTrue(result.finalErrorMeters < kMaxErrorMeters, "final error " + result.finalErrorMeters);
+  }
+}
@@ -0,0 +1,34 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Command line entry point for PoseReplay.  Kept with the tests so it is not built into the robot jar.
+ * Run from the desktop with:  ./gradlew replayPose --args="logfile.csv [closeMeters farMeters farStdDev]"
+ */
+public class PoseReplayTool {
+
+  /**
+   * Replays a log file and prints the result.
+   * @param args log file name, and optionally the vision gating to try:  closeMeters farMeters farStdDev
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1 && args.length != 4) {
+      System.out.println("Usage:  PoseReplay logfile.csv [closeMeters farMeters farStdDev]");
+      return;
+    }
+
+    Consumer<PoseFusion> configure = null;
+    if (args.length == 4) {
+      double close = Double.parseDouble(args[1]), far = Double.parseDouble(args[2]), stdDev = Double.parseDouble(args[3]);
+      configure = fusion -> fusion.setVisionGating(close, far, new double[] {stdDev, stdDev, stdDev});
+    }
+    System.out.println(PoseReplay.run(new File(args[0]), configure));
+  }
+}
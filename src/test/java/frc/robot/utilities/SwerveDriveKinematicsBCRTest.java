@@ -0,0 +1,121 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.SwerveConstants;
+
+/**
+ * Checks that SwerveDriveKinematicsBCR gives the same results as WPILib's SwerveDriveKinematics,
+ * on random chassis speeds (including a stopped robot and rotation about other points).
+ */
+class SwerveDriveKinematicsBCRTest {
+  private static final double kTolerance = 1e-9;
+  private static final int kIterations = 100_000;
+
+  private final SwerveDriveKinematics wpiKinematics = new SwerveDriveKinematics(DriveConstants.kModuleLocations);
+  private final SwerveDriveKinematicsBCR kinematics = new SwerveDriveKinematicsBCR(DriveConstants.kModuleLocations);
+  private final double[] speeds = new double[4];
+  private final double[] angles = new double[4];
+  private final double[] chassis = new double[3];
+  private Random random;
+
+  @BeforeEach
+  void createRandom() {
+    random = new Random(2025);
+  }
+
+  /**
+   * @return random chassis speeds, stopped 1 time in 20
+   */
+  private ChassisSpeeds randomChassisSpeeds() {
+    if (random.nextInt(20) == 0) return new ChassisSpeeds();
+    return new ChassisSpeeds((random.nextDouble() * 2 - 1) * 6.0, (random.nextDouble() * 2 - 1) * 6.0,
+      (random.nextDouble() * 2 - 1) * 12.0);
+  }
+
+  private static void assertModulesEqual(SwerveModuleState[] expected, double[] speeds, double[] angles) {
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].speedMetersPerSecond, speeds[i], kTolerance, "module " + i + " speed");
+      // Only compare the angles of moving modules, since the angle of a nearly stopped module is noise
+      if (Math.abs(expected[i].speedMetersPerSecond) > 1e-6) {
+        assertEquals(0.0, MathUtil.angleModulus(expected[i].angle.getRadians() - angles[i]), kTolerance, "module " + i + " angle");
+      }
+    }
+  }
+
+  private static void assertChassisEqual(ChassisSpeeds expected, double[] chassisSpeeds) {
+    assertEquals(expected.vxMetersPerSecond, chassisSpeeds[0], kTolerance, "vx");
+    assertEquals(expected.vyMetersPerSecond, chassisSpeeds[1], kTolerance, "vy");
+    assertEquals(expected.omegaRadiansPerSecond, chassisSpeeds[2], kTolerance, "omega");
+  }
+
+  @Test
+  void toModuleStatesMatchesWpilib() {
+    for (int n = 0; n < kIterations; n++) {
+      ChassisSpeeds speedsIn = randomChassisSpeeds();
+      Translation2d center = (random.nextInt(4) == 0)
+        ? new Translation2d((random.nextDouble() * 2 - 1), (random.nextDouble() * 2 - 1)) : new Translation2d();
+
+      SwerveModuleState[] expected = wpiKinematics.toSwerveModuleStates(speedsIn, center);
+      kinematics.toModuleStates(speedsIn.vxMetersPerSecond, speedsIn.vyMetersPerSecond, speedsIn.omegaRadiansPerSecond,
+        center.getX(), center.getY(), speeds, angles);
+      assertModulesEqual(expected, speeds, angles);
+    }
+  }
+
+  @Test
+  void toChassisSpeedsMatchesWpilib() {
+    for (int n = 0; n < kIterations; n++) {
+      SwerveModuleState[] states = wpiKinematics.toSwerveModuleStates(randomChassisSpeeds());
+      for (int i = 0; i < 4; i++) {
+        speeds[i] = states[i].speedMetersPerSecond;
+        angles[i] = states[i].angle.getRadians();
+      }
+
+      kinematics.toChassisSpeeds(speeds, angles, chassis);
+      assertChassisEqual(wpiKinematics.toChassisSpeeds(states), chassis);
+    }
+  }
+
+  @Test
+  void discretizeMatchesWpilib() {
+    for (int n = 0; n < kIterations; n++) {
+      ChassisSpeeds speedsIn = randomChassisSpeeds();
+      chassis[0] = speedsIn.vxMetersPerSecond;
+      chassis[1] = speedsIn.vyMetersPerSecond;
+      chassis[2] = speedsIn.omegaRadiansPerSecond;
+
+      SwerveDriveKinematicsBCR.discretize(chassis, SwerveConstants.dt);
+      assertChassisEqual(ChassisSpeeds.discretize(speedsIn, SwerveConstants.dt), chassis);
+    }
+  }
+
+  @Test
+  void setModuleStatesPathMatchesWpilib() {
+    // Inverse kinematics and desaturate, the same as DriveTrain.setModuleStates()
+    for (int n = 0; n < kIterations; n++) {
+      ChassisSpeeds speedsIn = randomChassisSpeeds();
+
+      SwerveModuleState[] expected = wpiKinematics.toSwerveModuleStates(speedsIn);
+      SwerveDriveKinematics.desaturateWheelSpeeds(expected, SwerveConstants.kMaxSpeedMetersPerSecond);
+      kinematics.toModuleStates(speedsIn.vxMetersPerSecond, speedsIn.vyMetersPerSecond, speedsIn.omegaRadiansPerSecond, speeds, angles);
+      SwerveDriveKinematicsBCR.desaturate(speeds, SwerveConstants.kMaxSpeedMetersPerSecond);
+      assertModulesEqual(expected, speeds, angles);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.controls.ControlRequest;
+import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
+
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.Ports;
+import frc.robot.Constants.SwerveConstants;
+import frc.robot.subsystems.SwerveModule;
+import frc.robot.utilities.MathSwerveModuleState.ModuleTarget;
+
+/**
+ * Checks that the per-cycle SwerveModule.setDesiredState() path does not allocate once it is warmed up:
+ * setDesiredState() and ControlOutput.flushAll() (which sends the requests with TalonFX.setControl()) on a module
+ * built with simulated Phoenix devices, and the parts of the path (the primitive
+ * MathSwerveModuleState.optimize() and setting and flushing a ControlOutput) on their own.  Also checks the
+ * SwerveDriveKinematicsBCR calls on the DriveTrain.setModuleStates() path (see KinematicsBenchmark for its speed).
+ */
+class SwerveModuleAllocationTest {
+  private static final int kWarmup = 50_000;
+  private static final int kCalls = 10_000;
+
+  @RegisterExtension
+  static final TestLog log = new TestLog("allocationTest");
+  private AllocationCounter counter;
+
+  /** ControlOutput that counts the requests instead of sending them to a motor */
+  private static class CountingOutput extends ControlOutput {
+    int sends = 0;
+
+    CountingOutput() {
+      super("Allocation Test", null);
+    }
+
+    @Override
+    StatusCode send(ControlRequest request, double value, double feedForward) {
+      sends++;
+      return StatusCode.OK;
+    }
+  }
+
+  @BeforeEach
+  void createCounter() {
+    counter = new AllocationCounter();
+  }
+
+  private static double optimizeCalls(ModuleTarget target, int calls) {
+    double sum = 0;
+    for (int n = 0; n < calls; n++) {
+      // Desired angles on both sides of the current angle, and current angles outside +/-180
+      MathSwerveModuleState.optimize(1.5, (n % 360) - 180.0, (n % 1000) - 500.0, target);
+      sum += target.speedMetersPerSecond + target.angleDegrees;
+    }
+    return sum;
+  }
+
+  private static void outputCalls(CountingOutput output, VelocityVoltage velocityRequest, VoltageOut voltageRequest,
+      long startNanos, int calls) {
+    for (int n = 0; n < calls; n++) {
+      // Same as setDesiredState():  velocity while driving, and some unchanged requests that are suppressed
+      if (n % 4 == 0) {
+        output.setVoltage(voltageRequest, 0.0);
+      } else {
+        output.setVelocity(velocityRequest, n % 50, 0.25);
+      }
+      output.flush(startNanos + n * 20_000_000L);
+    }
+  }
+
+  private static double kinematicsCalls(SwerveDriveKinematicsBCR kinematics, double[] speeds, double[] angles,
+      double[] chassis, int calls) {
+    double sum = 0;
+    for (int n = 0; n < calls; n++) {
+      // Same as DriveTrain.setModuleStates():  forward kinematics, discretize, inverse kinematics, desaturate
+      for (int i = 0; i < 4; i++) {
+        speeds[i] = ((n + i) % 100 - 50) * 0.1;
+        angles[i] = ((n * 7 + i * 90) % 360 - 180) * Math.PI / 180.0;
+      }
+      kinematics.toChassisSpeeds(speeds, angles, chassis);
+      SwerveDriveKinematicsBCR.discretize(chassis, SwerveConstants.dt);
+      kinematics.toModuleStates(chassis[0], chassis[1], chassis[2], speeds, angles);
+      SwerveDriveKinematicsBCR.desaturate(speeds, SwerveConstants.kMaxSpeedMetersPerSecond);
+      sum += speeds[0] + angles[0];
+    }
+    return sum;
+  }
+
+  private static void setDesiredStateCalls(SwerveModule module, int calls) {
+    for (int n = 0; n < calls; n++) {
+      // Closed loop while driving, open loop every 4th call, and desired angles all the way around
+      module.setDesiredState(((n % 100) - 50) * 0.05, (n % 720) - 360.0, n % 4 == 0);
+      // End of the robot cycle:  send the requests to the simulated TalonFXs
+      ControlOutput.flushAll();
+    }
+  }
+
+  @Test
+  void setDesiredStateDoesNotAllocate() {
+    SwerveModule module = new SwerveModule("Test", Ports.CANDriveFrontLeftMotor, Ports.CANDriveTurnFrontLeftMotor,
+      Ports.CANTurnEncoderFrontLeft, false, true, false, 0.0, SwerveConstants.kVmFL, log.get());
+    setDesiredStateCalls(module, kWarmup);
+
+    long before = counter.allocatedBytes();
+    setDesiredStateCalls(module, kCalls);
+    long allocated = counter.allocatedBytes() - before;
+
+    assertEquals(0, allocated, "bytes allocated in " + kCalls + " calls");
+  }
+
+  @Test
+  void optimizeDoesNotAllocate() {
+    ModuleTarget target = new ModuleTarget();
+    double sink = optimizeCalls(target, kWarmup);
+
+    long before = counter.allocatedBytes();
+    sink += optimizeCalls(target, kCalls);
+    long allocated = counter.allocatedBytes() - before;
+
+    assertTrue(Double.isFinite(sink));
+    assertEquals(0, allocated, "bytes allocated in " + kCalls + " calls");
+  }
+
+  @Test
+  void controlOutputDoesNotAllocate() {
+    CountingOutput output = new CountingOutput();
+    VelocityVoltage velocityRequest = new VelocityVoltage(0);
+    VoltageOut voltageRequest = new VoltageOut(0);
+    outputCalls(output, velocityRequest, voltageRequest, 0, kWarmup);
+
+    long before = counter.allocatedBytes();
+    outputCalls(output, velocityRequest, voltageRequest, kWarmup * 20_000_000L, kCalls);
+    long allocated = counter.allocatedBytes() - before;
+
+    assertTrue(output.sends > 0);
+    assertEquals(0, allocated, "bytes allocated in " + kCalls + " calls");
+  }
+
+  @Test
+  void kinematicsDoesNotAllocate() {
+    SwerveDriveKinematicsBCR kinematics = new SwerveDriveKinematicsBCR(DriveConstants.kModuleLocations);
+    double[] speeds = new double[4];
+    double[] angles = new double[4];
+    double[] chassis = new double[3];
+    double sink = kinematicsCalls(kinematics, speeds, angles, chassis, kWarmup);
+
+    long before = counter.allocatedBytes();
+    sink += kinematicsCalls(kinematics, speeds, angles, chassis, kCalls);
+    long allocated = counter.allocatedBytes() - before;
+
+    assertTrue(Double.isFinite(sink));
+    assertEquals(0, allocated, "bytes allocated in " + kCalls + " calls");
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.utilities;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * Starts the HAL and opens a FileLog in a temporary directory before the tests in a class, and closes the
+ * log and deletes the directory after them.
+ * <pre>
+ *   &#64;RegisterExtension
+ *   static final TestLog log = new TestLog("allocationTest");
+ *   ...
+ *   new SwerveModule(..., log.get());
+ * </pre>
+ */
+class TestLog implements BeforeAllCallback, AfterAllCallback {
+  private final String name;
+  private Path dir;
+  private FileLog log;
+
+  /**
+   * @param name file name for the log (ex. the test name)
+   */
+  TestLog(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public void beforeAll(ExtensionContext context) throws IOException {
+    assertTrue(HAL.initialize(500, 0));
+    dir = Files.createTempDirectory(name);
+    log = new FileLog(dir.resolve(name).toString(), "test");
+  }
+
+  @Override
+  public void afterAll(ExtensionContext context) {
+    log.close();
+    delete(dir.toFile());
+  }
+
+  /**
+   * @return FileLog for the tests in this class
+   */
+  FileLog get() {
+    return log;
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}